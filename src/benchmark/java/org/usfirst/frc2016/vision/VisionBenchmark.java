@@ -0,0 +1,80 @@
+package org.usfirst.frc2016.vision;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.opencv.core.Mat;
+import org.opencv.imgcodecs.Imgcodecs;
+
+import edu.wpi.first.cscore.CameraServerCvJNI;
+
+/**
+ * Desktop runner for BallPipeline. Loads the images in a directory (ex. saved
+ * from the robot camera), runs them through the pipeline and reports
+ * frames/sec and the time spent in each stage.
+ * <p>
+ * Not part of the robot jar, run it on the desktop with
+ * ./gradlew visionBenchmark -Pimages=directory [-Ppasses=10]
+ * <p>
+ * Usage: VisionBenchmark directory [passes]
+ */
+public class VisionBenchmark {
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: VisionBenchmark directory [passes]");
+            return;
+        }
+        int passes = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+        CameraServerCvJNI.forceLoad();
+
+        File[] files = new File(args[0]).listFiles();
+        if (files == null) {
+            System.out.println("Can't read " + args[0]);
+            return;
+        }
+        Arrays.sort(files);
+
+        // images are loaded up front so only the pipeline is timed
+        ArrayList<Mat> images = new ArrayList<>();
+        for (File file : files) {
+            String name = file.getName().toLowerCase();
+            if (name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png")) {
+                Mat image = Imgcodecs.imread(file.getPath());
+                if (!image.empty()) {
+                    images.add(image);
+                }
+            }
+        }
+        if (images.isEmpty()) {
+            System.out.println("No images in " + args[0]);
+            return;
+        }
+
+        BallPipeline pipeline = new BallPipeline();
+
+        // one untimed pass to warm up
+        for (Mat image : images) {
+            pipeline.process(image);
+        }
+        pipeline.resetStats();
+
+        long balls = 0;
+        long start = System.nanoTime();
+        for (int pass = 0; pass < passes; pass++) {
+            for (Mat image : images) {
+                pipeline.process(image);
+                balls += pipeline.getCount();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1.0e9;
+        long frames = pipeline.getFrames();
+
+        System.out.printf("%d images, %d frames in %.2f s: %.1f frames/sec, %.2f balls/frame%n", images.size(),
+                frames, seconds, frames / seconds, (double) balls / frames);
+        for (int i = 0; i < BallPipeline.STAGE_COUNT; i++) {
+            System.out.printf("  %-10s avg %.3f ms  max %.3f ms%n", BallPipeline.getStageName(i),
+                    pipeline.getStageAverageMs(i), pipeline.getStageMaxMs(i));
+        }
+    }
+}
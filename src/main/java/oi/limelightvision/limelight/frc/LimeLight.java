@@ -17,6 +17,7 @@ public class LimeLight {
     private String m_tableName;
     private Boolean isConnected = false;
     private double _hearBeatPeriod = 0.1;
+    private LimeLightSubscriber subscriber;
 
     class PeriodicRunnable implements java.lang.Runnable {
 	    public void run() {
@@ -63,6 +64,16 @@ public class LimeLight {
        
     }
 
+    /**
+     * Listener based frames, made the first time it is asked for
+     */
+    public synchronized LimeLightSubscriber getSubscriber() {
+        if (subscriber == null) {
+            subscriber = new LimeLightSubscriber(m_table);
+        }
+        return subscriber;
+    }
+
     //This is a test
     public boolean isConnected(){
         return isConnected;
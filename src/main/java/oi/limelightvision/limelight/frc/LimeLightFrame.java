@@ -0,0 +1,73 @@
+package oi.limelightvision.limelight.frc;
+
+/**
+ * One set of Lime Light values. Frames are immutable, a new frame is made
+ * each time the camera sends new values so all the values in a frame belong
+ * together.
+ */
+public final class LimeLightFrame {
+    public static final int RAW_TARGETS = 3;
+
+    public static final LimeLightFrame EMPTY = new LimeLightFrame(0, 0, new double[LimeLightSubscriber.KEY_COUNT]);
+
+    private final long id;
+    private final double time;
+    private final double[] values;
+
+    LimeLightFrame(long id, double time, double[] values) {
+        this.id = id;
+        this.time = time;
+        this.values = values;
+    }
+
+    // increases each time the camera sends a new frame
+    public long getId() {
+        return id;
+    }
+
+    // FPGA time the values were received in seconds
+    public double getTime() {
+        return time;
+    }
+
+    public boolean isTargetFound() {
+        return values[LimeLightSubscriber.TV] != 0.0;
+    }
+
+    public double getdegRotationToTarget() {
+        return values[LimeLightSubscriber.TX];
+    }
+
+    public double getdegVerticalToTarget() {
+        return values[LimeLightSubscriber.TY];
+    }
+
+    public double getTargetArea() {
+        return values[LimeLightSubscriber.TA];
+    }
+
+    public double getSkew_Rotation() {
+        return values[LimeLightSubscriber.TS];
+    }
+
+    public double getPipelineLatency() {
+        return values[LimeLightSubscriber.TL];
+    }
+
+    // raw (ungrouped) targets, x and y are -1 to 1 in screen space
+    public double getRawX(int target) {
+        return values[LimeLightSubscriber.RAW + target * 4];
+    }
+
+    public double getRawY(int target) {
+        return values[LimeLightSubscriber.RAW + target * 4 + 1];
+    }
+
+    public double getRawArea(int target) {
+        return values[LimeLightSubscriber.RAW + target * 4 + 2];
+    }
+
+    public double getRawSkew(int target) {
+        return values[LimeLightSubscriber.RAW + target * 4 + 3];
+    }
+}
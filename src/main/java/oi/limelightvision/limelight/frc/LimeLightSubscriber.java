@@ -0,0 +1,153 @@
+package oi.limelightvision.limelight.frc;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.wpi.first.networktables.EntryListenerFlags;
+import edu.wpi.first.networktables.EntryNotification;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTablesJNI;
+import edu.wpi.first.wpilibj.Timer;
+
+/**
+ * Listens for Lime Light values instead of reading the table on each call.
+ * The updates are polled a batch at a time on a background thread, each batch
+ * is what arrived in one NetworkTables flush from the camera. All the values
+ * in the batch are applied before one LimeLightFrame is made, so a frame never
+ * mixes values from two camera frames. A frame is made whenever any value
+ * changed, tl or not. getFrame() returns the newest one without any table
+ * lookups.
+ * <p>
+ * Only remote updates are used, values written on this side (ex. the
+ * LimeLight heartbeat clearing tl) are ignored. Frames are stamped with the
+ * FPGA time they were received, the same clock as the pose history.
+ */
+public class LimeLightSubscriber {
+    static final int TV = 0;
+    static final int TX = 1;
+    static final int TY = 2;
+    static final int TA = 3;
+    static final int TS = 4;
+    static final int TL = 5;
+    static final int RAW = 6; // tx0, ty0, ta0, ts0, tx1 ...
+    static final int KEY_COUNT = RAW + LimeLightFrame.RAW_TARGETS * 4;
+
+    private static final String[] KEYS = { "tv", "tx", "ty", "ta", "ts", "tl" };
+    private static final String[] RAW_KEYS = { "tx", "ty", "ta", "ts" };
+    private static final double POLL_TIMEOUT = 0.25; // seconds, how long close() can take
+
+    private NetworkTableInstance instance;
+    private final NetworkTableEntry[] entries = new NetworkTableEntry[KEY_COUNT];
+    private final int[] entryHandles = new int[KEY_COUNT];
+    private int poller;
+    private Thread pollThread;
+    private volatile boolean running = false;
+
+    // only changed by the poll thread
+    private final double[] values = new double[KEY_COUNT];
+    private boolean changed = false;
+    private long frameId = 0;
+
+    private final AtomicReference<LimeLightFrame> frame = new AtomicReference<>(LimeLightFrame.EMPTY);
+
+    public LimeLightSubscriber(NetworkTable table) {
+        instance = table.getInstance();
+        poller = NetworkTablesJNI.createEntryListenerPoller(instance.getHandle());
+        for (int i = 0; i < KEY_COUNT; i++) {
+            entries[i] = table.getEntry(keyName(i));
+            entryHandles[i] = entries[i].getHandle();
+            NetworkTablesJNI.addPolledEntryListener(poller, entryHandles[i],
+                    EntryListenerFlags.kImmediate | EntryListenerFlags.kNew | EntryListenerFlags.kUpdate);
+        }
+
+        running = true;
+        pollThread = new Thread(this::poll, "LimeLightSubscriber");
+        pollThread.setDaemon(true);
+        pollThread.start();
+    }
+
+    // no table, values come from set() and publish()
+    LimeLightSubscriber() {
+    }
+
+    static String keyName(int index) {
+        if (index < RAW) {
+            return KEYS[index];
+        }
+        return RAW_KEYS[(index - RAW) % 4] + ((index - RAW) / 4);
+    }
+
+    private void poll() {
+        while (running) {
+            EntryNotification[] batch;
+            try {
+                batch = NetworkTablesJNI.pollEntryListenerTimeout(instance, poller, POLL_TIMEOUT);
+            } catch (InterruptedException e) {
+                break;
+            }
+            if (batch == null || batch.length == 0) {
+                continue;
+            }
+            double time = Timer.getFPGATimestamp();
+            for (EntryNotification event : batch) {
+                int index = indexOf(event.entry);
+                if (index >= 0 && event.value.isDouble()) {
+                    set(index, event.value.getDouble());
+                }
+            }
+            publish(time);
+        }
+    }
+
+    private int indexOf(int entryHandle) {
+        for (int i = 0; i < KEY_COUNT; i++) {
+            if (entryHandles[i] == entryHandle) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // one value of the batch being read
+    void set(int index, double value) {
+        if (values[index] != value) {
+            values[index] = value;
+            changed = true;
+        }
+    }
+
+    /**
+     * Ends a batch, makes a new frame if any value changed
+     *
+     * @param time seconds the batch was received
+     * @return true if a frame was made
+     */
+    boolean publish(double time) {
+        if (!changed) {
+            return false;
+        }
+        changed = false;
+        frame.set(new LimeLightFrame(++frameId, time, values.clone()));
+        return true;
+    }
+
+    // newest values from the camera
+    public LimeLightFrame getFrame() {
+        return frame.get();
+    }
+
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        NetworkTablesJNI.cancelPollEntryListener(poller);
+        try {
+            pollThread.join((long) (2000 * POLL_TIMEOUT));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        NetworkTablesJNI.destroyEntryListenerPoller(poller);
+    }
+}
@@ -5,6 +5,7 @@ import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -15,8 +16,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 // import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.nio.file.Files;
@@ -43,6 +47,7 @@ public class AutoPilot {
 
 	private long nanoTimeStart; // nanoseconds
 	private long nanoTimeLast;
+	private double profileTime; // seconds, time-warped when tracking
 	private double[] lastDistance;
 	private int[] updateHistogram = new int[HIST_SIZE];
 
@@ -51,6 +56,7 @@ public class AutoPilot {
 
 	private Map<String, NamedSequence> mapSequences;
 	private Map<String, ImplementedMethod> mapImplementedMethods;
+	private Map<Class<?>, ArgConverter> mapArgConverters = new HashMap<>();
 	private String currentSequenceName = null;
 
 	private ArrayList<SequenceAction> actionList;
@@ -67,12 +73,55 @@ public class AutoPilot {
 	private double turnRadius = 30;
 	private double moveSequenceTime = 0;
 	private double actionSequenceTime = 0;
+	private double sequenceTankWidth = 26;
+
+	// closed loop tracking, slows the profile clock when the drive falls behind
+	private Boolean trackingEnabled = false;
+	private double trackingWarpError = 0.5; // inches, profile slows above this error
+	private double trackingPauseError = 2.0; // inches, profile stops above this error
+	private double trackingError = 0;
+
+	// precomputed sequence tables, looked up instead of walking the move segments
+	private double tableResolutionMs = 0; // 0 -> tables not used
+	private long tableBudgetBytes = 4 * 1024 * 1024;
+	private long tableBytes = 0;
+	private LinkedHashMap<String, SequenceTable> tableCache = new LinkedHashMap<>(16, 0.75f, true);
+	private SequenceTable currentTable = null;
 
 	private String status;
 	private Boolean tracing = true;
 	private Boolean finished = true;
 
-	private ArrayList<AutoPilotPerformance> robotPerf = new ArrayList<AutoPilotPerformance>();
+	// drive log, sized for the longest sequence at the top log rate when the
+	// file loads, the other one is being written out by the save thread. The
+	// logger's timer thread and the robot thread take the log out of perfLog
+	// while they use it, see takePerfLog()
+	private final AtomicReference<AutoPilotPerformance> perfLog = new AtomicReference<>(new AutoPilotPerformance());
+	private AutoPilotPerformance perfSaving = new AutoPilotPerformance();
+	private volatile boolean perfSaveBusy = false;
+
+	private static final double MAX_LOG_RATE_HZ = 100; // AutoPilotRobot logs from its 10 ms task
+	private double logRateHz = MAX_LOG_RATE_HZ;
+	private double nextLogTime = 0;
+	private final double logMarginSeconds = 3; // tracking can stretch a run past its planned time
+
+	// dry runs skip the robot's actions and keep nothing, see dryRunStart()
+	private static final Object[] NO_ARGS = new Object[0];
+	private final ImplementedMethod dryRunMethod;
+	private boolean dryRun = false;
+	private long dryRunPeriodNanos = 0;
+	private long dryRunClock = 0;
+	private int dryRunLimit = 0;
+	private int dryRunTicks = 0;
+	private long dryRunNanos = 0;
+	// put back when the dry run ends
+	private Boolean dryRunWasTracing;
+	private String dryRunWasStatus;
+	private int[] dryRunWasHistogram;
+	private Boolean dryRunWasTracking;
+	private double dryRunWasWarpError;
+	private double dryRunWasPauseError;
+	private final Double[] dryRunWasOffset = new Double[MOTOR_MAX];
 
 	public enum MoveEnd {
 		GO, STOP
@@ -89,6 +138,12 @@ public class AutoPilot {
 	public AutoPilot() {
 		mapImplementedMethods = new HashMap<>();
 		addMethods(this);
+		try {
+			dryRunMethod = new ImplementedMethod("AutoPilot", this, AutoPilot.class.getDeclaredMethod("dryRunAction"),
+					null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException(e);
+		}
 	}
 
 	public void setTracing(boolean trace) {
@@ -123,12 +178,52 @@ public class AutoPilot {
 		return arr;
 	}
 
+	public boolean isTracking() {
+		return trackingEnabled;
+	}
+
+	public double getTrackingError() {
+		return trackingError;
+	}
+
+	// seconds the profile clock has fallen behind the wall clock
+	public double getProfileLag() {
+		return getElapsedSeconds() - profileTime;
+	}
+
+	// seconds into the sequence profile
+	public double getProfileTime() {
+		return profileTime;
+	}
+
+	// added to the profile distances, set at the start and by ZeroPosition
+	public double getMoveOffset(int motor) {
+		return moveOffset[motor];
+	}
+
 	// Called repeatedly when the parent command is running
 	public double[] execute() {
+		return execute(null);
+	}
+
+	// Called repeatedly when the parent command is running, actualDistances are
+	// used to slow down the profile in tracking mode
+	public double[] execute(double[] actualDistances) {
+		return step(actualDistances, System.nanoTime());
+	}
+
+	// one tick of the profile and actions at nanoTimeCurrent
+	private double[] step(double[] actualDistances, long nanoTimeCurrent) {
 
 		try {
-			long nanoTimeCurrent = System.nanoTime();
-			Double moveSequenceTime = (double) (nanoTimeCurrent - nanoTimeStart) / 1e9;
+			double intervalSeconds = (double) (nanoTimeCurrent - nanoTimeLast) / 1e9;
+
+			if (trackingEnabled && null != actualDistances && null != lastDistance) {
+				profileTime += intervalSeconds * trackingRate(actualDistances);
+			} else {
+				profileTime += intervalSeconds;
+			}
+			Double moveSequenceTime = profileTime;
 
 			lastDistance = updateDistances(moveSequenceTime);
 
@@ -160,10 +255,48 @@ public class AutoPilot {
 		return lastDistance;
 	}
 
+	/**
+	 * Gets the rate the profile clock runs compared to the wall clock, 1.0 while
+	 * the drive is within trackingWarpError of the last target, slowing to 0.0
+	 * (paused) at trackingPauseError
+	 * 
+	 * @param actualDistances measured drive distances
+	 * @return profile clock rate 0.0 -> 1.0
+	 */
+	double trackingRate(double[] actualDistances) {
+		trackingError = Math.max(Math.abs(lastDistance[MOTOR_LEFT] - actualDistances[MOTOR_LEFT]),
+				Math.abs(lastDistance[MOTOR_RIGHT] - actualDistances[MOTOR_RIGHT]));
+
+		if (trackingError <= trackingWarpError) {
+			return 1.0;
+		}
+		if (trackingError >= trackingPauseError) {
+			return 0.0;
+		}
+		return (trackingPauseError - trackingError) / (trackingPauseError - trackingWarpError);
+	}
+
+	/**
+	 * Gets the heading change since the start of the sequence implied by the
+	 * planned wheel distances, clockwise positive like the gyro
+	 * 
+	 * @return heading in degrees
+	 */
+	public double getPlannedHeading() {
+		return Math.toDegrees((posLeft.getDistance() - posRight.getDistance()) / sequenceTankWidth);
+	}
+
 	public double[] updateDistances(double moveSequenceTime) {
 
 		double[] distances = new double[MOTOR_MAX];
 
+		if (null != currentTable) {
+			currentTable.update(moveSequenceTime, posLeft, posRight);
+			distances[MOTOR_LEFT] = posLeft.getDistance() + moveOffset[MOTOR_LEFT];
+			distances[MOTOR_RIGHT] = posRight.getDistance() + moveOffset[MOTOR_RIGHT];
+			return distances;
+		}
+
 		distances[MOTOR_LEFT] = posLeft.updatePosition(moveSequenceTime) + moveOffset[MOTOR_LEFT];
 		distances[MOTOR_RIGHT] = posRight.updatePosition(moveSequenceTime) + moveOffset[MOTOR_RIGHT];
 
@@ -186,7 +319,8 @@ public class AutoPilot {
 	// Make this return true when parent Command no longer needs to run
 	// execute()
 	public boolean isFinished() {
-		return finished;
+		// a dry run isn't a sequence the robot is running
+		return finished || dryRun;
 	}
 
 	// Called once after isFinished returns true
@@ -233,45 +367,219 @@ public class AutoPilot {
 		}
 	}
 
+	// adds a row to the drive log at the log rate, does not allocate
 	public void logPerformance() {
-		if (finished) {
+		logPerformance(getElapsedSeconds());
+	}
+
+	private void logPerformance(double seconds) {
+		if (finished || logRateHz <= 0) {
 			return;
 		}
-		double seconds = getElapsedSeconds();
-		robotPerf.add(new AutoPilotPerformance(seconds, lastDistance, lastVel()));
+		double period = 1 / logRateHz;
+		// half a period early is close enough, the caller's timer jitters
+		if (seconds + 0.5 * period < nextLogTime) {
+			return;
+		}
+		nextLogTime = Math.max(nextLogTime + period, seconds);
+
+		// the robot thread has it for a save, skip the row rather than wait
+		AutoPilotPerformance log = perfLog.getAndSet(null);
+		if (log == null) {
+			return;
+		}
+		try {
+			double[] target = lastDistance;
+			log.add(seconds,
+					(target != null) ? target[MOTOR_LEFT] : 0, (target != null) ? target[MOTOR_RIGHT] : 0,
+					Robot.driveTrainSRX.getLeftDistance(), Robot.driveTrainSRX.getRightDistance(),
+					posLeft.getVel(), posRight.getVel(),
+					Robot.driveTrainSRX.getLeftVelocity(), Robot.driveTrainSRX.getRightVelocity());
+		} finally {
+			perfLog.set(log);
+		}
 	}
 
-	public void logSave() {
-		if (robotPerf.size() > 0) {
-			String msg = "";
-			try {
-				String filename = "/tmp/" + currentSequenceName + "_log.csv";
-				FileWriter fw = new FileWriter(filename);
+	// the drive log for the robot thread, waits out a row the logger is adding.
+	// Hand it back with perfLog.set() when done.
+	private AutoPilotPerformance takePerfLog() {
+		AutoPilotPerformance log;
+		while ((log = perfLog.getAndSet(null)) == null) {
+			Thread.onSpinWait();
+		}
+		return log;
+	}
 
-				String header = "time,tpl,tpr,apl,apr,tvl,tvr,avl,avr\n";
-				fw.write(header);
+	private void clearPerfLog() {
+		AutoPilotPerformance log = takePerfLog();
+		log.clear();
+		perfLog.set(log);
+	}
 
-				int index = 0;
-				for (AutoPilotPerformance p : robotPerf) {
+	// writes the drive log on its own thread so the robot loop isn't held up
+	public void logSave() {
+		final AutoPilotPerformance full = takePerfLog();
+		if (full.size() == 0) {
+			perfLog.set(full);
+			return;
+		}
+		if (perfSaveBusy) {
+			traceMessage("RobotPerf save skipped, the last one is still writing");
+			full.clear();
+			perfLog.set(full);
+			return;
+		}
 
-					// write line into log
-					fw.write(p.str());
+		// the save thread owns the full log until it's written
+		perfSaving.clear();
+		perfLog.set(perfSaving);
+		perfSaving = full;
+		perfSaveBusy = true;
 
-					// ping the drive to keep the watchdog happy
-					if (++index % 100 == 0) {
-						Robot.driveTrainSRX.pingDifferentialDrive();
-					}
+		final String filename = "/tmp/" + currentSequenceName + "_log.csv";
+		final double endSeconds = getElapsedSeconds();
+		Thread saver = new Thread(() -> {
+			String msg;
+			try {
+				full.writeCsv(filename);
+				msg = String.format("%s end @ %3.1f %d pts", filename, endSeconds, full.size());
+				if (full.getDropped() > 0) {
+					msg += String.format(", %d dropped when full", full.getDropped());
 				}
+			} catch (IOException e) {
+				msg = "RobotPerf save error: " + e.getMessage();
+			}
+			perfSaveBusy = false;
+			traceMessage(msg);
+		}, "AutoPilotLog");
+		saver.setDaemon(true);
+		saver.start();
+	}
+
+	/**
+	 * Starts a dry run of a sequence on a made up clock with the robot's
+	 * actions and the drive output dropped, so the classes are loaded and the
+	 * profile, action and logging code is compiled before a match. AutoPilot's own
+	 * actions run as they would in the match. Run the ticks with dryRunStep(),
+	 * nothing from the run is kept. Only while no sequence is running, starting
+	 * a sequence ends a dry run.
+	 *
+	 * @return false if the sequence isn't found or one is running
+	 */
+	public boolean dryRunStart(String sequenceName, double periodSeconds) {
+		NamedSequence namedSequence = mapSequences.get(sequenceName);
+		if (!finished || dryRun || null == namedSequence) {
+			return false;
+		}
 
-				fw.close();
-				msg = String.format("%s end @ %3.1f %d pts", filename, getElapsedSeconds(), robotPerf.size());
+		dryRunWasTracing = tracing;
+		dryRunWasStatus = status;
+		dryRunWasHistogram = updateHistogram;
+		dryRunWasTracking = trackingEnabled;
+		dryRunWasWarpError = trackingWarpError;
+		dryRunWasPauseError = trackingPauseError;
+		dryRunWasOffset[MOTOR_LEFT] = moveOffset[MOTOR_LEFT];
+		dryRunWasOffset[MOTOR_RIGHT] = moveOffset[MOTOR_RIGHT];
+		tracing = false;
 
-			} catch (Exception e) {
-				msg = "RobotPerf save error: " + e.getMessage();
+		dryRun = startSequence(sequenceName, new Double[] { 0.0, 0.0 }, false);
+		if (!dryRun) {
+			tracing = dryRunWasTracing;
+			status = dryRunWasStatus;
+			return false;
+		}
+		dryRunPeriodNanos = (long) (periodSeconds * 1e9);
+		dryRunLimit = (int) Math.ceil(namedSequence.getExecTime() / periodSeconds) + 10;
+		dryRunClock = nanoTimeStart;
+		dryRunTicks = 0;
+		dryRunNanos = 0;
+		return true;
+	}
+
+	/**
+	 * Runs dry run ticks for about budgetNanos, at least one, and ends the dry
+	 * run when the sequence finishes
+	 *
+	 * @return true while there are ticks left to run
+	 */
+	public boolean dryRunStep(long budgetNanos) {
+		if (!dryRun) {
+			return false;
+		}
+		long until = System.nanoTime() + budgetNanos;
+		while (!finished && dryRunTicks < dryRunLimit) {
+			dryRunClock += dryRunPeriodNanos;
+			long start = System.nanoTime();
+			step(null, dryRunClock);
+			logPerformance((dryRunClock - nanoTimeStart) / 1e9);
+			long end = System.nanoTime();
+			dryRunNanos += end - start;
+			dryRunTicks++;
+			if (end >= until) {
+				return true;
 			}
+		}
+		// the log isn't written, logSave() does that on its own thread
+		dryRunEnd();
+		return false;
+	}
 
-			robotPerf = new ArrayList<AutoPilotPerformance>();
-			traceMessage(msg);
+	// puts back what the dry run changed, nothing to do if none is running
+	public void dryRunEnd() {
+		if (!dryRun) {
+			return;
+		}
+		dryRun = false;
+		finished = true;
+		clearPerfLog();
+		tracing = dryRunWasTracing;
+		status = dryRunWasStatus;
+		updateHistogram = dryRunWasHistogram;
+		trackingEnabled = dryRunWasTracking;
+		trackingWarpError = dryRunWasWarpError;
+		trackingPauseError = dryRunWasPauseError;
+		moveOffset[MOTOR_LEFT] = dryRunWasOffset[MOTOR_LEFT];
+		moveOffset[MOTOR_RIGHT] = dryRunWasOffset[MOTOR_RIGHT];
+	}
+
+	public boolean isDryRunning() {
+		return dryRun;
+	}
+
+	// ticks run by the current or last dry run
+	public int getDryRunTicks() {
+		return dryRunTicks;
+	}
+
+	// time spent in the ticks of the current or last dry run
+	public long getDryRunNanos() {
+		return dryRunNanos;
+	}
+
+	// stands in for the robot's actions in a dry run, the same reflective call.
+	// Not an AutoPilotMethod so scripts can't call it.
+	@SuppressWarnings("unused")
+	private void dryRunAction() {
+	}
+
+	@AutoPilotMethod(argHint = "( hz ) : drive log samples per second up to 100, 0 turns the log off")
+	public void setLogRate(double hz) {
+		logRateHz = Math.max(0, Math.min(MAX_LOG_RATE_HZ, hz));
+	}
+
+	// room in both logs for the longest sequence at the top log rate, a
+	// setLogRate() in a sequence can't outgrow them
+	private void sizePerfLogs() {
+		double longest = 0;
+		for (NamedSequence seq : mapSequences.values()) {
+			longest = Math.max(longest, seq.getExecTime());
+		}
+		int rows = (int) Math.ceil((longest + logMarginSeconds) * MAX_LOG_RATE_HZ) + 1;
+		AutoPilotPerformance log = takePerfLog();
+		log.reserve(rows);
+		perfLog.set(log);
+		if (!perfSaveBusy) {
+			perfSaving.reserve(rows);
 		}
 	}
 
@@ -280,6 +588,31 @@ public class AutoPilot {
 		tracing = (b == OnOff.ON);
 	}
 
+	@AutoPilotMethod(argHint = "( On | Off ) : slow the profile when the drive falls behind")
+	public void trackingMode(OnOff b) throws AutoPilotException {
+		// set when running, the action is scheduled like zeroPosition
+		currentAction.setMethod(methodFind("executeTrackingMode"), new Object[] { b });
+	}
+
+	@AutoPilotMethod(argHint = "")
+	public void executeTrackingMode(OnOff b) {
+		trackingEnabled = (b == OnOff.ON);
+	}
+
+	@AutoPilotMethod(argHint = "( warpError, pauseError ) : tracking errors to slow and stop the profile")
+	public void setTrackingError(double warpError, double pauseError) throws AutoPilotException {
+		if (warpError < 0 || pauseError <= warpError) {
+			throw new AutoPilotException("pauseError must be greater than warpError");
+		}
+		currentAction.setMethod(methodFind("executeSetTrackingError"), new Object[] { warpError, pauseError });
+	}
+
+	@AutoPilotMethod(argHint = "")
+	public void executeSetTrackingError(double warpError, double pauseError) {
+		trackingWarpError = warpError;
+		trackingPauseError = pauseError;
+	}
+
 	long fileLastModified(String filePath) {
 		File file = new File(filePath);
 		return file.lastModified();
@@ -304,6 +637,7 @@ public class AutoPilot {
 		Integer lineNumber = 0;
 		BufferedReader inputReader = null;
 		mapSequences = new HashMap<>();
+		clearTables();
 		String fileLine = "";
 
 		try {
@@ -388,8 +722,10 @@ public class AutoPilot {
 			newSequence(null);
 
 			inputReader.close();
+			bakeTables();
+			sizePerfLogs();
 			double loadTime = (System.nanoTime() - nanoTimeStart) / 1e6;
-			setStatus("%d sequences  Load time %.1f ms", mapSequences.size(), loadTime);
+			setStatus("%d sequences %d tables  Load time %.1f ms", mapSequences.size(), tableCache.size(), loadTime);
 			if (tracing) {
 
 				NamedSequence[] arr = new NamedSequence[mapSequences.size()];
@@ -449,6 +785,14 @@ public class AutoPilot {
 		return mapImplementedMethods.getOrDefault(name.toLowerCase(), null);
 	}
 
+	/**
+	 * Converts script arguments for a parameter type of an action method, run
+	 * when the file is loaded so a bad value fails the load
+	 */
+	public void addArgConverter(Class<?> type, ArgConverter converter) {
+		mapArgConverters.put(type, converter);
+	}
+
 	public void addMethods(Object classInstance) {
 		// use simple type name
 		String typeName = classInstance.getClass().getTypeName();
@@ -495,8 +839,7 @@ public class AutoPilot {
 		posLeft.start(offsetDistances[MOTOR_LEFT]);
 		posRight.start(offsetDistances[MOTOR_RIGHT]);
 
-		nanoTimeStart = System.nanoTime();
-		nanoTimeLast = nanoTimeStart;
+		startClock();
 		finished = false;
 	}
 
@@ -523,7 +866,7 @@ public class AutoPilot {
 			actionList.add(end);
 
 			mapSequences.put(currentSequenceName,
-					new NamedSequence(currentSequenceName, actionList, posLeft, posRight));
+					new NamedSequence(currentSequenceName, actionList, posLeft, posRight, tankWidth));
 		}
 
 		initializeSequence(sequenceName);
@@ -566,14 +909,46 @@ public class AutoPilot {
 		currentAction = null;
 	}
 
+	/**
+	 * Samples the planned motor positions (or velocities) of a sequence at a
+	 * fixed period, used to stream the sequence to the motor controllers
+	 * 
+	 * @param sequenceName  name of the sequence
+	 * @param periodSeconds time between samples
+	 * @param velocity      true for velocities, false for positions
+	 * @return samples[MOTOR_MAX][count] or null if the sequence is not found
+	 */
+	public double[][] sampleSequence(String sequenceName, double periodSeconds, boolean velocity) {
+		NamedSequence namedSequence = mapSequences.get(sequenceName);
+		if (namedSequence == null) {
+			return null;
+		}
+
+		int count = (int) Math.ceil(namedSequence.getExecTime() / periodSeconds) + 1;
+		double[][] samples = new double[MOTOR_MAX][];
+		samples[MOTOR_LEFT] = namedSequence.getPosLeft().sample(periodSeconds, count, velocity);
+		samples[MOTOR_RIGHT] = namedSequence.getPosRight().sample(periodSeconds, count, velocity);
+		return samples;
+	}
+
+	// tank width the sequence was planned with, 0 if the sequence is not found
+	public double getSequenceTankWidth(String sequenceName) {
+		NamedSequence namedSequence = mapSequences.get(sequenceName);
+		return (namedSequence == null) ? 0 : namedSequence.getTankWidth();
+	}
+
 	public boolean startSequence(String sequenceName, Double[] startingDistance, boolean checkFileModified) {
+		// the real run takes over from a dry run
+		dryRunEnd();
+
 		if (checkFileModified) {
 			if (fileLastModified(sourceFilePath) > sourceLastModified) {
 				loadFile(sourceFilePath);
 			}
 		}
 
-		robotPerf = new ArrayList<AutoPilotPerformance>();
+		clearPerfLog();
+		nextLogTime = 0;
 
 		NamedSequence namedSequence = mapSequences.get(sequenceName);
 		if (namedSequence == null) {
@@ -602,11 +977,79 @@ public class AutoPilot {
 		posRight = namedSequence.getPosRight();
 		actionList = namedSequence.getActionList();
 		actionListIndex = 0;
+		sequenceTankWidth = namedSequence.getTankWidth();
+		currentTable = getTable(sequenceName);
 		finished = false;
+		startClock();
+
+		return true;
+	}
+
+	private void startClock() {
 		nanoTimeStart = System.nanoTime();
 		nanoTimeLast = nanoTimeStart;
+		profileTime = 0;
+		lastDistance = null;
+		trackingEnabled = false;
+		trackingError = 0;
+	}
 
-		return true;
+	@AutoPilotMethod(argHint = "( ms ) : sequence table resolution, 0 disables tables")
+	public void setTableResolution(double ms) {
+		tableResolutionMs = Math.max(0, ms);
+	}
+
+	@AutoPilotMethod(argHint = "( kBytes ) : memory allowed for sequence tables")
+	public void setTableBudget(double kBytes) {
+		tableBudgetBytes = (long) (kBytes * 1024);
+	}
+
+	private void clearTables() {
+		tableCache.clear();
+		tableBytes = 0;
+		currentTable = null;
+	}
+
+	// precompute tables for all the sequences, least recently used are dropped
+	// when over the memory budget
+	private void bakeTables() {
+		if (tableResolutionMs <= 0) {
+			return;
+		}
+		for (String name : sequenceNames()) {
+			getTable(name);
+		}
+	}
+
+	private SequenceTable getTable(String sequenceName) {
+		if (tableResolutionMs <= 0) {
+			return null;
+		}
+
+		SequenceTable table = tableCache.get(sequenceName);
+		if (null != table) {
+			return table;
+		}
+
+		NamedSequence namedSequence = mapSequences.get(sequenceName);
+		if (null == namedSequence) {
+			return null;
+		}
+
+		table = new SequenceTable(namedSequence, tableResolutionMs / 1000.0);
+		tableCache.put(sequenceName, table);
+		tableBytes += table.getBytes();
+
+		// evict least recently used tables, always keep the newest
+		Iterator<SequenceTable> it = tableCache.values().iterator();
+		while (tableBytes > tableBudgetBytes && tableCache.size() > 1 && it.hasNext()) {
+			SequenceTable oldest = it.next();
+			if (oldest != table) {
+				tableBytes -= oldest.getBytes();
+				it.remove();
+			}
+		}
+		return table;
 	}
 
 	@AutoPilotMethod(argHint = "( ) : end processing of the file")
@@ -1035,13 +1478,15 @@ public class AutoPilot {
 		private String name;
 		private MotorPosition posLeft;
 		private MotorPosition posRight;
+		private double tankWidth;
 
 		public NamedSequence(String newName, ArrayList<SequenceAction> newActionList, MotorPosition newPosLeft,
-				MotorPosition newPosRight) {
+				MotorPosition newPosRight, double newTankWidth) {
 			name = newName;
 			actionList = newActionList;
 			posLeft = newPosLeft;
 			posRight = newPosRight;
+			tankWidth = newTankWidth;
 		}
 
 		void start(Double[] startPos) {
@@ -1079,6 +1524,10 @@ public class AutoPilot {
 			return posRight;
 		}
 
+		double getTankWidth() {
+			return tankWidth;
+		}
+
 		@Override
 		public int compareTo(NamedSequence other) {
 			return (int) ((getExecTime() - other.getExecTime()) * 1e5);
@@ -1163,8 +1612,20 @@ public class AutoPilot {
 				String argText = stringArgs[argIndex];
 				Class<?> param = paramList[argIndex];
 				String paramName = param.getName();
+				ArgConverter converter = mapArgConverters.get(param);
 
-				if (Objects.equals(paramName, "double")) {
+				if (null != converter) {
+
+					// quotes are optional
+					if (argText.length() >= 2 && argText.charAt(0) == '\"'
+							&& argText.charAt(argText.length() - 1) == '\"') {
+						argText = argText.substring(1, argText.length() - 1);
+					}
+					objectArgs[argIndex] = converter.convert(argText);
+					if (null == objectArgs[argIndex])
+						throw new AutoPilotException("'%s' not found for %s", argText, name);
+
+				} else if (Objects.equals(paramName, "double")) {
 
 					objectArgs[argIndex] = Double.parseDouble(argText);
 
@@ -1263,11 +1724,66 @@ public class AutoPilot {
 		public void invoke() throws AutoPilotException {
 
 			if (null != implementedMethod) {
-				implementedMethod.invoke(objectArgs);
+				// a dry run runs AutoPilot's own actions and skips the robot's
+				if (dryRun && AutoPilot.this != implementedMethod.getClassInstance()) {
+					dryRunMethod.invoke(NO_ARGS);
+				} else {
+					implementedMethod.invoke(objectArgs);
+				}
 			}
 		}
 	}
 
+	// Positions and velocities of both motors sampled at a fixed period, the
+	// time of a row is its index * period
+	public class SequenceTable {
+		private double period;
+		private double[] posLeft;
+		private double[] posRight;
+		private double[] velLeft;
+		private double[] velRight;
+		private int last;
+
+		public SequenceTable(NamedSequence namedSequence, double periodSeconds) {
+			int count = (int) Math.ceil(namedSequence.getExecTime() / periodSeconds) + 1;
+			period = periodSeconds;
+			posLeft = namedSequence.getPosLeft().sample(periodSeconds, count, false);
+			posRight = namedSequence.getPosRight().sample(periodSeconds, count, false);
+			velLeft = namedSequence.getPosLeft().sample(periodSeconds, count, true);
+			velRight = namedSequence.getPosRight().sample(periodSeconds, count, true);
+			last = count - 1;
+		}
+
+		public long getBytes() {
+			return 4L * Double.BYTES * (last + 1);
+		}
+
+		// interpolates between the rows around sequenceTime
+		public void update(double sequenceTime, MotorPosition left, MotorPosition right) {
+			double rows = sequenceTime / period;
+			int index = (int) rows;
+			if (rows <= 0) {
+				index = 0;
+				rows = 0;
+			} else if (index >= last) {
+				index = last - 1;
+				rows = last;
+			}
+
+			if (last <= 0) {
+				left.setPoint(sequenceTime, posLeft[0], velLeft[0]);
+				right.setPoint(sequenceTime, posRight[0], velRight[0]);
+				return;
+			}
+
+			double f = rows - index;
+			left.setPoint(sequenceTime, posLeft[index] + f * (posLeft[index + 1] - posLeft[index]),
+					velLeft[index] + f * (velLeft[index + 1] - velLeft[index]));
+			right.setPoint(sequenceTime, posRight[index] + f * (posRight[index + 1] - posRight[index]),
+					velRight[index] + f * (velRight[index + 1] - velRight[index]));
+		}
+	}
+
 	// Move profiles for a single motor
 	public class MotorPosition {
 		// private final double minMoveTime = 0.001;
@@ -1327,6 +1843,29 @@ public class AutoPilot {
 			return getDistance();
 		}
 
+		// sets the current point from a sequence table
+		public void setPoint(double time, double pos, double vel) {
+			ptLast.time = time;
+			ptLast.pos = pos;
+			ptLast.vel = vel;
+		}
+
+		// samples the profile without changing the current position
+		public double[] sample(double periodSeconds, int count, boolean velocity) {
+			double[] samples = new double[count];
+			int segmentIndex = 0;
+			for (int i = 0; i < count; i++) {
+				double sampleTime = i * periodSeconds;
+				while (segmentIndex < moveSegmentList.size() - 1
+						&& moveSegmentList.get(segmentIndex).ptEnd.time <= sampleTime) {
+					segmentIndex++;
+				}
+				MovePoint pt = moveSegmentList.get(segmentIndex).getPoint(sampleTime);
+				samples[i] = velocity ? pt.vel : pt.pos;
+			}
+			return samples;
+		}
+
 		public String toString() {
 			double accel = 0;
 			String desc = "-";
@@ -1644,6 +2183,11 @@ public class AutoPilot {
 		}
 	}
 
+	// argument text to a parameter value, null if the text isn't valid
+	public interface ArgConverter {
+		Object convert(String argText);
+	}
+
 	@Retention(RetentionPolicy.RUNTIME)
 	@Target(ElementType.METHOD)
 	public @interface AutoPilotMethod {
@@ -1667,48 +2211,114 @@ public class AutoPilot {
 		}
 	}
 
-	// stores time, target pos/vel + actual pos/vel
+	// drive log of time, target pos/vel and actual pos/vel, one column per
+	// value allocated by reserve() so adding a row does not allocate
 	public class AutoPilotPerformance {
-		private double seconds;
-		private double[] targetPos;
-		private double[] targetVel;
-		private double[] actualPos;
-		private double[] actualVel;
+		private static final int COLUMNS = 9;
+		private static final String HEADER = "time,tpl,tpr,apl,apr,tvl,tvr,avl,avr\n";
+
+		private double[][] columns = new double[COLUMNS][0];
+		private int count = 0;
+		private int dropped = 0;
+
+		// grows the columns, only while nothing is running
+		public void reserve(int rows) {
+			if (rows > columns[0].length) {
+				for (int c = 0; c < COLUMNS; c++) {
+					columns[c] = new double[rows];
+				}
+				count = 0;
+			}
+		}
 
-		public double seconds() {
-			return seconds;
+		public void clear() {
+			count = 0;
+			dropped = 0;
 		}
 
-		public AutoPilotPerformance(double s, double[] pos, double[] vel) {
-			seconds = s;
-			// target position
-			if (pos != null) {
-				targetPos = new double[] { pos[MOTOR_LEFT], pos[MOTOR_RIGHT] };
-			} else {
-				targetPos = new double[] { 0, 0 };
+		public void add(double seconds, double tpl, double tpr, double apl, double apr, double tvl, double tvr,
+				double avl, double avr) {
+			if (count >= columns[0].length) {
+				dropped++;
+				return;
 			}
+			int i = count;
+			columns[0][i] = seconds;
+			columns[1][i] = tpl;
+			columns[2][i] = tpr;
+			columns[3][i] = apl;
+			columns[4][i] = apr;
+			columns[5][i] = tvl;
+			columns[6][i] = tvr;
+			columns[7][i] = avl;
+			columns[8][i] = avr;
+			count++;
+		}
 
-			// target velocity
-			if (vel != null) {
-				targetVel = new double[] { vel[MOTOR_LEFT], vel[MOTOR_RIGHT] };
-			} else {
-				targetVel = new double[] { 0, 0 };
-			}
+		public int size() {
+			return count;
+		}
+
+		public int getCapacity() {
+			return columns[0].length;
+		}
 
-			// actual distance
-			actualPos = new double[] { Robot.driveTrainSRX.getLeftDistance(), Robot.driveTrainSRX.getRightDistance() };
-			// actual velocity
-			actualVel = new double[] { Robot.driveTrainSRX.getLeftVelocity(), Robot.driveTrainSRX.getRightVelocity() };
+		public int getDropped() {
+			return dropped;
 		}
 
-		public String str() {
-			return String.format("%8.3f,%8.3f,%8.3f,%8.3f,%8.3f,%6.2f,%6.2f,%6.2f,%6.2f\n", seconds,
-					// positions
-					targetPos[MOTOR_LEFT], targetPos[MOTOR_RIGHT], actualPos[MOTOR_LEFT], actualPos[MOTOR_RIGHT],
-					// velocities
-					targetVel[MOTOR_LEFT], targetVel[MOTOR_RIGHT], actualVel[MOTOR_LEFT], actualVel[MOTOR_RIGHT]);
+		// column 0 is time, then tpl, tpr, apl, apr, tvl, tvr, avl, avr
+		public double get(int column, int row) {
+			return columns[column][row];
+		}
+
+		public void writeCsv(String filename) throws IOException {
+			try (FileWriter fw = new FileWriter(filename)) {
+				writeCsv(fw);
+			}
 		}
 
+		// same columns and decimals as the old per row String.format
+		public void writeCsv(Writer fw) throws IOException {
+			fw.write(HEADER);
+			StringBuilder line = new StringBuilder(128);
+			for (int i = 0; i < count; i++) {
+				line.setLength(0);
+				for (int c = 0; c < COLUMNS; c++) {
+					if (c > 0) {
+						line.append(',');
+					}
+					appendFixed(line, columns[c][i], (c < 5) ? 3 : 2);
+				}
+				line.append('\n');
+				fw.append(line);
+			}
+		}
+	}
+
+	// value with a fixed number of decimals, without String.format
+	static void appendFixed(StringBuilder sb, double value, int decimals) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			sb.append(value);
+			return;
+		}
+		long scale = 1;
+		for (int d = 0; d < decimals; d++) {
+			scale *= 10;
+		}
+		long scaled = Math.round(Math.abs(value) * scale);
+		if (value < 0 && scaled != 0) {
+			sb.append('-');
+		}
+		sb.append(scaled / scale);
+		if (decimals > 0) {
+			sb.append('.');
+			String fraction = Long.toString(scaled % scale);
+			for (int pad = fraction.length(); pad < decimals; pad++) {
+				sb.append('0');
+			}
+			sb.append(fraction);
+		}
 	}
 
 }
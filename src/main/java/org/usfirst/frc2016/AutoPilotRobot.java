@@ -1,16 +1,15 @@
 package org.usfirst.frc2016;
 
 // import java.util.Objects;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Arrays;
 import java.util.Timer;
 import java.util.TimerTask;
 
 import org.usfirst.frc2016.AutoPilot.*;
 import org.usfirst.frc2016.commands.*;
+import org.usfirst.frc2016.utils.MotionProfileStreamer;
+import org.usfirst.frc2016.utils.PathTrajectory;
 
-import edu.wpi.first.wpilibj.command.Command;
+import com.ctre.phoenix.motion.SetValueMotionProfile;
 
 // import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -21,7 +20,24 @@ public class AutoPilotRobot {
 	private Timer driveUpdateTimer;
 	private int nDriveUpdateMs = 10;
 	private String moveFilePath = "/c/";
-	private Map<String, Command> mapCommands;
+	private CommandRegistry commands = new CommandRegistry();
+	private CommandRegistry.Ref armStopCommand;
+
+	// heading hold while tracking, inches of side difference per degree of error
+	private double headingHoldP = 0;
+	private double headingHoldMax = 2.0; // inches
+	private double headingStart = 0;
+	private final double[] heldDistances = new double[AutoPilot.MOTOR_MAX];
+
+	// streaming sends the whole sequence to the Talon motion profile buffers,
+	// the timer task then only runs the actions
+	private final String streamingKey = "AutoPilot Streaming";
+	private final int streamPointMs = 10;
+	private final int streamMinPoints = 10; // points in the Talons before enabling
+	private MotionProfileStreamer profileStreamer;
+	private boolean streaming = false;
+	private boolean streamEnabled = false;
+	private final double[] streamOffsets = new double[AutoPilot.MOTOR_MAX];
 
 	// sequence base names defined in AutoPilot.txt
 	public static String MoveOffLine = "Move Off Line";
@@ -31,22 +47,24 @@ public class AutoPilotRobot {
 	public AutoPilotRobot() {
 		autoPilot = new AutoPilot();
 		autoPilot.addMethods(this);
-
-		mapCommands = new HashMap<>();
-
-		addCommand(new IntakeArmUp());
-		addCommand(new IntakeArmDown());
-		addCommand(new IntakeArmStop());
-		addCommand(new BallPickup(1.5));
-	}
-
-	private void addCommand(String name, final Command cmd) {
-		mapCommands.put(name, cmd);
-	}
-
-	private void addCommand(final Command cmd) {
-		String name = cmd.getClass().getSimpleName();
-		addCommand(name, cmd);
+		// StartCommand names are checked and resolved when the file loads
+		autoPilot.addArgConverter(CommandRegistry.Ref.class, commands::find);
+
+		commands.add(new IntakeArmUp());
+		commands.add(new IntakeArmDown());
+		armStopCommand = commands.add(new IntakeArmStop());
+		commands.add(new BallPickup(1.5));
+
+		profileStreamer = new MotionProfileStreamer(Robot.driveTrainSRX.getProfileBufferLeft(),
+				Robot.driveTrainSRX.getProfileBufferRight());
+		SmartDashboard.putBoolean(streamingKey, false);
+
+		// note drive problems in the trace while a sequence runs
+		Robot.driveTrainSRX.getHealthMonitor().addListener(event -> {
+			if (isRunning()) {
+				autoPilot.traceMessage("Drive %s", event);
+			}
+		});
 	}
 
 	public void loadFile() {
@@ -86,6 +104,8 @@ public class AutoPilotRobot {
 		// sequenceName = sequenceName.replace("*", rawGameData.substring(0,1));
 
 		Robot.driveTrainSRX.resetEncoders();
+		headingStart = Robot.gyro.getAngle();
+		headingHoldP = 0;
 
 		Double[] distances = new Double[AutoPilot.MOTOR_MAX];
 		distances[AutoPilot.MOTOR_LEFT] = 0.0;
@@ -97,16 +117,53 @@ public class AutoPilotRobot {
 		// distances[AutoPilot.MOTOR_RIGHT]);
 
 		// autoPilot.setTracing(false);
-		autoPilot.startSequence(sequenceName, distances, checkFileModified);
+		boolean started = autoPilot.startSequence(sequenceName, distances, checkFileModified);
+
+		streaming = started && SmartDashboard.getBoolean(streamingKey, false);
+		if (streaming) {
+			startStreaming(sequenceName);
+		}
 		startTimerTask();
 	}
 
+	private void startStreaming(String sequenceName) {
+		double periodSeconds = streamPointMs / 1000.0;
+		double[][] positions = autoPilot.sampleSequence(sequenceName, periodSeconds, false);
+		double[][] velocities = autoPilot.sampleSequence(sequenceName, periodSeconds, true);
+
+		streamEnabled = false;
+		Robot.driveTrainSRX.motionProfileStop();
+		profileStreamer.load(positions, velocities, streamPointMs);
+		streamOffsets[AutoPilot.MOTOR_LEFT] = autoPilot.getMoveOffset(AutoPilot.MOTOR_LEFT);
+		streamOffsets[AutoPilot.MOTOR_RIGHT] = autoPilot.getMoveOffset(AutoPilot.MOTOR_RIGHT);
+		profileStreamer.setOffsets(streamOffsets);
+		profileStreamer.start();
+		autoPilot.traceMessage("Streaming %d points", profileStreamer.getPointCount());
+	}
+
+	// a ZeroPosition moved the origin, stream the rest of the sequence from it
+	private void checkStreamOffsets() {
+		double left = autoPilot.getMoveOffset(AutoPilot.MOTOR_LEFT);
+		double right = autoPilot.getMoveOffset(AutoPilot.MOTOR_RIGHT);
+		if (left == streamOffsets[AutoPilot.MOTOR_LEFT] && right == streamOffsets[AutoPilot.MOTOR_RIGHT]) {
+			return;
+		}
+		streamOffsets[AutoPilot.MOTOR_LEFT] = left;
+		streamOffsets[AutoPilot.MOTOR_RIGHT] = right;
+
+		int point = (int) Math.round(autoPilot.getProfileTime() * 1000 / streamPointMs);
+		streamEnabled = false;
+		Robot.driveTrainSRX.motionProfileStop();
+		profileStreamer.setOffsets(streamOffsets);
+		profileStreamer.restart(point);
+		autoPilot.traceMessage("Streaming from point %d, offsets %.1f %.1f", point, left, right);
+	}
+
 	// Called repeatedly when this Command is scheduled to run
 	public void execute() {
 
 		Robot.driveTrainSRX.pingDifferentialDrive();
 		SmartDashboard.putString("AutoPilotStatus", autoPilot.getStatus());
-		autoPilot.logPerformance();
 
 		// if (!autoPilot.isTracing()) {
 		// String status = autoPilot.getStatus();
@@ -155,11 +212,63 @@ public class AutoPilotRobot {
 		return distances;
 	}
 
+	/**
+	 * Path of a sequence for the path follower, starting at 0,0 heading 0
+	 *
+	 * @return the path or null if the sequence is not found
+	 */
+	public PathTrajectory getTrajectory(String sequenceName, double periodSeconds) {
+		double[][] positions = autoPilot.sampleSequence(sequenceName, periodSeconds, false);
+		if (positions == null) {
+			return null;
+		}
+		return PathTrajectory.fromWheelPositions(periodSeconds, positions[AutoPilot.MOTOR_LEFT],
+				positions[AutoPilot.MOTOR_RIGHT], autoPilot.getSequenceTankWidth(sequenceName));
+	}
+
+	/**
+	 * Starts a dry run of a sequence at the drive update rate, nothing is
+	 * driven or started, see AutoPilot.dryRunStart()
+	 *
+	 * @return false if it can't run now
+	 */
+	public boolean dryRunStart(String sequenceName) {
+		if (isRunning()) {
+			return false;
+		}
+		return autoPilot.dryRunStart(sequenceName, nDriveUpdateMs / 1000.0);
+	}
+
+	// runs the dry run for about budgetNanos, true while it has ticks left
+	public boolean dryRunStep(long budgetNanos) {
+		return autoPilot.dryRunStep(budgetNanos);
+	}
+
+	public boolean isDryRunning() {
+		return autoPilot.isDryRunning();
+	}
+
+	public int getDryRunTicks() {
+		return autoPilot.getDryRunTicks();
+	}
+
+	public long getDryRunNanos() {
+		return autoPilot.getDryRunNanos();
+	}
+
 	public void shutdown() {
 		killTimerTask();
+		if (streaming) {
+			profileStreamer.stop();
+			Robot.driveTrainSRX.motionProfileStop();
+			if (profileStreamer.hasUnderrun()) {
+				autoPilot.traceMessage("Streaming underrun");
+			}
+			streaming = false;
+		}
 		// stop all the robot parts
 		Robot.driveTrainSRX.driveStop();
-		StartCommand("IntakeArmStop");
+		commands.start(armStopCommand);
 
 		BallIntakeSpin(BallIntakeSpinState.Stop);
 		BallIntakePivot(BallIntakePivotState.Stop);
@@ -184,8 +293,23 @@ public class AutoPilotRobot {
 		public void run() {
 			if (autoPilot.isFinished()) {
 				killTimerTask();
+			} else if (streaming) {
+				// the Talons follow the profile, only run the actions here
+				autoPilot.execute();
+				checkStreamOffsets();
+				if (!streamEnabled && profileStreamer.isReady(streamMinPoints)) {
+					Robot.driveTrainSRX.motionProfileSetValue(SetValueMotionProfile.Enable);
+					streamEnabled = true;
+				}
 			} else {
-				double[] driveDistances = autoPilot.execute();
+				double[] driveDistances;
+				if (autoPilot.isTracking()) {
+					double[] actualDistances = new double[] { Robot.driveTrainSRX.getLeftDistance(),
+							Robot.driveTrainSRX.getRightDistance() };
+					driveDistances = applyHeadingHold(autoPilot.execute(actualDistances));
+				} else {
+					driveDistances = autoPilot.execute();
+				}
 				if (null != driveDistances) {
 
 					Robot.driveTrainSRX.goToDistance(driveDistances[AutoPilot.MOTOR_LEFT],
@@ -197,29 +321,49 @@ public class AutoPilotRobot {
 					// Robot.driveTrainSRX.getRightDistance());
 				}
 			}
+			// at the drive update rate, AutoPilot thins it to its log rate
+			autoPilot.logPerformance();
 		}
 	}
 
-	@AutoPilotMethod(argHint = "( name ) : starts named command")
-	public void StartCommand(String name) {
-
-		Command cmd = mapCommands.getOrDefault(name, null);
-		if (cmd != null) {
-			// start the named command
-			cmd.start();
-		} else {
-			System.out.println(String.format("Command named '%s' not found. ", name));
-			listCommands();
+	/**
+	 * Adjusts the side distances to hold the heading implied by the profile,
+	 * positive heading error (robot turned clockwise too far) moves the right
+	 * side ahead of the left. AutoPilot keeps the array it returns to measure
+	 * the tracking error, so the correction goes into a copy.
+	 * 
+	 * @param driveDistances target distances from AutoPilot, not changed
+	 * @return the corrected distances
+	 */
+	private double[] applyHeadingHold(double[] driveDistances) {
+		if (null == driveDistances || headingHoldP <= 0 || !Robot.gyro.isConnected()) {
+			return driveDistances;
 		}
+
+		double headingError = Robot.gyro.getAngle() - headingStart - autoPilot.getPlannedHeading();
+		double correction = headingError * headingHoldP;
+		correction = Math.max(-headingHoldMax, Math.min(headingHoldMax, correction));
+
+		heldDistances[AutoPilot.MOTOR_LEFT] = driveDistances[AutoPilot.MOTOR_LEFT] - correction;
+		heldDistances[AutoPilot.MOTOR_RIGHT] = driveDistances[AutoPilot.MOTOR_RIGHT] + correction;
+		return heldDistances;
+	}
+
+	@AutoPilotMethod(argHint = "( gain ) : heading hold while tracking, inches per degree, 0 is off")
+	public void HeadingHold(double gain) {
+		headingHoldP = Math.max(0, gain);
+	}
+
+	@AutoPilotMethod(argHint = "( name ) : starts named command")
+	public void StartCommand(CommandRegistry.Ref command) {
+		commands.start(command);
 	}
 
 	private void listCommands() {
 		String prefix = "// ";
 		System.out.println(prefix + " Vaild commands for 'StartCommand' are:");
 
-		String[] arr = new String[mapCommands.size()];
-		mapCommands.keySet().toArray(arr);
-		Arrays.sort(arr);
+		String[] arr = commands.names();
 
 		StringBuilder line = new StringBuilder();
 		line.append(prefix);
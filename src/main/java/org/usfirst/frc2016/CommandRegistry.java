@@ -0,0 +1,93 @@
+package org.usfirst.frc2016;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Commands an AutoPilot script can start by name. The names are resolved to a
+ * Ref when the script is loaded, so an unknown name fails the load, and
+ * starting a command from the AutoPilot timer task is an array index with no
+ * string hashing or lookups.
+ */
+public class CommandRegistry {
+	// one per command, shared by every script action that starts it
+	public static final class Ref {
+		private final int id;
+		private final String name;
+
+		private Ref(int id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		public int getId() {
+			return id;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return name;
+		}
+	}
+
+	private Command[] commands = new Command[8];
+	private Ref[] refs = new Ref[8];
+	private int count = 0;
+	private Map<String, Ref> mapNames = new HashMap<>();
+
+	// commands are added when the robot starts, not while a script runs
+	public Ref add(String name, Command cmd) {
+		Ref ref = mapNames.get(name);
+		if (null != ref) {
+			commands[ref.id] = cmd;
+			return ref;
+		}
+		if (count == commands.length) {
+			commands = Arrays.copyOf(commands, 2 * count);
+			refs = Arrays.copyOf(refs, 2 * count);
+		}
+		ref = new Ref(count, name);
+		commands[count] = cmd;
+		refs[count] = ref;
+		count++;
+		mapNames.put(name, ref);
+		return ref;
+	}
+
+	public Ref add(Command cmd) {
+		return add(cmd.getClass().getSimpleName(), cmd);
+	}
+
+	// null if the name isn't registered
+	public Ref find(String name) {
+		return mapNames.get(name);
+	}
+
+	public void start(Ref ref) {
+		commands[ref.id].start();
+	}
+
+	public Command get(Ref ref) {
+		return commands[ref.id];
+	}
+
+	public int size() {
+		return count;
+	}
+
+	public String[] names() {
+		String[] names = new String[count];
+		for (int i = 0; i < count; i++) {
+			names[i] = refs[i].name;
+		}
+		Arrays.sort(names);
+		return names;
+	}
+}
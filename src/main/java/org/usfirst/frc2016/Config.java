@@ -19,11 +19,24 @@ package org.usfirst.frc2016;
 *   
 */
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 // import edu.wpi.first.wpilibj.util.Color;
 // import com.revrobotics.ColorMatch;
 
@@ -112,14 +125,61 @@ import java.io.IOException;
 
 public class Config {
 
-	private Map<String, String> dictColumnData;
-	/** This is a string key, value map. You put in the key and get the value. */
+	/**
+	 * One load of the file, parsed once. Never changed after it is built, a new
+	 * load builds a new snapshot and swaps it in.
+	 */
+	static final class Snapshot {
+		final int version;
+		final Map<String, Entry> entries;
+		final Set<String> reportedMissing = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+		Snapshot(int version, Map<String, Entry> entries) {
+			this.version = version;
+			this.entries = entries;
+		}
+	}
+
+	/** A value as text and pre-parsed as a number and a boolean. */
+	static final class Entry {
+		final String text;
+		final double number; // NaN when not a number
+		final Boolean bool; // null when not true or false
+
+		Entry(String text) {
+			this.text = text;
+			double d = Double.NaN;
+			try {
+				d = Double.parseDouble(text);
+			} catch (NumberFormatException e) {
+			}
+			number = d;
+			if (text.equalsIgnoreCase("true")) {
+				bool = Boolean.TRUE;
+			} else if (text.equalsIgnoreCase("false")) {
+				bool = Boolean.FALSE;
+			} else {
+				bool = null;
+			}
+		}
+	}
+
+	private final AtomicReference<Snapshot> current = new AtomicReference<>();
+	private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+	private int nextVersion = 1;
+	private final ArrayList<ConfigKey<?>> keys = new ArrayList<>();
+	private final ArrayList<Runnable> listeners = new ArrayList<>();
+	private Thread watcher;
+	private static final long SETTLE_MS = 250;
+	// a reload with fewer keys than this share of the last good file was caught half written
+	private static final double TRUNCATED_SHARE = 0.5;
+
+	/** This is the file name, the values are in the current snapshot. */
 	String s_FileName;
 
 	public Config(String s_UserFileName) {
 		s_FileName = s_UserFileName;
-		dictColumnData = new HashMap<String, String>(); // when we load we want to reload this too to clear out the old
-														// data
+		current.set(new Snapshot(0, new HashMap<String, Entry>()));
 		load();
 	}
 
@@ -130,11 +190,24 @@ public class Config {
 	 * lines even if filled with whitespace.
 	 * Message are sent to the console if you have it enabled so you can see
 	 * problems in reading teh file.
+	 * <p>
+	 * The values are parsed once and swapped in as a whole, then key handles and
+	 * listeners are told about the values that changed. Call it from the robot
+	 * thread.
 	 */
 	public void load() {
+		Snapshot snapshot = read();
+		if (snapshot != null) {
+			swap(snapshot);
+		}
+	}
+
+	// reads and parses the file into a new snapshot, null if the file can't be read
+	private Snapshot read() {
 
 		System.out.println("Config.load(): INFO: Loading data from file [" + this.s_FileName + "]");
-		dictColumnData.clear(); // when we load we want to clear out the old data
+		Map<String, Entry> entries = new HashMap<String, Entry>();
+		int errors = 0;
 
 		try {
 
@@ -149,12 +222,13 @@ public class Config {
 				if (str.length() == 0 || str.charAt(0) == '#')
 					continue;
 
-				// break it up
-				String[] fields = str.split("\\|");
+				// break it up, an empty value still counts as a field
+				String[] fields = str.split("\\|", -1);
 
 				if (fields.length < 2) {
 					System.out.println("Config.load(): ****ERROR Line " + line.toString()
 							+ " is not a comment (#) but does not have a pipe (|) delimiter!");
+					errors++;
 					continue;
 				}
 
@@ -164,6 +238,7 @@ public class Config {
 				if (key.length() == 0) {
 					System.out.println("Config.load(): *WARN: Line " + line.toString()
 							+ " Key has no data in it, zero length, ignoring!!!");
+					errors++;
 					continue;
 				}
 
@@ -175,7 +250,7 @@ public class Config {
 
 				// System.out.println("Config.load(): INFO: Line=" + line.toString() + " Key=["
 				// + key + " Value=[" + value + "]" );
-				dictColumnData.put(key, value); // save the data
+				entries.put(key, new Entry(value)); // save the data
 
 			}
 
@@ -184,85 +259,203 @@ public class Config {
 		} catch (IOException e) {
 			System.out.println("Config.load(): ****ERROR: Failed to load the file " + this.s_FileName +
 					"   Exception:" + e + "  Reason:" + e.getMessage());
+			if (current.get().version > 0) {
+				return null; // keep the last good values
+			}
 		}
 
+		// a file caught half written or mangled, keep the last good values. Keys
+		// taken out of the file go back to their defaults.
+		Snapshot last = current.get();
+		if (last.version > 0 && (errors > 0 || entries.size() < TRUNCATED_SHARE * last.entries.size())) {
+			System.out.println("Config.load(): ****ERROR: " + errors + " bad lines and " + entries.size() + " keys ("
+					+ last.entries.size() + " before), keeping the last good values");
+			return null;
+		}
+
+		synchronized (this) {
+			return new Snapshot(nextVersion++, entries);
+		}
 	}
 
-	private String getValue(String key) {
+	// makes the snapshot current and tells whoever asked about changes
+	private void swap(Snapshot snapshot) {
+		Snapshot old = current.getAndSet(snapshot);
+		boolean changed = !old.entries.keySet().equals(snapshot.entries.keySet());
+		for (Map.Entry<String, Entry> e : snapshot.entries.entrySet()) {
+			Entry before = old.entries.get(e.getKey());
+			if (before == null || !before.text.equals(e.getValue().text)) {
+				changed = true;
+				break;
+			}
+		}
 
-		String value = dictColumnData.get(key);
-		if (value == null) {
-			System.out.format("*** Error *** Config: Config key=%s is missing\n", key);
+		ArrayList<ConfigKey<?>> keyList;
+		ArrayList<Runnable> listenerList;
+		synchronized (this) {
+			keyList = new ArrayList<>(keys);
+			listenerList = new ArrayList<>(listeners);
+		}
+		for (ConfigKey<?> key : keyList) {
+			key.refresh(snapshot);
+		}
+		if (changed && old.version > 0) {
+			for (Runnable listener : listenerList) {
+				listener.run();
+			}
 		}
-		return value;
 	}
 
 	/************************
-	 * Used to pull an int value from the config file.
-	 * You can monitor the console to see if you values was pulled correctly.
+	 * Starts watching the file. A changed file is read and parsed in the
+	 * background, applyPending() swaps it in. Call applyPending() from
+	 * disabledPeriodic so values never change under a running mechanism.
 	 */
-	public int getInt(String key, int defaultValue) {
+	public synchronized void watch() {
+		if (watcher != null) {
+			return;
+		}
+		Path file = Paths.get(s_FileName).toAbsolutePath();
+		Path dir = file.getParent();
+		WatchService service;
+		try {
+			service = FileSystems.getDefault().newWatchService();
+			dir.register(service, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+		} catch (IOException | RuntimeException e) {
+			System.out.println("Config.watch(): *WARN: Can't watch " + dir + "  Reason:" + e.getMessage());
+			return;
+		}
 
-		String sValue = getValue(key);
+		watcher = new Thread(() -> {
+			while (true) {
+				WatchKey key;
+				try {
+					key = service.take();
+				} catch (InterruptedException e) {
+					return;
+				}
+				boolean ours = isOurs(key, dir, file);
+				// a save comes as several events, wait for the writes to stop before reading
+				try {
+					while (ours && (key = service.poll(SETTLE_MS, TimeUnit.MILLISECONDS)) != null) {
+						isOurs(key, dir, file);
+					}
+				} catch (InterruptedException e) {
+					return;
+				}
+				if (ours) {
+					Snapshot snapshot = read();
+					if (snapshot != null) {
+						pending.set(snapshot);
+					}
+				}
+			}
+		}, "ConfigWatcher");
+		watcher.setDaemon(true);
+		watcher.start();
+	}
 
-		if (sValue == null)
-			return defaultValue;
+	// drains the events, true if any was for the config file
+	private static boolean isOurs(WatchKey key, Path dir, Path file) {
+		boolean ours = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			Object context = event.context();
+			if (context instanceof Path && dir.resolve((Path) context).equals(file)) {
+				ours = true;
+			}
+		}
+		key.reset();
+		return ours;
+	}
 
-		try {
-			double dValue = Double.parseDouble(sValue); // read as double first in case there is decimal
-			int retValue = (int) dValue; // now convert to int
-			// System.out.println("Config.getInt(): INFO: Key=" + key + " Config value=[" +
-			// sValue + "]");
-			return retValue;
-		} catch (Exception e) {
-			System.out.println("Config.getInt(): ***ERROR converting saved string value to int! Key=" + key
-					+ "  Value String=[" + sValue + "]" +
-					"   Exception:" + e + "  Reason:" + e.getMessage());
-			return defaultValue;
+	// true when the file changed and applyPending() has something to swap in
+	public boolean hasPending() {
+		return pending.get() != null;
+	}
+
+	/************************
+	 * Swaps in the last file change seen by watch(). Call from the robot thread
+	 * while disabled.
+	 */
+	public boolean applyPending() {
+		Snapshot snapshot = pending.getAndSet(null);
+		if (snapshot == null) {
+			return false;
 		}
+		swap(snapshot);
+		return true;
+	}
 
+	/************************
+	 * Called after a load that changed any value. Listeners run on the thread
+	 * that called load() or applyPending().
+	 */
+	public synchronized void addListener(Runnable listener) {
+		listeners.add(listener);
 	}
 
 	/************************
-	 * Used to pull a double value from the config file.
-	 * You can monitor the console to see if you values was pulled correctly.
+	 * Handles to a value, resolved once per load instead of on every get.
 	 */
-	public double getDouble(String key, double defaultValue) {
+	public ConfigKey<Double> doubleKey(String key, double defaultValue) {
+		return addKey(new ConfigKey<Double>(key, defaultValue, ConfigKey.DOUBLE));
+	}
 
-		String sValue = getValue(key);
+	public ConfigKey<Integer> intKey(String key, int defaultValue) {
+		return addKey(new ConfigKey<Integer>(key, defaultValue, ConfigKey.INT));
+	}
 
-		if (sValue == null)
-			return defaultValue;
+	public ConfigKey<Boolean> booleanKey(String key, boolean defaultValue) {
+		return addKey(new ConfigKey<Boolean>(key, defaultValue, ConfigKey.BOOLEAN));
+	}
 
-		try {
-			double retValue = Double.parseDouble(sValue);
-			// System.out.println("Config.getDouble(): INFO: Key=" + key + " Config value=["
-			// + sValue + "]");
-			return retValue;
-		} catch (Exception e) {
-			System.out.println("Config.getDouble(): ***ERROR converting saved string value to double! Key=" + key
-					+ "  Value String=[" + sValue + "]" +
-					"   Exception:" + e + "  Reason:" + e.getMessage());
-			return defaultValue;
+	public ConfigKey<String> stringKey(String key, String defaultValue) {
+		return addKey(new ConfigKey<String>(key, defaultValue, ConfigKey.STRING));
+	}
+
+	private <T> ConfigKey<T> addKey(ConfigKey<T> key) {
+		synchronized (this) {
+			keys.add(key);
 		}
+		key.refresh(current.get());
+		return key;
+	}
+
+	// missing keys are reported once per load
+	private Entry getEntry(String key) {
+		return getEntry(current.get(), key);
+	}
 
+	static Entry getEntry(Snapshot snapshot, String key) {
+		Entry entry = snapshot.entries.get(key);
+		if (entry == null && snapshot.reportedMissing.add(key)) {
+			System.out.format("*** Error *** Config: Config key=%s is missing\n", key);
+		}
+		return entry;
 	}
 
 	/************************
-	 * Used to pull a string value from the config file.
+	 * Used to pull an int value from the config file.
 	 * You can monitor the console to see if you values was pulled correctly.
 	 */
-	public String getString(String key, String defaultValue) {
-
-		String sValue = getValue(key);
-
-		if (sValue == null)
-			return defaultValue;
+	public int getInt(String key, int defaultValue) {
+		return toInt(key, getEntry(key), defaultValue);
+	}
 
-		// System.out.println("Config.getString(): INFO: Key=" + key + " Config value=["
-		// + sValue + "]");
-		return sValue;
+	/************************
+	 * Used to pull a double value from the config file.
+	 * You can monitor the console to see if you values was pulled correctly.
+	 */
+	public double getDouble(String key, double defaultValue) {
+		return toDouble(key, getEntry(key), defaultValue);
+	}
 
+	/************************
+	 * Used to pull a string value from the config file.
+	 * You can monitor the console to see if you values was pulled correctly.
+	 */
+	public String getString(String key, String defaultValue) {
+		return toString(key, getEntry(key), defaultValue);
 	}
 
 	/************************
@@ -270,25 +463,45 @@ public class Config {
 	 * You can monitor the console to see if you values was pulled correctly.
 	 */
 	public boolean getBoolean(String key, boolean defaultValue) {
+		return toBoolean(key, getEntry(key), defaultValue);
+	}
 
-		String sValue = getValue(key);
+	static int toInt(String key, Entry entry, int defaultValue) {
+		if (entry == null)
+			return defaultValue;
+		if (Double.isNaN(entry.number)) {
+			System.out.println("Config.getInt(): ***ERROR converting saved string value to int! Key=" + key
+					+ "  Value String=[" + entry.text + "]");
+			return defaultValue;
+		}
+		return (int) entry.number; // read as double first in case there is decimal
+	}
 
-		if (sValue == null)
+	static double toDouble(String key, Entry entry, double defaultValue) {
+		if (entry == null)
 			return defaultValue;
-		sValue = sValue.toLowerCase();
-
-		if (sValue.equalsIgnoreCase("true")) {
-			// System.out.println("Config.getBoolean(): INFO: Key=" + key + " Config
-			// value=[" + sValue + "]");
-			return true;
-		} else if (sValue.equalsIgnoreCase("false")) {
-			// System.out.println("Config.getBoolean(): INFO: Key=" + key + " Config
-			// value=[" + sValue + "]");
-			return false;
-		} else {
-			System.out.println("Config.getBoolean(): *WARN: Key=" + key + "  Value String=[" + sValue + "]" +
+		if (Double.isNaN(entry.number)) {
+			System.out.println("Config.getDouble(): ***ERROR converting saved string value to double! Key=" + key
+					+ "  Value String=[" + entry.text + "]");
+			return defaultValue;
+		}
+		return entry.number;
+	}
+
+	static String toString(String key, Entry entry, String defaultValue) {
+		if (entry == null)
+			return defaultValue;
+		return entry.text;
+	}
+
+	static boolean toBoolean(String key, Entry entry, boolean defaultValue) {
+		if (entry == null)
+			return defaultValue;
+		if (entry.bool == null) {
+			System.out.println("Config.getBoolean(): *WARN: Key=" + key + "  Value String=[" + entry.text + "]" +
 					"  Not true or false, returning default value.");
 			return defaultValue;
 		}
+		return entry.bool;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,66 @@
+package org.usfirst.frc2016;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Handle to one value in the config file. The value is looked up and parsed
+ * once per load of the file, get() just returns it. Listeners are called when
+ * a load changes the value, on the thread doing the load. Create keys with
+ * Config.doubleKey() and friends.
+ */
+public final class ConfigKey<T> {
+	interface Parser<T> {
+		T parse(String key, Config.Entry entry, T defaultValue);
+	}
+
+	static final Parser<Double> DOUBLE = (key, entry, def) -> Config.toDouble(key, entry, def);
+	static final Parser<Integer> INT = (key, entry, def) -> Config.toInt(key, entry, def);
+	static final Parser<Boolean> BOOLEAN = (key, entry, def) -> Config.toBoolean(key, entry, def);
+	static final Parser<String> STRING = (key, entry, def) -> Config.toString(key, entry, def);
+
+	private final String key;
+	private final T defaultValue;
+	private final Parser<T> parser;
+	private final ArrayList<Consumer<T>> listeners = new ArrayList<>();
+
+	private volatile T value;
+	private int version = -1;
+
+	ConfigKey(String key, T defaultValue, Parser<T> parser) {
+		this.key = key;
+		this.defaultValue = defaultValue;
+		this.parser = parser;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	// value from the last load
+	public T get() {
+		return value;
+	}
+
+	// called with the new value after a load that changed it
+	public synchronized void onChange(Consumer<T> listener) {
+		listeners.add(listener);
+	}
+
+	// resolves the value from a new snapshot, tells the listeners if it changed
+	synchronized void refresh(Config.Snapshot snapshot) {
+		if (snapshot.version == version) {
+			return;
+		}
+		T before = value;
+		boolean first = (version < 0);
+		value = parser.parse(key, Config.getEntry(snapshot, key), defaultValue);
+		version = snapshot.version;
+
+		if (!first && !value.equals(before)) {
+			for (Consumer<T> listener : listeners) {
+				listener.accept(value);
+			}
+		}
+	}
+}
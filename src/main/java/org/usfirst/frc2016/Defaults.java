@@ -30,6 +30,36 @@ public class Defaults {
     public static final int DRIVE_CRUISEVELOCITY = 410;
     public static final int DRIVE_ACCELERATION = 205;
     public static final boolean DRIVE_JOYSQUARE = true;
+    public static final double DRIVETRAIN_TRACK_WIDTH = 26; // inches, same as AutoPilot tank width
+    // Game drive acceleration shaping
+    public static final double DRIVE_ACCEL_NOMINAL_VOLTS = 11.5;
+    public static final double DRIVE_ACCEL_MIN_VOLTS = 8.5;
+    public static final double DRIVE_ACCEL_MIN_SCALE = 0.3;
+    public static final double DRIVE_SLIP_SCALE = 0.5;
+    public static final double DRIVE_JERK = 10000; // inches/sec^3
+    // Drive model from CharacterizeDrive, volts, inches/sec, inches/sec^2. kV 0 turns it off
+    public static final double DRIVETRAIN_KS = 0;
+    public static final double DRIVETRAIN_KV = 0;
+    public static final double DRIVETRAIN_KA = 0;
+    // CharacterizeDrive runs, a run stops early past the distance or speed
+    public static final double CHARACTERIZE_RAMP_VOLTS = 1.0; // per second
+    public static final double CHARACTERIZE_STEP_VOLTS = 6.0;
+    public static final double CHARACTERIZE_MAX_DISTANCE = 180; // inches
+    public static final double CHARACTERIZE_MAX_SPEED = 150; // inches/sec
+    // Ramsete path follower, b is per inch^2 (2.0 per meter^2)
+    public static final double PATH_RAMSETE_B = 0.0013;
+    public static final double PATH_RAMSETE_ZETA = 0.7;
+    // Power budget, priority 0 is served first
+    public static final int POWER_PRIORITY = 2;
+    public static final double POWER_MIN_AMPS = 5;
+    public static final double POWER_NOMINAL_AMPS = 40; // motor demand when there is no ampMax
+    public static final int DRIVE_POWER_PRIORITY = 0;
+    public static final double DRIVE_AMP_MAX = 60; // per motor
+    public static final double DRIVE_POWER_MIN_AMPS = 40; // whole drive
+    public static final double POWER_RESISTANCE = 0.020; // ohms, battery and wiring
+    public static final double POWER_MIN_VOLTS = 8.0;
+    public static final double POWER_RESERVE_AMPS = 5;
+    public static final double POWER_MAX_AMPS = 400;
 
     // Arm presets
     public static final double ARMPOSITIONTRENCH = 80;
@@ -67,6 +97,36 @@ public class Defaults {
     public static final double TELEARMCALSPEED = .3;
     // inches per second above
 
+    // Climber auto climb, inches and seconds, power for the gains
+    public static final double HANG_EXTEND_POS = -24;
+    public static final double HANG_LIFT_POS = 0;
+    public static final double HANG_COUNTS_PER_INCH = 1200; // not measured yet
+    public static final double HANG_MAX_POWER = 0.5; // the old timed extend
+    public static final double HANG_EXTEND_VEL = 10; // about all 0.5 power reaches
+    public static final double HANG_EXTEND_ACC = 32;
+    public static final double HANG_LIFT_VEL = 6;
+    public static final double HANG_LIFT_ACC = 18;
+    public static final double HANG_KV = 0.048; // 1 / inches/sec at full power
+    public static final double HANG_KP = 0.3;
+    public static final double HANG_KI = 0.5;
+    public static final double HANG_KLEVEL = 0.15;
+    public static final double HANG_ROLL_GAIN = 0.45; // inches per degree, 26 inches between the arms
+    public static final double HANG_HOLD_ERROR = 1.0; // inches
+    public static final double HANG_TOLERANCE = 0.25;
+
+    // Intake arm, motor revs from the up stop, rpm and amps
+    public static final double INTAKE_ARM_UP_POS = -0.5;
+    public static final double INTAKE_ARM_DOWN_POS = -18;
+    public static final double INTAKE_ARM_TOLERANCE = 0.5;
+    public static final double INTAKE_ARM_VEL = 4000;
+    public static final double INTAKE_ARM_ACC = 12000;
+    public static final double INTAKE_ARM_HOME_POWER = 0.15;
+    public static final double INTAKE_ARM_HOME_AMPS = 10;
+    public static final double INTAKE_ARM_HOME_TIMEOUT = 2.0; // seconds
+    public static final double INTAKE_ARM_STALL_VEL = 100;
+    public static final double INTAKE_ARM_STALL_AMPS = 15;
+    public static final int INTAKE_ARM_STALL_SAMPLES = 5; // robot loops
+
     // Ball Pickup Speeds
     public static final double BALL_PICKUP_RETRACT_SPEED_DEFAULT = .5;
     public static final double BALL_PICKUP_LOWER_SPEED_DEFAULT = .5;
@@ -91,11 +151,37 @@ public class Defaults {
     public static final double AUT_ENCODER_DISTANCE_10FT = 100; // Distance in inches
     public static final double AUT_RIGHT_Y = -.8;
     public static final double AUT_LEFT_Y = .8;
+    // Warm up while disabled, passes over every AutoPilot sequence until a tick
+    // takes about as long as it did the pass before
+    public static final boolean WARMUP_ENABLED = true;
+    public static final int WARMUP_MAX_PASSES = 40;
+    public static final int WARMUP_STABLE_PASSES = 3;
+    public static final double WARMUP_TOLERANCE = 0.1; // fraction of the last pass
+    public static final double WARMUP_BUDGET_MS = 5; // per disabledPeriodic
 
     // Gyro
     public static final double GYROP = .095;
     public static final double GYROTURNMAX = .35;
 
+    // Limelight, inches and degrees
+    public static final double LIMELIGHT_CAMERA_HEIGHT = 0;
+    public static final double LIMELIGHT_CAMERA_PITCH = 0;
+    public static final double LIMELIGHT_TARGET_HEIGHT = 0;
+    public static final double LIMELIGHT_CAPTURE_LATENCY = 11;
+    public static final double LIMELIGHT_FILTER = 0.5;
+    public static final boolean LIMELIGHT_FUSION = false; // needs the camera and target heights
+
+    // On robot ball vision
+    public static final boolean VISION_ENABLED = false;
+    public static final double VISION_HUE_MIN = 90;
+    public static final double VISION_HUE_MAX = 130;
+    public static final double VISION_SAT_MIN = 100;
+    public static final double VISION_SAT_MAX = 255;
+    public static final double VISION_VAL_MIN = 60;
+    public static final double VISION_VAL_MAX = 255;
+    public static final double VISION_MIN_AREA = 50;
+    public static final double VISION_MIN_CIRCULARITY = 0.6;
+
     // Magazine
     public static final double MAGAZINE_FORWARD_SPEED = .5;
     public static final double MAGAZINE_REVERSE_SPEED = .5;
@@ -107,4 +193,19 @@ public class Defaults {
     public static final double TOSS_D = 0;
     public static final double TOSS_F = 1.9;
     public static final boolean TOSS_USE_VELOCITY = true;
+    // Flywheel speed control, volts and rev/sec
+    public static final double TOSS_FLYWHEEL_KS = 0.3;
+    public static final double TOSS_FLYWHEEL_KV = 0.113; // 12V / 106 rev/sec Falcon free speed
+    public static final double TOSS_FLYWHEEL_KP = 0.6;
+    public static final double TOSS_FLYWHEEL_KI = 0.5;
+    public static final double TOSS_FLYWHEEL_IZONE = 10;
+    public static final double TOSS_AT_SPEED_TOLERANCE = 0.03; // fraction of target
+    public static final int TOSS_AT_SPEED_SAMPLES = 5;
+    public static final double TOSS_AT_SPEED_HYSTERESIS = 2;
+    public static final int TOSS_BALL_SAMPLE_MS = 5;
+    public static final double TOSS_GATE_TIMEOUT = 0.5; // seconds to push a ball past the sensor
+    public static final double TOSS_SHOT_TIMEOUT = 0.5; // seconds for the flywheels to see the shot
+    public static final double TOSS_JAM_BACKOFF = 0.25; // seconds before feeding a jammed ball again
+    public static final int TOSS_JAM_RETRIES = 3;
+    public static final int TOSS_BALL_DEBOUNCE = 3; // samples
 }
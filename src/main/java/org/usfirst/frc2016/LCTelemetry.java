@@ -428,6 +428,11 @@ public class LCTelemetry {
         this.timeStampFilename = config.getBoolean("Tele_TimestampFile", true);
     }
 
+    // folder the file is written to, other logs are saved next to it
+    public String getFilePath() {
+        return filePath;
+    }
+
     /**
      * Call see what the file name will be. You can include on
      * the SmartDashboard so you can see what the name will look like based upon
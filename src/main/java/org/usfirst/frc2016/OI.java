@@ -76,6 +76,7 @@ public class OI {
     public JoystickButton btnArmDown;
     public JoystickButton btnDriveClimber;
     public JoystickButton btnClimbAuto;
+    public JoystickButton btnBallPipeline;
     
 
 
@@ -133,6 +134,9 @@ public class OI {
         btnClimbAuto =  new JoystickButton(operatorJoy, XboxController.Button.kStart.value);
         btnClimbAuto.whileActive(new ClimberAuto());
 
+        btnBallPipeline = new JoystickButton(operatorJoy, XboxController.Button.kRightBumper.value);
+        btnBallPipeline.whileHeld(new BallPipelineRun());
+
         // btnDriveClimber = new JoystickButton(operatorJoy, XboxController.Button.kRightBumper.value);
         // btnArmDown.whileHeld(new ClimberDrive());
 
@@ -140,6 +144,10 @@ public class OI {
         SmartDashboard.putData("IntakeArmUp", new IntakeArmUp());
         SmartDashboard.putData("IntakeArmDown", new IntakeArmDown());
         SmartDashboard.putData("DriveStraight", new DriveStraight());
+        SmartDashboard.putData("Characterize Quasistatic Fwd", new CharacterizeDrive(false, false));
+        SmartDashboard.putData("Characterize Quasistatic Rev", new CharacterizeDrive(false, true));
+        SmartDashboard.putData("Characterize Dynamic Fwd", new CharacterizeDrive(true, false));
+        SmartDashboard.putData("Characterize Dynamic Rev", new CharacterizeDrive(true, true));
         SmartDashboard.putData("IntakeArmStop", new IntakeArmStop());
         SmartDashboard.putData("BrushIn", new BrushIn());
         SmartDashboard.putData("BrushOut", new BrushOut());
@@ -151,6 +159,7 @@ public class OI {
         SmartDashboard.putData("Toss Stop", new TossStop());
         SmartDashboard.putData("Toss Gate Up/In", new TossGate(true));
         SmartDashboard.putData("Toss Gate Dn/Out", new TossGate(false));
+        SmartDashboard.putData("Ball Pipeline", new BallPipelineRun());
 
         SmartDashboard.putData("Ball Pickup", new BallPickup(1.5));
 
@@ -176,6 +185,11 @@ public class OI {
         //     SmartDashboard.putData("Run " + s, new AutoPilotCommand(s, true));
         // }
 
+        // follow each sequence's path with the pose estimator, the file is loaded before OI
+        for (String s : Robot.autoPilotRobot.sequenceNames()) {
+            SmartDashboard.putData("Follow " + s, new FollowPath(s));
+        }
+
 
     }
 
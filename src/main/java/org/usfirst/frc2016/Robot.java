@@ -13,11 +13,12 @@ package org.usfirst.frc2016;
 import edu.wpi.first.hal.FRCNetComm.tInstances;
 import edu.wpi.first.hal.FRCNetComm.tResourceType;
 import edu.wpi.first.vision.VisionThread;
-// import edu.wpi.first.cameraserver.CameraServer;
+import edu.wpi.first.cameraserver.CameraServer;
 // import edu.wpi.first.cscore.CameraServerCvJNI;
-// import edu.wpi.first.cscore.UsbCamera;
+import edu.wpi.first.cscore.UsbCamera;
 import edu.wpi.first.hal.HAL;
 import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj.DriverStation.Alliance;
 import edu.wpi.first.wpilibj.command.Command;
@@ -35,7 +36,12 @@ import org.usfirst.frc2016.subsystems.*;
 // import org.opencv.core.Rect;
 // import org.opencv.imgproc.Imgproc;
 // import org.usfirst.frc2016.Config;
+import org.usfirst.frc2016.utils.CanBandwidth;
+import org.usfirst.frc2016.utils.CommandTracer;
 import org.usfirst.frc2016.utils.MotorBase;
+import org.usfirst.frc2016.utils.MotorConfig;
+import org.usfirst.frc2016.utils.PowerBudget;
+import org.usfirst.frc2016.vision.BallVision;
 
 // import edu.wpi.first.vision.VisionThread;
 
@@ -64,6 +70,7 @@ public class Robot extends TimedRobot {
     public static Boolean showDebugDashboard = true;
     public static Boolean isTelemetryEnbled = false;
     public static AutoPilotRobot autoPilotRobot;
+    public static WarmUp warmUp;
     public static Timer gameTimer = new Timer();
     public static Boolean gameTimerArmed = false;
 
@@ -72,6 +79,9 @@ public class Robot extends TimedRobot {
     public static VisionThread visionThread;
     public static double centerX = 0.0;
     public static final Object imgLock = new Object();
+    public static BallVision ballVision;
+    public static PowerBudget powerBudget = new PowerBudget();
+    public static CanBandwidth canBandwidth = new CanBandwidth();
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=DECLARATIONS
     public static DriveTrainSRX driveTrainSRX;
@@ -99,6 +109,7 @@ public class Robot extends TimedRobot {
         telem = new LCTelemetry(); // create telem handle.
         telem.loadConfig(config);
         gyro = new Gyro(false);
+        gyro.loadConfig(config);
 
         // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CONSTRUCTORS
         driveTrainSRX = new DriveTrainSRX();
@@ -106,13 +117,23 @@ public class Robot extends TimedRobot {
         ballToss = new BallToss();
         limelight = new Limelight();
         climber = new Climber();
+        driveTrainSRX.startPoseEstimator();
+        canBandwidth.apply();
+        canBandwidth.report();
+        MotorConfig.flushAll(MotorConfig.BOOT_TIMEOUT_MS, MotorConfig.BOOT_DEADLINE_MS, MotorConfig.BOOT_PASSES);
         // pathPlanner = new PathPlanner();
 
         autoPilotRobot = new AutoPilotRobot();
         autoPilotRobot.loadFile();
-
-        // UsbCamera camera = CameraServer.startAutomaticCapture();
-        // camera.setResolution(IMG_WIDTH, IMG_HEIGHT);
+        warmUp = new WarmUp();
+
+        if (config.getBoolean("VisionEnabled", Defaults.VISION_ENABLED)) {
+            UsbCamera camera = CameraServer.startAutomaticCapture();
+            camera.setResolution(IMG_WIDTH, IMG_HEIGHT);
+            ballVision = new BallVision();
+            ballVision.loadConfig(config);
+            visionThread = ballVision.start(camera);
+        }
 
         
         // END AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CONSTRUCTORS
@@ -144,13 +165,16 @@ public class Robot extends TimedRobot {
      */
     @Override
     public void disabledInit() {
-
+        // end of a match or practice run, nothing is written if no commands ran
+        CommandTracer.save(telem.getFilePath());
     }
 
     @Override
     public void disabledPeriodic() {
+        config.applyPending();
         updateDashboard();
         Scheduler.getInstance().run();
+        warmUp.periodic();
     }
 
     @Override
@@ -167,8 +191,10 @@ public class Robot extends TimedRobot {
      */
     @Override
     public void autonomousPeriodic() {
+        MotorBase.updateAll();
         gameTimerCheckFinish();
         Scheduler.getInstance().run();
+        balancePower();
     }
 
     @Override
@@ -189,10 +215,19 @@ public class Robot extends TimedRobot {
     public void teleopPeriodic() {
         MotorBase.updateAll();
         Scheduler.getInstance().run();
+        balancePower();
         gameTimerCheckFinish();
         updateDashboard();
     }
 
+    // share the battery once the motors and drive have set their demand for the loop
+    private void balancePower() {
+        double amps = MotorBase.getTotalAmps() + driveTrainSRX.getSupplyCurrent();
+        powerBudget.update(RobotController.getBatteryVoltage(), amps);
+        MotorBase.applyPowerLimits();
+        driveTrainSRX.applyPowerLimit();
+    }
+
     public static void gameTimerStart() {
         gameTimer.reset();
         gameTimer.start();
@@ -235,14 +270,22 @@ public class Robot extends TimedRobot {
 
     public static void readConfig() {
         config = new Config(CONFIG_FILE_NAME);
+        // edits to the file are picked up, applied in disabledPeriodic
+        config.watch();
     }
 
     private void loadConfig() {
+        powerBudget.setBattery(config.getDouble("PowerResistance", Defaults.POWER_RESISTANCE),
+                config.getDouble("PowerMinVolts", Defaults.POWER_MIN_VOLTS),
+                config.getDouble("PowerReserveAmps", Defaults.POWER_RESERVE_AMPS),
+                config.getDouble("PowerMaxAmps", Defaults.POWER_MAX_AMPS));
 
     }
 
     private void updateDashboard() {
         MotorBase.displayAll();
+        SmartDashboard.putNumber("Power Budget", powerBudget.getBudget());
+        SmartDashboard.putNumber("Power Allowed", powerBudget.getTotalAllowed());
 
         // SmartDashboard.putBoolean("UseNeo", usingBallPickupNeo);
         // SmartDashboard.putBoolean("Robot Calibrated",robotIsCalibrated);
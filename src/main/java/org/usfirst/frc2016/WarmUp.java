@@ -0,0 +1,173 @@
+package org.usfirst.frc2016;
+
+import org.usfirst.frc2016.commands.FollowPath;
+import org.usfirst.frc2016.math.RigidTransform2;
+import org.usfirst.frc2016.math.Rotation2;
+import org.usfirst.frc2016.math.Vector2;
+import org.usfirst.frc2016.utils.PathTrajectory;
+import org.usfirst.frc2016.utils.RamseteFollower;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Runs the autonomous code while the robot is disabled so the first match
+ * isn't the first time it runs. Each AutoPilot sequence is dry run and then
+ * its path is followed with the drive output dropped, a call to periodic()
+ * does about WarmUpBudgetMs of it so a slow pass can't hold up the start of
+ * autonomous. A pass covers every sequence. Passes stop when the AutoPilot
+ * tick time stays within the tolerance of the pass before, and the number of
+ * passes and ticks it took is reported. The settings follow the config file
+ * when it is reloaded.
+ */
+public class WarmUp {
+	private final String dashboardKey = "Warm-up";
+
+	private final ConfigKey<Boolean> keyEnabled;
+	private final ConfigKey<Integer> keyMaxPasses;
+	private final ConfigKey<Integer> keyStablePasses;
+	private final ConfigKey<Double> keyTolerance;
+	private final ConfigKey<Double> keyBudgetMs;
+
+	private String[] names;
+	private int index = 0;
+	private boolean dryRunning = false; // names[index] is being dry run
+	private boolean pathPending = false; // then its path is followed
+	private int passes = 0;
+	private int stableCount = 0;
+	private boolean done = false;
+
+	// this pass
+	private long passTicks;
+	private long passNanos;
+	private long pathUpdates;
+	private long pathNanos;
+
+	private long totalTicks = 0;
+	private double firstMicros = 0;
+	private double lastMicros = 0;
+	private double pathMicros = 0;
+
+	public WarmUp() {
+		keyEnabled = Robot.config.booleanKey("WarmUpEnabled", Defaults.WARMUP_ENABLED);
+		keyMaxPasses = Robot.config.intKey("WarmUpMaxPasses", Defaults.WARMUP_MAX_PASSES);
+		keyStablePasses = Robot.config.intKey("WarmUpStablePasses", Defaults.WARMUP_STABLE_PASSES);
+		keyTolerance = Robot.config.doubleKey("WarmUpTolerance", Defaults.WARMUP_TOLERANCE);
+		keyBudgetMs = Robot.config.doubleKey("WarmUpBudgetMs", Defaults.WARMUP_BUDGET_MS);
+		keyEnabled.onChange(on -> {
+			if (!done) {
+				SmartDashboard.putString(dashboardKey, on ? "waiting" : "off");
+			}
+		});
+		SmartDashboard.putString(dashboardKey, keyEnabled.get() ? "waiting" : "off");
+	}
+
+	// from disabledPeriodic, a slice of a dry run or one path a call
+	public void periodic() {
+		if (!keyEnabled.get() || done || Robot.autoPilotRobot.isRunning()) {
+			return;
+		}
+		if (pathPending) {
+			followPath(names[index]);
+			pathPending = false;
+			nextSequence();
+			return;
+		}
+		if (dryRunning && !Robot.autoPilotRobot.isDryRunning()) {
+			// a sequence was started and ended the dry run, run it again
+			dryRunning = false;
+		}
+
+		if (!dryRunning) {
+			if (index == 0) {
+				names = Robot.autoPilotRobot.sequenceNames();
+				if (names.length == 0) {
+					done = true;
+					SmartDashboard.putString(dashboardKey, "no sequences");
+					return;
+				}
+				passTicks = 0;
+				passNanos = 0;
+				pathUpdates = 0;
+				pathNanos = 0;
+			}
+			dryRunning = Robot.autoPilotRobot.dryRunStart(names[index]);
+			if (!dryRunning) {
+				nextSequence();
+				return;
+			}
+		}
+
+		long budgetNanos = (long) (keyBudgetMs.get() * 1e6);
+		if (Robot.autoPilotRobot.dryRunStep(budgetNanos)) {
+			return;
+		}
+		dryRunning = false;
+		passTicks += Robot.autoPilotRobot.getDryRunTicks();
+		passNanos += Robot.autoPilotRobot.getDryRunNanos();
+		pathPending = true;
+	}
+
+	private void nextSequence() {
+		if (++index == names.length) {
+			index = 0;
+			endPass();
+		}
+	}
+
+	public boolean isDone() {
+		return done;
+	}
+
+	// the path follower and pose math of FollowPath, on the ideal poses
+	private void followPath(String name) {
+		PathTrajectory path = Robot.autoPilotRobot.getTrajectory(name, FollowPath.PATH_PERIOD);
+		if (path == null) {
+			return;
+		}
+		RamseteFollower follower = new RamseteFollower(
+				Robot.config.getDouble("PathRamseteB", Defaults.PATH_RAMSETE_B),
+				Robot.config.getDouble("PathRamseteZeta", Defaults.PATH_RAMSETE_ZETA), path.getTrackWidth());
+		RigidTransform2 startInverse = new RigidTransform2(new Vector2(0, 0), Rotation2.ZERO).inverse();
+
+		long start = System.nanoTime();
+		for (int i = 0; i < path.size(); i++) {
+			RigidTransform2 pose = startInverse.transformBy(new RigidTransform2(
+					new Vector2(path.getX(i), path.getY(i)), Rotation2.fromRadians(path.getHeading(i))));
+			follower.update(path, i * path.getPeriod(), pose.translation.x, pose.translation.y,
+					pose.rotation.toRadians());
+		}
+		pathNanos += System.nanoTime() - start;
+		pathUpdates += path.size();
+	}
+
+	private void endPass() {
+		if (passTicks == 0) {
+			// nothing ran, try again next time
+			return;
+		}
+		passes++;
+		totalTicks += passTicks;
+		double micros = passNanos / 1000.0 / passTicks;
+		pathMicros = (pathUpdates > 0) ? pathNanos / 1000.0 / pathUpdates : 0;
+		if (passes == 1) {
+			firstMicros = micros;
+		} else if (Math.abs(micros - lastMicros) <= keyTolerance.get() * lastMicros) {
+			stableCount++;
+		} else {
+			stableCount = 0;
+		}
+		lastMicros = micros;
+
+		int stablePasses = keyStablePasses.get();
+		if (stableCount >= stablePasses || passes >= keyMaxPasses.get()) {
+			done = true;
+			String report = String.format("%s after %d passes, %d ticks, %.1f us a tick first, %.1f us last,"
+					+ " path %.1f us", (stableCount >= stablePasses) ? "settled" : "not settled", passes, totalTicks,
+					firstMicros, micros, pathMicros);
+			System.out.println("WarmUp: " + report);
+			SmartDashboard.putString(dashboardKey, report);
+		} else {
+			SmartDashboard.putString(dashboardKey, String.format("pass %d, %.1f us a tick", passes, micros));
+		}
+	}
+}
@@ -1,10 +1,9 @@
 package org.usfirst.frc2016.commands;
 
 import org.usfirst.frc2016.Robot;
-import edu.wpi.first.wpilibj.command.CommandGroup;
 
 // class to start AutoPilot sequences
-public class AutoPilotCommand extends CommandGroup {
+public class AutoPilotCommand extends TracedCommandGroup {
 	String sequenceKey;
 	Boolean checkFileModified = false;
 
@@ -28,7 +27,7 @@ public class AutoPilotCommand extends CommandGroup {
 
 	// Called just before this Command runs the first time
 	@Override
-	protected void initialize() {
+	protected void onInitialize() {
 		if (!sequenceKey.isEmpty()) {
 			Robot.autoPilotRobot.initialize(sequenceKey, checkFileModified);
 		}
@@ -36,7 +35,7 @@ public class AutoPilotCommand extends CommandGroup {
 
 	// Called repeatedly when this Command is scheduled to run
 	@Override
-	public void execute() {
+	protected void onExecute() {
 		Robot.autoPilotRobot.execute();
 	}
 
@@ -48,14 +47,14 @@ public class AutoPilotCommand extends CommandGroup {
 
 	// Called once after isFinished returns true
 	@Override
-	protected void end() {
+	protected void onEnd() {
 		Robot.autoPilotRobot.end();
 	}
 
 	// Called when another command which requires one or more of the same
 	// subsystems is scheduled to run
 	@Override
-	protected void interrupted() {
+	protected void onInterrupted() {
 		Robot.autoPilotRobot.interrupted();
 	}
 }
@@ -10,14 +10,13 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.Timer;
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class BallPickup extends Command {
+public class BallPickup extends TracedCommand {
     private double spinTime;
     private Timer tmr = new Timer();
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
@@ -39,14 +38,14 @@ public class BallPickup extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         Robot.ballIntake.brushIn();
         tmr.start();
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -57,7 +56,7 @@ public class BallPickup extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
         Robot.ballIntake.brushStop();
         // May want to leave the motor enabled incase it drifts down.
         // Robot.ballIntake.ballPickupIdle();
@@ -66,7 +65,7 @@ public class BallPickup extends Command {
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
-       end();
+    protected void onInterrupted() {
+       onEnd();
     }
 }
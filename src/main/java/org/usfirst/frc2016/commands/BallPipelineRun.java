@@ -0,0 +1,87 @@
+package org.usfirst.frc2016.commands;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+import org.usfirst.frc2016.Defaults;
+import org.usfirst.frc2016.Robot;
+import org.usfirst.frc2016.utils.BallPipeline;
+
+/**
+ * Intakes and shoots while held. BallPipeline decides when the brush and the
+ * gate run from the ready-to-toss sensor and the flywheels, the next ball is
+ * brought up while the wheels recover from the last shot.
+ */
+public class BallPipelineRun extends TracedCommand {
+    // shared by the button and dashboard commands so the stats add up
+    private static final BallPipeline pipeline = new BallPipeline();
+
+    private boolean brushOn;
+
+    public BallPipelineRun() {
+        requires(Robot.ballIntake);
+        requires(Robot.ballToss);
+    }
+
+    // Called just before this Command runs the first time
+    @Override
+    protected void onInitialize() {
+        pipeline.setTimeouts(Robot.config.getDouble("Toss_gateTimeout", Defaults.TOSS_GATE_TIMEOUT),
+                Robot.config.getDouble("Toss_shotTimeout", Defaults.TOSS_SHOT_TIMEOUT));
+        pipeline.setJamRetry(Robot.config.getDouble("Toss_jamBackoff", Defaults.TOSS_JAM_BACKOFF),
+                Robot.config.getInt("Toss_jamRetries", Defaults.TOSS_JAM_RETRIES));
+        pipeline.setTimedShots(!Robot.ballToss.isCountingShots());
+        pipeline.reset();
+        pipeline.setEnabled(true, true);
+        brushOn = false;
+        Robot.ballToss.startFlywheels();
+    }
+
+    // Called repeatedly when this Command is scheduled to run
+    @Override
+    protected void onExecute() {
+        pipeline.update(System.nanoTime() / 1e9, Robot.ballToss.isBallReady(), Robot.ballToss.isFlywheelReady(),
+                Robot.ballToss.getShotCount());
+
+        if (pipeline.isBrushOn() != brushOn) {
+            brushOn = pipeline.isBrushOn();
+            if (brushOn) {
+                Robot.ballIntake.brushIn();
+            } else {
+                Robot.ballIntake.brushStop();
+            }
+        }
+        Robot.ballToss.gateFeed(pipeline.isGateOn());
+        SmartDashboard.putBoolean("Pipeline Jammed", pipeline.isJammed());
+    }
+
+    // Make this return true when this Command no longer needs to run execute()
+    @Override
+    protected boolean isFinished() {
+        return false;
+    }
+
+    // Called once after isFinished returns true
+    @Override
+    protected void onEnd() {
+        pipeline.setEnabled(false, false);
+        Robot.ballIntake.brushStop();
+        Robot.ballToss.stop();
+
+        // dwell times for tuning
+        for (BallPipeline.Stage stage : BallPipeline.Stage.values()) {
+            SmartDashboard.putString("Pipeline " + stage, String.format("%.3f / %.3f", pipeline.getDwellMean(stage),
+                    pipeline.getDwellMax(stage)));
+        }
+        SmartDashboard.putNumber("Pipeline Balls/Sec", pipeline.getBallsPerSecond());
+        SmartDashboard.putNumber("Pipeline Jams", pipeline.getJams());
+        System.out.format("BallPipeline: %d shot, %.2f balls/sec, %d jams, %d missed%n", pipeline.getBallsShot(),
+                pipeline.getBallsPerSecond(), pipeline.getJams(), pipeline.getMissed());
+    }
+
+    // Called when another command which requires one or more of the same
+    // subsystems is scheduled to run
+    @Override
+    protected void onInterrupted() {
+        onEnd();
+    }
+}
@@ -11,7 +11,6 @@
 package org.usfirst.frc2016.commands;
 
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.command.Scheduler;
 
 import org.usfirst.frc2016.Robot;
@@ -19,7 +18,7 @@ import org.usfirst.frc2016.Robot;
 /**
  *
  */
-public class BrushIn extends Command {
+public class BrushIn extends TracedCommand {
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
 
     // END AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
@@ -40,14 +39,14 @@ public class BrushIn extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() { 
+    protected void onInitialize() { 
         Robot.ballIntake.brushIn();
         //Scheduler.getInstance().add(command);
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
 
         // if (limitSwitch.get() && !Robot.firstBallCollected) {
         //     Robot.ballToss.gateTurn();
@@ -72,14 +71,14 @@ public class BrushIn extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
         Robot.ballIntake.brushStop();
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
-        end();
+    protected void onInterrupted() {
+        onEnd();
     }
 }
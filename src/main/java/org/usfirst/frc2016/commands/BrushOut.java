@@ -10,13 +10,12 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class BrushOut extends Command {
+public class BrushOut extends TracedCommand {
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
 
@@ -37,13 +36,13 @@ public class BrushOut extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         Robot.ballIntake.brushOut();
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -54,14 +53,14 @@ public class BrushOut extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
         Robot.ballIntake.brushStop();
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
-        end();
+    protected void onInterrupted() {
+        onEnd();
     }
 }
@@ -0,0 +1,220 @@
+package org.usfirst.frc2016.commands;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.usfirst.frc2016.Defaults;
+import org.usfirst.frc2016.Robot;
+import org.usfirst.frc2016.utils.DriveFeedforward;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+// drive characterization, quasistatic (slow voltage ramp) or dynamic (voltage step) runs
+// samples are taken on a fast timer into buffers made up front, the fit is done when the run ends
+// a run stops early when the robot has gone the max distance or reached the max speed
+public class CharacterizeDrive extends TracedCommand {
+	private static final int SAMPLE_MS = 5;
+	private static final double MAX_SECONDS = 10;
+	private static final int CAPACITY = (int) (MAX_SECONDS * 1000 / SAMPLE_MS);
+	private static final double MIN_FIT_VELOCITY = 1.0; // inches/sec
+
+	// samples of a complete run, copied as the dashboard buttons run the same command again
+	private static final class Run {
+		final double[] time;
+		final double[] volts;
+		final double[] speed;
+
+		Run(CharacterizeDrive cmd) {
+			int n = cmd.count;
+			time = Arrays.copyOf(cmd.time, n);
+			volts = Arrays.copyOf(cmd.volts, n);
+			speed = new double[n];
+			for (int i = 0; i < n; i++) {
+				speed[i] = 0.5 * (cmd.leftSpeed[i] + cmd.rightSpeed[i]);
+			}
+		}
+	}
+
+	// newest complete run of each kind, fit together
+	private static final Run[] runs = new Run[4];
+
+	private final boolean dynamic;
+	private final boolean reverse;
+	private final double[] time = new double[CAPACITY];
+	private final double[] volts = new double[CAPACITY];
+	private final double[] leftSpeed = new double[CAPACITY];
+	private final double[] rightSpeed = new double[CAPACITY];
+	private volatile int count = 0;
+	private volatile boolean limitReached = false;
+
+	private double rampVolts; // per second
+	private double stepVolts;
+	private double maxDistance;
+	private double maxSpeed;
+	private double startLeft;
+	private double startRight;
+
+	private Timer sampleTimer;
+	private long startNanos;
+
+	public CharacterizeDrive(boolean dynamic, boolean reverse) {
+		this.dynamic = dynamic;
+		this.reverse = reverse;
+		requires(Robot.driveTrainSRX);
+	}
+
+	// Called just before this Command runs the first time
+	@Override
+	protected void onInitialize() {
+		count = 0;
+		limitReached = false;
+		rampVolts = Robot.config.getDouble("CharacterizeRampVolts", Defaults.CHARACTERIZE_RAMP_VOLTS);
+		stepVolts = Robot.config.getDouble("CharacterizeStepVolts", Defaults.CHARACTERIZE_STEP_VOLTS);
+		maxDistance = Robot.config.getDouble("CharacterizeMaxDistance", Defaults.CHARACTERIZE_MAX_DISTANCE);
+		maxSpeed = Robot.config.getDouble("CharacterizeMaxSpeed", Defaults.CHARACTERIZE_MAX_SPEED);
+		startLeft = Robot.driveTrainSRX.getLeftDistance();
+		startRight = Robot.driveTrainSRX.getRightDistance();
+		startNanos = System.nanoTime();
+		sampleTimer = new Timer("CharacterizeDrive", true);
+		sampleTimer.scheduleAtFixedRate(new TimerTask() {
+			@Override
+			public void run() {
+				sample();
+			}
+		}, 0, SAMPLE_MS);
+	}
+
+	// runs on the sample timer
+	private void sample() {
+		int n = count;
+		if (n >= CAPACITY || limitReached) {
+			return;
+		}
+		double left = Robot.driveTrainSRX.getLeftVelocity();
+		double right = Robot.driveTrainSRX.getRightVelocity();
+		double distance = 0.5 * (Math.abs(Robot.driveTrainSRX.getLeftDistance() - startLeft)
+				+ Math.abs(Robot.driveTrainSRX.getRightDistance() - startRight));
+		if (distance >= maxDistance || 0.5 * Math.abs(left + right) >= maxSpeed) {
+			limitReached = true;
+			Robot.driveTrainSRX.tankDriveVolts(0, 0);
+			return;
+		}
+
+		double t = (System.nanoTime() - startNanos) / 1.0e9;
+		double v = dynamic ? stepVolts : rampVolts * t;
+		if (reverse) {
+			v = -v;
+		}
+		Robot.driveTrainSRX.tankDriveVolts(v, v);
+
+		time[n] = t;
+		volts[n] = v;
+		leftSpeed[n] = left;
+		rightSpeed[n] = right;
+		count = n + 1;
+	}
+
+	// Called repeatedly when this Command is scheduled to run
+	@Override
+	protected void onExecute() {
+		Robot.driveTrainSRX.pingDifferentialDrive();
+	}
+
+	// Make this return true when this Command no longer needs to run execute()
+	@Override
+	protected boolean isFinished() {
+		return count >= CAPACITY || limitReached;
+	}
+
+	// Called once after isFinished returns true
+	@Override
+	protected void onEnd() {
+		stop();
+		if (limitReached) {
+			System.out.printf("CharacterizeDrive: stopped at the distance or speed limit after %.2f s%n",
+					(count > 0) ? time[count - 1] : 0.0);
+		}
+
+		save("");
+		// only complete runs are fit, the feedforward is left alone until there is one of each kind
+		runs[(dynamic ? 2 : 0) + (reverse ? 1 : 0)] = new Run(this);
+		DriveFeedforward feedforward = fitRuns();
+		if (feedforward != null) {
+			System.out.println("CharacterizeDrive: " + feedforward);
+			SmartDashboard.putNumber("Drive kS", feedforward.kS);
+			SmartDashboard.putNumber("Drive kV", feedforward.kV);
+			SmartDashboard.putNumber("Drive kA", feedforward.kA);
+			SmartDashboard.putNumber("Drive Fit R2", feedforward.rSquared);
+			// drive on the fit until the SRXDriveKS/KV/KA keys are edited
+			Robot.driveTrainSRX.setFeedforward(feedforward);
+		}
+	}
+
+	// Called when another command which requires one or more of the same
+	// subsystems is scheduled to run
+	@Override
+	protected void onInterrupted() {
+		// the samples are saved to look at, but a cut short run is not fit
+		stop();
+		System.out.println("CharacterizeDrive: interrupted, run not used in the fit");
+		save("_interrupted");
+	}
+
+	private void stop() {
+		sampleTimer.cancel();
+		sampleTimer = null;
+		Robot.driveTrainSRX.tankDriveVolts(0, 0);
+	}
+
+	// fit of all the runs done so far, needs a quasistatic and a dynamic run to find kA
+	private static DriveFeedforward fitRuns() {
+		boolean quasistatic = runs[0] != null || runs[1] != null;
+		boolean dynamic = runs[2] != null || runs[3] != null;
+		if (!quasistatic || !dynamic) {
+			return null;
+		}
+		int total = 0;
+		for (Run run : runs) {
+			if (run != null) {
+				total += run.time.length;
+			}
+		}
+		double[] v = new double[total];
+		double[] speed = new double[total];
+		double[] accel = new double[total];
+		int at = 0;
+		for (Run run : runs) {
+			if (run == null) {
+				continue;
+			}
+			int n = run.time.length;
+			double[] runAccel = DriveFeedforward.differentiate(run.time, run.speed, n,
+					DriveFeedforward.DIFFERENTIATE_SPAN);
+			System.arraycopy(run.volts, 0, v, at, n);
+			System.arraycopy(run.speed, 0, speed, at, n);
+			System.arraycopy(runAccel, 0, accel, at, n);
+			at += n;
+		}
+		return DriveFeedforward.fit(v, speed, accel, total, MIN_FIT_VELOCITY);
+	}
+
+	// time,volts,left speed,right speed, to check or refit the run by hand
+	// an interrupted run gets its own file so it doesn't replace the complete run's
+	private void save(String suffix) {
+		String path = Robot.config.getString("Tele_FilePath", "/tmp");
+		String name = String.format("%s/characterize_%s_%s%s.csv", path, dynamic ? "dynamic" : "quasistatic",
+				reverse ? "reverse" : "forward", suffix);
+		try (PrintWriter out = new PrintWriter(new FileWriter(name))) {
+			out.println("time,volts,left,right");
+			for (int i = 0; i < count; i++) {
+				out.printf("%.4f,%.3f,%.3f,%.3f%n", time[i], volts[i], leftSpeed[i], rightSpeed[i]);
+			}
+		} catch (IOException e) {
+			System.out.println("CharacterizeDrive: can't write " + name);
+		}
+	}
+}
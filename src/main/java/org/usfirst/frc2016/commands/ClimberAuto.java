@@ -7,9 +7,8 @@ package org.usfirst.frc2016.commands;
 import org.usfirst.frc2016.Robot;
 
 import edu.wpi.first.wpilibj.AddressableLED;
-import edu.wpi.first.wpilibj.command.CommandGroup;
 
-public class ClimberAuto extends CommandGroup {
+public class ClimberAuto extends TracedCommandGroup {
   /** Add your docs here. */
   public ClimberAuto() {
     // Add Commands here:
@@ -53,11 +52,13 @@ public class ClimberAuto extends CommandGroup {
     
     //addSequential(par);
 
+    // arms finish on position, the old fixed times plus two seconds are only a
+    // timeout, Hang_maxPower keeps the weaker arm a little behind the profile
     addSequential(new ClimberFlop(flopSpeed), flopTime);
-    addSequential(new ClimberExtend(-extendSpeed, -extendSpeed), extendTime);
+    addSequential(new ClimberMove(false), extendTime + 2);
 
     addSequential(new ClimberFlop(-flopSpeed), flopTime);
-    addSequential(new ClimberExtend(liftSpeed, liftSpeed), liftTime);
+    addSequential(new ClimberMove(true), liftTime + 2);
  
   }
 }
@@ -10,13 +10,12 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class ClimberDrive extends Command {
+public class ClimberDrive extends TracedCommand {
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
 
@@ -37,13 +36,13 @@ public class ClimberDrive extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         System.out.println("drive climber start");
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
         Robot.climber.driveClimber();
     }
 
@@ -55,7 +54,7 @@ public class ClimberDrive extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
         System.out.println("drive climber end");
         Robot.climber.stop();
     }
@@ -63,7 +62,7 @@ public class ClimberDrive extends Command {
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
+    protected void onInterrupted() {
         System.out.println("drive climber interrupted");
         Robot.climber.stop();
     }
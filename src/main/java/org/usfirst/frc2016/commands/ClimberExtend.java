@@ -11,13 +11,12 @@
 package org.usfirst.frc2016.commands;
 
 import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.command.Command;
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class ClimberExtend extends Command {
+public class ClimberExtend extends TracedCommand {
     private double fractionLeft, fractionRight;
     private double seconds=0;
     Timer timer = new Timer();
@@ -62,13 +61,13 @@ public class ClimberExtend extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         Robot.climber.extendByPower(fractionLeft, fractionRight);
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -79,14 +78,14 @@ public class ClimberExtend extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
         Robot.climber.stop();
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
+    protected void onInterrupted() {
         Robot.climber.stop();
     }
 }
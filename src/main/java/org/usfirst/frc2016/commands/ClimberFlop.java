@@ -6,9 +6,8 @@ package org.usfirst.frc2016.commands;
 
 import org.usfirst.frc2016.Robot;
 
-import edu.wpi.first.wpilibj.command.Command;
 
-public class ClimberFlop extends Command {
+public class ClimberFlop extends TracedCommand {
   private double fraction;
   public ClimberFlop(double fraction) {
 
@@ -19,11 +18,12 @@ public class ClimberFlop extends Command {
 
   // Called just before this Command runs the first time
   @Override
-  protected void initialize() {}
+  protected void onInitialize() {
+  }
 
   // Called repeatedly when this Command is scheduled to run
   @Override
-  protected void execute() {
+  protected void onExecute() {
     Robot.climber.flopByPower(fraction);
   }
 
@@ -35,14 +35,14 @@ public class ClimberFlop extends Command {
 
   // Called once after isFinished returns true
   @Override
-  protected void end() {
+  protected void onEnd() {
     Robot.climber.stop();
   }
 
   // Called when another command which requires one or more of the same
   // subsystems is scheduled to run
   @Override
-  protected void interrupted() {
+  protected void onInterrupted() {
     Robot.climber.stop();
   }
 }
@@ -0,0 +1,52 @@
+package org.usfirst.frc2016.commands;
+
+import org.usfirst.frc2016.Robot;
+
+/**
+ * Moves both climber arms together to the extend or lift position, kept
+ * level, and finishes when they get there. See Climber.climbStart. A lift
+ * leaves the arms holding the robot up until the operator moves them.
+ */
+public class ClimberMove extends TracedCommand {
+    private boolean lift;
+
+    public ClimberMove(boolean lift) {
+        this.lift = lift;
+        requires(Robot.climber);
+    }
+
+    // Called just before this Command runs the first time
+    @Override
+    protected void onInitialize() {
+        Robot.climber.climbStart(lift);
+    }
+
+    // Called repeatedly when this Command is scheduled to run
+    @Override
+    protected void onExecute() {
+        Robot.climber.climbUpdate();
+    }
+
+    // Make this return true when this Command no longer needs to run execute()
+    @Override
+    protected boolean isFinished() {
+        return Robot.climber.isClimbDone();
+    }
+
+    // Called once after isFinished returns true
+    @Override
+    protected void onEnd() {
+        if (lift) {
+            Robot.climber.climbHold();
+        } else {
+            Robot.climber.climbStop();
+        }
+    }
+
+    // Called when another command which requires one or more of the same
+    // subsystems is scheduled to run
+    @Override
+    protected void onInterrupted() {
+        Robot.climber.climbStop();
+    }
+}
@@ -10,14 +10,12 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
-
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class DriveStraight extends Command {
+public class DriveStraight extends TracedCommand {
 
     private double startingAngle;
 
@@ -39,13 +37,13 @@ public class DriveStraight extends Command {
     }
 
     // Called just before this Command runs the first time
-    protected void initialize() {
+    protected void onInitialize() {
         startingAngle = Robot.gyro.getAngle();
         // Robot.gyro.reset();
     }
 
     // Called repeatedly when this Command is scheduled to run
-    protected void execute() {
+    protected void onExecute() {
         // Robot.driveTrainSRX.arcadeDrive(Robot.oi.driveRight.getY(), 0);
         // Robot.driveTrainSRX.gyroDrive(Robot.oi.driveRight.getY(), startingAngle);
         Robot.driveTrainSRX.gyroDrive(0, startingAngle);
@@ -57,11 +55,11 @@ public class DriveStraight extends Command {
     }
 
     // Called once after isFinished returns true
-    protected void end() {
+    protected void onEnd() {
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
-    protected void interrupted() {
+    protected void onInterrupted() {
     }
 }
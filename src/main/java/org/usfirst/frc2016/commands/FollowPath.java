@@ -0,0 +1,106 @@
+package org.usfirst.frc2016.commands;
+
+import org.usfirst.frc2016.Defaults;
+import org.usfirst.frc2016.Robot;
+import org.usfirst.frc2016.math.RigidTransform2;
+import org.usfirst.frc2016.utils.PathTrajectory;
+import org.usfirst.frc2016.utils.RamseteFollower;
+
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+// follows the path of an AutoPilot sequence using the pose estimator and the Talon velocity loops
+public class FollowPath extends TracedCommand {
+	public static final double PATH_PERIOD = 0.01; // seconds between path samples
+	private static final double END_TOLERANCE = 2.0; // inches from the end of the path
+	private static final double END_TIMEOUT = 1.0; // seconds past the path time
+
+	private String sequenceName;
+	private PathTrajectory path;
+	private RamseteFollower follower;
+	// start pose, the follower is given the pose relative to it without allocating each tick
+	private double startX;
+	private double startY;
+	private double startCos;
+	private double startSin;
+
+	public FollowPath(String sequenceName) {
+		this.sequenceName = sequenceName;
+		requires(Robot.driveTrainSRX);
+	}
+
+	// Called just before this Command runs the first time
+	@Override
+	protected void onInitialize() {
+		path = Robot.autoPilotRobot.getTrajectory(sequenceName, PATH_PERIOD);
+		if (path == null) {
+			System.out.println("FollowPath: sequence '" + sequenceName + "' not found");
+			return;
+		}
+		follower = new RamseteFollower(Robot.config.getDouble("PathRamseteB", Defaults.PATH_RAMSETE_B),
+				Robot.config.getDouble("PathRamseteZeta", Defaults.PATH_RAMSETE_ZETA), path.getTrackWidth());
+
+		// the path starts where the robot is, or at the origin before the first pose sample
+		RigidTransform2 start = Robot.driveTrainSRX.getEstimatedPose();
+		if (start == null) {
+			startX = 0;
+			startY = 0;
+			startCos = 1;
+			startSin = 0;
+		} else {
+			startX = start.translation.x;
+			startY = start.translation.y;
+			startCos = start.rotation.cos;
+			startSin = start.rotation.sin;
+		}
+	}
+
+	// Called repeatedly when this Command is scheduled to run
+	@Override
+	protected void onExecute() {
+		if (path == null) {
+			return;
+		}
+		// the origin before the first pose sample, as at the start
+		RigidTransform2 pose = Robot.driveTrainSRX.getEstimatedPose();
+		double px = pose == null ? 0 : pose.translation.x;
+		double py = pose == null ? 0 : pose.translation.y;
+		double pc = pose == null ? 1 : pose.rotation.cos;
+		double ps = pose == null ? 0 : pose.rotation.sin;
+
+		// the pose in the start frame, the offset and heading rotated back by the start heading
+		double dx = px - startX;
+		double dy = py - startY;
+		double x = startCos * dx + startSin * dy;
+		double y = startCos * dy - startSin * dx;
+		double heading = Math.atan2(startCos * ps - startSin * pc, startCos * pc + startSin * ps);
+		follower.update(path, timeSinceInitialized(), x, y, heading);
+		Robot.driveTrainSRX.tankVelocityDrive(follower.getLeftVelocity(), follower.getRightVelocity());
+
+		SmartDashboard.putNumber("Path Cross Error", follower.getCrossError());
+		SmartDashboard.putNumber("Path Along Error", follower.getAlongError());
+	}
+
+	// Make this return true when this Command no longer needs to run execute()
+	@Override
+	protected boolean isFinished() {
+		if (path == null) {
+			return true;
+		}
+		double time = timeSinceInitialized();
+		return (time >= path.getDuration() && follower.isAtEnd(path, END_TOLERANCE))
+				|| time > path.getDuration() + END_TIMEOUT;
+	}
+
+	// Called once after isFinished returns true
+	@Override
+	protected void onEnd() {
+		Robot.driveTrainSRX.tankVelocityDrive(0, 0);
+	}
+
+	// Called when another command which requires one or more of the same
+	// subsystems is scheduled to run
+	@Override
+	protected void onInterrupted() {
+		onEnd();
+	}
+}
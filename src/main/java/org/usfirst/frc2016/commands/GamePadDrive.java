@@ -10,14 +10,12 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
-
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class GamePadDrive extends Command {
+public class GamePadDrive extends TracedCommand {
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
 
@@ -38,12 +36,12 @@ public class GamePadDrive extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
         Robot.driveTrainSRX.gameVelocityDrive(Robot.oi.getdriveJoy());
     }
 
@@ -55,12 +53,12 @@ public class GamePadDrive extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
+    protected void onInterrupted() {
     }
 }
@@ -5,14 +5,14 @@
 package org.usfirst.frc2016.commands;
 
 import org.usfirst.frc2016.Robot;
+import org.usfirst.frc2016.utils.BallTracker;
 
 import edu.wpi.first.networktables.NetworkTable;
 import edu.wpi.first.networktables.NetworkTableEntry;
 import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
-public class Grip_FindBalls extends Command {
+public class Grip_FindBalls extends TracedCommand {
   public Grip_FindBalls() {
     // Use requires() here to declare subsystem dependencies
     // eg. requires(chassis);
@@ -27,15 +27,31 @@ public class Grip_FindBalls extends Command {
   public double steerCommand = 0.0;
   public double driveCommand = 0.0;
 
+  private static final double IMAGE_CENTER_X = 320;
+  private static final double[] EMPTY = new double[0];
+
+  private final BallTracker tracker = new BallTracker();
+  private NetworkTableEntry xEntry;
+  private NetworkTableEntry yEntry;
+  private NetworkTableEntry sizeEntry;
+  private long lastChange = 0;
+
   // Called just before this Command runs the first time
   @Override
-  protected void initialize() {
-    Robot.limelight.setDrive(0.4, 0.2, 100, 0.3);
+  protected void onInitialize() {
+    setDrive(0.4, 0.2, 100, 0.3);
+    NetworkTable grip = NetworkTableInstance.getDefault().getTable("GRIP/BallLocation");
+    xEntry = grip.getEntry("x");
+    yEntry = grip.getEntry("y");
+    sizeEntry = grip.getEntry("size");
+    tracker.setScore(IMAGE_CENTER_X, 0.1, 20);
+    tracker.clear();
+    lastChange = 0;
   }
 
   // Called repeatedly when this Command is scheduled to run
   @Override
-  protected void execute() {
+  protected void onExecute() {
     update();
     Robot.driveTrainSRX.arcadeDrive(-this.driveCommand, this.steerCommand);
   }
@@ -48,48 +64,52 @@ public class Grip_FindBalls extends Command {
 
   // Called once after isFinished returns true
   @Override
-  protected void end() {}
+  protected void onEnd() {
+  }
 
   // Called when another command which requires one or more of the same
   // subsystems is scheduled to run
   @Override
-  protected void interrupted() {
-    end();
+  protected void onInterrupted() {
+    onEnd();
   }
 
   public void update(){
-    NetworkTable grip = NetworkTableInstance.getDefault().getTable("GRIP/BallLocation");
-     NetworkTableEntry xEntry = grip.getEntry("x");
-     //NetworkTableEntry yEntry = grip.getEntry("y");
-     NetworkTableEntry sizeEntry = grip.getEntry("size");
+    // only track new GRIP frames
+    long change = sizeEntry.getLastChange();
+    if (change != lastChange) {
+      double[] xs = xEntry.getDoubleArray(EMPTY);
+      double[] ys = yEntry.getDoubleArray(EMPTY);
+      double[] sizes = sizeEntry.getDoubleArray(EMPTY);
+      tracker.update(change / 1.0e6, xs, ys, sizes);
+      lastChange = change;
+    }
 
-     if (gripBallFound(sizeEntry)) { // If target is acquired
-      
-     double tx = xEntry.getDouble(0); //xEntry.getDoubleArray(new double[0])[getLargestSize(sizeEntry)];
-     //double ty = yEntry.getDouble(0); //yEntry.getDoubleArray(new double[0])[getLargestSize(sizeEntry)];
-     double tsize = sizeEntry.getDouble(0); //sizeEntry.getDoubleArray(new double[0])[getLargestSize(sizeEntry)];
+    BallTracker.Track ball = tracker.getBest();
+    if (ball != null) { // If target is acquired
 
       // Calculate proportional steering
-      double horizontalOffset = tx - 320;
+      double horizontalOffset = ball.getX() - IMAGE_CENTER_X;
       steerCommand = horizontalOffset * STEER_K;
 
       // Drive forward until target area is at our desired area
-      double targetArea = tsize;
+      double targetArea = ball.getSize();
       driveCommand = (DESIRED_TARGET_AREA - targetArea) * DRIVE_K;
       if (driveCommand > MAX_SPEED) { // If max speed is exceeded
           driveCommand = MAX_SPEED; // Set drive command to speed limit
       }
-  } else { // If no target is acquired
+    } else { // If no target is acquired
       driveCommand = 0.0; // Have the robot remain still
       steerCommand = 0.3;
+    }
+    SmartDashboard.putNumber("driveCommand", driveCommand);
+    SmartDashboard.putNumber("steerCommand", steerCommand);
+    SmartDashboard.putNumber("Grip Balls", tracker.getTrackCount());
   }
-  SmartDashboard.putNumber("driveCommand", driveCommand);
-  SmartDashboard.putNumber("steerCommand", steerCommand);
-}
 
   public boolean gripBallFound(NetworkTableEntry sizeEntry){
-    double[] sizeArray = sizeEntry.getDoubleArray(new double[0]);
-    return sizeArray.length == 0;
+    double[] sizeArray = sizeEntry.getDoubleArray(EMPTY);
+    return sizeArray.length > 0;
   }
 
   public void setDrive(double steer, double drive, double desiredTargetArea, double maxSpeed) {
@@ -99,12 +119,13 @@ public class Grip_FindBalls extends Command {
     MAX_SPEED = maxSpeed;
 }
 
+  // index of the biggest ball or -1 if there are none
   public static int getLargestSize(NetworkTableEntry sizeEntry) {
-    double[] sizeArray = sizeEntry.getDoubleArray(new double[0]);
+    double[] sizeArray = sizeEntry.getDoubleArray(EMPTY);
     int temp = -1; 
 
     for (int index = 0; index < sizeArray.length; index++) {
-      if (sizeArray[index] > sizeArray[temp]) {
+      if (temp < 0 || sizeArray[index] > sizeArray[temp]) {
         temp = index;
       }
     }
@@ -10,7 +10,6 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.AnalogInput;
 
@@ -18,7 +17,7 @@ import edu.wpi.first.wpilibj.AnalogInput;
 /**
  *
  */
-public class HitSensor extends Command {
+public class HitSensor extends TracedCommand {
 
     AnalogInput analog = new AnalogInput(0);
 
@@ -40,11 +39,11 @@ public class HitSensor extends Command {
     }
 
     // Called just before this Command runs the first time
-    protected void initialize() {
+    protected void onInitialize() {
     }
 
     // Called repeatedly when this Command is scheduled to run
-    protected void execute() {
+    protected void onExecute() {
         String msg;
         msg = String.format("%.2f", analog.getVoltage());
         SmartDashboard.putString("Analog 0", msg);
@@ -56,11 +55,11 @@ public class HitSensor extends Command {
     }
 
     // Called once after isFinished returns true
-    protected void end() {
+    protected void onEnd() {
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
-    protected void interrupted() {
+    protected void onInterrupted() {
     }
 }
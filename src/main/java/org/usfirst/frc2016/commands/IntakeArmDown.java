@@ -10,15 +10,14 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import org.usfirst.frc2016.Robot;
 import edu.wpi.first.wpilibj.Timer;
 
 /**
  *
  */
-public class IntakeArmDown extends Command {
-    private double runTime = 0.75;
+public class IntakeArmDown extends TracedCommand {
+    private double runTime = 3.0; // timeout, homing may come first
     private Timer tmr = new Timer();
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
@@ -41,32 +40,35 @@ public class IntakeArmDown extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         Robot.ballIntake.armDown();
         tmr.reset();
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
     }
 
     // Make this return true when this Command no longer needs to run execute()
     @Override
     protected boolean isFinished() {
-        return tmr.get() >= runTime;
+        return Robot.ballIntake.isArmDone() || tmr.get() >= runTime;
     }
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
-        Robot.ballIntake.armStop();
+    protected void onEnd() {
+        // the arm holds on position, stop it if it never got there
+        if (!Robot.ballIntake.isArmDone()) {
+            Robot.ballIntake.armStop();
+        }
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
+    protected void onInterrupted() {
         Robot.ballIntake.armStop();
     }
 }
@@ -10,13 +10,12 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class Limelight_Playerstation extends Command {
+public class Limelight_Playerstation extends TracedCommand {
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
 
@@ -37,14 +36,14 @@ public class Limelight_Playerstation extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         Robot.limelight.findTargetStart();
         Robot.limelight.setDrive(0.3, 0.3, 0.5, 0.8);
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
         Robot.limelight.updateTracking();
         Robot.driveTrainSRX.arcadeDrive(Robot.limelight.driveCommand, Robot.limelight.steerCommand);
     }
@@ -57,14 +56,14 @@ public class Limelight_Playerstation extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
         Robot.limelight.findTargetStop();
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
-        end();
+    protected void onInterrupted() {
+        onEnd();
     }
 }
@@ -4,7 +4,6 @@ import org.usfirst.frc2016.Robot;
 import org.usfirst.frc2016.AutoPilot.AutoPilotMethod;
 
 import edu.wpi.first.wpilibj.command.Command;
-import edu.wpi.first.wpilibj.command.CommandGroup;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 import java.util.Objects;
@@ -12,7 +11,7 @@ import java.util.Timer;
 import java.util.TimerTask;
 
 // class to start AutoPilot sequences
-public class PathPlannerCommand extends CommandGroup {
+public class PathPlannerCommand extends TracedCommandGroup {
 	String path;
 	boolean reloadPaths = false;
 	boolean useMP = false;
@@ -27,7 +26,7 @@ public class PathPlannerCommand extends CommandGroup {
 
 	// Called just before this Command runs the first time
 	@Override
-	protected void initialize() {
+	protected void onInitialize() {
 		if (reloadPaths) {
 			Robot.pathPlanner.initializeRobotPaths();
 		}
@@ -36,7 +35,7 @@ public class PathPlannerCommand extends CommandGroup {
 
 	// Called repeatedly when this Command is scheduled to run
 	@Override
-	public void execute() {
+	protected void onExecute() {
 		Robot.pathPlanner.execute();
 	}
 
@@ -48,14 +47,14 @@ public class PathPlannerCommand extends CommandGroup {
 
 	// Called once after isFinished returns true
 	@Override
-	protected void end() {
+	protected void onEnd() {
 		Robot.pathPlanner.end();
 	}
 
 	// Called when another command which requires one or more of the same
 	// subsystems is scheduled to run
 	@Override
-	protected void interrupted() {
+	protected void onInterrupted() {
 		Robot.pathPlanner.interrupted();
 	}
 }
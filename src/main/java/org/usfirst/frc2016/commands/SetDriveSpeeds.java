@@ -10,13 +10,12 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import org.usfirst.frc2016.Robot;
 
 /**
  *
  */
-public class SetDriveSpeeds extends Command {
+public class SetDriveSpeeds extends TracedCommand {
     private double max_vel;
     private double max_accel;
 
@@ -27,14 +26,14 @@ public class SetDriveSpeeds extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         Robot.driveTrainSRX.setDriveSpeed(max_vel, max_accel);
         Robot.gameTimerStart();
     }
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -45,12 +44,12 @@ public class SetDriveSpeeds extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
+    protected void onInterrupted() {
     }
 }
@@ -7,11 +7,10 @@ package org.usfirst.frc2016.commands;
 import edu.wpi.first.wpilibj.AddressableLED;
 import edu.wpi.first.wpilibj.AddressableLEDBuffer;
 import edu.wpi.first.wpilibj.DriverStation;
-import edu.wpi.first.wpilibj.command.InstantCommand;
 import edu.wpi.first.wpilibj.util.Color;
 
 /** Add your docs here. */
-public class ToggleLEDs extends InstantCommand {
+public class ToggleLEDs extends TracedCommand {
 
   private AddressableLED m_led;
   private AddressableLEDBuffer m_ledBuffer;
@@ -26,7 +25,7 @@ public class ToggleLEDs extends InstantCommand {
 
   // Called once when the command executes
   @Override
-  protected void initialize() {
+  protected void onInitialize() {
     // PWM port 9
     // Must be a PWM header, not MXP or DIO
     m_led = new AddressableLED(9);
@@ -51,6 +50,12 @@ public class ToggleLEDs extends InstantCommand {
     m_led.setData(m_ledBuffer);
   }
 
+  // runs once, as the InstantCommand it was
+  @Override
+  protected boolean isFinished() {
+    return true;
+  }
+
   private void allianceColor() {
     // For every pixel
     switch (DriverStation.getAlliance()) {
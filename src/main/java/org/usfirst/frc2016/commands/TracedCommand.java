@@ -0,0 +1,53 @@
+package org.usfirst.frc2016.commands;
+
+import org.usfirst.frc2016.utils.CommandTracer;
+
+import edu.wpi.first.wpilibj.command.Command;
+
+/**
+ * Command traced by CommandTracer. Subclasses put their code in
+ * onInitialize(), onExecute(), onEnd() and onInterrupted(), the Command
+ * methods record the events around them.
+ */
+public abstract class TracedCommand extends Command {
+    private final int trace = CommandTracer.register(getClass());
+
+    @Override
+    protected final void initialize() {
+        CommandTracer.started(trace);
+        onInitialize();
+    }
+
+    @Override
+    protected final void execute() {
+        long start = CommandTracer.now();
+        onExecute();
+        CommandTracer.executed(trace, start);
+    }
+
+    @Override
+    protected final void end() {
+        CommandTracer.ended(trace);
+        onEnd();
+    }
+
+    @Override
+    protected final void interrupted() {
+        CommandTracer.interrupted(trace);
+        onInterrupted();
+    }
+
+    protected void onInitialize() {
+    }
+
+    protected void onExecute() {
+    }
+
+    protected void onEnd() {
+    }
+
+    // like Command, an interrupted command ends the same way by default
+    protected void onInterrupted() {
+        onEnd();
+    }
+}
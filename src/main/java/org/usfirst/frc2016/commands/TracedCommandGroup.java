@@ -0,0 +1,53 @@
+package org.usfirst.frc2016.commands;
+
+import org.usfirst.frc2016.utils.CommandTracer;
+
+import edu.wpi.first.wpilibj.command.CommandGroup;
+
+/**
+ * CommandGroup traced by CommandTracer, like TracedCommand. The group's
+ * children are traced on their own, the group's events are its own
+ * onInitialize(), onExecute(), onEnd() and onInterrupted().
+ */
+public abstract class TracedCommandGroup extends CommandGroup {
+    private final int trace = CommandTracer.register(getClass());
+
+    @Override
+    protected final void initialize() {
+        CommandTracer.started(trace);
+        onInitialize();
+    }
+
+    @Override
+    protected final void execute() {
+        long start = CommandTracer.now();
+        onExecute();
+        CommandTracer.executed(trace, start);
+    }
+
+    @Override
+    protected final void end() {
+        CommandTracer.ended(trace);
+        onEnd();
+    }
+
+    @Override
+    protected final void interrupted() {
+        CommandTracer.interrupted(trace);
+        onInterrupted();
+    }
+
+    protected void onInitialize() {
+    }
+
+    protected void onExecute() {
+    }
+
+    protected void onEnd() {
+    }
+
+    // like CommandGroup, an interrupted group ends the same way by default
+    protected void onInterrupted() {
+        onEnd();
+    }
+}
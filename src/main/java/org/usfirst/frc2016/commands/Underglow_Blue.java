@@ -10,14 +10,13 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 
 /**
  *
  */
-public class Underglow_Blue extends Command {
+public class Underglow_Blue extends TracedCommand {
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
 
@@ -36,7 +35,7 @@ public class Underglow_Blue extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         if (SmartDashboard.putString("robotLEDs",
                 "{\"patterns\":[{\"strip\":\"underglow\",\"pattern\":\"color_fade\",\"direction\":\"forward\",\"interval\":1000,\"colors\":[{\"r\":0,\"g\":255,\"b\":255},{\"r\":255,\"g\":255,\"b\":255}]}]}") == false) {
             SmartDashboard.delete("robotLEDs");
@@ -47,7 +46,7 @@ public class Underglow_Blue extends Command {
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -59,12 +58,12 @@ public class Underglow_Blue extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
+    protected void onInterrupted() {
     }
 }
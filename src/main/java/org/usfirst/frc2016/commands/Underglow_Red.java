@@ -10,13 +10,12 @@
 
 package org.usfirst.frc2016.commands;
 
-import edu.wpi.first.wpilibj.command.Command;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 /**
  *
  */
-public class Underglow_Red extends Command {
+public class Underglow_Red extends TracedCommand {
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=VARIABLE_DECLARATIONS
 
@@ -35,7 +34,7 @@ public class Underglow_Red extends Command {
 
     // Called just before this Command runs the first time
     @Override
-    protected void initialize() {
+    protected void onInitialize() {
         if (SmartDashboard.putString("robotLEDs",
                 "{\"patterns\":[{\"strip\":\"underglow\",\"pattern\":\"color_fade\",\"direction\":\"forward\",\"interval\":1000,\"colors\":[{\"r\":255,\"g\":0,\"b\":0},{\"r\":0,\"g\":0,\"b\":0}]}]}")) {
             SmartDashboard.delete("robotLEDs");
@@ -46,7 +45,7 @@ public class Underglow_Red extends Command {
 
     // Called repeatedly when this Command is scheduled to run
     @Override
-    protected void execute() {
+    protected void onExecute() {
     }
 
     // Make this return true when this Command no longer needs to run execute()
@@ -58,12 +57,12 @@ public class Underglow_Red extends Command {
 
     // Called once after isFinished returns true
     @Override
-    protected void end() {
+    protected void onEnd() {
     }
 
     // Called when another command which requires one or more of the same
     // subsystems is scheduled to run
     @Override
-    protected void interrupted() {
+    protected void onInterrupted() {
     }
 }
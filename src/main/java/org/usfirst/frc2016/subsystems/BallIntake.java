@@ -8,19 +8,24 @@ import org.usfirst.frc2016.Config;
 import org.usfirst.frc2016.Constants;
 import org.usfirst.frc2016.Defaults;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.command.Subsystem;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
 public class BallIntake extends Subsystem {
 
     private MotorBase arm;
     private MotorBase brush;
 
-    private Timer tmrStall = new Timer();
-
     private double stopSeconds = 0.250;
-    private double liftStallVel = 0.1;
-    private double stallSec = 0.1;
+
+    // arm positions in motor revs from the up stop, velocities in rpm
+    private IntakeArmController armControl = new IntakeArmController();
+    private IntakeArmController.Mode armMode = IntakeArmController.Mode.STOP;
+    private double armTarget = Double.NaN;
+    private double armVel = Defaults.INTAKE_ARM_VEL;
+    private double armAcc = Defaults.INTAKE_ARM_ACC;
 
     public BallIntake() {
 
@@ -30,7 +35,25 @@ public class BallIntake extends Subsystem {
         arm = new MotorNeo("IntakeArm", "", Constants.DeviceId.intakeArm, 0, true);
         arm.setDisplayFormats(2, 3, 3, 0);
 
-        tmrStall.start();
+        loadConfig(Robot.config);
+        Robot.config.addListener(() -> loadConfig(Robot.config));
+    }
+
+    private void loadConfig(Config config) {
+        armVel = config.getDouble("IntakeArm_profileVel", Defaults.INTAKE_ARM_VEL);
+        armAcc = config.getDouble("IntakeArm_profileAcc", Defaults.INTAKE_ARM_ACC);
+        armControl.setPositions(
+                config.getDouble("IntakeArm_upPos", Defaults.INTAKE_ARM_UP_POS),
+                config.getDouble("IntakeArm_downPos", Defaults.INTAKE_ARM_DOWN_POS),
+                config.getDouble("IntakeArm_tolerance", Defaults.INTAKE_ARM_TOLERANCE));
+        armControl.setHoming(
+                config.getDouble("IntakeArm_homePower", Defaults.INTAKE_ARM_HOME_POWER),
+                config.getDouble("IntakeArm_homeAmps", Defaults.INTAKE_ARM_HOME_AMPS),
+                config.getDouble("IntakeArm_homeTimeout", Defaults.INTAKE_ARM_HOME_TIMEOUT));
+        armControl.setStall(
+                config.getDouble("IntakeArm_stallVel", Defaults.INTAKE_ARM_STALL_VEL),
+                config.getDouble("IntakeArm_stallAmps", Defaults.INTAKE_ARM_STALL_AMPS),
+                config.getInt("IntakeArm_stallSamples", Defaults.INTAKE_ARM_STALL_SAMPLES));
     }
 
     @Override
@@ -45,27 +68,53 @@ public class BallIntake extends Subsystem {
 
     @Override
     public void periodic() {
-        //checkLift();
+        updateArm();
         //operatorBrushPov();
     }
 
     /**
-     * check the lift for stalled
+     * run the arm controller and send its command to the motor when it changes
      */
-    public void checkLift() {
-        if (Math.abs(arm.getMotorPwr()) > 0.0) {
-            // motr is running
-            if (Math.abs(arm.getMotorVel()) > liftStallVel) {
-                // still moving, reset the stall timer
-                tmrStall.reset();
-            } else {
-                // not moving, check stall timer
-                if (tmrStall.get() > stallSec) {
-                    // has not moved, stop
+    private void updateArm() {
+        // the motor is off and its stats aren't updated while disabled, a move or
+        // homing left running would only time out
+        if (DriverStation.isDisabled()) {
+            if (armMode != IntakeArmController.Mode.STOP || armControl.getMode() != IntakeArmController.Mode.STOP) {
+                armStop();
+            }
+            return;
+        }
+
+        armControl.update(Timer.getFPGATimestamp(), arm.getMotorPos(), arm.getMotorVel(), arm.getMotorStatorAmps());
+        if (armControl.takeZero()) {
+            // sitting on the up stop
+            arm.zeroMotorPos();
+            armTarget = Double.NaN;
+        }
+
+        IntakeArmController.Mode mode = armControl.getMode();
+        switch (mode) {
+            case POWER:
+                if (armControl.getPower() != arm.getMotorPwr()) {
+                    arm.moveByPower(armControl.getPower());
+                }
+                break;
+
+            case POSITION:
+                if (mode != armMode || armControl.getTarget() != armTarget) {
+                    armTarget = armControl.getTarget();
+                    arm.moveTo(armTarget, armVel, armAcc);
+                }
+                break;
+
+            default:
+                if (mode != armMode) {
                     arm.stop();
                 }
-            }
+                break;
         }
+        armMode = mode;
+        SmartDashboard.putString("IntakeArm state", armControl.getState().toString());
     }
 
     /**
@@ -108,7 +157,7 @@ public class BallIntake extends Subsystem {
     // Put methods for controlling this subsystem
     // here. Call these from Commands.
     public void stop() {
-        arm.stop();
+        armStop();
         brush.stop();
     }
 
@@ -133,20 +182,26 @@ public class BallIntake extends Subsystem {
     }
 
     public void armStop() {
+        armControl.stop();
         arm.stop();
+        armMode = IntakeArmController.Mode.STOP;
     }
 
+    // the moves are run by updateArm, homing first if needed
     public void armDown() {
-        tmrStall.reset();
-        tmrStall.start();
-        arm.zeroMotorPos();
-        arm.moveByPower(-arm.getMoveVel());
+        armControl.moveDown();
     }
 
     public void armUp() {
-        tmrStall.reset();
-        tmrStall.start();
-        arm.zeroMotorPos();
-        arm.moveByPower(arm.getMoveVel());
+        armControl.moveUp();
+    }
+
+    public void armHome() {
+        armControl.home();
+    }
+
+    // on position, stopped or stalled
+    public boolean isArmDone() {
+        return armControl.isDone();
     }
 }
@@ -7,7 +7,10 @@ import org.usfirst.frc2016.Config;
 import org.usfirst.frc2016.Constants;
 import org.usfirst.frc2016.Defaults;
 
+import java.util.concurrent.CompletableFuture;
+
 import edu.wpi.first.wpilibj.DigitalInput;
+import edu.wpi.first.wpilibj.RobotController;
 import edu.wpi.first.wpilibj.command.Subsystem;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 
@@ -23,6 +26,7 @@ public class BallToss extends Subsystem {
         double speedSet;
         double speedActual;
         double speedShown;
+        FlywheelController flywheel; // upper and lower only
 
         public BallTossMotor(MotorBase motor) {
             this.motor = motor;
@@ -30,13 +34,6 @@ public class BallToss extends Subsystem {
             motor.setUnits("fraction", motor.getCntsPerRev() * motor.getMaxRevsPerSec());
 
             motor.setUnitsNative();
-            boolean i = true;
-            while (i) {
-                if (readyToToss) {
-                    break;
-                }
-            }
-
         }
 
         void setMotorSpeed(double vel) {
@@ -50,6 +47,11 @@ public class BallToss extends Subsystem {
             return speedActual;
         }
 
+        // closed loop at the flywheel's target, speedSet follows the output so slowDown ramps from it
+        void runFlywheel(double time, double batteryVolts) {
+            setMotorSpeed(flywheel.update(time, motor.getMotorVel(), batteryVolts));
+        }
+
         void slowDown() {
             setMotorSpeed(Math.max(0.0, speedSet - motor.getMoveVel() * Robot.kDefaultPeriod / stopSeconds));
         }
@@ -69,9 +71,13 @@ public class BallToss extends Subsystem {
     private BallTossMotor[] motors = new BallTossMotor[MAX_MOTORS];
 
     private DigitalInput digitalInputReadyToToss = new DigitalInput( Constants.DigitalInputs.readyToToss);
+    private DigitalSensor ballSensor = new DigitalSensor("ReadyToToss", digitalInputReadyToToss::get,
+            Defaults.TOSS_BALL_DEBOUNCE);
     boolean readyToToss = false;
     private long nanoTimeStart; // nanoseconds
     private double stopSeconds = 0.250;
+    private boolean useVelocity = Defaults.TOSS_USE_VELOCITY;
+    private boolean feeding = false; // gate runs whenever the flywheels are at speed
 
     public BallToss() {
         MotorBase upper = new MotorFalcon("Toss", "upper", Constants.DeviceId.tossUpper, 0, false);
@@ -84,6 +90,16 @@ public class BallToss extends Subsystem {
         motors[UPPER] = new BallTossMotor(upper);
         motors[LOWER] = new BallTossMotor(lower);
         motors[GATE] = new BallTossMotor(gate);
+
+        // flywheel speeds in rev/sec
+        for (int i : new int[] { UPPER, LOWER }) {
+            motors[i].motor.setUnits("rev", motors[i].motor.getCntsPerRev());
+            motors[i].flywheel = new FlywheelController();
+        }
+        loadConfig(Robot.config);
+        Robot.config.addListener(() -> loadConfig(Robot.config));
+
+        ballSensor.start(Defaults.TOSS_BALL_SAMPLE_MS);
     }
 
     @Override
@@ -99,8 +115,23 @@ public class BallToss extends Subsystem {
     @Override
     public void periodic() {
         // Put code here to be run every loop
-        readyToToss = digitalInputReadyToToss.get();
+        readyToToss = ballSensor.get();
         SmartDashboard.putBoolean("ReadyToToss", readyToToss);
+
+        double time = getTime();
+        double battery = RobotController.getBatteryVoltage();
+        for (int i : new int[] { UPPER, LOWER }) {
+            if (motors[i].flywheel.getTarget() > 0) {
+                motors[i].runFlywheel(time, battery);
+            }
+        }
+        // feed a ball only when both wheels are back at speed
+        if (feeding) {
+            BallTossMotor g = motors[GATE];
+            g.setMotorSpeed(isFlywheelReady() ? g.motor.getMoveVel() : 0);
+        }
+        SmartDashboard.putBoolean("Toss At Speed", isFlywheelReady());
+        SmartDashboard.putNumber("Toss Recovery", getRecoverySeconds());
     }
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CMDPIDGETTERS
@@ -134,23 +165,87 @@ public class BallToss extends Subsystem {
 
     public void start() {
         nanoTimeStart = System.nanoTime();
-        for (BallTossMotor m : motors) {
-            m.start(true);
+        if (!useVelocity) {
+            for (BallTossMotor m : motors) {
+                m.start(true);
+            }
+            return;
+        }
+        // the gate is fed from periodic
+        startFlywheels();
+        motors[GATE].motor.zeroMotorPos();
+        feeding = true;
+    }
+
+    // flywheels to Toss_vel of free speed, the gate is left to the caller
+    public void startFlywheels() {
+        nanoTimeStart = System.nanoTime();
+        feeding = false;
+        for (int i : new int[] { UPPER, LOWER }) {
+            BallTossMotor m = motors[i];
+            if (useVelocity) {
+                m.motor.zeroMotorPos();
+                m.flywheel.setTarget(m.motor.getMoveVel() * m.motor.getMaxRevsPerSec(), getTime());
+            } else {
+                m.start(true);
+            }
+        }
+    }
+
+    // run the gate forward to feed a ball, or hold
+    public void gateFeed(boolean on) {
+        feeding = false;
+        BallTossMotor g = motors[GATE];
+        double speed = on ? g.motor.getMoveVel() : 0;
+        if (speed != g.speedSet) {
+            g.setMotorSpeed(speed);
         }
     }
 
     public void slowDown() {
+        stopFlywheels();
         for (BallTossMotor m : motors) {
             m.slowDown();
         }
     }
 
     public void stop() {
+        stopFlywheels();
         for (BallTossMotor m : motors) {
             m.stop();
         }
     }
 
+    private void stopFlywheels() {
+        feeding = false;
+        for (int i : new int[] { UPPER, LOWER }) {
+            motors[i].flywheel.setTarget(0, getTime());
+        }
+    }
+
+    // both flywheels at their target speed, open loop just running
+    public boolean isFlywheelReady() {
+        if (!useVelocity) {
+            return motors[UPPER].speedSet > 0 && motors[LOWER].speedSet > 0;
+        }
+        return motors[UPPER].flywheel.isAtSpeed() && motors[LOWER].flywheel.isAtSpeed();
+    }
+
+    // false when open loop, nothing counts the shots
+    public boolean isCountingShots() {
+        return useVelocity;
+    }
+
+    // balls seen leaving by the flywheels
+    public int getShotCount() {
+        return Math.max(motors[UPPER].flywheel.getShotCount(), motors[LOWER].flywheel.getShotCount());
+    }
+
+    // seconds from the last shot back to speed, NaN before the first
+    public double getRecoverySeconds() {
+        return Math.max(motors[UPPER].flywheel.getRecoverySeconds(), motors[LOWER].flywheel.getRecoverySeconds());
+    }
+
     public boolean isStopped() {
         boolean isStopped = true;
         for (BallTossMotor m : motors) {
@@ -159,17 +254,50 @@ public class BallToss extends Subsystem {
         return isStopped;
     }
 
+    // debounced ball sensor in front of the toss wheels
+    public boolean isBallReady() {
+        return ballSensor.get();
+    }
+
+    /**
+     * Completes when a ball is in front of the toss wheels, at once if one is
+     * already there. Check isDone() from a command instead of waiting.
+     *
+     * @param timeoutMs completes with a TimeoutException after this, 0 waits forever
+     */
+    public CompletableFuture<Long> awaitBall(long timeoutMs) {
+        return ballSensor.awaitLevel(true, timeoutMs);
+    }
+
+    public DigitalSensor getBallSensor() {
+        return ballSensor;
+    }
+
     public void gateTurn(int encoderCount){
         motors[BallToss.GATE].speedSet = 0.1;
         motors[BallToss.GATE].motor.moveTo(encoderCount);
     }
 
     public void gateStart(boolean fwd) {
+        feeding = false;
         motors[BallToss.GATE].start(fwd);
     }
 
 
     private void loadConfig(Config config) {
+        useVelocity = config.getBoolean("Toss_useVelocity", Defaults.TOSS_USE_VELOCITY);
+        for (int i : new int[] { UPPER, LOWER }) {
+            motors[i].flywheel.setGains(
+                    config.getDouble("Toss_kS", Defaults.TOSS_FLYWHEEL_KS),
+                    config.getDouble("Toss_kV", Defaults.TOSS_FLYWHEEL_KV),
+                    config.getDouble("Toss_kP", Defaults.TOSS_FLYWHEEL_KP),
+                    config.getDouble("Toss_kI", Defaults.TOSS_FLYWHEEL_KI),
+                    config.getDouble("Toss_iZone", Defaults.TOSS_FLYWHEEL_IZONE));
+            motors[i].flywheel.setAtSpeed(
+                    config.getDouble("Toss_tolerance", Defaults.TOSS_AT_SPEED_TOLERANCE),
+                    config.getInt("Toss_atSpeedSamples", Defaults.TOSS_AT_SPEED_SAMPLES),
+                    config.getDouble("Toss_atSpeedHysteresis", Defaults.TOSS_AT_SPEED_HYSTERESIS));
+        }
         // motors[UPPER].speedToss = config.getDouble("Toss_SpeedUpper", Defaults.TOSS_SPEED);
         // motors[LOWER].speedToss = config.getDouble("Toss_SpeedLower", Defaults.TOSS_SPEED);
         // motors[GATE].speedToss = config.getDouble("Toss_SpeedGate", Defaults.TOSS_SPEED);
@@ -183,4 +311,8 @@ public class BallToss extends Subsystem {
         return (double) (System.nanoTime() - nanoTimeStart) / 1e9;
     }
 
+    private static double getTime() {
+        return System.nanoTime() / 1e9;
+    }
+
 }
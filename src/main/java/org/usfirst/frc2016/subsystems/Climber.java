@@ -8,6 +8,7 @@ import org.usfirst.frc2016.Config;
 import org.usfirst.frc2016.Constants;
 import org.usfirst.frc2016.Defaults;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.command.Subsystem;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
@@ -22,11 +23,22 @@ public class Climber extends Subsystem {
     private double currentSpeed = 0;
     private double deadband = 0.1;
 
+    // auto climb, positions in inches from the match start position
+    private ClimbController climb = new ClimbController();
+    private double extendPos = Defaults.HANG_EXTEND_POS;
+    private double liftPos = Defaults.HANG_LIFT_POS;
+    private double extendVel = Defaults.HANG_EXTEND_VEL;
+    private double extendAcc = Defaults.HANG_EXTEND_ACC;
+    private double liftVel = Defaults.HANG_LIFT_VEL;
+    private double liftAcc = Defaults.HANG_LIFT_ACC;
+    private boolean holding = false; // arms kept on the lift position after a climb
+
     public Climber() {
 
         // MotorFalcon(String configName, String instanceName, int devId, int followId, boolean inverted)
 
-        double liftCountsPerInch = 1200; // ???
+        // not measured yet, Hang_maxPower keeps a wrong scale from slamming the hard stops
+        double liftCountsPerInch = Robot.config.getDouble("Hang_countsPerInch", Defaults.HANG_COUNTS_PER_INCH);
 
         motorLeft = new MotorFalcon("Hang", "Left", Constants.DeviceId.hangLeft, 0, false);
         motorLeft.setUnits("in", liftCountsPerInch);
@@ -36,6 +48,28 @@ public class Climber extends Subsystem {
 
         motorFlop = new MotorNeo("Flop", "", Constants.DeviceId.hangFlop, 0, true);
         motorFlop.setDisplayFormats(2, 3, 3, 0);
+
+        loadConfig(Robot.config);
+        Robot.config.addListener(() -> loadConfig(Robot.config));
+    }
+
+    private void loadConfig(Config config) {
+        extendPos = config.getDouble("Hang_extendPos", Defaults.HANG_EXTEND_POS);
+        liftPos = config.getDouble("Hang_liftPos", Defaults.HANG_LIFT_POS);
+        extendVel = config.getDouble("Hang_extendVel", Defaults.HANG_EXTEND_VEL);
+        extendAcc = config.getDouble("Hang_extendAcc", Defaults.HANG_EXTEND_ACC);
+        liftVel = config.getDouble("Hang_liftVel", Defaults.HANG_LIFT_VEL);
+        liftAcc = config.getDouble("Hang_liftAcc", Defaults.HANG_LIFT_ACC);
+        climb.setGains(
+                config.getDouble("Hang_kV", Defaults.HANG_KV),
+                config.getDouble("Hang_kP", Defaults.HANG_KP),
+                config.getDouble("Hang_kI", Defaults.HANG_KI),
+                config.getDouble("Hang_kLevel", Defaults.HANG_KLEVEL),
+                config.getDouble("Hang_rollGain", Defaults.HANG_ROLL_GAIN));
+        climb.setLimits(
+                config.getDouble("Hang_holdError", Defaults.HANG_HOLD_ERROR),
+                config.getDouble("Hang_tolerance", Defaults.HANG_TOLERANCE),
+                config.getDouble("Hang_maxPower", Defaults.HANG_MAX_POWER));
     }
 
     @Override
@@ -51,6 +85,13 @@ public class Climber extends Subsystem {
 
     @Override
     public void periodic() {
+        // the robot hangs on the arms, keep them on position until the operator moves
+        // them. Disabled ends it, the motors are off anyway.
+        if (holding && DriverStation.isDisabled()) {
+            climbStop();
+        } else if (holding) {
+            climbUpdate();
+        }
     }
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CMDPIDGETTERS
@@ -60,9 +101,47 @@ public class Climber extends Subsystem {
     // Put methods for controlling this subsystem
     // here. Call these from Commands.
     public void stop() {
+        climbStop();
+        motorFlop.stop();
+    }
+
+    /**
+     * Starts moving both arms together to the extend or lift position
+     *
+     * @param lift lifting the robot, leveled on the gyro roll as well
+     */
+    public void climbStart(boolean lift) {
+        if (lift) {
+            climb.setProfile(liftVel, liftAcc);
+        } else {
+            climb.setProfile(extendVel, extendAcc);
+        }
+        climb.start(motorLeft.getMotorPos(), motorRight.getMotorPos(), lift ? liftPos : extendPos, lift);
+    }
+
+    // call every loop while climbing
+    public void climbUpdate() {
+        climb.update(Timer.getFPGATimestamp(), motorLeft.getMotorPos(), motorRight.getMotorPos(),
+                Robot.gyro.getRoll());
+        motorLeft.moveByPower(climb.getOutput(ClimbController.LEFT));
+        motorRight.moveByPower(climb.getOutput(ClimbController.RIGHT));
+        SmartDashboard.putNumber("Climb Level", climb.getLevelError());
+    }
+
+    public boolean isClimbDone() {
+        return climb.isDone();
+    }
+
+    public void climbStop() {
+        holding = false;
+        climb.stop();
         motorLeft.stop();
         motorRight.stop();
-        motorFlop.stop();
+    }
+
+    // keeps running the climb at its goal from periodic, the I term carries the robot's weight
+    public void climbHold() {
+        holding = climb.isActive();
     }
 
     public void flopStop() {
@@ -85,6 +164,7 @@ public class Climber extends Subsystem {
 
     public void extendByPower(double fractionLeft, double fractionRight) {
         driveClimber(); // test
+        climbStop();
 
         motorLeft.moveByPower(fractionLeft);
         motorRight.moveByPower(fractionRight);
@@ -116,6 +196,14 @@ public class Climber extends Subsystem {
         SmartDashboard.putNumber("Lift Right", rightSpeed);
         SmartDashboard.putNumber("Lift Flop", joyFlop);
 
+        // the sticks take the arms back from a hold
+        if (holding && joySpeed == 0 && joyLevel == 0) {
+            motorFlop.moveByPower(joyFlop);
+            return;
+        }
+        if (holding) {
+            climbStop();
+        }
         motorLeft.moveByPower(leftSpeed);
         motorRight.moveByPower(rightSpeed);
         motorFlop.moveByPower(joyFlop);
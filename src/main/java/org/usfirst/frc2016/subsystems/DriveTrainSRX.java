@@ -11,18 +11,33 @@
 package org.usfirst.frc2016.subsystems;
 
 import org.usfirst.frc2016.commands.*;
+import org.usfirst.frc2016.utils.AccelShaper;
+import org.usfirst.frc2016.utils.CanBandwidth;
+import org.usfirst.frc2016.utils.CanDevice;
+import org.usfirst.frc2016.utils.DriveFeedforward;
+import org.usfirst.frc2016.utils.DriveHealthMonitor;
+import org.usfirst.frc2016.utils.HeadingFallback;
+import org.usfirst.frc2016.utils.MotorConfig;
+import org.usfirst.frc2016.utils.PoseEstimator;
+import org.usfirst.frc2016.utils.ProfileBuffer;
+import org.usfirst.frc2016.utils.TalonCanDevice;
+import org.usfirst.frc2016.utils.TalonProfileBuffer;
 import org.usfirst.frc2016.Constants;
+import org.usfirst.frc2016.math.RigidTransform2;
 
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.kinematics.DifferentialDriveOdometry;
 import edu.wpi.first.wpilibj.ADXRS450_Gyro;
 import edu.wpi.first.wpilibj.Encoder;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.Timer;
 //import edu.wpi.first.wpilibj.livewindow.LiveWindow;
 import edu.wpi.first.wpilibj.XboxController;
 import edu.wpi.first.wpilibj.command.Subsystem;
 //import edu.wpi.first.wpilibj.drive.DifferentialDrive;
 
 import org.usfirst.frc2016.Config;
+import org.usfirst.frc2016.ConfigKey;
 import org.usfirst.frc2016.Robot;
 import org.usfirst.frc2016.Defaults;
 import org.usfirst.frc2016.MMW_DifferentialDrive;
@@ -39,7 +54,8 @@ import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motion.SetValueMotionProfile;
 import com.ctre.phoenix.motorcontrol.ControlMode;
-import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.DemandType;
+import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
 import com.ctre.phoenix.motorcontrol.LimitSwitchSource;
 import com.ctre.phoenix.motorcontrol.TalonFXControlMode;
 import com.ctre.phoenix.sensors.PigeonIMU;
@@ -109,6 +125,37 @@ public class DriveTrainSRX extends Subsystem {
      * ^^^^^^^^^^^^^^^^^^^^^^^^^^^^^ End of values set by RobotPrefs
      */
 
+    // slip, stall, brownout and collision detection, updated each periodic
+    private DriveHealthMonitor healthMonitor;
+    private final double[] healthSample = new double[DriveHealthMonitor.SAMPLE_SIZE];
+    private final double[] pigeonRates = new double[3];
+    private double commandLeft = Double.NaN; // inches/sec, set by the velocity modes each loop
+    private double commandRight = Double.NaN;
+    private AccelShaper accelShaper = new AccelShaper();
+
+    // settings and frame rates of the drive motors
+    private TalonCanDevice deviceLeft1;
+    private TalonCanDevice deviceLeft2;
+    private TalonCanDevice deviceRight1;
+    private TalonCanDevice deviceRight2;
+    private MotorConfig configLeft1;
+    private MotorConfig configLeft2;
+    private MotorConfig configRight1;
+    private MotorConfig configRight2;
+
+    // the whole drive is one load in the power budget
+    private int powerLoad = -1;
+    private double driveAmpMax = Defaults.DRIVE_AMP_MAX; // per motor
+    private double drivePowerMinAmps = Defaults.DRIVE_POWER_MIN_AMPS; // whole drive
+    private double drivePowerLimit = -1; // per motor limit last sent
+    private double driveAmps = 0; // supply current of all motors
+
+    // drive model from CharacterizeDrive, null to use the Talon F gain only
+    private DriveFeedforward feedforward;
+    private ConfigKey<Double> keyKS;
+    private ConfigKey<Double> keyKV;
+    private ConfigKey<Double> keyKA;
+
     public double driver_max_velocity = 100; // inches per second
     public double driver_max_accel = 1000; // inches per second squared
 
@@ -130,8 +177,17 @@ public class DriveTrainSRX extends Subsystem {
 
     private final DifferentialDriveOdometry m_odometry;
 
+    private ProfileBuffer profileBufferLeft;
+    private ProfileBuffer profileBufferRight;
+
     private final ADXRS450_Gyro m_gyro = new ADXRS450_Gyro();
 
+    // pose from encoders and gyro, sampled faster than the robot loop
+    private PoseEstimator poseEstimator;
+    private final HeadingFallback poseHeading = new HeadingFallback();
+    private int poseSampleMs = 5;
+    private int poseHistorySize = 200;
+
     /*
      * Magic Motion vales
      * 
@@ -159,25 +215,35 @@ public class DriveTrainSRX extends Subsystem {
 
         // END AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CONSTRUCTORS
 
+        // settings are staged here and sent with the boot batch, see MotorConfig.flushAll
+        deviceLeft1 = new TalonCanDevice("DriveLeft1", talonDriveLeft1);
+        deviceLeft2 = new TalonCanDevice("DriveLeft2", talonDriveLeft2);
+        deviceRight1 = new TalonCanDevice("DriveRight1", talonDriveRight1);
+        deviceRight2 = new TalonCanDevice("DriveRight2", talonDriveRight2);
+        configLeft1 = new MotorConfig(deviceLeft1);
+        configLeft2 = new MotorConfig(deviceLeft2);
+        configRight1 = new MotorConfig(deviceRight1);
+        configRight2 = new MotorConfig(deviceRight2);
+
         differentialDrive = new MMW_DifferentialDrive(talonDriveLeft1, talonDriveRight1);
         loadConfig(Robot.config);
         talonDriveLeft1.configFactoryDefault();
         talonDriveLeft1.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, pidSlot0, timeoutMs);
         talonDriveLeft1.setSensorPhase(true); // !!!! Check this !!!!!
         talonDriveLeft1.setInverted(false);
-        talonDriveLeft1.configAllowableClosedloopError(pidSlot0, 0, timeoutMs);
+        configLeft1.stage(MotorConfig.Param.ALLOWABLE_ERROR, 0);
         talonDriveLeft1.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector,
                 LimitSwitchNormal.NormallyOpen, timeoutMs);
-        talonDriveLeft1.configForwardSoftLimitEnable(false, timeoutMs);
-        talonDriveLeft1.configReverseSoftLimitEnable(false, timeoutMs);
+        configLeft1.stage(MotorConfig.Param.FORWARD_SOFT_LIMIT_ENABLE, 0);
+        configLeft1.stage(MotorConfig.Param.REVERSE_SOFT_LIMIT_ENABLE, 0);
         talonDriveLeft1.clearStickyFaults(0);
         talonDriveLeft1.setIntegralAccumulator(0, pidSlot0, timeoutMs);
         talonDriveLeft1.setNeutralMode(NeutralMode.Brake);
         talonDriveLeft1.set(ControlMode.PercentOutput, 0);
-        talonDriveLeft1.config_kP(pidSlot0, driveP, timeoutMs);
-        talonDriveLeft1.config_kI(pidSlot0, driveI, timeoutMs);
-        talonDriveLeft1.config_kD(pidSlot0, driveD, timeoutMs);
-        talonDriveLeft1.config_kF(pidSlot0, driveF, timeoutMs);
+        configLeft1.stage(MotorConfig.Param.KP, driveP);
+        configLeft1.stage(MotorConfig.Param.KI, driveI);
+        configLeft1.stage(MotorConfig.Param.KD, driveD);
+        configLeft1.stage(MotorConfig.Param.KF, driveF);
         talonDriveLeft1.setSelectedSensorPosition(0, pidSlot0, timeoutMs);
 
         Constants.kGains_MotProf.setSlot(talonDriveLeft1, Constants.kSlot_MotProf);
@@ -186,11 +252,11 @@ public class DriveTrainSRX extends Subsystem {
 
         talonDriveLeft2.configFactoryDefault();
         talonDriveLeft2.setInverted(false);
-        talonDriveLeft2.configAllowableClosedloopError(pidSlot0, 0, timeoutMs);
+        configLeft2.stage(MotorConfig.Param.ALLOWABLE_ERROR, 0);
         talonDriveLeft2.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector,
                 LimitSwitchNormal.NormallyOpen, timeoutMs);
-        talonDriveLeft2.configForwardSoftLimitEnable(false, timeoutMs);
-        talonDriveLeft2.configReverseSoftLimitEnable(false, timeoutMs);
+        configLeft2.stage(MotorConfig.Param.FORWARD_SOFT_LIMIT_ENABLE, 0);
+        configLeft2.stage(MotorConfig.Param.REVERSE_SOFT_LIMIT_ENABLE, 0);
         talonDriveLeft2.clearStickyFaults(0);
         talonDriveLeft2.setIntegralAccumulator(0, pidSlot0, timeoutMs);
         talonDriveLeft2.setNeutralMode(NeutralMode.Brake);
@@ -211,19 +277,19 @@ public class DriveTrainSRX extends Subsystem {
         talonDriveRight1.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, pidSlot0, timeoutMs);
         talonDriveRight1.setSensorPhase(false); // !!!! Check this !!!!!
         talonDriveRight1.setInverted(true);
-        talonDriveRight1.configAllowableClosedloopError(pidSlot0, 0, timeoutMs);
+        configRight1.stage(MotorConfig.Param.ALLOWABLE_ERROR, 0);
         talonDriveRight1.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector,
                 LimitSwitchNormal.NormallyOpen, timeoutMs);
-        talonDriveRight1.configForwardSoftLimitEnable(false, 0);
-        talonDriveRight1.configReverseSoftLimitEnable(false, 0);
+        configRight1.stage(MotorConfig.Param.FORWARD_SOFT_LIMIT_ENABLE, 0);
+        configRight1.stage(MotorConfig.Param.REVERSE_SOFT_LIMIT_ENABLE, 0);
         talonDriveRight1.clearStickyFaults(0);
         talonDriveRight1.setIntegralAccumulator(0, pidSlot0, timeoutMs);
         talonDriveRight1.setNeutralMode(NeutralMode.Brake);
         talonDriveRight1.set(ControlMode.PercentOutput, 0);
-        talonDriveRight1.config_kP(pidSlot0, driveP, timeoutMs);
-        talonDriveRight1.config_kI(pidSlot0, driveI, timeoutMs);
-        talonDriveRight1.config_kD(pidSlot0, driveD, timeoutMs);
-        talonDriveRight1.config_kF(pidSlot0, driveF, timeoutMs);
+        configRight1.stage(MotorConfig.Param.KP, driveP);
+        configRight1.stage(MotorConfig.Param.KI, driveI);
+        configRight1.stage(MotorConfig.Param.KD, driveD);
+        configRight1.stage(MotorConfig.Param.KF, driveF);
         talonDriveRight1.setSelectedSensorPosition(0, pidSlot0, timeoutMs);
         // talonDriveRight1.setSafetyEnabled(false);
 
@@ -231,11 +297,11 @@ public class DriveTrainSRX extends Subsystem {
 
         talonDriveRight2.configFactoryDefault();
         talonDriveRight2.setInverted(true);
-        talonDriveRight2.configAllowableClosedloopError(pidSlot0, 0, timeoutMs);
+        configRight2.stage(MotorConfig.Param.ALLOWABLE_ERROR, 0);
         talonDriveRight2.configForwardLimitSwitchSource(LimitSwitchSource.FeedbackConnector,
                 LimitSwitchNormal.NormallyOpen, timeoutMs);
-        talonDriveRight2.configForwardSoftLimitEnable(false, 0);
-        talonDriveRight2.configReverseSoftLimitEnable(false, 0);
+        configRight2.stage(MotorConfig.Param.FORWARD_SOFT_LIMIT_ENABLE, 0);
+        configRight2.stage(MotorConfig.Param.REVERSE_SOFT_LIMIT_ENABLE, 0);
         talonDriveRight2.clearStickyFaults(0);
         talonDriveRight2.setIntegralAccumulator(0, 0, 0);
         talonDriveRight2.setNeutralMode(NeutralMode.Brake);
@@ -255,37 +321,29 @@ public class DriveTrainSRX extends Subsystem {
         /*
          * Additional settings for motion magic Left
          */
-        /* Set relevant frame periods to be at least as fast as periodic rate */
-        talonDriveLeft1.setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 10, 0);
-        talonDriveLeft1.setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 10, 0);
-
         /* set the peak and nominal outputs */
-        talonDriveLeft1.configNominalOutputForward(0, 0);
-        talonDriveLeft1.configNominalOutputReverse(0, 0);
-        talonDriveLeft1.configPeakOutputForward(1, 0);
-        talonDriveLeft1.configPeakOutputReverse(-1, 0);
+        configLeft1.stage(MotorConfig.Param.NOMINAL_FORWARD, 0);
+        configLeft1.stage(MotorConfig.Param.NOMINAL_REVERSE, 0);
+        configLeft1.stage(MotorConfig.Param.PEAK_FORWARD, 1);
+        configLeft1.stage(MotorConfig.Param.PEAK_REVERSE, -1);
 
         /* set acceleration and vcruise velocity - see documentation */
-        talonDriveLeft1.configMotionCruiseVelocity(cruiseVelocity, 0);
-        talonDriveLeft1.configMotionAcceleration(acceleration, 0);
+        configLeft1.stage(MotorConfig.Param.CRUISE_VELOCITY, cruiseVelocity);
+        configLeft1.stage(MotorConfig.Param.ACCELERATION, acceleration);
 
         /*
          * Additional settings for motion magic Right
          */
 
-        /* Set relevant frame periods to be at least as fast as periodic rate */
-        talonDriveRight1.setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 10, 0);
-        talonDriveRight1.setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 10, 0);
-
         /* set the peak and nominal outputs */
-        talonDriveRight1.configNominalOutputForward(0, 0);
-        talonDriveRight1.configNominalOutputReverse(0, 0);
-        talonDriveRight1.configPeakOutputForward(1, 0);
-        talonDriveRight1.configPeakOutputReverse(-1, 0);
+        configRight1.stage(MotorConfig.Param.NOMINAL_FORWARD, 0);
+        configRight1.stage(MotorConfig.Param.NOMINAL_REVERSE, 0);
+        configRight1.stage(MotorConfig.Param.PEAK_FORWARD, 1);
+        configRight1.stage(MotorConfig.Param.PEAK_REVERSE, -1);
 
         /* set acceleration and vcruise velocity - see documentation */
-        talonDriveRight1.configMotionCruiseVelocity(cruiseVelocity, 0);
-        talonDriveRight1.configMotionAcceleration(acceleration, 0);
+        configRight1.stage(MotorConfig.Param.CRUISE_VELOCITY, cruiseVelocity);
+        configRight1.stage(MotorConfig.Param.ACCELERATION, acceleration);
 
         pidgy = new PigeonIMU(20);
         pidgy.configFactoryDefault();
@@ -295,6 +353,46 @@ public class DriveTrainSRX extends Subsystem {
     
         resetEncoders();
         m_odometry = new DifferentialDriveOdometry(m_gyro.getRotation2d());
+        poseEstimator = new PoseEstimator(poseHistorySize);
+        healthMonitor = new DriveHealthMonitor(Defaults.DRIVETRAIN_TRACK_WIDTH, 10);
+
+        // frame rates are set by Robot.canBandwidth
+        declareCanNeeds();
+
+        Robot.config.addListener(this::configChanged);
+    }
+
+    // the config file changed while disabled, only changed gains are sent
+    private void configChanged() {
+        loadConfig(Robot.config);
+        for (MotorConfig config : new MotorConfig[] { configLeft1, configRight1 }) {
+            config.stage(MotorConfig.Param.KP, driveP);
+            config.stage(MotorConfig.Param.KI, driveI);
+            config.stage(MotorConfig.Param.KD, driveD);
+            config.stage(MotorConfig.Param.KF, driveF);
+            config.stage(MotorConfig.Param.CRUISE_VELOCITY, cruiseVelocity);
+            config.stage(MotorConfig.Param.ACCELERATION, acceleration);
+            config.flush(MotorConfig.BOOT_TIMEOUT_MS);
+        }
+    }
+
+    // frames read by the pose estimator, health monitor and power budget, plus diagnostics
+    private void declareCanNeeds() {
+        CanBandwidth can = Robot.canBandwidth;
+        CanDevice[] leaders = { deviceLeft1, deviceRight1 };
+        CanDevice[] followers = { deviceLeft2, deviceRight2 };
+        for (CanDevice leader : leaders) {
+            can.need(leader, CanDevice.Signal.POSITION, poseSampleMs, "pose estimator");
+            can.need(leader, CanDevice.Signal.VELOCITY, poseSampleMs, "pose estimator");
+            can.need(leader, CanDevice.Signal.OUTPUT, 10, "followers");
+            can.need(leader, CanDevice.Signal.CURRENT, 20, "health monitor");
+        }
+        for (CanDevice follower : followers) {
+            can.need(follower, CanDevice.Signal.CURRENT, 20, "power budget");
+        }
+        for (CanDevice device : new CanDevice[] { deviceLeft1, deviceLeft2, deviceRight1, deviceRight2 }) {
+            can.need(device, CanDevice.Signal.TEMPERATURE, CanBandwidth.DIAGNOSTIC_MS, "diagnostics");
+        }
     }
 
     @Override
@@ -305,13 +403,71 @@ public class DriveTrainSRX extends Subsystem {
 
         setDriveSpeed(max_vel, max_accel);
 
+        updateHealth();
+        updatePowerDemand();
+    }
+
+    // drive current wanted next loop, the limit at the present output or what is drawn now
+    private void updatePowerDemand() {
+        driveAmps = talonDriveLeft1.getSupplyCurrent() + talonDriveLeft2.getSupplyCurrent()
+                + talonDriveRight1.getSupplyCurrent() + talonDriveRight2.getSupplyCurrent();
+        double output = Math.abs(talonDriveLeft1.getMotorOutputPercent())
+                + Math.abs(talonDriveRight1.getMotorOutputPercent());
+        Robot.powerBudget.setDemand(powerLoad, Math.max(driveAmps, output * 2 * driveAmpMax));
+    }
+
+    public double getSupplyCurrent() {
+        return driveAmps;
+    }
+
+    // send the power budget's supply limit, called after the budget is updated
+    public void applyPowerLimit() {
+        double limit = Robot.powerBudget.getCurrentLimit(powerLoad, 4, driveAmpMax, drivePowerMinAmps / 4);
+        if (limit == drivePowerLimit) {
+            return;
+        }
+        // only sent when the limit changes, without waiting for the Talons to answer
+        SupplyCurrentLimitConfiguration supplyLimit = new SupplyCurrentLimitConfiguration(true, limit, limit, 0.1);
+        talonDriveLeft1.configSupplyCurrentLimit(supplyLimit, 0);
+        talonDriveLeft2.configSupplyCurrentLimit(supplyLimit, 0);
+        talonDriveRight1.configSupplyCurrentLimit(supplyLimit, 0);
+        talonDriveRight2.configSupplyCurrentLimit(supplyLimit, 0);
+        drivePowerLimit = limit;
+    }
+
+    private void updateHealth() {
+        healthSample[DriveHealthMonitor.SAMPLE_TIME] = Timer.getFPGATimestamp();
+        healthSample[DriveHealthMonitor.SAMPLE_COMMAND_LEFT] = commandLeft;
+        healthSample[DriveHealthMonitor.SAMPLE_COMMAND_RIGHT] = commandRight;
+        healthSample[DriveHealthMonitor.SAMPLE_SPEED_LEFT] = getLeftVelocity();
+        healthSample[DriveHealthMonitor.SAMPLE_SPEED_RIGHT] = getRightVelocity();
+        healthSample[DriveHealthMonitor.SAMPLE_CURRENT_LEFT] = talonDriveLeft1.getStatorCurrent();
+        healthSample[DriveHealthMonitor.SAMPLE_CURRENT_RIGHT] = talonDriveRight1.getStatorCurrent();
+        if (Robot.gyro != null && Robot.gyro.isConnected()) {
+            healthSample[DriveHealthMonitor.SAMPLE_YAW_RATE] = -Robot.gyro.getRate();
+            healthSample[DriveHealthMonitor.SAMPLE_ACCEL] = Robot.gyro.getForwardAccel();
+        } else {
+            pidgy.getRawGyro(pigeonRates);
+            healthSample[DriveHealthMonitor.SAMPLE_YAW_RATE] = pigeonRates[2];
+            healthSample[DriveHealthMonitor.SAMPLE_ACCEL] = Double.NaN;
+        }
+        healthSample[DriveHealthMonitor.SAMPLE_BATTERY] = RobotController.getBatteryVoltage();
+        healthSample[DriveHealthMonitor.SAMPLE_BROWNED_OUT] = RobotController.isBrownedOut() ? 1 : 0;
+        healthMonitor.update(healthSample);
+
+        // the velocity modes set the command again each loop
+        commandLeft = Double.NaN;
+        commandRight = Double.NaN;
+    }
+
+    public DriveHealthMonitor getHealthMonitor() {
+        return healthMonitor;
     }
 
     public void tankDriveVolts(double leftVolts, double rightVolts) {
+        // the second talons follow
         talonDriveLeft1.setVoltage(leftVolts);
-        talonDriveLeft2.setVoltage(leftVolts);
         talonDriveRight1.setVoltage(rightVolts);
-        talonDriveRight2.setVoltage(rightVolts);
         differentialDrive.feed();
     }
 
@@ -437,9 +593,19 @@ public class DriveTrainSRX extends Subsystem {
             lastJoyLeft = ave - diff;
         }
 
-        double accel_per_period = driver_max_accel * Robot.kDefaultPeriod;
-        leftCurrentSpeed = limitAccel(accel_per_period, leftCurrentSpeed, lastJoyLeft * driver_max_velocity);
-        rightCurrentSpeed = limitAccel(accel_per_period, rightCurrentSpeed, lastJoyRight * driver_max_velocity);
+        if (!"GameVelocity".equals(lastDriveMode)) {
+            // start from where the wheels are
+            accelShaper.reset(getLeftVelocity(), getRightVelocity());
+            lastDriveMode = "GameVelocity";
+        }
+
+        // acceleration limit follows the battery and traction
+        accelShaper.setConditions(driver_max_accel, RobotController.getBatteryVoltage(),
+                healthMonitor.isActive(DriveHealthMonitor.Event.SLIP), Robot.kDefaultPeriod);
+        leftCurrentSpeed = accelShaper.shape(AccelShaper.LEFT, lastJoyLeft * driver_max_velocity);
+        rightCurrentSpeed = accelShaper.shape(AccelShaper.RIGHT, lastJoyRight * driver_max_velocity);
+        commandLeft = leftCurrentSpeed;
+        commandRight = rightCurrentSpeed;
 
         // set drive velocity
         talonDriveLeft1.set(ControlMode.Velocity, leftCurrentSpeed * SPEED_SCALE);
@@ -448,6 +614,32 @@ public class DriveTrainSRX extends Subsystem {
         pingDifferentialDrive();
     }
 
+    /*
+     * Wheel speeds in inches/sec using the Talon velocity loops, for path followers
+     */
+    public void tankVelocityDrive(double leftSpeed, double rightSpeed) {
+        if (feedforward != null) {
+            // model volts do most of the work, the velocity loop trims the error
+            double leftAccel = (leftSpeed - leftCurrentSpeed) / Robot.kDefaultPeriod;
+            double rightAccel = (rightSpeed - rightCurrentSpeed) / Robot.kDefaultPeriod;
+            double battery = RobotController.getBatteryVoltage();
+            talonDriveLeft1.set(ControlMode.Velocity, leftSpeed * SPEED_SCALE, DemandType.ArbitraryFeedForward,
+                    feedforward.calculate(leftSpeed, leftAccel) / battery);
+            talonDriveRight1.set(ControlMode.Velocity, rightSpeed * SPEED_SCALE, DemandType.ArbitraryFeedForward,
+                    feedforward.calculate(rightSpeed, rightAccel) / battery);
+        } else {
+            talonDriveLeft1.set(ControlMode.Velocity, leftSpeed * SPEED_SCALE);
+            talonDriveRight1.set(ControlMode.Velocity, rightSpeed * SPEED_SCALE);
+        }
+        leftCurrentSpeed = leftSpeed;
+        rightCurrentSpeed = rightSpeed;
+        commandLeft = leftSpeed;
+        commandRight = rightSpeed;
+
+        pingDifferentialDrive();
+        lastDriveMode = "Path";
+    }
+
     /*
      * Used for single joystick device using X and Y
      */
@@ -584,14 +776,15 @@ public class DriveTrainSRX extends Subsystem {
         finalLeft = distanceAsCounts + getLeftEncoder();
         finalRight = distanceAsCounts + getRightEncoder();
 
-        // Reset the speed in case someone else changed it.
-        talonDriveLeft1.configMotionCruiseVelocity(cruiseVelocity, 0);
-        talonDriveRight1.configMotionCruiseVelocity(cruiseVelocity, 0);
-        talonDriveLeft1.configMotionAcceleration(acceleration, 0);
-        talonDriveLeft1.configMotionAcceleration(acceleration, 0);
+        // Reset the speed in case someone else changed it, only sent when different
+        configLeft1.set(MotorConfig.Param.CRUISE_VELOCITY, cruiseVelocity);
+        configRight1.set(MotorConfig.Param.CRUISE_VELOCITY, cruiseVelocity);
+        configLeft1.set(MotorConfig.Param.ACCELERATION, acceleration);
+        configRight1.set(MotorConfig.Param.ACCELERATION, acceleration);
         talonDriveLeft1.set(ControlMode.MotionMagic, finalLeft);
         talonDriveRight1.set(ControlMode.MotionMagic, finalRight);
         stuckCount = 0;
+        stuckStartCount = 0;
         /*
          * Will need to disable motorSafetyHepler when not using differentialDrive Calls
          */
@@ -633,15 +826,16 @@ public class DriveTrainSRX extends Subsystem {
         // Reset the speed in case someone else changed it.
         // SmartDashboard.putNumber("FinalRight", finalRight);
         // SmartDashboard.putNumber("Distance in Counts", distanceAsCountsRight);
-        talonDriveLeft1.configMotionCruiseVelocity(leftCruiseVelocity, 0);
-        talonDriveRight1.configMotionCruiseVelocity(rightCruiseVelocity, 0);
+        configLeft1.set(MotorConfig.Param.CRUISE_VELOCITY, leftCruiseVelocity);
+        configRight1.set(MotorConfig.Param.CRUISE_VELOCITY, rightCruiseVelocity);
 
-        talonDriveLeft1.configMotionAcceleration(leftAccel, 0);
-        talonDriveRight1.configMotionAcceleration(rightAccel, 0);
+        configLeft1.set(MotorConfig.Param.ACCELERATION, leftAccel);
+        configRight1.set(MotorConfig.Param.ACCELERATION, rightAccel);
 
         talonDriveLeft1.set(ControlMode.MotionMagic, finalLeft);
         talonDriveRight1.set(ControlMode.MotionMagic, finalRight);
         stuckCount = 0;
+        stuckStartCount = 0;
     }
 
     public void goToUsingMM(double leftDistance, double rightDistance, boolean newStart, int accel, int vel) {
@@ -689,15 +883,16 @@ public class DriveTrainSRX extends Subsystem {
         // Reset the speed in case someone else changed it.
         // SmartDashboard.putNumber("FinalRight", finalRight);
         // SmartDashboard.putNumber("Distance in Counts", distanceAsCountsRight);
-        talonDriveLeft1.configMotionCruiseVelocity(leftCruiseVelocity, 0);
-        talonDriveRight1.configMotionCruiseVelocity(rightCruiseVelocity, 0);
+        configLeft1.set(MotorConfig.Param.CRUISE_VELOCITY, leftCruiseVelocity);
+        configRight1.set(MotorConfig.Param.CRUISE_VELOCITY, rightCruiseVelocity);
 
-        talonDriveLeft1.configMotionAcceleration(leftAccel, 0);
-        talonDriveRight1.configMotionAcceleration(rightAccel, 0);
+        configLeft1.set(MotorConfig.Param.ACCELERATION, leftAccel);
+        configRight1.set(MotorConfig.Param.ACCELERATION, rightAccel);
 
         talonDriveLeft1.set(ControlMode.MotionMagic, finalLeft);
         talonDriveRight1.set(ControlMode.MotionMagic, finalRight);
         stuckCount = 0;
+        stuckStartCount = 0;
     }
 
     public void goTo(double leftDistance, double rightDistance) {
@@ -715,6 +910,7 @@ public class DriveTrainSRX extends Subsystem {
         talonDriveLeft1.set(ControlMode.Position, finalLeft);
         talonDriveRight1.set(ControlMode.Position, finalRight);
         stuckCount = 0;
+        stuckStartCount = 0;
     }
 
     public void goToDistance(double leftDistance, double rightDistance) {
@@ -725,6 +921,7 @@ public class DriveTrainSRX extends Subsystem {
         talonDriveLeft1.set(ControlMode.Position, distanceAsCountsLeft);
         talonDriveRight1.set(ControlMode.Position, distanceAsCountsRight);
         stuckCount = 0;
+        stuckStartCount = 0;
     }
 
     public void pingDifferentialDrive() {
@@ -745,9 +942,13 @@ public class DriveTrainSRX extends Subsystem {
         boolean leftGood = Math.abs(finalLeft - leftEncoder) < maxPositionError;
         boolean rightGood = Math.abs(finalRight - rightEncoder) < maxPositionError;
 
+        // after the move has had time to start, stuck is a stall seen by the health monitor
+        // or the encoders not changing for a while (ex. pushing at less than stall current)
         boolean stuck = false;
         if (stuckStartCount < STUCK_START_IGNORE) {
             stuckStartCount++;
+        } else if (healthMonitor.isActive(DriveHealthMonitor.Event.STALL)) {
+            stuck = true;
         } else if (stuckCount < STUCK_MAX_COUNT) {
             stuckCount++;
             if (Math.abs(lastLeftCount - leftEncoder) > STUCK_ENCODER_LIMIT
@@ -760,6 +961,7 @@ public class DriveTrainSRX extends Subsystem {
 
         lastLeftCount = leftEncoder;
         lastRightCount = rightEncoder;
+
         // SmartDashboard.putNumber("TalonDriveRight position", finalRight);
         // SmartDashboard.putBoolean("Right Good", rightGood);
         // SmartDashboard.putBoolean("Left Good", leftGood);
@@ -877,6 +1079,10 @@ public class DriveTrainSRX extends Subsystem {
     public void resetEncoders() {
         talonDriveLeft1.setSelectedSensorPosition(0, 0, 10);
         talonDriveRight1.setSelectedSensorPosition(0, 0, 10);
+        // the pose stays where it is
+        if (poseEstimator != null) {
+            poseEstimator.resetDistances();
+        }
     }
 
     public void addTelemetryHeaders() {
@@ -927,6 +1133,41 @@ public class DriveTrainSRX extends Subsystem {
         cruiseVelocity = config.getInt("SRXCruiseVelocity", Defaults.DRIVE_CRUISEVELOCITY);
         acceleration = config.getInt("SRXAcceleration", Defaults.DRIVE_ACCELERATION);
         joySquare = config.getBoolean("SRXDriveJoystickSquare", Defaults.DRIVE_JOYSQUARE);
+
+        accelShaper.setVoltageLimits(config.getDouble("SRXDriveAccelNominalVolts", Defaults.DRIVE_ACCEL_NOMINAL_VOLTS),
+                config.getDouble("SRXDriveAccelMinVolts", Defaults.DRIVE_ACCEL_MIN_VOLTS),
+                config.getDouble("SRXDriveAccelMinScale", Defaults.DRIVE_ACCEL_MIN_SCALE));
+        accelShaper.setSlip(config.getDouble("SRXDriveSlipScale", Defaults.DRIVE_SLIP_SCALE), 1.0);
+        accelShaper.setJerk(config.getDouble("SRXDriveJerk", Defaults.DRIVE_JERK));
+
+        driveAmpMax = config.getDouble("SRXDriveAmpMax", Defaults.DRIVE_AMP_MAX);
+        drivePowerMinAmps = config.getDouble("SRXDriveMinAmps", Defaults.DRIVE_POWER_MIN_AMPS);
+        if (powerLoad < 0) {
+            powerLoad = Robot.powerBudget.register("Drive",
+                    config.getInt("SRXDrivePriority", Defaults.DRIVE_POWER_PRIORITY), drivePowerMinAmps);
+        }
+
+        // only rebuilt when one of its own keys changes, so a fit from
+        // CharacterizeDrive isn't replaced by some other config edit
+        if (keyKV == null) {
+            keyKS = config.doubleKey("SRXDriveKS", Defaults.DRIVETRAIN_KS);
+            keyKV = config.doubleKey("SRXDriveKV", Defaults.DRIVETRAIN_KV);
+            keyKA = config.doubleKey("SRXDriveKA", Defaults.DRIVETRAIN_KA);
+            keyKS.onChange(value -> loadFeedforward());
+            keyKV.onChange(value -> loadFeedforward());
+            keyKA.onChange(value -> loadFeedforward());
+            loadFeedforward();
+        }
+    }
+
+    // kV of 0 runs without feedforward
+    private void loadFeedforward() {
+        double kV = keyKV.get();
+        feedforward = (kV > 0) ? new DriveFeedforward(keyKS.get(), kV, keyKA.get()) : null;
+    }
+
+    public void setFeedforward(DriveFeedforward feedforward) {
+        this.feedforward = feedforward;
     }
 
     @Override
@@ -961,6 +1202,59 @@ public class DriveTrainSRX extends Subsystem {
         talonDriveRight1.set(TalonFXControlMode.MotionProfile, cmd.value);
     }
 
+    // motion profile buffers in inches and inches/sec
+    public ProfileBuffer getProfileBufferLeft() {
+        if (profileBufferLeft == null) {
+            profileBufferLeft = new TalonProfileBuffer(talonDriveLeft1, Constants.kSlot_MotProf, COUNTS_PER_INCH,
+                    SPEED_SCALE, Constants.kBaseTrajPeriodMs);
+        }
+        return profileBufferLeft;
+    }
+
+    public ProfileBuffer getProfileBufferRight() {
+        if (profileBufferRight == null) {
+            profileBufferRight = new TalonProfileBuffer(talonDriveRight1, Constants.kSlot_MotProf, COUNTS_PER_INCH,
+                    SPEED_SCALE, Constants.kBaseTrajPeriodMs);
+        }
+        return profileBufferRight;
+    }
+
+    // reads time, distances and heading for the pose estimator
+    private void readPoseSample(double[] sample) {
+        sample[PoseEstimator.SAMPLE_TIME] = Timer.getFPGATimestamp();
+        sample[PoseEstimator.SAMPLE_LEFT] = getLeftDistance();
+        sample[PoseEstimator.SAMPLE_RIGHT] = getRightDistance();
+        // navX is clockwise positive, fall back to the pigeon lined up with it if it drops out
+        boolean navxOk = Robot.gyro != null && Robot.gyro.isConnected();
+        sample[PoseEstimator.SAMPLE_HEADING] = poseHeading.update(navxOk, navxOk ? -Robot.gyro.getAngle() : 0,
+                pidgy.getYaw());
+    }
+
+    public void startPoseEstimator() {
+        poseEstimator.start(this::readPoseSample, poseSampleMs);
+    }
+
+    public void stopPoseEstimator() {
+        poseEstimator.stop();
+    }
+
+    public PoseEstimator getPoseEstimator() {
+        return poseEstimator;
+    }
+
+    // pose in inches, heading counter-clockwise from the last reset
+    public RigidTransform2 getEstimatedPose() {
+        return poseEstimator.getPose();
+    }
+
+    public RigidTransform2 getEstimatedPose(double timestamp) {
+        return poseEstimator.getPose(timestamp);
+    }
+
+    public void resetEstimatedPose(RigidTransform2 pose) {
+        poseEstimator.reset(pose);
+    }
+
     // Jacob's Trajectory
     public void resetOdometry(Pose2d pose) {
         resetEncoders();
@@ -11,6 +11,7 @@
 package org.usfirst.frc2016.subsystems;
 
 import org.usfirst.frc2016.Config;
+import org.usfirst.frc2016.ConfigKey;
 import org.usfirst.frc2016.Defaults;
 import org.usfirst.frc2016.Robot;
 
@@ -32,6 +33,8 @@ public class Gyro extends Subsystem {
 
     public double gyroP = 0.095;
     public double gyroTurnMax = 0.35;
+    private ConfigKey<Double> keyP;
+    private ConfigKey<Double> keyTurnMax;
     private final String GYRO_ANGLE = "Gyro Angle";
     private final String GYRO_ROLL = "Gyro Roll";
 
@@ -102,8 +105,15 @@ public class Gyro extends Subsystem {
     }
 
     public void loadConfig(Config config) {
-        gyroP = config.getDouble("gyroP", Defaults.GYROP);
-        gyroTurnMax = config.getDouble("gryoTurnMax", Defaults.GYROTURNMAX);
+        // bound once, later loads of the file update the values
+        if (keyP == null) {
+            keyP = config.doubleKey("gyroP", Defaults.GYROP);
+            keyTurnMax = config.doubleKey("gyroTurnMax", Defaults.GYROTURNMAX);
+            keyP.onChange(v -> gyroP = v);
+            keyTurnMax.onChange(v -> gyroTurnMax = v);
+        }
+        gyroP = keyP.get();
+        gyroTurnMax = keyTurnMax.get();
     }
 
     public void calibrate() {
@@ -125,6 +135,31 @@ public class Gyro extends Subsystem {
         return angle;
     }
 
+    // degrees/sec, clockwise positive like getAngle()
+    public double getRate() {
+        double rate = 0;
+        if (navxGyro != null) {
+            rate = navxGyro.getRate();
+        }
+        return rate;
+    }
+
+    // forward acceleration without gravity, inches/sec^2
+    public double getForwardAccel() {
+        double accel = 0;
+        if (navxGyro != null) {
+            // the linear accel is in the world frame, turn it into the robot frame by the yaw
+            double yaw = Math.toRadians(navxGyro.getYaw());
+            accel = (navxGyro.getWorldLinearAccelX() * Math.cos(yaw)
+                    + navxGyro.getWorldLinearAccelY() * Math.sin(yaw)) * 386.09;
+        }
+        return accel;
+    }
+
+    public boolean isConnected() {
+        return navxGyro != null && navxGyro.isConnected();
+    }
+
     public double getRoll() {
         double angle = 0;
         if (navxGyro != null) {
@@ -10,8 +10,14 @@
 
 package org.usfirst.frc2016.subsystems;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.command.Subsystem;
 import oi.limelightvision.limelight.frc.*;
+
+import org.usfirst.frc2016.Config;
+import org.usfirst.frc2016.Defaults;
+import org.usfirst.frc2016.Robot;
+import org.usfirst.frc2016.utils.VisionFusion;
 // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=IMPORTS
 //import com.granitecitygearhead.frc3244.limelightlib.LimeLight;
 
@@ -42,12 +48,35 @@ public class Limelight extends Subsystem {
 
     // END AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=DECLARATIONS
 
+    // target position from latency compensated frames
+    private VisionFusion fusion;
+    private boolean useFusion;
+    private LimeLightSubscriber subscriber;
+    private LimeLightFrame frame = LimeLightFrame.EMPTY;
+    private long lastFusedFrame = 0;
+
     public Limelight() {
         // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CONSTRUCTORS
         limeLightDevice = new LimeLight("limelight");
 
         // END AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CONSTRUCTORS
+        subscriber = limeLightDevice.getSubscriber();
+
+        fusion = new VisionFusion(Robot.driveTrainSRX.getPoseEstimator());
+        loadConfig(Robot.config);
+    }
 
+    public void loadConfig(Config config) {
+        useFusion = config.getBoolean("LimelightFusion", Defaults.LIMELIGHT_FUSION);
+        fusion.setCamera(config.getDouble("LimelightCameraHeight", Defaults.LIMELIGHT_CAMERA_HEIGHT),
+                config.getDouble("LimelightCameraPitch", Defaults.LIMELIGHT_CAMERA_PITCH),
+                config.getDouble("LimelightTargetHeight", Defaults.LIMELIGHT_TARGET_HEIGHT));
+        fusion.setCaptureLatency(config.getDouble("LimelightCaptureLatency", Defaults.LIMELIGHT_CAPTURE_LATENCY));
+        fusion.setFilter(config.getDouble("LimelightFilter", Defaults.LIMELIGHT_FILTER), 0.5);
+        if (useFusion && !fusion.isConfigured()) {
+            System.out.println("Limelight: fusion needs LimelightCameraHeight and LimelightTargetHeight, off");
+            useFusion = false;
+        }
     }
 
     @Override
@@ -63,7 +92,13 @@ public class Limelight extends Subsystem {
     @Override
     public void periodic() {
         // Put code here to be run every loop
-
+        frame = subscriber.getFrame(); // one consistent set of values for this loop
+        // only add new frames, the camera may not have updated since the last loop
+        if (useFusion && frame.isTargetFound() && frame.getId() != lastFusedFrame) {
+            fusion.addFrame(frame.getTime(), frame.getPipelineLatency(), frame.getdegRotationToTarget(),
+                    frame.getdegVerticalToTarget());
+            lastFusedFrame = frame.getId();
+        }
     }
 
     // BEGIN AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=CMDPIDGETTERS
@@ -76,20 +111,41 @@ public class Limelight extends Subsystem {
         return limeLightDevice;
     }
 
+    // newest camera values, updated each loop
+    public LimeLightFrame getFrame() {
+        return frame;
+    }
+
+    public VisionFusion getFusion() {
+        return fusion;
+    }
+
     public void updateTracking() {
-        limelightHasValidTarget = limeLightDevice.getIsTargetFound(); // Determine whether limelight has a valid target
+        // the fused target is latency compensated and outlasts a frame or two without the target
+        boolean fused = useFusion && fusion.hasTarget(Timer.getFPGATimestamp());
+        limelightHasValidTarget = fused || frame.isTargetFound(); // Determine whether limelight has a valid target
 
         if (limelightHasValidTarget) { // If target is acquired
 
-            // Calculate proportional steering
-            double horizontalOffset = limeLightDevice.getdegRotationToTarget();
+            // Calculate proportional steering, from the fused target when there is one
+            double horizontalOffset;
+            if (fused) {
+                horizontalOffset = fusion.getBearing(Robot.driveTrainSRX.getEstimatedPose());
+            } else {
+                horizontalOffset = frame.getdegRotationToTarget();
+            }
             steerCommand = horizontalOffset * STEER_K;
 
-            // Drive forward until target area is at our desired area
-            double targetArea = limeLightDevice.getTargetArea();
-            driveCommand = (DESIRED_TARGET_AREA - targetArea) * DRIVE_K;
-            if (driveCommand > MAX_SPEED) { // If max speed is exceeded
-                driveCommand = MAX_SPEED; // Set drive command to speed limit
+            // Drive forward until target area is at our desired area, only steer
+            // on the fused target while the camera doesn't see it
+            if (frame.isTargetFound()) {
+                double targetArea = frame.getTargetArea();
+                driveCommand = (DESIRED_TARGET_AREA - targetArea) * DRIVE_K;
+                if (driveCommand > MAX_SPEED) { // If max speed is exceeded
+                    driveCommand = MAX_SPEED; // Set drive command to speed limit
+                }
+            } else {
+                driveCommand = 0.0;
             }
         } else { // If no target is acquired
             driveCommand = 0.0; // Have the robot remain still
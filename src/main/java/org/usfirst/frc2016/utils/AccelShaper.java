@@ -0,0 +1,115 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Shapes wheel speed commands for driver control. The allowed acceleration
+ * starts from the driver setting and is lowered as the battery sags toward
+ * brownout and while the wheels are slipping, then comes back up as they
+ * recover. Changes in acceleration are jerk limited so the drive train isn't
+ * hit with current steps.
+ * <p>
+ * One shaper handles both sides, call setConditions() once a period and then
+ * shape() for each side.
+ */
+public class AccelShaper {
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+
+    private double nominalVolts = 11.5; // full acceleration at or above
+    private double minVolts = 8.5; // minimum acceleration at or below
+    private double minScale = 0.3;
+    private double slipScale = 0.5; // acceleration while slipping
+    private double slipRecovery = 1.0; // scale regained per second after slip
+    private double jerk = 10000; // inches/sec^3
+
+    private double maxAccel = 1000; // inches/sec^2, driver setting
+    private double voltageScale = 1.0;
+    private double tractionScale = 1.0;
+    private double dt = 0.02;
+
+    private final double[] speed = new double[2];
+    private final double[] accel = new double[2];
+
+    public void setVoltageLimits(double nominalVolts, double minVolts, double minScale) {
+        this.nominalVolts = nominalVolts;
+        this.minVolts = minVolts;
+        this.minScale = minScale;
+    }
+
+    public void setSlip(double slipScale, double slipRecovery) {
+        this.slipScale = slipScale;
+        this.slipRecovery = slipRecovery;
+    }
+
+    public void setJerk(double jerk) {
+        this.jerk = jerk;
+    }
+
+    /**
+     * Updates the allowed acceleration for this period
+     *
+     * @param maxAccel driver acceleration limit, inches/sec^2
+     * @param battery  battery volts
+     * @param slipping true while the wheels are slipping
+     * @param dt       seconds since the last call
+     */
+    public void setConditions(double maxAccel, double battery, boolean slipping, double dt) {
+        this.maxAccel = maxAccel;
+        this.dt = dt;
+
+        if (battery >= nominalVolts) {
+            voltageScale = 1.0;
+        } else if (battery <= minVolts) {
+            voltageScale = minScale;
+        } else {
+            voltageScale = minScale + (1.0 - minScale) * (battery - minVolts) / (nominalVolts - minVolts);
+        }
+
+        if (slipping) {
+            tractionScale = Math.min(tractionScale, slipScale);
+        } else {
+            tractionScale = Math.min(1.0, tractionScale + slipRecovery * dt);
+        }
+    }
+
+    // acceleration allowed right now
+    public double getAllowedAccel() {
+        return maxAccel * voltageScale * tractionScale;
+    }
+
+    /**
+     * Moves one side toward the desired speed
+     *
+     * @param side          LEFT or RIGHT
+     * @param desiredSpeed  inches/sec
+     * @return the speed to command
+     */
+    public double shape(int side, double desiredSpeed) {
+        double allowed = getAllowedAccel();
+        double error = desiredSpeed - speed[side];
+
+        // fastest acceleration that can still be jerked down to 0 at the desired speed
+        double limit = Math.min(allowed, Math.sqrt(2 * jerk * Math.abs(error)));
+        double want = Math.max(-limit, Math.min(limit, error / dt));
+
+        double step = jerk * dt;
+        double a = accel[side];
+        a += Math.max(-step, Math.min(step, want - a));
+        // never pass the desired speed, on a reversal the step above brings the acceleration around
+        if (a * error >= 0 && Math.abs(a * dt) > Math.abs(error)) {
+            a = error / dt;
+        }
+
+        accel[side] = a;
+        speed[side] += a * dt;
+        return speed[side];
+    }
+
+    // start from a known speed, ex. when changing drive modes
+    public void reset(double left, double right) {
+        speed[LEFT] = left;
+        speed[RIGHT] = right;
+        accel[LEFT] = 0;
+        accel[RIGHT] = 0;
+        tractionScale = 1.0;
+    }
+}
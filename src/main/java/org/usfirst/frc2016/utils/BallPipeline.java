@@ -0,0 +1,245 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Ball handling from the intake brush to the toss wheels as four stages, each
+ * holding at most one ball:
+ * <pre>
+ * INTAKE   brush running, a ball on its way to the ready-to-toss sensor
+ * STAGING  ball held at the sensor
+ * GATE     gate pushing the staged ball, until the sensor clears
+ * TOSS     ball in the wheels, until the flywheel counts the shot
+ * </pre>
+ * A staged ball is fed once the toss stage is empty and the flywheels are at
+ * speed. The brush brings the next ball to the sensor as soon as staging is
+ * empty, so it is waiting while the wheels recover from the last shot.
+ * <p>
+ * A ball that doesn't clear the sensor in time goes back to staging and is fed
+ * again after a back-off. After the retries the pipeline stops feeding until
+ * reset(). With the flywheels open loop nothing counts shots, so a ball in the
+ * wheels for the toss timeout is counted as shot.
+ * <p>
+ * update() takes the sensor readings and the time and sets the brush and gate
+ * outputs, nothing else is read, so a run replays the same from the same
+ * inputs. The time each ball spends in each stage is kept for tuning.
+ */
+public class BallPipeline {
+    public enum Stage {
+        INTAKE, STAGING, GATE, TOSS
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private double gateTimeout = 0.5; // seconds to push a ball past the sensor before calling it a jam
+    private double tossTimeout = 0.5; // seconds for the flywheel to see the shot
+    private boolean overlap = true; // stage the next ball while the wheels recover
+    private boolean timedShots = false; // shots counted by time, not by the flywheel
+    private double jamBackoff = 0.25; // seconds to wait before feeding a jammed ball again
+    private int jamRetries = 3; // feeds of a jammed ball before giving up
+
+    private boolean intakeEnabled = false;
+    private boolean shootEnabled = false;
+
+    private final boolean[] occupied = new boolean[STAGES.length];
+    private final double[] entered = new double[STAGES.length]; // time the ball entered
+    private final int[] dwellCount = new int[STAGES.length];
+    private final double[] dwellSum = new double[STAGES.length];
+    private final double[] dwellMax = new double[STAGES.length];
+
+    private boolean brushOn = false;
+    private boolean gateOn = false;
+    private int lastShotCount = -1;
+    private int ballsShot = 0;
+    private int jams = 0;
+    private int missed = 0; // balls fed with no shot seen
+    private int ballJams = 0; // jams of the ball in staging
+    private double feedAfter = 0; // time the staged ball may be fed again after a jam
+    private double firstShotTime = Double.NaN;
+    private double lastShotTime = Double.NaN;
+
+    public void setTimeouts(double gateTimeout, double tossTimeout) {
+        this.gateTimeout = gateTimeout;
+        this.tossTimeout = tossTimeout;
+    }
+
+    // false stages the next ball only after the last one is shot and the wheels have recovered
+    public void setOverlap(boolean overlap) {
+        this.overlap = overlap;
+    }
+
+    // true when the flywheels don't count shots (open loop), a ball is shot after the toss timeout
+    public void setTimedShots(boolean timedShots) {
+        this.timedShots = timedShots;
+    }
+
+    public void setJamRetry(double backoff, int retries) {
+        jamBackoff = backoff;
+        jamRetries = retries;
+    }
+
+    public void setEnabled(boolean intake, boolean shoot) {
+        intakeEnabled = intake;
+        shootEnabled = shoot;
+    }
+
+    /**
+     * Moves the balls along, call every loop
+     *
+     * @param time          seconds
+     * @param ballStaged    ready-to-toss sensor, debounced
+     * @param flywheelReady both flywheels at speed
+     * @param shotCount     shots counted by the flywheel
+     */
+    public void update(double time, boolean ballStaged, boolean flywheelReady, int shotCount) {
+        boolean shot = lastShotCount >= 0 && shotCount != lastShotCount;
+        lastShotCount = shotCount;
+
+        // toss: done when the wheels see the ball
+        if (occupied[Stage.TOSS.ordinal()]) {
+            boolean timedOut = time - entered[Stage.TOSS.ordinal()] > tossTimeout;
+            if (shot || (timedShots && timedOut)) {
+                leave(Stage.TOSS, time);
+                ballsShot++;
+                if (Double.isNaN(firstShotTime)) {
+                    firstShotTime = time;
+                }
+                lastShotTime = time;
+            } else if (timedOut) {
+                leave(Stage.TOSS, time);
+                missed++;
+            }
+        }
+
+        // gate: the ball has passed the sensor into the wheels
+        if (occupied[Stage.GATE.ordinal()]) {
+            if (!ballStaged) {
+                leave(Stage.GATE, time);
+                enter(Stage.TOSS, time);
+                ballJams = 0;
+            } else if (time - entered[Stage.GATE.ordinal()] > gateTimeout) {
+                // stuck, stop pushing and try again from staging after the back-off
+                leave(Stage.GATE, time);
+                enter(Stage.STAGING, time);
+                jams++;
+                ballJams++;
+                feedAfter = time + jamBackoff;
+            }
+        }
+
+        // intake: a ball reached the sensor
+        if (ballStaged && !occupied[Stage.GATE.ordinal()] && !occupied[Stage.STAGING.ordinal()]) {
+            if (occupied[Stage.INTAKE.ordinal()]) {
+                leave(Stage.INTAKE, time);
+            }
+            enter(Stage.STAGING, time);
+        } else if (!ballStaged && occupied[Stage.STAGING.ordinal()]) {
+            // ball rolled back or was pulled out by hand
+            occupied[Stage.STAGING.ordinal()] = false;
+            ballJams = 0;
+        }
+
+        // feed the staged ball when the wheels are ready for it
+        if (shootEnabled && occupied[Stage.STAGING.ordinal()] && !occupied[Stage.TOSS.ordinal()] && flywheelReady
+                && time >= feedAfter && !isJammed()) {
+            leave(Stage.STAGING, time);
+            enter(Stage.GATE, time);
+        }
+
+        // bring up the next ball once the sensor is free
+        boolean downstreamFree = !occupied[Stage.STAGING.ordinal()] && !occupied[Stage.GATE.ordinal()]
+                && (overlap || (!occupied[Stage.TOSS.ordinal()] && flywheelReady));
+        if (intakeEnabled && downstreamFree && !occupied[Stage.INTAKE.ordinal()]) {
+            enter(Stage.INTAKE, time);
+        } else if (!intakeEnabled && occupied[Stage.INTAKE.ordinal()]) {
+            occupied[Stage.INTAKE.ordinal()] = false; // not timed, the brush stopped
+        }
+
+        brushOn = occupied[Stage.INTAKE.ordinal()];
+        gateOn = occupied[Stage.GATE.ordinal()];
+    }
+
+    private void enter(Stage stage, double time) {
+        occupied[stage.ordinal()] = true;
+        entered[stage.ordinal()] = time;
+    }
+
+    private void leave(Stage stage, double time) {
+        int i = stage.ordinal();
+        occupied[i] = false;
+        double dwell = time - entered[i];
+        dwellCount[i]++;
+        dwellSum[i] += dwell;
+        dwellMax[i] = Math.max(dwellMax[i], dwell);
+    }
+
+    // empty every stage, ex. after the operator cleared a jam
+    public void reset() {
+        for (int i = 0; i < STAGES.length; i++) {
+            occupied[i] = false;
+        }
+        brushOn = false;
+        gateOn = false;
+        lastShotCount = -1;
+        ballJams = 0;
+        feedAfter = 0;
+    }
+
+    public void resetStats() {
+        for (int i = 0; i < STAGES.length; i++) {
+            dwellCount[i] = 0;
+            dwellSum[i] = 0;
+            dwellMax[i] = 0;
+        }
+        ballsShot = 0;
+        jams = 0;
+        missed = 0;
+        firstShotTime = Double.NaN;
+        lastShotTime = Double.NaN;
+    }
+
+    public boolean isBrushOn() {
+        return brushOn;
+    }
+
+    public boolean isGateOn() {
+        return gateOn;
+    }
+
+    public boolean isOccupied(Stage stage) {
+        return occupied[stage.ordinal()];
+    }
+
+    // mean seconds a ball spent in the stage
+    public double getDwellMean(Stage stage) {
+        int i = stage.ordinal();
+        return (dwellCount[i] > 0) ? dwellSum[i] / dwellCount[i] : 0;
+    }
+
+    public double getDwellMax(Stage stage) {
+        return dwellMax[stage.ordinal()];
+    }
+
+    public int getBallsShot() {
+        return ballsShot;
+    }
+
+    public int getJams() {
+        return jams;
+    }
+
+    // the staged ball jammed on every retry, nothing is fed until reset()
+    public boolean isJammed() {
+        return ballJams > jamRetries;
+    }
+
+    public int getMissed() {
+        return missed;
+    }
+
+    // shots per second between the first and last shot
+    public double getBallsPerSecond() {
+        if (ballsShot < 2) {
+            return 0;
+        }
+        return (ballsShot - 1) / (lastShotTime - firstShotTime);
+    }
+}
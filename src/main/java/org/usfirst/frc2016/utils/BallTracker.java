@@ -0,0 +1,254 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Tracks several balls across camera frames. Each frame's detections are
+ * matched to the existing tracks by distance to the predicted position (the
+ * closest pairs are taken first), and each track is smoothed with a constant
+ * velocity alpha-beta filter. Tracks that aren't seen for a few frames are
+ * dropped.
+ * <p>
+ * All storage is allocated up front, update() does not allocate.
+ */
+public class BallTracker {
+    public static final int MAX_TRACKS = 16;
+    public static final int MAX_DETECTIONS = 32;
+
+    public static class Track {
+        int id = 0; // 0 when the slot is free
+        double x;
+        double y;
+        double size;
+        double vx; // pixels per second
+        double vy;
+        double lastTime;
+        int hits;
+        int misses;
+
+        public int getId() {
+            return id;
+        }
+
+        public double getX() {
+            return x;
+        }
+
+        public double getY() {
+            return y;
+        }
+
+        public double getSize() {
+            return size;
+        }
+
+        public double getVelocityX() {
+            return vx;
+        }
+
+        public double getVelocityY() {
+            return vy;
+        }
+
+        public int getHits() {
+            return hits;
+        }
+    }
+
+    private double alpha = 0.5; // position gain
+    private double beta = 0.2; // velocity gain
+    private double sizeGain = 0.3;
+    private double gateDistance = 80; // pixels, farther detections start a new track
+    private int maxMisses = 5;
+    private int minHits = 3; // frames before a track can be chosen
+    private double centerX = 160;
+    private double centerWeight = 0.1; // score lost per pixel off center
+    private double keepMargin = 20; // score added to the current best, stops flicker
+
+    private final Track[] tracks = new Track[MAX_TRACKS];
+    private int nextId = 1;
+    private Track best = null;
+    private int bestId = 0;
+
+    // association scratch
+    private final double[] predX = new double[MAX_TRACKS];
+    private final double[] predY = new double[MAX_TRACKS];
+    private final boolean[] trackUsed = new boolean[MAX_TRACKS];
+    private final boolean[] detectionUsed = new boolean[MAX_DETECTIONS];
+
+    public BallTracker() {
+        for (int i = 0; i < MAX_TRACKS; i++) {
+            tracks[i] = new Track();
+        }
+    }
+
+    public void setFilter(double alpha, double beta, double sizeGain) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.sizeGain = sizeGain;
+    }
+
+    public void setGate(double gateDistance, int minHits, int maxMisses) {
+        this.gateDistance = gateDistance;
+        this.minHits = minHits;
+        this.maxMisses = maxMisses;
+    }
+
+    public void setScore(double centerX, double centerWeight, double keepMargin) {
+        this.centerX = centerX;
+        this.centerWeight = centerWeight;
+        this.keepMargin = keepMargin;
+    }
+
+    /**
+     * Adds one frame of detections
+     *
+     * @param time  frame time in seconds
+     * @param xs    detection x, pixels
+     * @param ys    detection y, pixels
+     * @param sizes detection size
+     */
+    public void update(double time, double[] xs, double[] ys, double[] sizes) {
+        int count = Math.min(Math.min(xs.length, ys.length), Math.min(sizes.length, MAX_DETECTIONS));
+
+        for (int t = 0; t < MAX_TRACKS; t++) {
+            Track track = tracks[t];
+            trackUsed[t] = (track.id == 0);
+            if (track.id != 0) {
+                double dt = time - track.lastTime;
+                predX[t] = track.x + track.vx * dt;
+                predY[t] = track.y + track.vy * dt;
+            }
+        }
+        for (int d = 0; d < count; d++) {
+            detectionUsed[d] = false;
+        }
+
+        // take the closest track/detection pair until none are inside the gate
+        double gate2 = gateDistance * gateDistance;
+        while (true) {
+            int bestT = -1;
+            int bestD = -1;
+            double bestDist = gate2;
+            for (int t = 0; t < MAX_TRACKS; t++) {
+                if (trackUsed[t]) {
+                    continue;
+                }
+                for (int d = 0; d < count; d++) {
+                    if (detectionUsed[d]) {
+                        continue;
+                    }
+                    double dx = xs[d] - predX[t];
+                    double dy = ys[d] - predY[t];
+                    double dist = dx * dx + dy * dy;
+                    if (dist < bestDist) {
+                        bestDist = dist;
+                        bestT = t;
+                        bestD = d;
+                    }
+                }
+            }
+            if (bestT < 0) {
+                break;
+            }
+            correct(tracks[bestT], bestT, time, xs[bestD], ys[bestD], sizes[bestD]);
+            trackUsed[bestT] = true;
+            detectionUsed[bestD] = true;
+        }
+
+        // tracks not seen this frame coast on their velocity
+        for (int t = 0; t < MAX_TRACKS; t++) {
+            Track track = tracks[t];
+            if (!trackUsed[t]) {
+                track.misses++;
+                if (track.misses > maxMisses) {
+                    track.id = 0;
+                }
+            }
+        }
+
+        // new detections start tracks in free slots
+        for (int d = 0; d < count; d++) {
+            if (!detectionUsed[d]) {
+                startTrack(time, xs[d], ys[d], sizes[d]);
+            }
+        }
+
+        best = chooseBest();
+        bestId = (best == null) ? 0 : best.id;
+    }
+
+    private void correct(Track track, int t, double time, double x, double y, double size) {
+        double dt = time - track.lastTime;
+        double rx = x - predX[t];
+        double ry = y - predY[t];
+        track.x = predX[t] + alpha * rx;
+        track.y = predY[t] + alpha * ry;
+        if (dt > 0) {
+            track.vx += beta * rx / dt;
+            track.vy += beta * ry / dt;
+        }
+        track.size += sizeGain * (size - track.size);
+        track.lastTime = time;
+        track.hits++;
+        track.misses = 0;
+    }
+
+    private void startTrack(double time, double x, double y, double size) {
+        for (Track track : tracks) {
+            if (track.id == 0) {
+                track.id = nextId++;
+                track.x = x;
+                track.y = y;
+                track.size = size;
+                track.vx = 0;
+                track.vy = 0;
+                track.lastTime = time;
+                track.hits = 1;
+                track.misses = 0;
+                return;
+            }
+        }
+    }
+
+    // biggest, most centered ball, the current one is kept unless another is clearly better
+    private Track chooseBest() {
+        Track choice = null;
+        double choiceScore = 0;
+        for (Track track : tracks) {
+            if (track.id == 0 || track.hits < minHits) {
+                continue;
+            }
+            double score = track.size - centerWeight * Math.abs(track.x - centerX);
+            if (track.id == bestId) {
+                score += keepMargin;
+            }
+            if (choice == null || score > choiceScore) {
+                choice = track;
+                choiceScore = score;
+            }
+        }
+        return choice;
+    }
+
+    // ball to chase or null
+    public Track getBest() {
+        return best;
+    }
+
+    public int getTrackCount() {
+        int count = 0;
+        for (Track track : tracks) {
+            if (track.id != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        for (Track track : tracks) {
+            track.id = 0;
+        }
+        best = null;
+        bestId = 0;
+    }
+}
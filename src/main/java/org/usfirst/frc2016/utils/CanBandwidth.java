@@ -0,0 +1,146 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.ArrayList;
+
+/**
+ * Sets the CAN frame rates of the motor controllers from what the code reads.
+ * Consumers declare the signals they use and how often, each frame is sent at
+ * the fastest rate any consumer needs and frames nobody reads are slowed to
+ * the device's slowest rate. apply() sends the periods, call it once all the
+ * devices are created.
+ * <p>
+ * Bus load is estimated from the frame rates, 1 Mbit/s with every frame an
+ * 8 byte extended frame.
+ */
+public class CanBandwidth {
+    public static final double BUS_BITS_PER_SEC = 1000000;
+    public static final double BITS_PER_FRAME = 150; // 29 bit id, 8 data bytes, typical bit stuffing
+    public static final int DIAGNOSTIC_MS = 160; // temperature and bus voltage for brownout logs, power up rate
+
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private static class Entry {
+        final CanDevice device;
+        final int[] needs; // fastest period asked for each frame, NONE if not read
+        final String[] consumers; // who asked for the fastest rate
+        int controlNeed = NONE;
+
+        Entry(CanDevice device) {
+            this.device = device;
+            needs = new int[device.getFrameCount()];
+            consumers = new String[device.getFrameCount()];
+            for (int i = 0; i < needs.length; i++) {
+                needs[i] = NONE;
+            }
+        }
+    }
+
+    private final ArrayList<Entry> entries = new ArrayList<>();
+
+    public synchronized void add(CanDevice device) {
+        if (find(device) == null) {
+            entries.add(new Entry(device));
+        }
+    }
+
+    /**
+     * Declares a signal read from a device
+     *
+     * @param periodMs slowest update the consumer can live with
+     * @param consumer shown in the report
+     */
+    public synchronized void need(CanDevice device, CanDevice.Signal signal, int periodMs, String consumer) {
+        add(device);
+        Entry entry = find(device);
+        int frame = device.getFrame(signal);
+        if (frame < 0) {
+            return;
+        }
+        if (periodMs < entry.needs[frame]) {
+            entry.needs[frame] = periodMs;
+            entry.consumers[frame] = consumer;
+        }
+    }
+
+    // commands are sent at least this often, devices without a need keep their default
+    public synchronized void needControl(CanDevice device, int periodMs) {
+        add(device);
+        Entry entry = find(device);
+        entry.controlNeed = Math.min(entry.controlNeed, periodMs);
+    }
+
+    // period the frame will be sent at
+    public synchronized int getPeriod(CanDevice device, int frame) {
+        Entry entry = find(device);
+        if (entry == null) {
+            return device.getDefaultPeriod(frame);
+        }
+        return periodOf(entry, frame);
+    }
+
+    private int periodOf(Entry entry, int frame) {
+        if (entry.needs[frame] == NONE) {
+            return entry.device.getSlowestPeriod(frame);
+        }
+        return Math.min(entry.needs[frame], entry.device.getSlowestPeriod(frame));
+    }
+
+    private int controlOf(Entry entry) {
+        return (entry.controlNeed == NONE) ? entry.device.getDefaultControlPeriod() : entry.controlNeed;
+    }
+
+    // sends the periods to every device
+    public synchronized void apply() {
+        for (Entry entry : entries) {
+            for (int f = 0; f < entry.needs.length; f++) {
+                entry.device.setFramePeriod(f, periodOf(entry, f));
+            }
+            if (entry.controlNeed != NONE) {
+                entry.device.setControlPeriod(entry.controlNeed);
+            }
+        }
+    }
+
+    // estimated fraction of the bus used, with the managed or the power up periods
+    public synchronized double getUtilization(boolean managed) {
+        double framesPerSec = 0;
+        for (Entry entry : entries) {
+            for (int f = 0; f < entry.needs.length; f++) {
+                int period = managed ? periodOf(entry, f) : entry.device.getDefaultPeriod(f);
+                framesPerSec += 1000.0 / period;
+            }
+            int control = managed ? controlOf(entry) : entry.device.getDefaultControlPeriod();
+            framesPerSec += 1000.0 / control;
+        }
+        return framesPerSec * BITS_PER_FRAME / BUS_BITS_PER_SEC;
+    }
+
+    // prints every device's frame periods and the bus load
+    public synchronized void report() {
+        for (Entry entry : entries) {
+            CanDevice device = entry.device;
+            StringBuilder sb = new StringBuilder();
+            sb.append("CAN ").append(device.getName()).append(":");
+            for (int f = 0; f < entry.needs.length; f++) {
+                sb.append(String.format(" %s %d->%d", device.getFrameName(f), device.getDefaultPeriod(f),
+                        periodOf(entry, f)));
+                if (entry.consumers[f] != null) {
+                    sb.append(" (").append(entry.consumers[f]).append(")");
+                }
+            }
+            sb.append(String.format(" control %d->%d", device.getDefaultControlPeriod(), controlOf(entry)));
+            System.out.println(sb);
+        }
+        System.out.format("CAN bus estimate: %.1f%% at power up, %.1f%% managed%n", 100 * getUtilization(false),
+                100 * getUtilization(true));
+    }
+
+    private Entry find(CanDevice device) {
+        for (Entry entry : entries) {
+            if (entry.device == device) {
+                return entry;
+            }
+        }
+        return null;
+    }
+}
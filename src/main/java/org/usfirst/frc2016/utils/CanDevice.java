@@ -0,0 +1,41 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Status and control frames of a CAN motor controller, as seen by
+ * CanBandwidth. Frames are numbered 0 to getFrameCount()-1, periods are in
+ * milliseconds.
+ */
+public interface CanDevice {
+    // what a consumer reads, each device maps these to its own frames
+    enum Signal {
+        OUTPUT, // applied output and faults, also read by followers
+        POSITION,
+        VELOCITY,
+        CURRENT,
+        CLOSED_LOOP, // closed loop error and target
+        MOTION, // motion magic / smart motion targets
+        TEMPERATURE,
+        ANALOG
+    }
+
+    String getName();
+
+    int getFrameCount();
+
+    String getFrameName(int frame);
+
+    // period the device uses at power up
+    int getDefaultPeriod(int frame);
+
+    // slowest period the device accepts, used for frames nobody reads
+    int getSlowestPeriod(int frame);
+
+    // frame carrying the signal, -1 when the device doesn't report it
+    int getFrame(Signal signal);
+
+    void setFramePeriod(int frame, int periodMs);
+
+    int getDefaultControlPeriod();
+
+    void setControlPeriod(int periodMs);
+}
@@ -0,0 +1,155 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.Arrays;
+
+/**
+ * Desktop stand-in for a CAN motor controller. Keeps the periods and settings
+ * it is sent so frame rates and MotorConfig can be checked without hardware.
+ * Acknowledged writes take latencyMs, and writes can be made to fail.
+ */
+public class CanDeviceSim implements CanDevice, MotorConfig.Device {
+    private final String name;
+    private final int[] defaults;
+    private final int[] slowest;
+    private final int[] signalFrames; // frame for each Signal, -1 when not reported
+    private final int defaultControl;
+
+    private final int[] periods;
+    private int controlPeriod;
+    private int writes = 0;
+
+    private final double[] settings = new double[MotorConfig.Param.values().length];
+    private int latencyMs = 0;
+    private int failNext = 0;
+    private int settingWrites = 0;
+
+    public CanDeviceSim(String name, int[] defaults, int[] slowest, int[] signalFrames, int defaultControl) {
+        this.name = name;
+        this.defaults = defaults;
+        this.slowest = slowest;
+        this.signalFrames = signalFrames;
+        this.defaultControl = defaultControl;
+        periods = defaults.clone();
+        controlPeriod = defaultControl;
+        Arrays.fill(settings, Double.NaN);
+    }
+
+    // same frames and periods as TalonCanDevice
+    public static CanDeviceSim talonFx(String name) {
+        return new CanDeviceSim(name,
+                new int[] { 10, 20, 160, 160, 160, 160, 160, 160, 160, 50 },
+                new int[] { 100, 255, 255, 255, 255, 255, 255, 255, 255, 255 },
+                // OUTPUT, POSITION, VELOCITY, CURRENT, CLOSED_LOOP, MOTION, TEMPERATURE, ANALOG
+                new int[] { 0, 1, 1, 9, 6, 4, 2, 2 }, 10);
+    }
+
+    // same frames and periods as SparkCanDevice
+    public static CanDeviceSim sparkMax(String name) {
+        return new CanDeviceSim(name,
+                new int[] { 10, 20, 20, 50 },
+                new int[] { 100, 500, 500, 500 },
+                new int[] { 0, 2, 1, 1, -1, -1, 1, 3 }, 10);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return defaults.length;
+    }
+
+    @Override
+    public String getFrameName(int frame) {
+        return "Status" + frame;
+    }
+
+    @Override
+    public int getDefaultPeriod(int frame) {
+        return defaults[frame];
+    }
+
+    @Override
+    public int getSlowestPeriod(int frame) {
+        return slowest[frame];
+    }
+
+    @Override
+    public int getFrame(Signal signal) {
+        return signalFrames[signal.ordinal()];
+    }
+
+    @Override
+    public void setFramePeriod(int frame, int periodMs) {
+        periods[frame] = periodMs;
+        writes++;
+    }
+
+    @Override
+    public int getDefaultControlPeriod() {
+        return defaultControl;
+    }
+
+    @Override
+    public void setControlPeriod(int periodMs) {
+        controlPeriod = periodMs;
+        writes++;
+    }
+
+    public int getPeriod(int frame) {
+        return periods[frame];
+    }
+
+    public int getControlPeriod() {
+        return controlPeriod;
+    }
+
+    // number of settings sent
+    public int getWrites() {
+        return writes;
+    }
+
+    @Override
+    public synchronized boolean write(MotorConfig.Param param, double value, int timeoutMs) {
+        settingWrites++;
+        if (timeoutMs > 0) {
+            // waiting for the acknowledge
+            try {
+                Thread.sleep(Math.min(latencyMs, timeoutMs));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            if (latencyMs > timeoutMs) {
+                return false;
+            }
+        }
+        if (failNext > 0) {
+            failNext--;
+            return false;
+        }
+        settings[param.ordinal()] = value;
+        return true;
+    }
+
+    // time for the device to acknowledge a setting
+    public void setLatency(int latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    // the next count settings fail
+    public synchronized void failNext(int count) {
+        failNext = count;
+    }
+
+    // value the device holds, NaN if never set
+    public synchronized double getSetting(MotorConfig.Param param) {
+        return settings[param.ordinal()];
+    }
+
+    public synchronized int getSettingWrites() {
+        return settingWrites;
+    }
+}
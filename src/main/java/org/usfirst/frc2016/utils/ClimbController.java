@@ -0,0 +1,201 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Moves both climber arms together along a trapezoid motion profile. Both
+ * sides get the profile feedforward plus a PI correction of their average to
+ * the profile position, and a cross-coupled correction on the level error
+ * slows the leading side and speeds up the lagging one. The level error is the
+ * difference in arm positions, plus the robot's roll once it's hanging.
+ * If the sides get too far apart the profile waits for them to level out.
+ * <p>
+ * Once the profile ends the controller keeps the arms on the goal until
+ * stop(), the I term carries the robot's weight while it hangs.
+ * <p>
+ * Positions are in the motor units (inches), outputs are motor power.
+ * update() only uses its arguments so ClimbControllerTest can run it against
+ * a model of the two arms.
+ */
+public class ClimbController {
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+
+    private double maxVel = 10; // units/sec
+    private double maxAccel = 20; // units/sec^2
+    private double kV = 0.05; // power per units/sec
+    private double kP = 0.3; // power per unit of position error
+    private double kI = 0.5; // power per unit*sec, holds the robot's weight at the goal
+    private double kLevel = 0.15; // power per unit of level error
+    private double rollGain = 0; // units of level error per degree of roll
+    private double holdError = 1.0; // profile waits while the level error is over this
+    private double tolerance = 0.25; // done when the average is this close to the goal
+    private double maxPower = 0.5;
+
+    private double start;
+    private double goal;
+    private double profileTime = 0;
+    private double lastTime = Double.NaN;
+    private boolean useRoll = false;
+    private boolean active = false;
+    private boolean done = false;
+
+    private double profilePos;
+    private double profileVel;
+    private double integral = 0;
+    private double levelError = 0;
+    private double maxLevelError = 0;
+    private final double[] output = new double[2];
+
+    public void setProfile(double maxVel, double maxAccel) {
+        this.maxVel = maxVel;
+        this.maxAccel = maxAccel;
+    }
+
+    public void setGains(double kV, double kP, double kI, double kLevel, double rollGain) {
+        this.kV = kV;
+        this.kP = kP;
+        this.kI = kI;
+        this.kLevel = kLevel;
+        this.rollGain = rollGain;
+    }
+
+    public void setLimits(double holdError, double tolerance, double maxPower) {
+        this.holdError = holdError;
+        this.tolerance = tolerance;
+        this.maxPower = maxPower;
+    }
+
+    /**
+     * Starts a move from where the arms are now
+     *
+     * @param goal    position for both arms
+     * @param useRoll level on the gyro roll too, once the robot is off the ground
+     */
+    public void start(double left, double right, double goal, boolean useRoll) {
+        this.start = 0.5 * (left + right);
+        this.goal = goal;
+        this.useRoll = useRoll;
+        profileTime = 0;
+        integral = 0;
+        lastTime = Double.NaN;
+        active = true;
+        done = false;
+        maxLevelError = 0;
+    }
+
+    /**
+     * Runs the controller, the outputs are read with getOutput()
+     *
+     * @param time  seconds
+     * @param left  left arm position
+     * @param right right arm position
+     * @param roll  robot roll, degrees
+     */
+    public void update(double time, double left, double right, double roll) {
+        double dt = Double.isNaN(lastTime) ? 0 : time - lastTime;
+        lastTime = time;
+        if (!active) {
+            output[LEFT] = 0;
+            output[RIGHT] = 0;
+            return;
+        }
+
+        levelError = left - right + (useRoll ? rollGain * roll : 0);
+        maxLevelError = Math.max(maxLevelError, Math.abs(levelError));
+
+        // the profile waits for the sides to level out
+        if (Math.abs(levelError) <= holdError) {
+            profileTime += dt;
+        }
+        sample(profileTime);
+
+        // P on the average follows the profile, the level term only moves the sides apart
+        double average = 0.5 * (left + right);
+        double error = profilePos - average;
+        double common = kV * profileVel + kP * error + kI * integral;
+        // only at the end, the profile lag would wind it up and overshoot
+        if (profilePos == goal && (Math.abs(common) < maxPower || Math.signum(error) != Math.signum(common))) {
+            integral += error * dt;
+        }
+        double level = 0.5 * kLevel * levelError;
+        output[LEFT] = clamp(common - level);
+        output[RIGHT] = clamp(common + level);
+
+        if (profilePos == goal && Math.abs(goal - average) <= tolerance && Math.abs(levelError) <= holdError) {
+            done = true;
+        }
+    }
+
+    // trapezoid, or triangle for a short move
+    private void sample(double t) {
+        double distance = Math.abs(goal - start);
+        double sign = Math.signum(goal - start);
+        double accelTime = maxVel / maxAccel;
+        double accelDist = 0.5 * maxAccel * accelTime * accelTime;
+        double cruiseVel = maxVel;
+        if (2 * accelDist > distance) {
+            accelTime = Math.sqrt(distance / maxAccel);
+            accelDist = 0.5 * distance;
+            cruiseVel = maxAccel * accelTime;
+        }
+        double cruiseTime = (distance - 2 * accelDist) / cruiseVel;
+        double total = 2 * accelTime + cruiseTime;
+
+        double d;
+        double v;
+        if (t >= total) {
+            d = distance;
+            v = 0;
+        } else if (t < accelTime) {
+            d = 0.5 * maxAccel * t * t;
+            v = maxAccel * t;
+        } else if (t < accelTime + cruiseTime) {
+            d = accelDist + cruiseVel * (t - accelTime);
+            v = cruiseVel;
+        } else {
+            double left = total - t;
+            d = distance - 0.5 * maxAccel * left * left;
+            v = maxAccel * left;
+        }
+        profilePos = (t >= total) ? goal : start + sign * d;
+        profileVel = sign * v;
+    }
+
+    private double clamp(double power) {
+        return Math.max(-maxPower, Math.min(maxPower, power));
+    }
+
+    public void stop() {
+        active = false;
+        output[LEFT] = 0;
+        output[RIGHT] = 0;
+    }
+
+    public double getOutput(int side) {
+        return output[side];
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    // arms at the goal and level at the end of the profile
+    public boolean isDone() {
+        return done;
+    }
+
+    public double getLevelError() {
+        return levelError;
+    }
+
+    public double getMaxLevelError() {
+        return maxLevelError;
+    }
+
+    public double getProfilePos() {
+        return profilePos;
+    }
+
+    public double getGoal() {
+        return goal;
+    }
+}
@@ -0,0 +1,281 @@
+package org.usfirst.frc2016.utils;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+
+/**
+ * Records when commands start, end and are interrupted and how long each
+ * execute() took. Events go into a ring buffer allocated up front, so tracing
+ * in the robot loop is a few array stores. save() writes the per command
+ * execute() percentiles and the events next to the telemetry file, from a
+ * background thread so disabledInit() isn't held up by the file.
+ * <p>
+ * The old Scheduler has no hooks, commands extend TracedCommand or
+ * TracedCommandGroup, which call in around their onInitialize(), onExecute(),
+ * onEnd() and onInterrupted().
+ * <p>
+ * Only the robot loop thread should call in.
+ */
+public class CommandTracer {
+    public static final byte START = 0;
+    public static final byte EXECUTE = 1;
+    public static final byte END = 2;
+    public static final byte INTERRUPT = 3;
+    private static final String[] EVENT_NAMES = { "start", "execute", "end", "interrupt" };
+
+    private static final int CAPACITY = 1 << 16; // over a match of 50 Hz loops with a few commands running
+    private static final int MASK = CAPACITY - 1;
+    private static final int MAX_COMMANDS = 128;
+
+    // events go in ring, save() swaps it with saving and writes that one out
+    private static Ring ring = new Ring();
+    private static Ring saving = new Ring();
+    private static volatile boolean saveBusy = false;
+
+    // per command
+    private static final String[] names = new String[MAX_COMMANDS];
+    private static final boolean[] running = new boolean[MAX_COMMANDS];
+    private static final HashMap<String, Integer> ids = new HashMap<>();
+    private static int commandCount = 0;
+    private static boolean enabled = true;
+
+    /**
+     * Id for a command, commands of the same class share one. Call from a field
+     * initializer or the constructor, not the loop.
+     */
+    public static synchronized int register(Class<?> type) {
+        return register(type.getSimpleName());
+    }
+
+    public static synchronized int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (commandCount >= MAX_COMMANDS) {
+            System.out.println("CommandTracer: too many commands, not tracing " + name);
+            return -1;
+        }
+        names[commandCount] = name;
+        ids.put(name, commandCount);
+        return commandCount++;
+    }
+
+    public static void setEnabled(boolean enable) {
+        enabled = enable;
+    }
+
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    public static void started(int id) {
+        if (id < 0) {
+            return;
+        }
+        running[id] = true;
+        ring.starts[id]++;
+        record(id, START, now(), 0);
+    }
+
+    public static void executed(int id, long startNanos) {
+        if (id < 0) {
+            return;
+        }
+        long time = now();
+        record(id, EXECUTE, time, (int) Math.min(Integer.MAX_VALUE, time - startNanos));
+    }
+
+    // ignored after interrupted(), most interrupted() call end()
+    public static void ended(int id) {
+        if (id < 0 || !running[id]) {
+            return;
+        }
+        running[id] = false;
+        record(id, END, now(), 0);
+    }
+
+    public static void interrupted(int id) {
+        if (id < 0 || !running[id]) {
+            return;
+        }
+        running[id] = false;
+        ring.interrupts[id]++;
+        record(id, INTERRUPT, now(), 0);
+    }
+
+    private static void record(int id, byte type, long time, int nanos) {
+        if (!enabled) {
+            return;
+        }
+        Ring r = ring;
+        if (r.written == 0) {
+            r.firstTime = time;
+        }
+        int i = (int) (r.written & MASK);
+        r.eventTime[i] = time;
+        r.eventNanos[i] = nanos;
+        r.eventCommand[i] = (short) id;
+        r.eventType[i] = type;
+        r.written++;
+    }
+
+    // events in the ring, the oldest are overwritten
+    public static int getEventCount() {
+        return ring.getEventCount();
+    }
+
+    public static long getWritten() {
+        return ring.written;
+    }
+
+    public static void clear() {
+        ring.clear();
+    }
+
+    /**
+     * execute() durations of one command in the ring, sorted
+     *
+     * @return microseconds
+     */
+    public static double[] getExecuteMicros(int id) {
+        return ring.getExecuteMicros(id);
+    }
+
+    // p from 0 to 1 of sorted values
+    static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int i = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, i))];
+    }
+
+    /**
+     * One line per command that ran: starts, interrupts, execute() count and
+     * the 50th, 90th and 99th percentile and worst execute() in microseconds
+     */
+    public static String summary() {
+        return ring.summary(commandCount);
+    }
+
+    /**
+     * Writes the summary and the events to commands_[date].csv in the folder
+     * the telemetry is saved to, then starts over. Nothing is written if no
+     * commands ran. The ring is swapped for the spare one here and written out
+     * by a background thread, if the last save is still writing this one is
+     * dropped.
+     *
+     * @return the thread writing the file, null if there was nothing to save
+     */
+    public static Thread save(String filePath) {
+        if (ring.written == 0) {
+            return null;
+        }
+        if (saveBusy) {
+            System.out.println("CommandTracer: save skipped, the last one is still writing");
+            clear();
+            return null;
+        }
+        final Ring full = ring;
+        ring = saving;
+        saving = full;
+        ring.clear();
+        saveBusy = true;
+
+        final int count = commandCount;
+        final String fileName = filePath + "/commands_"
+                + new SimpleDateFormat("yyyy-MM-dd-HH-mm-ss").format(new Date()) + ".csv";
+        Thread saver = new Thread(() -> {
+            try {
+                full.write(fileName, count);
+            } finally {
+                saveBusy = false;
+            }
+        }, "CommandTracer");
+        saver.setDaemon(true);
+        saver.start();
+        return saver;
+    }
+
+    // events and counts since the last save, allocated up front
+    private static class Ring {
+        final long[] eventTime = new long[CAPACITY]; // System.nanoTime()
+        final int[] eventNanos = new int[CAPACITY]; // execute() duration
+        final short[] eventCommand = new short[CAPACITY];
+        final byte[] eventType = new byte[CAPACITY];
+        final int[] starts = new int[MAX_COMMANDS];
+        final int[] interrupts = new int[MAX_COMMANDS];
+        long written = 0;
+        long firstTime = 0;
+
+        int getEventCount() {
+            return (int) Math.min(written, CAPACITY);
+        }
+
+        void clear() {
+            written = 0;
+            Arrays.fill(starts, 0);
+            Arrays.fill(interrupts, 0);
+        }
+
+        double[] getExecuteMicros(int id) {
+            int count = 0;
+            long first = written - getEventCount();
+            for (long n = first; n < written; n++) {
+                int i = (int) (n & MASK);
+                if (eventCommand[i] == id && eventType[i] == EXECUTE) {
+                    count++;
+                }
+            }
+            double[] micros = new double[count];
+            count = 0;
+            for (long n = first; n < written; n++) {
+                int i = (int) (n & MASK);
+                if (eventCommand[i] == id && eventType[i] == EXECUTE) {
+                    micros[count++] = eventNanos[i] / 1000.0;
+                }
+            }
+            Arrays.sort(micros);
+            return micros;
+        }
+
+        String summary(int commandCount) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Command,Starts,Interrupts,Executes,P50 us,P90 us,P99 us,Max us\n");
+            for (int id = 0; id < commandCount; id++) {
+                double[] micros = getExecuteMicros(id);
+                if (starts[id] == 0 && micros.length == 0) {
+                    continue;
+                }
+                sb.append(String.format("%s,%d,%d,%d,%.1f,%.1f,%.1f,%.1f%n", names[id], starts[id], interrupts[id],
+                        micros.length, percentile(micros, 0.5), percentile(micros, 0.9), percentile(micros, 0.99),
+                        percentile(micros, 1.0)));
+            }
+            return sb.toString();
+        }
+
+        void write(String fileName, int commandCount) {
+            String summary = summary(commandCount);
+            System.out.print("CommandTracer:\n" + summary);
+            try (FileWriter file = new FileWriter(fileName)) {
+                file.write(summary);
+                if (written > CAPACITY) {
+                    file.write(String.format("%nOldest %d events were overwritten%n", written - CAPACITY));
+                }
+                file.write("\nSeconds,Command,Event,Execute us\n");
+                for (long n = written - getEventCount(); n < written; n++) {
+                    int i = (int) (n & MASK);
+                    file.write(String.format("%.4f,%s,%s,%.1f%n", (eventTime[i] - firstTime) / 1e9,
+                            names[eventCommand[i]], EVENT_NAMES[eventType[i]], eventNanos[i] / 1000.0));
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
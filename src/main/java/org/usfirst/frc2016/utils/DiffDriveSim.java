@@ -0,0 +1,83 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Desktop kinematic model of a differential drive. Wheel speeds follow the
+ * commanded speeds with a first order lag and an optional scale error (ex.
+ * worn tread), the pose is integrated from the wheel speeds. Used to try path
+ * followers without a robot.
+ */
+public class DiffDriveSim {
+    private final double trackWidth;
+    private double timeConstant = 0.05; // seconds
+    private double leftScale = 1.0;
+    private double rightScale = 1.0;
+
+    private double leftVelocity = 0;
+    private double rightVelocity = 0;
+    private double leftDistance = 0;
+    private double rightDistance = 0;
+    private double x = 0;
+    private double y = 0;
+    private double heading = 0;
+
+    public DiffDriveSim(double trackWidth) {
+        this.trackWidth = trackWidth;
+    }
+
+    public void setResponse(double timeConstant, double leftScale, double rightScale) {
+        this.timeConstant = timeConstant;
+        this.leftScale = leftScale;
+        this.rightScale = rightScale;
+    }
+
+    public void setPose(double x, double y, double heading) {
+        this.x = x;
+        this.y = y;
+        this.heading = heading;
+    }
+
+    // run the model for dt seconds with the commanded wheel speeds
+    public void step(double leftCommand, double rightCommand, double dt) {
+        double gain = (timeConstant > 0) ? Math.min(1.0, dt / timeConstant) : 1.0;
+        leftVelocity += gain * (leftCommand * leftScale - leftVelocity);
+        rightVelocity += gain * (rightCommand * rightScale - rightVelocity);
+
+        double left = leftVelocity * dt;
+        double right = rightVelocity * dt;
+        double turn = (right - left) / trackWidth;
+        double mid = heading + turn / 2;
+        x += 0.5 * (left + right) * Math.cos(mid);
+        y += 0.5 * (left + right) * Math.sin(mid);
+        heading += turn;
+        leftDistance += left;
+        rightDistance += right;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public double getHeading() {
+        return heading;
+    }
+
+    public double getLeftDistance() {
+        return leftDistance;
+    }
+
+    public double getRightDistance() {
+        return rightDistance;
+    }
+
+    public double getLeftVelocity() {
+        return leftVelocity;
+    }
+
+    public double getRightVelocity() {
+        return rightVelocity;
+    }
+}
@@ -0,0 +1,236 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Debounced digital input sampled on a background timer. The level only
+ * changes after the input has read the same for debounceSamples samples in a
+ * row, and the edge is timestamped with the first of those samples. Code that
+ * needs to wait for the input gets a future or a callback instead of polling
+ * in a loop.
+ * <p>
+ * Callbacks and futures complete on the sampling thread, keep them short and
+ * don't touch motors from them. Samples can also be fed by calling sample()
+ * directly, which is how DigitalSensorTest drives it.
+ */
+public class DigitalSensor {
+    public enum Edge {
+        RISING, FALLING, ANY
+    }
+
+    public interface Source {
+        boolean get();
+    }
+
+    // clock for edge timestamps, nanoseconds
+    public interface Clock {
+        long nanoTime();
+    }
+
+    private static class Waiter {
+        final Edge edge;
+        final LongConsumer callback; // null for a one shot future
+        final CompletableFuture<Long> future;
+
+        Waiter(Edge edge, LongConsumer callback, CompletableFuture<Long> future) {
+            this.edge = edge;
+            this.callback = callback;
+            this.future = future;
+        }
+    }
+
+    private final String name;
+    private final Source source;
+    private final int debounceSamples;
+    private Clock clock = System::nanoTime;
+
+    private volatile boolean level;
+    private volatile long lastEdgeNanos = 0;
+    private volatile int edgeCount = 0;
+    private boolean raw;
+    private int sameCount = 0;
+    private long changeNanos = 0; // first sample of the new raw level
+    private boolean initialized = false;
+
+    private final ArrayList<Waiter> waiters = new ArrayList<>();
+    private Timer sampleTimer;
+
+    /**
+     * @param name            for messages
+     * @param source          the input, ex. digitalInput::get
+     * @param debounceSamples samples that must agree before the level changes
+     */
+    public DigitalSensor(String name, Source source, int debounceSamples) {
+        this.name = name;
+        this.source = source;
+        this.debounceSamples = Math.max(1, debounceSamples);
+    }
+
+    public void setClock(Clock clock) {
+        this.clock = clock;
+    }
+
+    // sample the input on a background timer
+    public void start(int periodMs) {
+        stop();
+        sampleTimer = new Timer(name + "Sensor", true);
+        sampleTimer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                sample();
+            }
+        }, 0, periodMs);
+    }
+
+    public void stop() {
+        if (sampleTimer != null) {
+            sampleTimer.cancel();
+            sampleTimer = null;
+        }
+    }
+
+    // reads the input once, fires waiters on a debounced edge
+    public void sample() {
+        boolean value;
+        try {
+            value = source.get();
+        } catch (RuntimeException e) {
+            return; // keep the last level, the timer must not die
+        }
+        long now = clock.nanoTime();
+
+        ArrayList<Waiter> fired = null;
+        long edgeNanos;
+        synchronized (this) {
+            if (!initialized) {
+                initialized = true;
+                raw = value;
+                level = value;
+                sameCount = debounceSamples;
+                return;
+            }
+            if (value != raw) {
+                raw = value;
+                sameCount = 1;
+                changeNanos = now;
+            } else if (sameCount < debounceSamples) {
+                sameCount++;
+            }
+            if (sameCount < debounceSamples || raw == level) {
+                return;
+            }
+
+            level = raw;
+            boolean rising = level;
+            edgeNanos = changeNanos;
+            lastEdgeNanos = edgeNanos;
+            edgeCount++;
+
+            Iterator<Waiter> it = waiters.iterator();
+            while (it.hasNext()) {
+                Waiter w = it.next();
+                if (matches(w.edge, rising)) {
+                    if (fired == null) {
+                        fired = new ArrayList<>();
+                    }
+                    fired.add(w);
+                    if (w.future != null) {
+                        it.remove();
+                    }
+                }
+            }
+        }
+
+        if (fired != null) {
+            for (Waiter w : fired) {
+                if (w.future != null) {
+                    w.future.complete(edgeNanos);
+                } else {
+                    w.callback.accept(edgeNanos);
+                }
+            }
+        }
+    }
+
+    private static boolean matches(Edge edge, boolean rising) {
+        return edge == Edge.ANY || (edge == Edge.RISING) == rising;
+    }
+
+    /**
+     * Completes with the edge time in nanoseconds at the next matching edge,
+     * or exceptionally with a TimeoutException.
+     *
+     * @param timeoutMs 0 waits forever
+     */
+    public CompletableFuture<Long> awaitEdge(Edge edge, long timeoutMs) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        Waiter waiter = new Waiter(edge, null, future);
+        synchronized (this) {
+            waiters.add(waiter);
+        }
+        return withTimeout(future, waiter, timeoutMs);
+    }
+
+    /**
+     * Completes when the input is at the level, at once if it already is.
+     */
+    public CompletableFuture<Long> awaitLevel(boolean wanted, long timeoutMs) {
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        Waiter waiter = new Waiter(wanted ? Edge.RISING : Edge.FALLING, null, future);
+        synchronized (this) {
+            if (initialized && level == wanted) {
+                future.complete(lastEdgeNanos);
+                return future;
+            }
+            waiters.add(waiter);
+        }
+        return withTimeout(future, waiter, timeoutMs);
+    }
+
+    private CompletableFuture<Long> withTimeout(CompletableFuture<Long> future, Waiter waiter, long timeoutMs) {
+        if (timeoutMs > 0) {
+            future.orTimeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        // a timed out or cancelled wait stops listening
+        future.whenComplete((t, e) -> {
+            if (e != null) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+        });
+        return future;
+    }
+
+    // called with the edge time in nanoseconds at every matching edge, on the sampling thread
+    public synchronized void onEdge(Edge edge, LongConsumer callback) {
+        waiters.add(new Waiter(edge, callback, null));
+    }
+
+    // debounced level
+    public boolean get() {
+        return level;
+    }
+
+    public long getLastEdgeNanos() {
+        return lastEdgeNanos;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    public synchronized int getWaiterCount() {
+        return waiters.size();
+    }
+
+    public String getName() {
+        return name;
+    }
+}
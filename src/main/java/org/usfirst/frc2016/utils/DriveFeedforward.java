@@ -0,0 +1,150 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Drive motor model volts = kS * sign(v) + kV * v + kA * a. The gains come
+ * from a least squares fit of characterization samples (see
+ * CharacterizeDrive), calculate() gives the volts needed for a speed and
+ * acceleration.
+ */
+public class DriveFeedforward {
+    public final double kS; // volts to get moving
+    public final double kV; // volts per distance/sec
+    public final double kA; // volts per distance/sec^2
+    public final double rSquared; // fit quality, 1 is perfect
+
+    public static final int DIFFERENTIATE_SPAN = 4; // samples each way
+
+    public DriveFeedforward(double kS, double kV, double kA) {
+        this(kS, kV, kA, 1.0);
+    }
+
+    private DriveFeedforward(double kS, double kV, double kA, double rSquared) {
+        this.kS = kS;
+        this.kV = kV;
+        this.kA = kA;
+        this.rSquared = rSquared;
+    }
+
+    public double calculate(double velocity, double acceleration) {
+        return kS * Math.signum(velocity) + kV * velocity + kA * acceleration;
+    }
+
+    /**
+     * Least squares fit of volts = kS * sign(v) + kV * v + kA * a. Samples with
+     * almost no speed are skipped, static friction isn't known there.
+     *
+     * @param volts        applied volts
+     * @param velocity     measured speed
+     * @param acceleration measured acceleration
+     * @param count        number of samples to use
+     * @param minVelocity  smallest speed used
+     * @return the fit or null if there isn't enough data
+     */
+    public static DriveFeedforward fit(double[] volts, double[] velocity, double[] acceleration, int count,
+            double minVelocity) {
+        // normal equations, A^T A x = A^T y with rows [sign(v), v, a]
+        double[][] ata = new double[3][3];
+        double[] aty = new double[3];
+        double[] row = new double[3];
+        double sumY = 0;
+        double sumYY = 0;
+        int used = 0;
+        for (int i = 0; i < count; i++) {
+            if (Math.abs(velocity[i]) < minVelocity) {
+                continue;
+            }
+            row[0] = Math.signum(velocity[i]);
+            row[1] = velocity[i];
+            row[2] = acceleration[i];
+            for (int r = 0; r < 3; r++) {
+                for (int c = 0; c < 3; c++) {
+                    ata[r][c] += row[r] * row[c];
+                }
+                aty[r] += row[r] * volts[i];
+            }
+            sumY += volts[i];
+            sumYY += volts[i] * volts[i];
+            used++;
+        }
+        if (used < 3) {
+            return null;
+        }
+
+        double[] k = solve(ata, aty);
+        if (k == null) {
+            return null;
+        }
+
+        // residual for r^2
+        double ssRes = 0;
+        for (int i = 0; i < count; i++) {
+            if (Math.abs(velocity[i]) < minVelocity) {
+                continue;
+            }
+            double error = volts[i] - (k[0] * Math.signum(velocity[i]) + k[1] * velocity[i] + k[2] * acceleration[i]);
+            ssRes += error * error;
+        }
+        double ssTot = sumYY - sumY * sumY / used;
+        double r2 = (ssTot > 0) ? 1 - ssRes / ssTot : 1;
+        return new DriveFeedforward(k[0], k[1], k[2], r2);
+    }
+
+    // gaussian elimination with partial pivoting, null if singular
+    private static double[] solve(double[][] m, double[] b) {
+        int n = b.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++) {
+                if (Math.abs(m[r][col]) > Math.abs(m[pivot][col])) {
+                    pivot = r;
+                }
+            }
+            if (Math.abs(m[pivot][col]) < 1e-12) {
+                return null;
+            }
+            double[] tmpRow = m[col];
+            m[col] = m[pivot];
+            m[pivot] = tmpRow;
+            double tmp = b[col];
+            b[col] = b[pivot];
+            b[pivot] = tmp;
+
+            for (int r = col + 1; r < n; r++) {
+                double f = m[r][col] / m[col][col];
+                for (int c = col; c < n; c++) {
+                    m[r][c] -= f * m[col][c];
+                }
+                b[r] -= f * b[col];
+            }
+        }
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; r--) {
+            double sum = b[r];
+            for (int c = r + 1; c < n; c++) {
+                sum -= m[r][c] * x[c];
+            }
+            x[r] = sum / m[r][r];
+        }
+        return x;
+    }
+
+    /**
+     * Acceleration from timed speeds, central differences over span samples
+     * each way. A wider span keeps encoder noise from swamping the acceleration.
+     */
+    public static double[] differentiate(double[] time, double[] velocity, int count, int span) {
+        double[] acceleration = new double[count];
+        for (int i = 0; i < count; i++) {
+            int a = Math.max(0, i - span);
+            int b = Math.min(count - 1, i + span);
+            double dt = time[b] - time[a];
+            acceleration[i] = (dt > 0) ? (velocity[b] - velocity[a]) / dt : 0;
+        }
+        return acceleration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("kS %.4f kV %.5f kA %.5f r^2 %.4f", kS, kV, kA, rSquared);
+    }
+}
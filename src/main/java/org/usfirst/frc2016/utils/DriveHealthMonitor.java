@@ -0,0 +1,192 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Watches the drive train for wheel slip, stall, brownout and collision.
+ * Samples go into a sliding window, each event is decided from the window
+ * (or the newest sample for collisions) every update. Listeners are told when
+ * an event starts, isActive() can be checked at any time.
+ * <p>
+ * Units are inches, seconds and degrees. Samples can be fed from the robot or
+ * from recorded telemetry, update() does not allocate.
+ */
+public class DriveHealthMonitor {
+    public enum Event {
+        SLIP, STALL, BROWNOUT, COLLISION
+    }
+
+    public static final int SAMPLE_TIME = 0;
+    public static final int SAMPLE_COMMAND_LEFT = 1; // NaN when not in a velocity mode
+    public static final int SAMPLE_COMMAND_RIGHT = 2;
+    public static final int SAMPLE_SPEED_LEFT = 3;
+    public static final int SAMPLE_SPEED_RIGHT = 4;
+    public static final int SAMPLE_CURRENT_LEFT = 5; // amps
+    public static final int SAMPLE_CURRENT_RIGHT = 6;
+    public static final int SAMPLE_YAW_RATE = 7; // degrees/sec counter-clockwise
+    public static final int SAMPLE_ACCEL = 8; // forward, inches/sec^2, NaN when there is no IMU
+    public static final int SAMPLE_BATTERY = 9; // volts
+    public static final int SAMPLE_BROWNED_OUT = 10; // 1 when the roboRIO reports a brownout
+    public static final int SAMPLE_SIZE = 11;
+
+    private static final Event[] EVENTS = Event.values();
+
+    private double trackWidth;
+
+    // thresholds
+    private double slipYawRate = 30; // degrees/sec between wheels and gyro
+    private double slipAccel = 60; // inches/sec^2 between wheels and IMU
+    private double stallCurrent = 60; // amps
+    private double stallSpeed = 3; // inches/sec
+    private double brownoutVoltage = 7.5;
+    private double collisionAccel = 500; // inches/sec^2 (about 1.3 g)
+    private double collisionSpeedDrop = 30; // inches/sec lost in one sample while commanded to move
+
+    // sliding window
+    private final int window;
+    private final double[][] samples;
+    private int next = 0;
+    private int filled = 0;
+
+    private final boolean[] active = new boolean[EVENTS.length];
+    private final int[] counts = new int[EVENTS.length];
+    private final ArrayList<Consumer<Event>> listeners = new ArrayList<>();
+
+    public DriveHealthMonitor(double trackWidth, int window) {
+        this.trackWidth = trackWidth;
+        this.window = window;
+        samples = new double[window][SAMPLE_SIZE];
+    }
+
+    public void setSlip(double yawRate, double accel) {
+        slipYawRate = yawRate;
+        slipAccel = accel;
+    }
+
+    public void setStall(double current, double speed) {
+        stallCurrent = current;
+        stallSpeed = speed;
+    }
+
+    public void setBrownout(double voltage) {
+        brownoutVoltage = voltage;
+    }
+
+    public void setCollision(double accel, double speedDrop) {
+        collisionAccel = accel;
+        collisionSpeedDrop = speedDrop;
+    }
+
+    // called when an event starts
+    public synchronized void addListener(Consumer<Event> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Adds a sample and updates the events
+     *
+     * @param sample values indexed by SAMPLE_xxx, copied
+     */
+    public synchronized void update(double[] sample) {
+        double[] previous = (filled > 0) ? samples[(next + window - 1) % window] : null;
+        System.arraycopy(sample, 0, samples[next], 0, SAMPLE_SIZE);
+        next = (next + 1) % window;
+        if (filled < window) {
+            filled++;
+        }
+
+        set(Event.SLIP, filled == window && checkSlip());
+        set(Event.STALL, filled == window && checkStall());
+        set(Event.BROWNOUT, checkBrownout(sample));
+        set(Event.COLLISION, previous != null && checkCollision(previous, sample));
+    }
+
+    // wheels turning the robot faster than the gyro sees, or speeding up faster than the robot
+    private boolean checkSlip() {
+        double yawError = 0;
+        double accelError = 0;
+        int accelCount = 0;
+        for (int i = 1; i < window; i++) {
+            double[] s = samples[(next + i) % window];
+            double[] p = samples[(next + i - 1) % window];
+            double wheelYaw = Math.toDegrees((s[SAMPLE_SPEED_RIGHT] - s[SAMPLE_SPEED_LEFT]) / trackWidth);
+            yawError += Math.abs(wheelYaw - s[SAMPLE_YAW_RATE]);
+
+            double dt = s[SAMPLE_TIME] - p[SAMPLE_TIME];
+            if (dt > 0 && !Double.isNaN(s[SAMPLE_ACCEL])) {
+                double wheelAccel = 0.5 * ((s[SAMPLE_SPEED_LEFT] - p[SAMPLE_SPEED_LEFT])
+                        + (s[SAMPLE_SPEED_RIGHT] - p[SAMPLE_SPEED_RIGHT])) / dt;
+                accelError += Math.abs(wheelAccel - s[SAMPLE_ACCEL]);
+                accelCount++;
+            }
+        }
+        yawError /= (window - 1);
+        if (yawError > slipYawRate) {
+            return true;
+        }
+        return accelCount > 0 && accelError / accelCount > slipAccel;
+    }
+
+    // pushing hard and not moving for the whole window
+    private boolean checkStall() {
+        for (int i = 0; i < window; i++) {
+            double[] s = samples[i];
+            double current = 0.5 * (s[SAMPLE_CURRENT_LEFT] + s[SAMPLE_CURRENT_RIGHT]);
+            double speed = 0.5 * (Math.abs(s[SAMPLE_SPEED_LEFT]) + Math.abs(s[SAMPLE_SPEED_RIGHT]));
+            if (current < stallCurrent || speed > stallSpeed) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean checkBrownout(double[] s) {
+        return s[SAMPLE_BROWNED_OUT] != 0 || s[SAMPLE_BATTERY] < brownoutVoltage;
+    }
+
+    // a hit shows as an IMU spike, or the wheels being stopped while still commanded to go
+    private boolean checkCollision(double[] p, double[] s) {
+        if (!Double.isNaN(s[SAMPLE_ACCEL]) && Math.abs(s[SAMPLE_ACCEL]) > collisionAccel) {
+            return true;
+        }
+        if (Double.isNaN(s[SAMPLE_COMMAND_LEFT]) || Double.isNaN(p[SAMPLE_COMMAND_LEFT])) {
+            return false;
+        }
+        double speedBefore = 0.5 * (p[SAMPLE_SPEED_LEFT] + p[SAMPLE_SPEED_RIGHT]);
+        double speedNow = 0.5 * (s[SAMPLE_SPEED_LEFT] + s[SAMPLE_SPEED_RIGHT]);
+        double commandBefore = 0.5 * (p[SAMPLE_COMMAND_LEFT] + p[SAMPLE_COMMAND_RIGHT]);
+        double commandNow = 0.5 * (s[SAMPLE_COMMAND_LEFT] + s[SAMPLE_COMMAND_RIGHT]);
+        double drop = Math.signum(speedBefore) * (speedBefore - speedNow);
+        double commandDrop = Math.signum(speedBefore) * (commandBefore - commandNow);
+        return drop - Math.max(0, commandDrop) > collisionSpeedDrop;
+    }
+
+    private void set(Event event, boolean on) {
+        int i = event.ordinal();
+        if (on && !active[i]) {
+            counts[i]++;
+            for (Consumer<Event> listener : listeners) {
+                listener.accept(event);
+            }
+        }
+        active[i] = on;
+    }
+
+    public synchronized boolean isActive(Event event) {
+        return active[event.ordinal()];
+    }
+
+    // times the event has started
+    public synchronized int getCount(Event event) {
+        return counts[event.ordinal()];
+    }
+
+    public synchronized void reset() {
+        filled = 0;
+        next = 0;
+        for (int i = 0; i < EVENTS.length; i++) {
+            active[i] = false;
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Flywheel speed control run from the robot loop. Output volts are the
+ * feedforward kS + kV * target plus a PI correction on the speed error, sent
+ * as a fraction of the battery voltage so a sagging battery doesn't slow the
+ * wheel.
+ * <p>
+ * The wheel is at speed once the error has stayed inside the tolerance for a
+ * window of samples, and stays at speed until the error leaves a wider band
+ * (tolerance * hysteresis). A drop out of that band while the target hasn't
+ * changed is counted as a shot and the time back to at speed is the recovery
+ * time. Everything is driven by update() with the caller's time,
+ * FlywheelControllerTest runs it against a flywheel model.
+ */
+public class FlywheelController {
+    private double kS = 0; // volts
+    private double kV = 0; // volts per rev/sec
+    private double kP = 0; // volts per rev/sec of error
+    private double kI = 0; // volts per rev of error
+    private double iZone = 0; // rev/sec, integrate only inside this error, 0 always
+
+    private double tolerance = 0.03; // fraction of the target
+    private double hysteresis = 2; // at speed is left at tolerance * hysteresis
+    private double[] window = new double[5]; // recent abs error fractions
+    private int windowCount = 0;
+    private int windowNext = 0;
+
+    private double target = 0; // rev/sec
+    private double integral = 0;
+    private double lastTime = Double.NaN;
+    private double output = 0; // -1 to 1
+    private double error = 0;
+
+    private boolean atSpeed = false;
+    private boolean shotPending = false;
+    private double shotTime = 0;
+    private int shotCount = 0;
+    private double recoverySeconds = Double.NaN;
+    private double spinUpStart = 0;
+    private double spinUpSeconds = Double.NaN;
+
+    public void setGains(double kS, double kV, double kP, double kI, double iZone) {
+        this.kS = kS;
+        this.kV = kV;
+        this.kP = kP;
+        this.kI = kI;
+        this.iZone = iZone;
+    }
+
+    /**
+     * @param tolerance  speed error allowed, fraction of the target
+     * @param samples    samples in a row inside the tolerance to be at speed
+     * @param hysteresis the error must reach tolerance * hysteresis to leave
+     */
+    public void setAtSpeed(double tolerance, int samples, double hysteresis) {
+        this.tolerance = tolerance;
+        this.hysteresis = Math.max(1, hysteresis);
+        window = new double[Math.max(1, samples)];
+        windowCount = 0;
+        windowNext = 0;
+    }
+
+    // rev/sec, 0 stops the wheel
+    public void setTarget(double target, double time) {
+        if (target == this.target) {
+            return;
+        }
+        this.target = target;
+        atSpeed = false;
+        shotPending = false;
+        windowCount = 0;
+        spinUpStart = time;
+        lastTime = time; // update() isn't called while stopped
+        if (target == 0) {
+            integral = 0;
+        }
+    }
+
+    /**
+     * Runs the controller
+     *
+     * @param time         seconds
+     * @param speed        measured rev/sec
+     * @param batteryVolts measured battery voltage
+     * @return motor output -1 to 1
+     */
+    public double update(double time, double speed, double batteryVolts) {
+        double dt = Double.isNaN(lastTime) ? 0 : time - lastTime;
+        lastTime = time;
+
+        if (target == 0) {
+            error = -speed;
+            output = 0;
+            atSpeed = false;
+            return 0;
+        }
+
+        error = target - speed;
+        if (iZone <= 0 || Math.abs(error) < iZone) {
+            // don't wind up while the output is pinned
+            double next = integral + error * dt;
+            if (Math.abs(output) < 1 || Math.signum(next) != Math.signum(output)) {
+                integral = next;
+            }
+        }
+        double volts = kS * Math.signum(target) + kV * target + kP * error + kI * integral;
+        output = Math.max(-1, Math.min(1, volts / Math.max(batteryVolts, 1)));
+
+        updateAtSpeed(time, Math.abs(error / target));
+        return output;
+    }
+
+    private void updateAtSpeed(double time, double errorFraction) {
+        window[windowNext] = errorFraction;
+        windowNext = (windowNext + 1) % window.length;
+        windowCount = Math.min(windowCount + 1, window.length);
+
+        if (atSpeed) {
+            if (errorFraction > tolerance * hysteresis) {
+                atSpeed = false;
+                shotPending = true;
+                shotTime = time;
+                shotCount++;
+            }
+            return;
+        }
+        if (windowCount < window.length) {
+            return;
+        }
+        for (double e : window) {
+            if (e > tolerance) {
+                return;
+            }
+        }
+        atSpeed = true;
+        if (shotPending) {
+            recoverySeconds = time - shotTime;
+            shotPending = false;
+        } else {
+            spinUpSeconds = time - spinUpStart;
+        }
+    }
+
+    public boolean isAtSpeed() {
+        return atSpeed;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    // rev/sec, target - measured
+    public double getError() {
+        return error;
+    }
+
+    public double getOutput() {
+        return output;
+    }
+
+    public int getShotCount() {
+        return shotCount;
+    }
+
+    // seconds from the last shot back to at speed, NaN before the first
+    public double getRecoverySeconds() {
+        return recoverySeconds;
+    }
+
+    // seconds from the last target change to at speed
+    public double getSpinUpSeconds() {
+        return spinUpSeconds;
+    }
+
+    public void reset() {
+        integral = 0;
+        lastTime = Double.NaN;
+        output = 0;
+        atSpeed = false;
+        shotPending = false;
+        windowCount = 0;
+    }
+}
@@ -0,0 +1,48 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Heading from a primary gyro with a second one to fall back on. The
+ * difference between the two is kept while both read, and added to the
+ * fallback when the primary drops out so the heading doesn't jump. Degrees,
+ * both in the same direction.
+ */
+public class HeadingFallback {
+    private double offset = 0; // primary - fallback
+    private boolean aligned = false;
+    private boolean usingFallback = false;
+    private int fallbacks = 0;
+
+    /**
+     * @param primaryOk true if the primary reading is good
+     * @param primary   primary heading
+     * @param fallback  fallback heading
+     * @return the heading to use
+     */
+    public double update(boolean primaryOk, double primary, double fallback) {
+        if (primaryOk) {
+            offset = primary - fallback;
+            aligned = true;
+            usingFallback = false;
+            return primary;
+        }
+        if (!usingFallback) {
+            usingFallback = true;
+            fallbacks++;
+        }
+        // never lined up, the fallback is all there is
+        return aligned ? fallback + offset : fallback;
+    }
+
+    public boolean isUsingFallback() {
+        return usingFallback;
+    }
+
+    // times the primary dropped out
+    public int getFallbacks() {
+        return fallbacks;
+    }
+
+    public double getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,262 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Runs the intake arm. The arm is homed by driving it gently up against the
+ * hard stop until the current rises and it stops moving, that spot becomes
+ * zero. Moves are position profiles (moveTo on the motor) and a window of
+ * velocity and current samples watches for a stall. A stall on the way up,
+ * short of the target, means the position was lost and the arm homes again,
+ * any other stall stops the motor so it doesn't sit there cooking.
+ * <p>
+ * Positions and velocities are in the arm motor's units, revolutions and rpm
+ * on the Neo. update() only uses its arguments, the caller sends getMode()
+ * to the motor, so IntakeArmControllerTest can run it against a model of the
+ * arm.
+ */
+public class IntakeArmController {
+    public enum State {
+        UNHOMED, HOMING, MOVING, HOLDING, STOPPED, STALLED
+    }
+
+    // what the caller sends to the motor
+    public enum Mode {
+        STOP, POWER, POSITION
+    }
+
+    private double homePower = 0.15; // toward the up stop while homing
+    private double homeAmps = 10; // more than this while not moving is the stop
+    private double homeTimeout = 2.0; // seconds
+    private double stallVel = 100; // slower than this is not moving
+    private double stallAmps = 15; // more than this while not moving is a stall
+    private double upPos = -0.5; // a little off the stop so it isn't pushed into it
+    private double downPos = -18;
+    private double tolerance = 0.5;
+
+    private State state = State.UNHOMED;
+    private Mode mode = Mode.STOP;
+    private double target = 0;
+    private double pendingTarget = Double.NaN; // move to make after homing
+    private double stateTime = Double.NaN;
+    private boolean zeroPending = false;
+    private boolean homed = false;
+
+    // last samples of |velocity| and current
+    private double[] velWindow = new double[5];
+    private double[] ampWindow = new double[5];
+    private int windowIndex = 0;
+    private int windowCount = 0;
+
+    private int homeCount = 0;
+    private int homeFailures = 0;
+    private int stallCount = 0;
+
+    public void setHoming(double power, double amps, double timeout) {
+        this.homePower = power;
+        this.homeAmps = amps;
+        this.homeTimeout = timeout;
+    }
+
+    public void setStall(double vel, double amps, int samples) {
+        this.stallVel = vel;
+        this.stallAmps = amps;
+        if (samples != velWindow.length) {
+            velWindow = new double[samples];
+            ampWindow = new double[samples];
+        }
+        clearWindow();
+    }
+
+    public void setPositions(double up, double down, double tolerance) {
+        this.upPos = up;
+        this.downPos = down;
+        this.tolerance = tolerance;
+    }
+
+    // find the stop, then go up
+    public void home() {
+        pendingTarget = Double.NaN;
+        setState(State.HOMING);
+    }
+
+    public void moveUp() {
+        moveTo(upPos);
+    }
+
+    public void moveDown() {
+        moveTo(downPos);
+    }
+
+    // homes first if the position isn't known
+    public void moveTo(double pos) {
+        if (!homed || state == State.HOMING) {
+            pendingTarget = pos;
+            setState(State.HOMING);
+            return;
+        }
+        target = pos;
+        setState(State.MOVING);
+    }
+
+    public void stop() {
+        pendingTarget = Double.NaN;
+        setState(homed ? State.STOPPED : State.UNHOMED);
+    }
+
+    /**
+     * Runs the controller, the motor command is read with getMode(),
+     * getPower() and getTarget()
+     *
+     * @param time seconds
+     * @param pos  arm position
+     * @param vel  arm velocity
+     * @param amps motor current
+     */
+    public void update(double time, double pos, double vel, double amps) {
+        if (Double.isNaN(stateTime)) {
+            stateTime = time;
+        }
+        velWindow[windowIndex] = Math.abs(vel);
+        ampWindow[windowIndex] = amps;
+        windowIndex = (windowIndex + 1) % velWindow.length;
+        windowCount = Math.min(windowCount + 1, velWindow.length);
+
+        switch (state) {
+            case HOMING:
+                if (isStalled(homeAmps)) {
+                    // on the stop, the caller zeros the motor
+                    zeroPending = true;
+                    homed = true;
+                    homeCount++;
+                    target = Double.isNaN(pendingTarget) ? upPos : pendingTarget;
+                    pendingTarget = Double.NaN;
+                    setState(State.MOVING);
+                } else if (time - stateTime > homeTimeout) {
+                    homeFailures++;
+                    homed = false;
+                    setState(State.UNHOMED);
+                }
+                break;
+
+            case MOVING:
+                if (Math.abs(target - pos) <= tolerance) {
+                    setState(State.HOLDING);
+                } else if (isStalled(stallAmps)) {
+                    stallCount++;
+                    if (target > pos) {
+                        // hit the stop early, the position is off
+                        pendingTarget = target;
+                        setState(State.HOMING);
+                    } else {
+                        setState(State.STALLED);
+                    }
+                }
+                break;
+
+            case HOLDING:
+                // pushing on something
+                if (isStalled(stallAmps)) {
+                    stallCount++;
+                    setState(State.STALLED);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void setState(State newState) {
+        state = newState;
+        stateTime = Double.NaN;
+        clearWindow();
+        switch (state) {
+            case HOMING:
+                mode = Mode.POWER;
+                break;
+            case MOVING:
+            case HOLDING:
+                mode = Mode.POSITION;
+                break;
+            default:
+                mode = Mode.STOP;
+                break;
+        }
+    }
+
+    private void clearWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+    }
+
+    // a full window not moving and drawing current
+    private boolean isStalled(double amps) {
+        return windowCount == velWindow.length && getMeanVel() < stallVel && getMeanAmps() > amps;
+    }
+
+    // mean |velocity| over the window
+    public double getMeanVel() {
+        double sum = 0;
+        for (int i = 0; i < windowCount; i++) {
+            sum += velWindow[i];
+        }
+        return (windowCount > 0) ? sum / windowCount : 0;
+    }
+
+    public double getMeanAmps() {
+        double sum = 0;
+        for (int i = 0; i < windowCount; i++) {
+            sum += ampWindow[i];
+        }
+        return (windowCount > 0) ? sum / windowCount : 0;
+    }
+
+    // true once, the caller zeros the motor position at the stop
+    public boolean takeZero() {
+        boolean zero = zeroPending;
+        zeroPending = false;
+        return zero;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // power while homing
+    public double getPower() {
+        return (mode == Mode.POWER) ? homePower : 0;
+    }
+
+    // position for moveTo
+    public double getTarget() {
+        return target;
+    }
+
+    public boolean isHomed() {
+        return homed;
+    }
+
+    // not homing or moving
+    public boolean isDone() {
+        return state != State.HOMING && state != State.MOVING;
+    }
+
+    public boolean isOnTarget() {
+        return state == State.HOLDING;
+    }
+
+    public int getHomeCount() {
+        return homeCount;
+    }
+
+    public int getHomeFailures() {
+        return homeFailures;
+    }
+
+    public int getStallCount() {
+        return stallCount;
+    }
+}
@@ -0,0 +1,169 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Streams sampled trajectories into one or more motion profile buffers from a
+ * background timer, keeping the buffers topped up so the point timing is done
+ * by the motor controllers. All buffers receive the same number of points on
+ * each refill so the sides stay in step.
+ */
+public class MotionProfileStreamer {
+    private ProfileBuffer[] buffers;
+    private double[][] positions; // [buffer][point], user units
+    private double[][] velocities; // [buffer][point], user units/sec
+    private double[] offsets; // [buffer], added to the positions as they are pushed
+    private int pointCount = 0;
+    private int nextPoint = 0;
+    private int durationMs = 10;
+
+    private Timer refillTimer;
+    private int refillMs = 5;
+    private boolean underrun = false;
+
+    public MotionProfileStreamer(ProfileBuffer... buffers) {
+        this.buffers = buffers;
+    }
+
+    /**
+     * Sets the trajectory to stream, stops any stream in progress
+     *
+     * @param positions  positions for each buffer
+     * @param velocities velocities for each buffer
+     * @param durationMs duration of every point
+     */
+    public synchronized void load(double[][] positions, double[][] velocities, int durationMs) {
+        if (positions.length != buffers.length || velocities.length != buffers.length) {
+            throw new IllegalArgumentException("trajectory count must match buffer count");
+        }
+
+        stop();
+        this.positions = positions;
+        this.velocities = velocities;
+        this.durationMs = durationMs;
+
+        offsets = new double[buffers.length];
+        pointCount = Integer.MAX_VALUE;
+        for (int i = 0; i < buffers.length; i++) {
+            pointCount = Math.min(pointCount, Math.min(positions[i].length, velocities[i].length));
+        }
+        nextPoint = 0;
+    }
+
+    /**
+     * Origin of each buffer, points already in the buffers keep the old one
+     *
+     * @param offsets added to the positions of each buffer
+     */
+    public synchronized void setOffsets(double... offsets) {
+        if (offsets.length != buffers.length) {
+            throw new IllegalArgumentException("offset count must match buffer count");
+        }
+        System.arraycopy(offsets, 0, this.offsets, 0, offsets.length);
+    }
+
+    // fills the buffers and starts the background refill
+    public synchronized void start() {
+        restart(0);
+    }
+
+    /**
+     * Clears the buffers and streams again from a point, the controllers must
+     * be re-enabled once isReady()
+     *
+     * @param fromPoint first point to send
+     */
+    public synchronized void restart(int fromPoint) {
+        killTimer();
+        for (ProfileBuffer b : buffers) {
+            b.clear();
+        }
+        nextPoint = Math.max(0, Math.min(pointCount, fromPoint));
+        underrun = false;
+        fill();
+
+        refillTimer = new Timer("MotionProfileStreamer", true);
+        refillTimer.scheduleAtFixedRate(new RefillTask(), refillMs, refillMs);
+    }
+
+    public synchronized void stop() {
+        killTimer();
+        for (ProfileBuffer b : buffers) {
+            b.clear();
+        }
+    }
+
+    private void killTimer() {
+        if (null != refillTimer) {
+            refillTimer.cancel();
+            refillTimer.purge();
+            refillTimer = null;
+        }
+    }
+
+    /**
+     * Pushes as many points as every top buffer can take, then moves them
+     * toward the controllers. The buffer status is read once per fill.
+     */
+    public synchronized void fill() {
+        int free = pointCount - nextPoint;
+        for (ProfileBuffer b : buffers) {
+            b.readStatus();
+            free = Math.min(free, b.getTopFree());
+            underrun |= b.hasUnderrun();
+        }
+
+        for (int n = 0; n < free; n++, nextPoint++) {
+            boolean isLast = nextPoint == pointCount - 1;
+            for (int i = 0; i < buffers.length; i++) {
+                buffers[i].push(positions[i][nextPoint] + offsets[i], velocities[i][nextPoint], durationMs, false,
+                        isLast);
+            }
+        }
+
+        for (ProfileBuffer b : buffers) {
+            b.process();
+        }
+    }
+
+    // true when enough points are in the controllers to enable the profile, as
+    // of the last fill()
+    public synchronized boolean isReady(int minPoints) {
+        for (ProfileBuffer b : buffers) {
+            if (b.getBottomCount() < Math.min(minPoints, pointCount)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // true when all points have been sent to the controllers
+    public synchronized boolean isSent() {
+        return nextPoint >= pointCount;
+    }
+
+    public synchronized int getPointsSent() {
+        return nextPoint;
+    }
+
+    public synchronized int getPointCount() {
+        return pointCount;
+    }
+
+    // true if any controller ran out of points since start
+    public synchronized boolean hasUnderrun() {
+        return underrun;
+    }
+
+    public void setRefillMs(int refillMs) {
+        this.refillMs = Math.max(1, refillMs);
+    }
+
+    class RefillTask extends TimerTask {
+        @Override
+        public void run() {
+            fill();
+        }
+    }
+}
@@ -8,6 +8,8 @@ import java.util.Random;
 import javax.sound.sampled.SourceDataLine;
 
 import org.usfirst.frc2016.Config;
+import org.usfirst.frc2016.ConfigKey;
+import org.usfirst.frc2016.Defaults;
 import org.usfirst.frc2016.Robot;
 
 public abstract class MotorBase {
@@ -34,6 +36,8 @@ public abstract class MotorBase {
     protected double motorPosErr = 0; // units
     protected double motorVel = 0; // units/sec
     protected double motorPwr = 0; // -1 to 1, last set power
+    protected double motorAmps = 0; // supply current
+    protected double motorStatorAmps = 0; // current in the motor, what stalls show in
 
     protected double targetPos = 0; // units
     protected double targetVel = 0; // units/sec
@@ -41,6 +45,24 @@ public abstract class MotorBase {
     protected int countsPerRev = 1024;
     protected int maxRevsPerSec = 5000;
 
+    // share of the power budget, see PowerBudget
+    protected int powerPriority = Defaults.POWER_PRIORITY;
+    protected double powerMinAmps = Defaults.POWER_MIN_AMPS;
+    private int powerLoad = -1;
+    private double powerLimit; // current limit last sent
+
+    protected CanDevice canDevice; // set by the subclass, for CanBandwidth
+    protected MotorConfig motorConfig; // set by the subclass, settings only sent when changed
+
+    private ConfigKey<Double> keyP;
+    private ConfigKey<Double> keyI;
+    private ConfigKey<Double> keyD;
+    private ConfigKey<Double> keyF;
+    private ConfigKey<Double> keyIZ;
+    private ConfigKey<Double> keyVel;
+    private ConfigKey<Double> keyAcc;
+    private ConfigKey<Double> keyAmpMax;
+
     protected String fmtEnc;
     protected String fmtPos;
     protected String fmtErr;
@@ -62,6 +84,65 @@ public abstract class MotorBase {
         allMotors.add(this);
     }
 
+    // handles to this motor's settings, later loads of the file call back with changes
+    private void bindConfig(Config cfg) {
+        keyP = cfg.doubleKey(configName + "_P", 0);
+        keyI = cfg.doubleKey(configName + "_I", 0);
+        keyD = cfg.doubleKey(configName + "_D", 0);
+        keyF = cfg.doubleKey(configName + "_F", 0);
+        keyIZ = cfg.doubleKey(configName + "_IZ", 0);
+        keyVel = cfg.doubleKey(configName + "_vel", 40);
+        keyAcc = cfg.doubleKey(configName + "_acc", 40);
+        keyAmpMax = cfg.doubleKey(configName + "_ampMax", 40);
+
+        keyP.onChange(v -> gainsChanged());
+        keyI.onChange(v -> gainsChanged());
+        keyD.onChange(v -> gainsChanged());
+        keyF.onChange(v -> gainsChanged());
+        keyIZ.onChange(v -> gainsChanged());
+        keyVel.onChange(v -> moveVel = v);
+        keyAcc.onChange(v -> moveAccel = v);
+        keyAmpMax.onChange(v -> ampMax = v); // sent by the next applyPowerLimit
+    }
+
+    private void gainsChanged() {
+        pid_P = keyP.get();
+        pid_I = keyI.get();
+        pid_D = keyD.get();
+        pid_F = keyF.get();
+        pid_IZ = keyIZ.get();
+        if (motorConfig != null) {
+            stageGains();
+            motorConfig.flush(MotorConfig.BOOT_TIMEOUT_MS);
+        }
+    }
+
+    // settings sent with the boot batch, staged again when the controller resets
+    protected void stageSettings() {
+        stageGains();
+    }
+
+    // the controller rebooted (ex. a power blip) and lost the settings that aren't in its flash,
+    // stage them all again and send them without holding up the robot loop
+    protected void controllerReset() {
+        System.out.println("MotorBase: " + name + " reset, sending its settings again");
+        motorConfig.forget();
+        stageSettings();
+        powerLimit = Double.NaN; // sent again by the next applyPowerLimit
+        Thread sender = new Thread(() -> motorConfig.flush(MotorConfig.BOOT_TIMEOUT_MS), name + " settings");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    // slot 0 gains, sent with the next flush if they changed
+    protected void stageGains() {
+        motorConfig.stage(MotorConfig.Param.KP, pid_P);
+        motorConfig.stage(MotorConfig.Param.KI, pid_I);
+        motorConfig.stage(MotorConfig.Param.KD, pid_D);
+        motorConfig.stage(MotorConfig.Param.KF, pid_F);
+        motorConfig.stage(MotorConfig.Param.IZONE, pid_IZ);
+    }
+
     // sets numbner of decimal places for the of the motor stats in smart dashboard
     public void setDisplayFormats(int enc, int pos, int posErr, int vel) {
         fmtEnc = String.format("%%.%df", enc);
@@ -75,6 +156,61 @@ public abstract class MotorBase {
     public static void updateAll() {
         for (MotorBase m : allMotors) {
             m.updateMotorStats();
+            Robot.powerBudget.setDemand(m.powerLoad, m.getPowerDemand());
+        }
+    }
+
+    // total supply current of all motors
+    public static double getTotalAmps() {
+        double amps = 0;
+        for (MotorBase m : allMotors) {
+            amps += m.motorAmps;
+        }
+        return amps;
+    }
+
+    // send the power budget's current limits, called after the budget is updated
+    public static void applyPowerLimits() {
+        for (MotorBase m : allMotors) {
+            m.applyPowerLimit();
+        }
+    }
+
+    // tell CanBandwidth what updateMotorStats and the closed loop modes read
+    protected void declareCanNeeds() {
+        CanBandwidth can = Robot.canBandwidth;
+        int loopMs = (int) Math.round(Robot.kDefaultPeriod * 1000);
+        can.add(canDevice);
+        can.need(canDevice, CanDevice.Signal.CURRENT, loopMs, "power budget");
+        can.need(canDevice, CanDevice.Signal.TEMPERATURE, CanBandwidth.DIAGNOSTIC_MS, "diagnostics");
+        if (followId > 0) {
+            // the leader's output frame drives this motor
+            for (MotorBase m : allMotors) {
+                if (m.deviceId == followId && m.canDevice != null) {
+                    can.need(m.canDevice, CanDevice.Signal.OUTPUT, 10, "follower " + name);
+                }
+            }
+            return;
+        }
+        can.need(canDevice, CanDevice.Signal.POSITION, loopMs, "motor stats");
+        can.need(canDevice, CanDevice.Signal.VELOCITY, loopMs, "motor stats");
+        can.need(canDevice, CanDevice.Signal.CLOSED_LOOP, loopMs, "motor stats");
+        // commands are set from the robot loop
+        can.needControl(canDevice, loopMs);
+    }
+
+    // current wanted next loop, the limit at the commanded power or what is drawn now
+    protected double getPowerDemand() {
+        double peak = (ampMax > 0) ? ampMax : Defaults.POWER_NOMINAL_AMPS;
+        return Math.max(motorAmps, Math.abs(motorPwr) * peak);
+    }
+
+    private void applyPowerLimit() {
+        double limit = Robot.powerBudget.getCurrentLimit(powerLoad, 1, ampMax, powerMinAmps);
+        // only talk to the controller when the limit changes
+        if (limit != powerLimit) {
+            setCurrentLimit(limit > 0, limit);
+            powerLimit = limit;
         }
     }
 
@@ -139,6 +275,14 @@ public abstract class MotorBase {
         return motorPwr;
     }
 
+    public double getMotorAmps() {
+        return motorAmps;
+    }
+
+    public double getMotorStatorAmps() {
+        return motorStatorAmps;
+    }
+
     public double getTargetPos() {
         return targetPos;
     }
@@ -217,14 +361,25 @@ public abstract class MotorBase {
 
     public void loadConfig() {
         Config cfg = Robot.config;
-        pid_P = cfg.getDouble(configName + "_P", 0);
-        pid_I = cfg.getDouble(configName + "_I", 0);
-        pid_D = cfg.getDouble(configName + "_D", 0);
-        pid_F = cfg.getDouble(configName + "_F", 0);
-        pid_IZ = cfg.getDouble(configName + "_IZ", 0);
-        moveVel = cfg.getDouble(configName + "_vel", 40);
-        moveAccel = cfg.getDouble(configName + "_acc", 40);
-        ampMax = cfg.getDouble(configName + "_ampMax", 40);
+        if (keyP == null) {
+            bindConfig(cfg);
+        }
+        pid_P = keyP.get();
+        pid_I = keyI.get();
+        pid_D = keyD.get();
+        pid_F = keyF.get();
+        pid_IZ = keyIZ.get();
+        moveVel = keyVel.get();
+        moveAccel = keyAcc.get();
+        ampMax = keyAmpMax.get();
+        powerLimit = ampMax;
+
+        // priority is fixed once registered
+        powerPriority = cfg.getInt(configName + "_priority", Defaults.POWER_PRIORITY);
+        powerMinAmps = cfg.getDouble(configName + "_minAmps", Defaults.POWER_MIN_AMPS);
+        if (powerLoad < 0) {
+            powerLoad = Robot.powerBudget.register(name, powerPriority, powerMinAmps);
+        }
     }
 
    
@@ -0,0 +1,230 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor controller settings with the last value sent to the device, so a
+ * setting is only sent when it changes. Moves use set(), which sends at once
+ * without waiting, the value counts as sent but not applied until a flush gets
+ * it acknowledged. Boot time settings are staged and sent by flushAll(), every
+ * device in parallel with each write waiting for the device to acknowledge.
+ * Writes that fail stay staged and are tried again.
+ */
+public class MotorConfig {
+    public enum Param {
+        KP, KI, KD, KF, IZONE, // slot 0
+        ALLOWABLE_ERROR,
+        CRUISE_VELOCITY,
+        ACCELERATION,
+        MIN_VELOCITY,
+        NOMINAL_FORWARD,
+        NOMINAL_REVERSE,
+        PEAK_FORWARD,
+        PEAK_REVERSE,
+        FORWARD_SOFT_LIMIT_ENABLE, // 1 or 0
+        REVERSE_SOFT_LIMIT_ENABLE,
+        INVERTED, // 1 or 0
+        IDLE_BRAKE, // 1 brake, 0 coast
+        VOLTAGE_COMPENSATION // volts, 0 off
+    }
+
+    // writes a setting to the controller, settings a device doesn't have are ignored
+    public interface Device {
+        String getName();
+
+        // false if the device didn't acknowledge within timeoutMs, 0 sends without waiting
+        boolean write(Param param, double value, int timeoutMs);
+    }
+
+    public static final int BOOT_TIMEOUT_MS = 50; // per write
+    public static final int BOOT_DEADLINE_MS = 3000; // whole batch
+    public static final int BOOT_PASSES = 2;
+
+    private static final Param[] PARAMS = Param.values();
+    private static final ArrayList<MotorConfig> allConfigs = new ArrayList<>();
+
+    private final Device device;
+    private final double[] applied = new double[PARAMS.length]; // acknowledged, NaN when not known
+    private final double[] sent = new double[PARAMS.length]; // sent without waiting, NaN when none
+    private final double[] staged = new double[PARAMS.length]; // NaN when nothing to send
+    private int writes = 0;
+    private int skipped = 0;
+    private int failures = 0;
+
+    public MotorConfig(Device device) {
+        this.device = device;
+        forget();
+        synchronized (allConfigs) {
+            allConfigs.add(this);
+        }
+    }
+
+    public Device getDevice() {
+        return device;
+    }
+
+    // sends the setting now if it changed, doesn't wait for the device
+    public synchronized void set(Param param, double value) {
+        int i = param.ordinal();
+        staged[i] = Double.NaN;
+        if (applied[i] == value || sent[i] == value) {
+            skipped++;
+            return;
+        }
+        writes++;
+        // the device may or may not have it until a flush is acknowledged
+        applied[i] = Double.NaN;
+        if (device.write(param, value, 0)) {
+            sent[i] = value;
+        } else {
+            failures++;
+            sent[i] = Double.NaN;
+        }
+    }
+
+    // sends the setting with the next flush if it changed
+    public synchronized void stage(Param param, double value) {
+        int i = param.ordinal();
+        if (applied[i] == value) {
+            staged[i] = Double.NaN;
+            skipped++;
+        } else {
+            staged[i] = value;
+        }
+    }
+
+    // the device was reset to factory defaults, send everything again
+    public synchronized void forget() {
+        for (int i = 0; i < PARAMS.length; i++) {
+            applied[i] = Double.NaN;
+            sent[i] = Double.NaN;
+            staged[i] = Double.NaN;
+        }
+    }
+
+    /**
+     * Sends the staged settings, waiting for each
+     *
+     * @return number of writes that failed, they stay staged
+     */
+    public synchronized int flush(int timeoutMs) {
+        int failed = 0;
+        for (int i = 0; i < PARAMS.length; i++) {
+            double value = staged[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            writes++;
+            if (device.write(PARAMS[i], value, timeoutMs)) {
+                if (timeoutMs > 0) {
+                    applied[i] = value;
+                    sent[i] = Double.NaN;
+                } else {
+                    sent[i] = value;
+                }
+                staged[i] = Double.NaN;
+            } else {
+                failures++;
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    // not locked, so it can be read while a flush is stuck on a device
+    public int getStagedCount() {
+        int count = 0;
+        for (double value : staged) {
+            if (!Double.isNaN(value)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // last value the device acknowledged, NaN if not known
+    public synchronized double getApplied(Param param) {
+        return applied[param.ordinal()];
+    }
+
+    // last value sent without an acknowledge, NaN if none
+    public synchronized double getSent(Param param) {
+        return sent[param.ordinal()];
+    }
+
+    public synchronized int getWrites() {
+        return writes;
+    }
+
+    // settings not sent because they hadn't changed
+    public synchronized int getSkipped() {
+        return skipped;
+    }
+
+    public synchronized int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Sends every device's staged settings, the devices in parallel
+     *
+     * @param timeoutMs  wait for each write
+     * @param deadlineMs give up on devices still writing after this
+     * @param passes     tries for writes that fail
+     * @return number of settings not sent
+     */
+    public static int flushAll(int timeoutMs, int deadlineMs, int passes) {
+        List<MotorConfig> configs;
+        synchronized (allConfigs) {
+            configs = new ArrayList<>(allConfigs);
+        }
+        if (configs.isEmpty()) {
+            return 0;
+        }
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        for (MotorConfig config : configs) {
+            tasks.add(() -> {
+                int failed = 0;
+                for (int pass = 0; pass < passes; pass++) {
+                    failed = config.flush(timeoutMs);
+                    if (failed == 0) {
+                        break;
+                    }
+                }
+                return failed;
+            });
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(configs.size());
+        int notSent = 0;
+        try {
+            List<Future<Integer>> results = pool.invokeAll(tasks, deadlineMs, TimeUnit.MILLISECONDS);
+            for (int i = 0; i < results.size(); i++) {
+                Future<Integer> result = results.get(i);
+                int failed;
+                try {
+                    failed = result.isCancelled() ? configs.get(i).getStagedCount() : result.get();
+                } catch (Exception e) {
+                    failed = configs.get(i).getStagedCount();
+                }
+                if (failed > 0) {
+                    System.out.println("MotorConfig: " + configs.get(i).device.getName() + " " + failed
+                            + " settings not acknowledged");
+                }
+                notSent += failed;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        return notSent;
+    }
+}
@@ -5,7 +5,6 @@ import com.ctre.phoenix.motorcontrol.LimitSwitchNormal;
 import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.StatorCurrentLimitConfiguration;
-import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
 import com.ctre.phoenix.motorcontrol.SupplyCurrentLimitConfiguration;
 import com.ctre.phoenix.motorcontrol.ControlMode;
 import com.ctre.phoenix.motorcontrol.LimitSwitchSource;
@@ -36,8 +35,14 @@ public class MotorFalcon extends MotorBase {
         loadConfig();
 
         talon = new WPI_TalonFX(devId);
+        TalonCanDevice device = new TalonCanDevice(name, talon);
+        motorConfig = new MotorConfig(device);
 
         initialize(inverted, followId);
+
+        // frame rates are set by Robot.canBandwidth
+        canDevice = device;
+        declareCanNeeds();
     }
 
     @Override
@@ -57,7 +62,9 @@ public class MotorFalcon extends MotorBase {
         stop();
 
         talon.configFactoryDefault();
+        motorConfig.forget();
         talon.clearStickyFaults(0);
+        talon.hasResetOccurred(); // clears the power up reset, later ones are seen by updateMotorStats
 
         talon.configSelectedFeedbackSensor(FeedbackDevice.IntegratedSensor, pidSlot0, timeoutMs);
         talon.setSensorPhase(true); // !!!! Check this !!!!!
@@ -73,12 +80,7 @@ public class MotorFalcon extends MotorBase {
 
         enableLimitSwitches(false, false);
 
-        talon.configAllowableClosedloopError(pidSlot0, 0, timeoutMs);
         talon.setIntegralAccumulator(0, pidSlot0, timeoutMs);
-        talon.config_kP(pidSlot0, pid_P, timeoutMs);
-        talon.config_kI(pidSlot0, pid_I, timeoutMs);
-        talon.config_kD(pidSlot0, pid_D, timeoutMs);
-        talon.config_kF(pidSlot0, pid_F, timeoutMs);
 
         // limit current on the stator, slows down motor heating
         StatorCurrentLimitConfiguration statorLimit = new StatorCurrentLimitConfiguration(
@@ -92,17 +94,11 @@ public class MotorFalcon extends MotorBase {
             setCurrentLimit(true, ampMax);
         }
 
-        talon.configNominalOutputForward(0, 0);
-        talon.configNominalOutputReverse(0, 0);
-        talon.configPeakOutputForward(1, 0);
-        talon.configPeakOutputReverse(-1, 0);
+        // sent with the boot batch, see MotorConfig.flushAll
+        stageSettings();
 
         if (followId > 0) {
             talon.set(ControlMode.Follower, followId);
-        } else {
-            // set update rate for reading values
-            talon.setStatusFramePeriod(StatusFrameEnhanced.Status_13_Base_PIDF0, 10, timeoutMs);
-            talon.setStatusFramePeriod(StatusFrameEnhanced.Status_10_MotionMagic, 10, timeoutMs);
         }
     }
 
@@ -110,8 +106,8 @@ public class MotorFalcon extends MotorBase {
     @Override
     // enable hardware limit switches
     public void enableLimitSwitches(boolean fwdEnable, boolean revEnable) {
-        talon.configForwardSoftLimitEnable(fwdEnable, timeoutMs);
-        talon.configReverseSoftLimitEnable(revEnable, timeoutMs);
+        motorConfig.set(MotorConfig.Param.FORWARD_SOFT_LIMIT_ENABLE, fwdEnable ? 1 : 0);
+        motorConfig.set(MotorConfig.Param.REVERSE_SOFT_LIMIT_ENABLE, revEnable ? 1 : 0);
         // talon.overrideLimitSwitchesEnable(!enable);
     }
 
@@ -134,12 +130,27 @@ public class MotorFalcon extends MotorBase {
         talon.configSupplyCurrentLimit(supplyLimit);
     }
 
+    @Override
+    protected void stageSettings() {
+        motorConfig.stage(MotorConfig.Param.ALLOWABLE_ERROR, 0);
+        stageGains();
+        motorConfig.stage(MotorConfig.Param.NOMINAL_FORWARD, 0);
+        motorConfig.stage(MotorConfig.Param.NOMINAL_REVERSE, 0);
+        motorConfig.stage(MotorConfig.Param.PEAK_FORWARD, 1);
+        motorConfig.stage(MotorConfig.Param.PEAK_REVERSE, -1);
+    }
+
     @Override
     public void updateMotorStats() {
+        if (talon.hasResetOccurred()) {
+            controllerReset();
+        }
         motorEncoder = talon.getSelectedSensorPosition(primaryController);
         motorPos = motorEncoder / countsPerUnit;
         motorPosErr = talon.getClosedLoopError(primaryController) / countsPerUnit;
         motorVel = talon.getSelectedSensorVelocity(primaryController) / speedScale;
+        motorAmps = talon.getSupplyCurrent();
+        motorStatorAmps = talon.getStatorCurrent();
     }
 
     @Override
@@ -167,8 +178,8 @@ public class MotorFalcon extends MotorBase {
     // move to targetPos using current cruiseVel and accel constraints
     @Override
     public void moveTo(double pos, double vel, double acc) {
-        talon.configMotionCruiseVelocity(vel * speedScale, 0);
-        talon.configMotionAcceleration(acc * speedScale, 0);
+        motorConfig.set(MotorConfig.Param.CRUISE_VELOCITY, vel * speedScale);
+        motorConfig.set(MotorConfig.Param.ACCELERATION, acc * speedScale);
         talon.set(ControlMode.MotionMagic, pos * countsPerUnit);
         targetPos = pos;
     }
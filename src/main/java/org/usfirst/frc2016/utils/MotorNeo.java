@@ -2,9 +2,8 @@ package org.usfirst.frc2016.utils;
 
 import com.revrobotics.CANSparkMax;
 // import com.revrobotics.CANError;
-import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMax.FaultID;
 // END AUTOGENERATED CODE, SOURCE=ROBOTBUILDER ID=IMPORTS
-import com.revrobotics.CANSparkMax.SoftLimitDirection;
 import com.revrobotics.CANSparkMaxLowLevel.MotorType;
 import com.revrobotics.RelativeEncoder;
 import com.revrobotics.SparkMaxLimitSwitch;
@@ -20,7 +19,9 @@ public class MotorNeo extends MotorBase {
     private static final int FREE_RPM = 5000; // Neo 500
     private final double MAX_VOLTAGE = 11;
 
-    private final int smartMotionSlot = 0;
+    // staged again after a reset, see stageSettings
+    private final boolean inverted;
+    private boolean idleBrake = true;
 
     // when the user units are "inches"
     double revsPerUnit = 1;  // revolutions <neo unit> = revsPerUnit * postion ("inches")
@@ -32,14 +33,21 @@ public class MotorNeo extends MotorBase {
 
     public MotorNeo(String configName, String instanceName, int devId, int followId, boolean inverted) {
         super(configName, instanceName, devId, followId);
+        this.inverted = inverted;
 
         maxRevsPerSec = FREE_RPM / 60;
 
         loadConfig();
 
         neo = new CANSparkMax(devId, MotorType.kBrushless);
+        SparkCanDevice device = new SparkCanDevice(name, neo);
+        motorConfig = new MotorConfig(device);
 
-        initialize(inverted, followId);
+        initialize(followId);
+
+        // frame rates are set by Robot.canBandwidth
+        canDevice = device;
+        declareCanNeeds();
     }
 
     @Override
@@ -59,7 +67,7 @@ public class MotorNeo extends MotorBase {
         rpmPerUps = revsPerUnit / 60;
     }
 
-    void initialize(boolean inverted, int followId) {
+    void initialize(int followId) {
         neoPid = neo.getPIDController();
         neoEncoder = neo.getEncoder();
         neoFwdLimit = neo.getForwardLimitSwitch(SparkMaxLimitSwitch.Type.kNormallyOpen);
@@ -69,23 +77,12 @@ public class MotorNeo extends MotorBase {
 
         neo.clearFaults();
         neo.restoreFactoryDefaults();
+        motorConfig.forget();
 
-        neo.setInverted(inverted);
-        enableIdleBrake(true);
-
-        neo.enableVoltageCompensation(MAX_VOLTAGE);
-
-        neo.enableSoftLimit(SoftLimitDirection.kForward, false);
-        neo.enableSoftLimit(SoftLimitDirection.kReverse, false);
+        // sent with the boot batch, see MotorConfig.flushAll
+        stageSettings();
         enableLimitSwitches(false, false);
 
-        neoPid.setP(pid_P);
-        neoPid.setI(pid_I);
-        neoPid.setD(pid_D);
-        neoPid.setIZone(pid_IZ);
-        neoPid.setFF(pid_I);
-        neoPid.setOutputRange(-1, 1);
-
         if (ampMax > 0) {
             setCurrentLimit(true, ampMax);
         }
@@ -114,7 +111,8 @@ public class MotorNeo extends MotorBase {
     @Override
     // set idle mode
     public void enableIdleBrake(boolean enableBrake) {
-        neo.setIdleMode(enableBrake ? IdleMode.kBrake : IdleMode.kCoast);
+        idleBrake = enableBrake;
+        motorConfig.set(MotorConfig.Param.IDLE_BRAKE, enableBrake ? 1 : 0);
     }
 
     @Override
@@ -125,12 +123,33 @@ public class MotorNeo extends MotorBase {
         neo.setSmartCurrentLimit((int) amps);
     }
 
+    @Override
+    protected void stageSettings() {
+        // everything initialize sets after the factory defaults, a reset puts these back to defaults too
+        motorConfig.stage(MotorConfig.Param.INVERTED, inverted ? 1 : 0);
+        motorConfig.stage(MotorConfig.Param.IDLE_BRAKE, idleBrake ? 1 : 0);
+        motorConfig.stage(MotorConfig.Param.VOLTAGE_COMPENSATION, MAX_VOLTAGE);
+        motorConfig.stage(MotorConfig.Param.PEAK_FORWARD, 1);
+        motorConfig.stage(MotorConfig.Param.PEAK_REVERSE, -1);
+        motorConfig.stage(MotorConfig.Param.FORWARD_SOFT_LIMIT_ENABLE, 0);
+        motorConfig.stage(MotorConfig.Param.REVERSE_SOFT_LIMIT_ENABLE, 0);
+        stageGains();
+    }
+
     @Override
     public void updateMotorStats() {
+        // settings aren't burned to flash, a reset loses them
+        if (neo.getStickyFault(FaultID.kHasReset)) {
+            neo.clearFaults();
+            controllerReset();
+        }
         motorEncoder =  neoEncoder.getPosition();
         motorPos = motorEncoder / revsPerUnit;
         motorPosErr = 0; // ?
         motorVel = neoEncoder.getVelocity() / rpmPerUps;
+        motorStatorAmps = neo.getOutputCurrent();
+        // no supply current on the spark max, the output current scaled by the duty cycle is close
+        motorAmps = motorStatorAmps * Math.abs(neo.getAppliedOutput());
     }
 
     @Override
@@ -170,9 +189,9 @@ public class MotorNeo extends MotorBase {
          * - setSmartMotionAllowedClosedLoopError() will set the max allowed
          * error for the pid controller in Smart Motion mode
          */
-        neoPid.setSmartMotionMaxVelocity(vel * rpmPerUps, smartMotionSlot);
-        neoPid.setSmartMotionMinOutputVelocity(vel * rpmPerUps / 10, smartMotionSlot);
-        neoPid.setSmartMotionMaxAccel(acc * rpmPerUps, smartMotionSlot);
+        motorConfig.set(MotorConfig.Param.CRUISE_VELOCITY, vel * rpmPerUps);
+        motorConfig.set(MotorConfig.Param.MIN_VELOCITY, vel * rpmPerUps / 10);
+        motorConfig.set(MotorConfig.Param.ACCELERATION, acc * rpmPerUps);
 
         /**
          * As with other PID modes, Smart Motion is set by calling the
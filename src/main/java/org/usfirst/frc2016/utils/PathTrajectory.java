@@ -0,0 +1,170 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Time parameterized path for a differential drive. Samples are evenly spaced
+ * in time and hold the pose (x forward, y left, heading counter-clockwise in
+ * radians), the speed and turn rate, and the distance along the path so points
+ * can be found by arc length without searching the whole path.
+ * <p>
+ * All arrays are made when the path is built, lookups don't allocate.
+ */
+public class PathTrajectory {
+    private final double period;
+    private final int count;
+    private double trackWidth = 0;
+    final double[] x;
+    final double[] y;
+    final double[] heading;
+    final double[] velocity; // distance per second
+    final double[] omega; // radians per second
+    final double[] distance; // along the path
+
+    public PathTrajectory(double period, int count) {
+        this.period = period;
+        this.count = count;
+        x = new double[count];
+        y = new double[count];
+        heading = new double[count];
+        velocity = new double[count];
+        omega = new double[count];
+        distance = new double[count];
+    }
+
+    /**
+     * Builds a path from sampled wheel positions, ex. AutoPilot.sampleSequence()
+     *
+     * @param period     seconds between samples
+     * @param left       left wheel positions
+     * @param right      right wheel positions
+     * @param trackWidth distance between the wheels
+     * @return the path starting at 0,0 heading 0
+     */
+    public static PathTrajectory fromWheelPositions(double period, double[] left, double[] right,
+            double trackWidth) {
+        int count = Math.min(left.length, right.length);
+        PathTrajectory path = new PathTrajectory(period, count);
+        path.trackWidth = trackWidth;
+
+        double px = 0;
+        double py = 0;
+        double s = 0;
+        for (int i = 0; i < count; i++) {
+            double theta = (right[i] - left[i] - (right[0] - left[0])) / trackWidth;
+            if (i > 0) {
+                double move = 0.5 * ((left[i] - left[i - 1]) + (right[i] - right[i - 1]));
+                double mid = 0.5 * (theta + path.heading[i - 1]);
+                px += move * Math.cos(mid);
+                py += move * Math.sin(mid);
+                s += Math.abs(move);
+            }
+            path.x[i] = px;
+            path.y[i] = py;
+            path.heading[i] = theta;
+            path.distance[i] = s;
+        }
+
+        // central differences for the speeds
+        for (int i = 0; i < count; i++) {
+            int a = Math.max(0, i - 1);
+            int b = Math.min(count - 1, i + 1);
+            double dt = (b - a) * period;
+            if (dt > 0) {
+                path.velocity[i] = 0.5 * ((left[b] - left[a]) + (right[b] - right[a])) / dt;
+                path.omega[i] = (path.heading[b] - path.heading[a]) / dt;
+            }
+        }
+        return path;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public double getPeriod() {
+        return period;
+    }
+
+    // wheel spacing the path was made with, 0 if not known
+    public double getTrackWidth() {
+        return trackWidth;
+    }
+
+    public double getDuration() {
+        return (count - 1) * period;
+    }
+
+    public double getLength() {
+        return distance[count - 1];
+    }
+
+    public double getX(int i) {
+        return x[i];
+    }
+
+    public double getY(int i) {
+        return y[i];
+    }
+
+    public double getHeading(int i) {
+        return heading[i];
+    }
+
+    public double getVelocity(int i) {
+        return velocity[i];
+    }
+
+    public double getOmega(int i) {
+        return omega[i];
+    }
+
+    public double getDistance(int i) {
+        return distance[i];
+    }
+
+    // sample at or before a time
+    public int indexAtTime(double time) {
+        int i = (int) (time / period);
+        return Math.max(0, Math.min(count - 1, i));
+    }
+
+    // first sample at or past a distance along the path
+    public int indexAtDistance(double s) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (distance[mid] < s) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the sample closest to a point, searching forward from a sample
+     * along a window of path length
+     *
+     * @param px     point x
+     * @param py     point y
+     * @param start  sample to start from, ex. the last closest sample
+     * @param window path length to search
+     * @return index of the closest sample
+     */
+    public int closestIndex(double px, double py, int start, double window) {
+        int end = indexAtDistance(distance[start] + window);
+        int best = start;
+        double bestDist = Double.MAX_VALUE;
+        for (int i = start; i <= end; i++) {
+            double dx = x[i] - px;
+            double dy = y[i] - py;
+            double dist = dx * dx + dy * dy;
+            if (dist < bestDist) {
+                bestDist = dist;
+                best = i;
+            }
+        }
+        return best;
+    }
+}
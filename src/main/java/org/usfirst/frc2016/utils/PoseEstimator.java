@@ -0,0 +1,142 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+import org.usfirst.frc2016.math.RigidTransform2;
+import org.usfirst.frc2016.math.Rotation2;
+import org.usfirst.frc2016.math.Vector2;
+
+/**
+ * Differential drive pose estimator. Integrates timestamped wheel distances
+ * with the gyro heading and keeps a history of poses so a pose can be looked
+ * up at the time a measurement (ex. a camera frame) was taken.
+ * <p>
+ * Poses are x forward, y left, heading counter-clockwise positive, in the
+ * units of the wheel distances. Samples can come from the robot on a
+ * background timer (start) or be fed directly to update() from a recorded or
+ * synthetic stream.
+ */
+public class PoseEstimator {
+    public static final int SAMPLE_TIME = 0; // seconds
+    public static final int SAMPLE_LEFT = 1; // distance
+    public static final int SAMPLE_RIGHT = 2; // distance
+    public static final int SAMPLE_HEADING = 3; // degrees, counter-clockwise positive
+    public static final int SAMPLE_SIZE = 4;
+
+    public interface SampleSource {
+        // fill sample[SAMPLE_SIZE] with the current readings
+        void read(double[] sample);
+    }
+
+    private PoseHistory history;
+
+    private boolean initialized = false;
+    private double lastLeft;
+    private double lastRight;
+    private double lastHeading; // radians, pose frame
+    private double headingOffset = 0; // radians, gyro -> pose frame
+    private double x = 0;
+    private double y = 0;
+    private RigidTransform2 resetPose = null;
+
+    private Timer sampleTimer;
+    private double[] sample = new double[SAMPLE_SIZE];
+
+    public PoseEstimator(int historySize) {
+        history = new PoseHistory(historySize);
+    }
+
+    /**
+     * Sets the pose, applied with the next sample
+     *
+     * @param pose the new robot pose
+     */
+    public synchronized void reset(RigidTransform2 pose) {
+        resetPose = pose;
+    }
+
+    /**
+     * The wheel distances were zeroed, keeps the pose and takes the next
+     * sample as the new starting distances instead of a move back to zero
+     */
+    public synchronized void resetDistances() {
+        initialized = false;
+    }
+
+    /**
+     * Adds a sample and saves the new pose in the history
+     *
+     * @param time       timestamp in seconds
+     * @param left       left wheel distance
+     * @param right      right wheel distance
+     * @param gyroDegrees gyro heading, counter-clockwise positive
+     * @return the new pose
+     */
+    public synchronized RigidTransform2 update(double time, double left, double right, double gyroDegrees) {
+        double gyro = Math.toRadians(gyroDegrees);
+
+        if (resetPose != null) {
+            x = resetPose.translation.x;
+            y = resetPose.translation.y;
+            headingOffset = resetPose.rotation.toRadians() - gyro;
+            resetPose = null;
+            initialized = false;
+        }
+
+        double heading = gyro + headingOffset;
+        if (initialized) {
+            double distance = 0.5 * ((left - lastLeft) + (right - lastRight));
+            // use the heading half way through the move
+            double turn = Math.IEEEremainder(heading - lastHeading, 2 * Math.PI);
+            double midHeading = lastHeading + 0.5 * turn;
+            x += distance * Math.cos(midHeading);
+            y += distance * Math.sin(midHeading);
+        }
+
+        lastLeft = left;
+        lastRight = right;
+        lastHeading = heading;
+        initialized = true;
+
+        RigidTransform2 pose = new RigidTransform2(new Vector2(x, y), Rotation2.fromRadians(heading));
+        history.add(time, pose);
+        return pose;
+    }
+
+    // newest pose, does not lock
+    public RigidTransform2 getPose() {
+        PoseHistory.Entry latest = history.getLatest();
+        return (latest == null) ? null : latest.pose;
+    }
+
+    // pose at a past time, does not lock
+    public RigidTransform2 getPose(double time) {
+        return history.getPose(time);
+    }
+
+    public PoseHistory getHistory() {
+        return history;
+    }
+
+    // sample the source on a background timer
+    public void start(SampleSource source, int periodMs) {
+        stop();
+        sampleTimer = new Timer("PoseEstimator", true);
+        sampleTimer.scheduleAtFixedRate(new TimerTask() {
+            @Override
+            public void run() {
+                source.read(sample);
+                update(sample[SAMPLE_TIME], sample[SAMPLE_LEFT], sample[SAMPLE_RIGHT], sample[SAMPLE_HEADING]);
+            }
+        }, 0, periodMs);
+    }
+
+    public void stop() {
+        if (null != sampleTimer) {
+            sampleTimer.cancel();
+            sampleTimer.purge();
+            sampleTimer = null;
+        }
+    }
+}
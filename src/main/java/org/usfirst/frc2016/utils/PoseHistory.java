@@ -0,0 +1,88 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.usfirst.frc2016.math.RigidTransform2;
+
+/**
+ * Fixed size, time ordered history of robot poses. There is a single writer
+ * (the pose estimator thread), readers never lock: entries are immutable and
+ * published through an atomic array, and an entry replaced while a reader is
+ * scanning is detected by its time going forward.
+ */
+public class PoseHistory {
+    private final AtomicReferenceArray<Entry> entries;
+    private final int capacity;
+    private volatile long writeCount = 0;
+
+    public static final class Entry {
+        public final double time;
+        public final RigidTransform2 pose;
+
+        Entry(double time, RigidTransform2 pose) {
+            this.time = time;
+            this.pose = pose;
+        }
+    }
+
+    public PoseHistory(int capacity) {
+        this.capacity = capacity;
+        entries = new AtomicReferenceArray<>(capacity);
+    }
+
+    // add a pose, times must not go backwards; only called by the writer
+    public void add(double time, RigidTransform2 pose) {
+        long n = writeCount;
+        entries.set((int) (n % capacity), new Entry(time, pose));
+        writeCount = n + 1;
+    }
+
+    public int size() {
+        return (int) Math.min(writeCount, capacity);
+    }
+
+    public Entry getLatest() {
+        long n = writeCount;
+        if (n == 0) {
+            return null;
+        }
+        return entries.get((int) ((n - 1) % capacity));
+    }
+
+    /**
+     * Gets the pose at a time, interpolating between the saved poses. Times
+     * after the newest pose return the newest, times before the oldest return
+     * the oldest.
+     *
+     * @param time timestamp in seconds
+     * @return the pose or null if the history is empty
+     */
+    public RigidTransform2 getPose(double time) {
+        long n = writeCount;
+        if (n == 0) {
+            return null;
+        }
+
+        Entry newer = entries.get((int) ((n - 1) % capacity));
+        if (time >= newer.time) {
+            return newer.pose;
+        }
+
+        // the oldest slot may be overwritten next, don't use it
+        long oldest = Math.max(0, n - capacity + 1);
+        for (long i = n - 2; i >= oldest; i--) {
+            Entry older = entries.get((int) (i % capacity));
+            if (older == null || older.time > newer.time) {
+                // replaced by the writer while scanning
+                break;
+            }
+            if (older.time <= time) {
+                double span = newer.time - older.time;
+                double t = (span > 0) ? (time - older.time) / span : 1.0;
+                return older.pose.interpolate(newer.pose, t);
+            }
+            newer = older;
+        }
+        return newer.pose;
+    }
+}
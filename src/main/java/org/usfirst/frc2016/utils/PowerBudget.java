@@ -0,0 +1,219 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Shares the battery between the robot's loads. Each load registers a priority
+ * (0 is most important) and the amps below which it is not worth running, and
+ * sets its predicted demand every loop. update() works out how much current
+ * the battery can supply before the voltage sags to the brownout margin and
+ * hands it out in priority order. Loads of the same priority are scaled
+ * together, a load that can't get its minimum is shed and its share passes on
+ * to the next priority.
+ * <p>
+ * Storage is fixed at construction and update() does not allocate, the
+ * allocation only depends on the inputs so a recorded match replays the same.
+ */
+public class PowerBudget {
+    public static final int MAX_LOADS = 24;
+    public static final double LIMIT_STEP = 5; // amps, controller limits are rounded down to this
+    public static final double SHED_AMPS = 2; // a shed motor is held to a trickle
+
+    // battery model, open circuit voltage less the internal and wiring resistance drop
+    private double resistance = 0.020; // ohms
+    private double minVolts = 8.0; // keep above the 6.8V roboRIO brownout
+    private double reserveAmps = 5; // roboRIO, radio, pneumatics
+    private double maxAmps = 400; // hard cap regardless of voltage
+    private double openFilter = 0.05; // per update, smoothing of the open circuit estimate
+    private double restoreMargin = 0.25; // a shed load needs this much over its minimum to restart
+
+    private final String[] names = new String[MAX_LOADS];
+    private final int[] priorities = new int[MAX_LOADS];
+    private final double[] minAmps = new double[MAX_LOADS];
+    private final double[] demands = new double[MAX_LOADS];
+    private final double[] allowed = new double[MAX_LOADS];
+    private final boolean[] shed = new boolean[MAX_LOADS];
+    private final int[] order = new int[MAX_LOADS]; // load ids sorted by priority, then registration
+    private int count = 0;
+
+    private double openVolts = Double.NaN;
+    private double budget = 0;
+    private double totalDemand = 0;
+    private double totalAllowed = 0;
+
+    public void setBattery(double resistance, double minVolts, double reserveAmps, double maxAmps) {
+        this.resistance = resistance;
+        this.minVolts = minVolts;
+        this.reserveAmps = reserveAmps;
+        this.maxAmps = maxAmps;
+    }
+
+    public void setFilter(double openFilter, double restoreMargin) {
+        this.openFilter = openFilter;
+        this.restoreMargin = restoreMargin;
+    }
+
+    /**
+     * Adds a load
+     *
+     * @param name     shown on the dashboard
+     * @param priority 0 is served first
+     * @param minAmps  less than this and the load is shed
+     * @return id for the other calls, -1 when full
+     */
+    public synchronized int register(String name, int priority, double minAmps) {
+        if (count >= MAX_LOADS) {
+            System.out.println("PowerBudget: too many loads, " + name + " is not managed");
+            return -1;
+        }
+        int id = count++;
+        names[id] = name;
+        priorities[id] = priority;
+        this.minAmps[id] = minAmps;
+        demands[id] = 0;
+        allowed[id] = 0;
+        shed[id] = false;
+
+        // insert into the priority order, equal priorities keep registration order
+        int i = id;
+        while (i > 0 && priorities[order[i - 1]] > priority) {
+            order[i] = order[i - 1];
+            i--;
+        }
+        order[i] = id;
+        return id;
+    }
+
+    // predicted current for the coming loop, amps
+    public void setDemand(int id, double amps) {
+        if (id >= 0) {
+            demands[id] = Math.max(0, amps);
+        }
+    }
+
+    /**
+     * Shares out the budget for this loop
+     *
+     * @param batteryVolts measured battery voltage
+     * @param measuredAmps total current being drawn when the voltage was measured
+     */
+    public synchronized void update(double batteryVolts, double measuredAmps) {
+        double open = batteryVolts + measuredAmps * resistance;
+        if (Double.isNaN(openVolts)) {
+            openVolts = open;
+        } else {
+            openVolts += openFilter * (open - openVolts);
+        }
+        // never trust a higher open voltage than the one measured right now
+        double volts = Math.min(openVolts, open);
+
+        budget = Math.max(0, Math.min(maxAmps, (volts - minVolts) / resistance) - reserveAmps);
+
+        double remaining = budget;
+        totalDemand = 0;
+        totalAllowed = 0;
+        int i = 0;
+        while (i < count) {
+            // find the loads sharing this priority
+            int priority = priorities[order[i]];
+            int end = i;
+            double groupDemand = 0;
+            while (end < count && priorities[order[end]] == priority) {
+                groupDemand += demands[order[end]];
+                end++;
+            }
+
+            double scale = (groupDemand <= remaining || groupDemand <= 0) ? 1 : remaining / groupDemand;
+            for (int k = i; k < end; k++) {
+                int id = order[k];
+                double amps = demands[id] * scale;
+                double needed = shed[id] ? minAmps[id] * (1 + restoreMargin) : minAmps[id];
+                if (demands[id] > 0 && amps < Math.min(needed, demands[id])) {
+                    shed[id] = true;
+                    amps = 0;
+                } else {
+                    shed[id] = false;
+                }
+                allowed[id] = amps;
+                remaining -= amps;
+                totalDemand += demands[id];
+                totalAllowed += amps;
+            }
+            remaining = Math.max(0, remaining);
+            i = end;
+        }
+    }
+
+    // amps this load may draw, its demand when there is enough
+    public double getAllowed(int id) {
+        return (id >= 0) ? allowed[id] : Double.POSITIVE_INFINITY;
+    }
+
+    // fraction of the demand granted, 1 when not limited
+    public double getScale(int id) {
+        if (id < 0 || demands[id] <= 0) {
+            return 1;
+        }
+        return allowed[id] / demands[id];
+    }
+
+    public boolean isLimited(int id) {
+        return id >= 0 && allowed[id] < demands[id];
+    }
+
+    public boolean isShed(int id) {
+        return id >= 0 && shed[id];
+    }
+
+    /**
+     * Current limit for each motor of a load, rounded down to LIMIT_STEP so
+     * the controllers aren't sent a new limit every loop
+     *
+     * @param id      load
+     * @param motors  motors sharing the load
+     * @param ampMax  limit of each motor when there is enough, 0 for none
+     * @param minAmps smallest limit of each motor while running
+     * @return amps for each motor, ampMax when not limited and SHED_AMPS when shed
+     */
+    public double getCurrentLimit(int id, int motors, double ampMax, double minAmps) {
+        if (isShed(id)) {
+            return SHED_AMPS;
+        }
+        if (!isLimited(id)) {
+            return ampMax;
+        }
+        double limit = Math.floor(getAllowed(id) / motors / LIMIT_STEP) * LIMIT_STEP;
+        limit = Math.max(minAmps, limit);
+        if (ampMax > 0) {
+            limit = Math.min(ampMax, limit);
+        }
+        return limit;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getBudget() {
+        return budget;
+    }
+
+    public double getOpenVolts() {
+        return openVolts;
+    }
+
+    public double getTotalDemand() {
+        return totalDemand;
+    }
+
+    public double getTotalAllowed() {
+        return totalAllowed;
+    }
+
+    // battery voltage expected if the allowed current is drawn
+    public double getPredictedVolts() {
+        return openVolts - (totalAllowed + reserveAmps) * resistance;
+    }
+}
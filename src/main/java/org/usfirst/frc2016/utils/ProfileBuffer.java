@@ -0,0 +1,31 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Motion profile trajectory buffer of a motor controller. Points are pushed
+ * into the top (software) buffer and moved to the bottom (controller) buffer
+ * by process(). Positions and velocities are in user units (ex. inches and
+ * inches/sec). The counts and the underrun flag are from the last
+ * readStatus(), so one status read serves a whole refill.
+ */
+public interface ProfileBuffer {
+    // reads the buffer counts and underrun flag from the controller
+    void readStatus();
+
+    // number of points that can still be pushed into the top buffer
+    int getTopFree();
+
+    // number of points waiting in the controller
+    int getBottomCount();
+
+    // true if the controller ran out of points before the last point
+    boolean hasUnderrun();
+
+    // add a point to the top buffer
+    void push(double pos, double vel, int durationMs, boolean zeroPos, boolean isLast);
+
+    // move points from the top buffer to the controller
+    void process();
+
+    // remove all points and clear the underrun flag
+    void clear();
+}
@@ -0,0 +1,109 @@
+package org.usfirst.frc2016.utils;
+
+import java.util.ArrayDeque;
+
+/**
+ * Desktop stand-in for a motor controller motion profile buffer. The bottom
+ * buffer is drained by run() at the rate given by the point durations, which
+ * allows the streaming and refill logic to be exercised without hardware.
+ */
+public class ProfileBufferSim implements ProfileBuffer {
+    public static final int TOP_SIZE = 2048;
+    public static final int BOTTOM_SIZE = 128;
+
+    private ArrayDeque<double[]> top = new ArrayDeque<>();
+    private ArrayDeque<double[]> bottom = new ArrayDeque<>();
+    private boolean underrun = false;
+    private boolean lastReached = false;
+    private double msIntoPoint = 0;
+    private int pointsRun = 0;
+
+    // last executed point
+    private double pos = 0;
+    private double vel = 0;
+
+    // the counts here are always current
+    @Override
+    public void readStatus() {
+    }
+
+    @Override
+    public synchronized int getTopFree() {
+        return TOP_SIZE - top.size();
+    }
+
+    @Override
+    public synchronized int getBottomCount() {
+        return bottom.size();
+    }
+
+    @Override
+    public synchronized boolean hasUnderrun() {
+        return underrun;
+    }
+
+    @Override
+    public synchronized void push(double pos, double vel, int durationMs, boolean zeroPos, boolean isLast) {
+        if (top.size() < TOP_SIZE) {
+            top.add(new double[] { pos, vel, durationMs, isLast ? 1 : 0 });
+        }
+    }
+
+    @Override
+    public synchronized void process() {
+        while (!top.isEmpty() && bottom.size() < BOTTOM_SIZE) {
+            bottom.add(top.remove());
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        top.clear();
+        bottom.clear();
+        underrun = false;
+        lastReached = false;
+        msIntoPoint = 0;
+        pointsRun = 0;
+    }
+
+    /**
+     * Runs the simulated controller, consuming bottom buffer points
+     *
+     * @param elapsedMs time since the last call
+     */
+    public synchronized void run(double elapsedMs) {
+        msIntoPoint += elapsedMs;
+        while (!lastReached) {
+            double[] pt = bottom.peek();
+            if (pt == null) {
+                underrun = true;
+                return;
+            }
+            if (msIntoPoint < pt[2]) {
+                return;
+            }
+            msIntoPoint -= pt[2];
+            bottom.remove();
+            pos = pt[0];
+            vel = pt[1];
+            lastReached = pt[3] != 0;
+            pointsRun++;
+        }
+    }
+
+    public synchronized double getPos() {
+        return pos;
+    }
+
+    public synchronized double getVel() {
+        return vel;
+    }
+
+    public synchronized int getPointsRun() {
+        return pointsRun;
+    }
+
+    public synchronized boolean isLastReached() {
+        return lastReached;
+    }
+}
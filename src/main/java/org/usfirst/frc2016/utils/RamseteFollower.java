@@ -0,0 +1,118 @@
+package org.usfirst.frc2016.utils;
+
+/**
+ * Ramsete path follower for a differential drive. The reference is taken from
+ * the path at the current time, the error between it and the measured pose is
+ * turned into a speed and turn rate, then into wheel speeds. Progress along
+ * the path is found by searching the path's arc length index near the last
+ * closest point.
+ * <p>
+ * Units are the path units (inches), seconds and radians. update() does not
+ * allocate.
+ */
+public class RamseteFollower {
+    private double b; // like a P gain, 1/distance^2
+    private double zeta; // damping, 0..1
+    private double trackWidth;
+    private double searchWindow = 24; // distance ahead searched for the closest point
+
+    private double leftVelocity;
+    private double rightVelocity;
+    private double alongError; // reference frame errors
+    private double crossError;
+    private double headingError;
+    private int closest = 0;
+
+    public RamseteFollower(double b, double zeta, double trackWidth) {
+        this.b = b;
+        this.zeta = zeta;
+        this.trackWidth = trackWidth;
+    }
+
+    public void setGains(double b, double zeta) {
+        this.b = b;
+        this.zeta = zeta;
+    }
+
+    public void reset() {
+        closest = 0;
+        leftVelocity = 0;
+        rightVelocity = 0;
+    }
+
+    /**
+     * Calculates the wheel speeds for the current pose
+     *
+     * @param path    path being followed
+     * @param time    seconds since the path started
+     * @param x       measured x
+     * @param y       measured y
+     * @param heading measured heading, radians counter-clockwise
+     */
+    public void update(PathTrajectory path, double time, double x, double y, double heading) {
+        // reference, interpolated between samples
+        int i = path.indexAtTime(time);
+        int j = Math.min(i + 1, path.size() - 1);
+        double t = (i == j) ? 0 : Math.max(0, Math.min(1, time / path.getPeriod() - i));
+        double refX = path.x[i] + t * (path.x[j] - path.x[i]);
+        double refY = path.y[i] + t * (path.y[j] - path.y[i]);
+        double refHeading = path.heading[i] + t * (path.heading[j] - path.heading[i]);
+        double refV = path.velocity[i] + t * (path.velocity[j] - path.velocity[i]);
+        double refOmega = path.omega[i] + t * (path.omega[j] - path.omega[i]);
+
+        // error in the robot frame
+        double cos = Math.cos(heading);
+        double sin = Math.sin(heading);
+        double dx = refX - x;
+        double dy = refY - y;
+        alongError = cos * dx + sin * dy;
+        crossError = -sin * dx + cos * dy;
+        headingError = Math.IEEEremainder(refHeading - heading, 2 * Math.PI);
+
+        double k = 2 * zeta * Math.sqrt(refOmega * refOmega + b * refV * refV);
+        double v = refV * Math.cos(headingError) + k * alongError;
+        double omega = refOmega + k * headingError + b * refV * sinc(headingError) * crossError;
+
+        leftVelocity = v - omega * trackWidth / 2;
+        rightVelocity = v + omega * trackWidth / 2;
+
+        closest = path.closestIndex(x, y, closest, searchWindow);
+    }
+
+    private static double sinc(double angle) {
+        if (Math.abs(angle) < 1e-9) {
+            return 1.0 - angle * angle / 6.0;
+        }
+        return Math.sin(angle) / angle;
+    }
+
+    public double getLeftVelocity() {
+        return leftVelocity;
+    }
+
+    public double getRightVelocity() {
+        return rightVelocity;
+    }
+
+    public double getAlongError() {
+        return alongError;
+    }
+
+    public double getCrossError() {
+        return crossError;
+    }
+
+    public double getHeadingError() {
+        return headingError;
+    }
+
+    // closest path sample to the robot
+    public int getClosestIndex() {
+        return closest;
+    }
+
+    // true when the robot is near the end of the path
+    public boolean isAtEnd(PathTrajectory path, double tolerance) {
+        return path.getLength() - path.distance[closest] < tolerance;
+    }
+}
@@ -0,0 +1,173 @@
+package org.usfirst.frc2016.utils;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMax.SoftLimitDirection;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+import com.revrobotics.REVLibError;
+import com.revrobotics.SparkMaxPIDController;
+
+/**
+ * Spark Max frames for CanBandwidth and settings for MotorConfig. The Spark
+ * Max doesn't report closed loop error or motion targets, and has no nominal
+ * outputs, the peak outputs are its PID output range.
+ */
+public class SparkCanDevice implements CanDevice, MotorConfig.Device {
+    private static final PeriodicFrame[] FRAMES = {
+            PeriodicFrame.kStatus0, // applied output, faults, followers read this
+            PeriodicFrame.kStatus1, // velocity, temperature, voltage, current
+            PeriodicFrame.kStatus2, // position
+            PeriodicFrame.kStatus3 }; // analog sensor
+    private static final int[] DEFAULT_PERIODS = { 10, 20, 20, 50 };
+    private static final int[] SLOWEST_PERIODS = { 100, 500, 500, 500 };
+
+    private static final int DEFAULT_CONTROL_PERIOD = 10;
+    private static final int DEFAULT_CAN_TIMEOUT_MS = 20; // REVLib's, what the other spark calls use
+
+    private final String name;
+    private final CANSparkMax spark;
+    private final SparkMaxPIDController pid;
+    private final int smartMotionSlot = 0;
+    // the output range is set as a pair, these are the ends last written
+    private double outputMin = -1;
+    private double outputMax = 1;
+
+    public SparkCanDevice(String name, CANSparkMax spark) {
+        this.name = name;
+        this.spark = spark;
+        pid = spark.getPIDController();
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return FRAMES.length;
+    }
+
+    @Override
+    public String getFrameName(int frame) {
+        return FRAMES[frame].name();
+    }
+
+    @Override
+    public int getDefaultPeriod(int frame) {
+        return DEFAULT_PERIODS[frame];
+    }
+
+    @Override
+    public int getSlowestPeriod(int frame) {
+        return SLOWEST_PERIODS[frame];
+    }
+
+    @Override
+    public int getFrame(Signal signal) {
+        switch (signal) {
+            case OUTPUT:
+                return 0;
+            case VELOCITY:
+            case CURRENT:
+            case TEMPERATURE:
+                return 1;
+            case POSITION:
+                return 2;
+            case ANALOG:
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    @Override
+    public void setFramePeriod(int frame, int periodMs) {
+        spark.setPeriodicFramePeriod(FRAMES[frame], periodMs);
+    }
+
+    @Override
+    public int getDefaultControlPeriod() {
+        return DEFAULT_CONTROL_PERIOD;
+    }
+
+    @Override
+    public void setControlPeriod(int periodMs) {
+        spark.setControlFramePeriodMs(periodMs);
+    }
+
+    @Override
+    public boolean write(MotorConfig.Param param, double value, int timeoutMs) {
+        // the spark max waits for every setting up to its CAN timeout, put it back for the other calls
+        if (timeoutMs == DEFAULT_CAN_TIMEOUT_MS) {
+            return send(param, value);
+        }
+        spark.setCANTimeout(timeoutMs);
+        try {
+            return send(param, value);
+        } finally {
+            spark.setCANTimeout(DEFAULT_CAN_TIMEOUT_MS);
+        }
+    }
+
+    private boolean send(MotorConfig.Param param, double value) {
+        REVLibError error;
+        switch (param) {
+            case KP:
+                error = pid.setP(value, smartMotionSlot);
+                break;
+            case KI:
+                error = pid.setI(value, smartMotionSlot);
+                break;
+            case KD:
+                error = pid.setD(value, smartMotionSlot);
+                break;
+            case KF:
+                error = pid.setFF(value, smartMotionSlot);
+                break;
+            case IZONE:
+                error = pid.setIZone(value, smartMotionSlot);
+                break;
+            case ALLOWABLE_ERROR:
+                error = pid.setSmartMotionAllowedClosedLoopError(value, smartMotionSlot);
+                break;
+            case CRUISE_VELOCITY:
+                error = pid.setSmartMotionMaxVelocity(value, smartMotionSlot);
+                break;
+            case MIN_VELOCITY:
+                error = pid.setSmartMotionMinOutputVelocity(value, smartMotionSlot);
+                break;
+            case ACCELERATION:
+                error = pid.setSmartMotionMaxAccel(value, smartMotionSlot);
+                break;
+            case FORWARD_SOFT_LIMIT_ENABLE:
+                error = spark.enableSoftLimit(SoftLimitDirection.kForward, value != 0);
+                break;
+            case REVERSE_SOFT_LIMIT_ENABLE:
+                error = spark.enableSoftLimit(SoftLimitDirection.kReverse, value != 0);
+                break;
+            case PEAK_FORWARD:
+                outputMax = value;
+                error = pid.setOutputRange(outputMin, outputMax, smartMotionSlot);
+                break;
+            case PEAK_REVERSE:
+                outputMin = value;
+                error = pid.setOutputRange(outputMin, outputMax, smartMotionSlot);
+                break;
+            case INVERTED:
+                // setInverted doesn't return its error
+                spark.setInverted(value != 0);
+                error = spark.getLastError();
+                break;
+            case IDLE_BRAKE:
+                error = spark.setIdleMode(value != 0 ? IdleMode.kBrake : IdleMode.kCoast);
+                break;
+            case VOLTAGE_COMPENSATION:
+                error = (value > 0) ? spark.enableVoltageCompensation(value) : spark.disableVoltageCompensation();
+                break;
+            default:
+                return true;
+        }
+        return error == REVLibError.kOk;
+    }
+}
@@ -0,0 +1,159 @@
+package org.usfirst.frc2016.utils;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.motorcontrol.ControlFrame;
+import com.ctre.phoenix.motorcontrol.StatusFrameEnhanced;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+
+/**
+ * Talon FX frames for CanBandwidth and settings for MotorConfig. The motion
+ * profile buffer frame is left alone, the profile streamer relies on its
+ * default rate.
+ */
+public class TalonCanDevice implements CanDevice, MotorConfig.Device {
+    private static final StatusFrameEnhanced[] FRAMES = {
+            StatusFrameEnhanced.Status_1_General,
+            StatusFrameEnhanced.Status_2_Feedback0,
+            StatusFrameEnhanced.Status_4_AinTempVbat,
+            StatusFrameEnhanced.Status_8_PulseWidth,
+            StatusFrameEnhanced.Status_10_MotionMagic,
+            StatusFrameEnhanced.Status_12_Feedback1,
+            StatusFrameEnhanced.Status_13_Base_PIDF0,
+            StatusFrameEnhanced.Status_14_Turn_PIDF1,
+            StatusFrameEnhanced.Status_21_FeedbackIntegrated,
+            StatusFrameEnhanced.Status_Brushless_Current };
+    private static final int[] DEFAULT_PERIODS = { 10, 20, 160, 160, 160, 160, 160, 160, 160, 50 };
+    private static final int[] SLOWEST_PERIODS = { 100, 255, 255, 255, 255, 255, 255, 255, 255, 255 };
+    private static final int GENERAL = 0;
+    private static final int FEEDBACK0 = 1;
+    private static final int AIN_TEMP_VBAT = 2;
+    private static final int MOTION_MAGIC = 4;
+    private static final int PIDF0 = 6;
+    private static final int CURRENT = 9;
+
+    private static final int DEFAULT_CONTROL_PERIOD = 10;
+
+    private final String name;
+    private final TalonFX talon;
+    private final int timeoutMs = 0;
+    private final int pidSlot0 = 0;
+
+    public TalonCanDevice(String name, TalonFX talon) {
+        this.name = name;
+        this.talon = talon;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return FRAMES.length;
+    }
+
+    @Override
+    public String getFrameName(int frame) {
+        return FRAMES[frame].name();
+    }
+
+    @Override
+    public int getDefaultPeriod(int frame) {
+        return DEFAULT_PERIODS[frame];
+    }
+
+    @Override
+    public int getSlowestPeriod(int frame) {
+        return SLOWEST_PERIODS[frame];
+    }
+
+    @Override
+    public int getFrame(Signal signal) {
+        switch (signal) {
+            case OUTPUT:
+                return GENERAL;
+            case POSITION:
+            case VELOCITY:
+                return FEEDBACK0;
+            case CURRENT:
+                return CURRENT;
+            case CLOSED_LOOP:
+                return PIDF0;
+            case MOTION:
+                return MOTION_MAGIC;
+            case TEMPERATURE:
+            case ANALOG:
+                return AIN_TEMP_VBAT;
+            default:
+                return -1;
+        }
+    }
+
+    @Override
+    public void setFramePeriod(int frame, int periodMs) {
+        talon.setStatusFramePeriod(FRAMES[frame], periodMs, timeoutMs);
+    }
+
+    @Override
+    public int getDefaultControlPeriod() {
+        return DEFAULT_CONTROL_PERIOD;
+    }
+
+    @Override
+    public void setControlPeriod(int periodMs) {
+        talon.setControlFramePeriod(ControlFrame.Control_3_General, periodMs);
+    }
+
+    @Override
+    public boolean write(MotorConfig.Param param, double value, int timeoutMs) {
+        ErrorCode code;
+        switch (param) {
+            case KP:
+                code = talon.config_kP(pidSlot0, value, timeoutMs);
+                break;
+            case KI:
+                code = talon.config_kI(pidSlot0, value, timeoutMs);
+                break;
+            case KD:
+                code = talon.config_kD(pidSlot0, value, timeoutMs);
+                break;
+            case KF:
+                code = talon.config_kF(pidSlot0, value, timeoutMs);
+                break;
+            case IZONE:
+                code = talon.config_IntegralZone(pidSlot0, value, timeoutMs);
+                break;
+            case ALLOWABLE_ERROR:
+                code = talon.configAllowableClosedloopError(pidSlot0, value, timeoutMs);
+                break;
+            case CRUISE_VELOCITY:
+                code = talon.configMotionCruiseVelocity(value, timeoutMs);
+                break;
+            case ACCELERATION:
+                code = talon.configMotionAcceleration(value, timeoutMs);
+                break;
+            case NOMINAL_FORWARD:
+                code = talon.configNominalOutputForward(value, timeoutMs);
+                break;
+            case NOMINAL_REVERSE:
+                code = talon.configNominalOutputReverse(value, timeoutMs);
+                break;
+            case PEAK_FORWARD:
+                code = talon.configPeakOutputForward(value, timeoutMs);
+                break;
+            case PEAK_REVERSE:
+                code = talon.configPeakOutputReverse(value, timeoutMs);
+                break;
+            case FORWARD_SOFT_LIMIT_ENABLE:
+                code = talon.configForwardSoftLimitEnable(value != 0, timeoutMs);
+                break;
+            case REVERSE_SOFT_LIMIT_ENABLE:
+                code = talon.configReverseSoftLimitEnable(value != 0, timeoutMs);
+                break;
+            default:
+                return true;
+        }
+        return code == ErrorCode.OK;
+    }
+}
@@ -0,0 +1,76 @@
+package org.usfirst.frc2016.utils;
+
+import com.ctre.phoenix.motion.MotionProfileStatus;
+import com.ctre.phoenix.motion.TrajectoryPoint;
+import com.ctre.phoenix.motorcontrol.can.TalonFX;
+
+/**
+ * ProfileBuffer using the Talon FX motion profile buffers
+ */
+public class TalonProfileBuffer implements ProfileBuffer {
+    private TalonFX talon;
+    private int pidSlot;
+    private double countsPerUnit;
+    private double speedScale; // units/sec -> counts/100ms
+
+    // reused for every call, the streaming thread is the only user
+    private TrajectoryPoint point = new TrajectoryPoint();
+    private MotionProfileStatus status = new MotionProfileStatus();
+
+    public TalonProfileBuffer(TalonFX talon, int pidSlot, double countsPerUnit, double speedScale, int baseTrajPeriodMs) {
+        this.talon = talon;
+        this.pidSlot = pidSlot;
+        this.countsPerUnit = countsPerUnit;
+        this.speedScale = speedScale;
+
+        talon.configMotionProfileTrajectoryPeriod(baseTrajPeriodMs, 0);
+        // send points to the controller twice as fast as they are used
+        talon.changeMotionControlFramePeriod(5);
+    }
+
+    @Override
+    public void readStatus() {
+        talon.getMotionProfileStatus(status);
+    }
+
+    @Override
+    public int getTopFree() {
+        return status.topBufferRem;
+    }
+
+    @Override
+    public int getBottomCount() {
+        return status.btmBufferCnt;
+    }
+
+    @Override
+    public boolean hasUnderrun() {
+        return status.hasUnderrun;
+    }
+
+    @Override
+    public void push(double pos, double vel, int durationMs, boolean zeroPos, boolean isLast) {
+        point.position = pos * countsPerUnit;
+        point.velocity = vel * speedScale;
+        point.arbFeedFwd = 0;
+        point.auxiliaryPos = 0;
+        point.auxiliaryVel = 0;
+        point.profileSlotSelect0 = pidSlot;
+        point.profileSlotSelect1 = 0;
+        point.timeDur = durationMs;
+        point.zeroPos = zeroPos;
+        point.isLastPoint = isLast;
+        talon.pushMotionProfileTrajectory(point);
+    }
+
+    @Override
+    public void process() {
+        talon.processMotionProfileBuffer();
+    }
+
+    @Override
+    public void clear() {
+        talon.clearMotionProfileTrajectories();
+        talon.clearMotionProfileHasUnderrun(0);
+    }
+}
@@ -0,0 +1,141 @@
+package org.usfirst.frc2016.utils;
+
+import org.usfirst.frc2016.math.RigidTransform2;
+import org.usfirst.frc2016.math.Rotation2;
+import org.usfirst.frc2016.math.Vector2;
+
+/**
+ * Latency compensated camera target fusion. Each camera frame is placed at the
+ * time the image was captured (receive time - latency), the robot pose at that
+ * time is taken from the pose history and the target is saved as a field
+ * position. Bearing and distance are then computed from the current pose, so
+ * they stay valid between frames and while the robot is turning.
+ * <p>
+ * The range comes from ty, so frames are refused until the camera and target
+ * heights are set (isConfigured).
+ * <p>
+ * Angles from the camera are clockwise positive (Limelight tx). Field poses are
+ * counter-clockwise positive, see PoseEstimator.
+ */
+public class VisionFusion {
+    private final PoseEstimator poseEstimator;
+
+    private double captureLatencyMs = 11; // image capture, added to pipeline latency
+    private double cameraHeight = 0; // inches
+    private double cameraPitch = 0; // degrees up
+    private double targetHeight = 0; // inches
+    private double filterGain = 0.5; // 1 = use the newest frame only
+    private double targetTimeout = 0.5; // seconds
+
+    private Vector2 target = null;
+    private double lastCaptureTime = 0;
+    private int frameCount = 0;
+
+    public VisionFusion(PoseEstimator poseEstimator) {
+        this.poseEstimator = poseEstimator;
+    }
+
+    public void setCamera(double cameraHeight, double cameraPitch, double targetHeight) {
+        this.cameraHeight = cameraHeight;
+        this.cameraPitch = cameraPitch;
+        this.targetHeight = targetHeight;
+    }
+
+    public void setCaptureLatency(double ms) {
+        captureLatencyMs = ms;
+    }
+
+    public void setFilter(double gain, double timeout) {
+        filterGain = gain;
+        targetTimeout = timeout;
+    }
+
+    // the heights are far enough apart to find the range from ty
+    public boolean isConfigured() {
+        return Math.abs(targetHeight - cameraHeight) >= 1;
+    }
+
+    /**
+     * Adds a camera frame
+     *
+     * @param receiveTime time the frame was received in seconds
+     * @param latencyMs   pipeline latency reported by the camera
+     * @param tx          horizontal angle to the target, clockwise positive
+     * @param ty          vertical angle to the target
+     * @return false if there is no pose or range for the frame
+     */
+    public synchronized boolean addFrame(double receiveTime, double latencyMs, double tx, double ty) {
+        double captureTime = receiveTime - (latencyMs + captureLatencyMs) / 1000.0;
+        RigidTransform2 pose = poseEstimator.getPose(captureTime);
+        if (pose == null || captureTime <= lastCaptureTime) {
+            return false;
+        }
+
+        double range = getRange(ty);
+        if (Double.isNaN(range)) {
+            return false;
+        }
+        Vector2 seen = Vector2.fromAngle(pose.rotation.rotateBy(Rotation2.fromDegrees(-tx))).scale(range)
+                .add(pose.translation);
+
+        // reset the filter when the old target has timed out
+        if (target == null || captureTime - lastCaptureTime > targetTimeout) {
+            target = seen;
+        } else {
+            target = target.interpolate(seen, filterGain);
+        }
+        lastCaptureTime = captureTime;
+        frameCount++;
+        return true;
+    }
+
+    // range from the vertical angle, NaN without the heights or when level with the target
+    private double getRange(double ty) {
+        double angle = Math.toRadians(cameraPitch + ty);
+        double height = targetHeight - cameraHeight;
+        if (!isConfigured() || Math.abs(angle) < 0.01 || Math.signum(angle) != Math.signum(height)) {
+            return Double.NaN;
+        }
+        return height / Math.tan(angle);
+    }
+
+    public synchronized void clear() {
+        target = null;
+        lastCaptureTime = 0;
+    }
+
+    public synchronized boolean hasTarget(double now) {
+        return target != null && now - lastCaptureTime < targetTimeout;
+    }
+
+    // target in field coordinates or null
+    public synchronized Vector2 getTarget() {
+        return target;
+    }
+
+    /**
+     * Gets the angle from the robot heading to the target
+     *
+     * @param pose current robot pose
+     * @return degrees, clockwise positive like the camera
+     */
+    public synchronized double getBearing(RigidTransform2 pose) {
+        if (target == null || pose == null) {
+            return 0;
+        }
+        Vector2 toTarget = target.subtract(pose.translation);
+        return -Math.toDegrees(Math.IEEEremainder(toTarget.getAngle().toRadians() - pose.rotation.toRadians(),
+                2 * Math.PI));
+    }
+
+    public synchronized double getDistance(RigidTransform2 pose) {
+        if (target == null || pose == null) {
+            return 0;
+        }
+        return target.subtract(pose.translation).length;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+}
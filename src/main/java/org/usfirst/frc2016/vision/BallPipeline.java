@@ -0,0 +1,159 @@
+package org.usfirst.frc2016.vision;
+
+import java.util.ArrayList;
+
+import org.opencv.core.Core;
+import org.opencv.core.CvType;
+import org.opencv.core.Mat;
+import org.opencv.core.MatOfPoint;
+import org.opencv.core.MatOfPoint2f;
+import org.opencv.core.Point;
+import org.opencv.core.Scalar;
+import org.opencv.imgproc.Imgproc;
+
+import edu.wpi.first.vision.VisionPipeline;
+
+/**
+ * Finds balls in a camera frame: HSV threshold, outer contours, then keeps the
+ * contours that are big enough and round enough. The working Mats are made
+ * once and reused for every frame.
+ * <p>
+ * Results are the ball centers and diameters in pixels, the time spent in each
+ * stage is kept so the pipeline can be tuned on the robot or with
+ * VisionBenchmark (src/benchmark).
+ */
+public class BallPipeline implements VisionPipeline {
+    public static final int MAX_BALLS = 16;
+
+    public static final int STAGE_THRESHOLD = 0;
+    public static final int STAGE_CONTOURS = 1;
+    public static final int STAGE_FILTER = 2;
+    public static final int STAGE_COUNT = 3;
+    private static final String[] STAGE_NAMES = { "threshold", "contours", "filter" };
+
+    private final Scalar hsvMin = new Scalar(90, 100, 60);
+    private final Scalar hsvMax = new Scalar(130, 255, 255);
+    private double minArea = 50; // pixels
+    private double minCircularity = 0.6; // 1 is a perfect circle
+
+    // working storage
+    private final Mat hsv = new Mat();
+    private final Mat mask = new Mat();
+    private final Mat hierarchy = new Mat();
+    private final ArrayList<MatOfPoint> contours = new ArrayList<>();
+    private final MatOfPoint2f curve = new MatOfPoint2f();
+    private final Point center = new Point();
+    private final float[] radius = new float[1];
+
+    // results
+    private final double[] xs = new double[MAX_BALLS];
+    private final double[] ys = new double[MAX_BALLS];
+    private final double[] sizes = new double[MAX_BALLS];
+    private int count = 0;
+
+    // stage timing
+    private final long[] stageNanos = new long[STAGE_COUNT];
+    private final long[] stageMaxNanos = new long[STAGE_COUNT];
+    private long frames = 0;
+
+    public void setThreshold(double hueMin, double hueMax, double satMin, double satMax, double valMin,
+            double valMax) {
+        hsvMin.set(new double[] { hueMin, satMin, valMin });
+        hsvMax.set(new double[] { hueMax, satMax, valMax });
+    }
+
+    public void setFilter(double minArea, double minCircularity) {
+        this.minArea = minArea;
+        this.minCircularity = minCircularity;
+    }
+
+    @Override
+    public void process(Mat frame) {
+        long start = System.nanoTime();
+        Imgproc.cvtColor(frame, hsv, Imgproc.COLOR_BGR2HSV);
+        Core.inRange(hsv, hsvMin, hsvMax, mask);
+        long thresholdDone = System.nanoTime();
+
+        for (MatOfPoint contour : contours) {
+            contour.release();
+        }
+        contours.clear();
+        Imgproc.findContours(mask, contours, hierarchy, Imgproc.RETR_EXTERNAL, Imgproc.CHAIN_APPROX_SIMPLE);
+        long contoursDone = System.nanoTime();
+
+        count = 0;
+        for (MatOfPoint contour : contours) {
+            double area = Imgproc.contourArea(contour);
+            if (area < minArea) {
+                continue;
+            }
+            contour.convertTo(curve, CvType.CV_32FC2);
+            double perimeter = Imgproc.arcLength(curve, true);
+            if (perimeter <= 0 || 4 * Math.PI * area / (perimeter * perimeter) < minCircularity) {
+                continue;
+            }
+            Imgproc.minEnclosingCircle(curve, center, radius);
+            xs[count] = center.x;
+            ys[count] = center.y;
+            sizes[count] = 2 * radius[0];
+            count++;
+            if (count == MAX_BALLS) {
+                break;
+            }
+        }
+        long filterDone = System.nanoTime();
+
+        addTime(STAGE_THRESHOLD, thresholdDone - start);
+        addTime(STAGE_CONTOURS, contoursDone - thresholdDone);
+        addTime(STAGE_FILTER, filterDone - contoursDone);
+        frames++;
+    }
+
+    private void addTime(int stage, long nanos) {
+        stageNanos[stage] += nanos;
+        if (nanos > stageMaxNanos[stage]) {
+            stageMaxNanos[stage] = nanos;
+        }
+    }
+
+    // balls found in the last frame
+    public int getCount() {
+        return count;
+    }
+
+    public double getX(int ball) {
+        return xs[ball];
+    }
+
+    public double getY(int ball) {
+        return ys[ball];
+    }
+
+    public double getSize(int ball) {
+        return sizes[ball];
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public static String getStageName(int stage) {
+        return STAGE_NAMES[stage];
+    }
+
+    public double getStageAverageMs(int stage) {
+        return (frames == 0) ? 0 : stageNanos[stage] / 1.0e6 / frames;
+    }
+
+    public double getStageMaxMs(int stage) {
+        return stageMaxNanos[stage] / 1.0e6;
+    }
+
+    public void resetStats() {
+        for (int i = 0; i < STAGE_COUNT; i++) {
+            stageNanos[i] = 0;
+            stageMaxNanos[i] = 0;
+        }
+        frames = 0;
+    }
+}
@@ -0,0 +1,145 @@
+package org.usfirst.frc2016.vision;
+
+import org.usfirst.frc2016.Config;
+import org.usfirst.frc2016.Defaults;
+import org.usfirst.frc2016.Robot;
+
+import edu.wpi.first.cscore.VideoSource;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.vision.VisionThread;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+
+/**
+ * Runs the BallPipeline on the robot in a VisionThread. The camera sink only
+ * keeps the newest frame, so a slow frame never queues up old ones. Results
+ * go into a single slot guarded by Robot.imgLock, a result that isn't read
+ * before the next frame is replaced.
+ * <p>
+ * Balls are also published to GRIP/BallLocation so Grip_FindBalls works the
+ * same with or without an off-board GRIP process.
+ */
+public class BallVision {
+    private static final int STATS_FRAMES = 50;
+
+    private final BallPipeline pipeline = new BallPipeline();
+    private VisionThread visionThread;
+
+    // newest results, guarded by Robot.imgLock
+    private final double[] xs = new double[BallPipeline.MAX_BALLS];
+    private final double[] ys = new double[BallPipeline.MAX_BALLS];
+    private final double[] sizes = new double[BallPipeline.MAX_BALLS];
+    private int count = 0;
+    private double time = 0;
+    private long frameId = 0;
+    private long lastReadId = 0;
+    private long replaced = 0;
+
+    private NetworkTableEntry xEntry;
+    private NetworkTableEntry yEntry;
+    private NetworkTableEntry sizeEntry;
+
+    public BallVision() {
+        NetworkTable table = NetworkTableInstance.getDefault().getTable("GRIP/BallLocation");
+        xEntry = table.getEntry("x");
+        yEntry = table.getEntry("y");
+        sizeEntry = table.getEntry("size");
+    }
+
+    public void loadConfig(Config config) {
+        pipeline.setThreshold(config.getDouble("VisionHueMin", Defaults.VISION_HUE_MIN),
+                config.getDouble("VisionHueMax", Defaults.VISION_HUE_MAX),
+                config.getDouble("VisionSatMin", Defaults.VISION_SAT_MIN),
+                config.getDouble("VisionSatMax", Defaults.VISION_SAT_MAX),
+                config.getDouble("VisionValMin", Defaults.VISION_VAL_MIN),
+                config.getDouble("VisionValMax", Defaults.VISION_VAL_MAX));
+        pipeline.setFilter(config.getDouble("VisionMinArea", Defaults.VISION_MIN_AREA),
+                config.getDouble("VisionMinCircularity", Defaults.VISION_MIN_CIRCULARITY));
+    }
+
+    public VisionThread start(VideoSource camera) {
+        visionThread = new VisionThread(camera, pipeline, this::publish);
+        visionThread.setDaemon(true);
+        visionThread.start();
+        return visionThread;
+    }
+
+    // called on the vision thread after each frame
+    private void publish(BallPipeline result) {
+        int n = result.getCount();
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double[] size = new double[n];
+        int biggest = -1;
+        for (int i = 0; i < n; i++) {
+            x[i] = result.getX(i);
+            y[i] = result.getY(i);
+            size[i] = result.getSize(i);
+            if (biggest < 0 || size[i] > size[biggest]) {
+                biggest = i;
+            }
+        }
+
+        synchronized (Robot.imgLock) {
+            if (frameId != lastReadId) {
+                replaced++;
+            }
+            System.arraycopy(x, 0, xs, 0, n);
+            System.arraycopy(y, 0, ys, 0, n);
+            System.arraycopy(size, 0, sizes, 0, n);
+            count = n;
+            time = Timer.getFPGATimestamp();
+            frameId++;
+            Robot.centerX = (biggest < 0) ? Robot.IMG_WIDTH / 2.0 : x[biggest];
+        }
+
+        xEntry.setDoubleArray(x);
+        yEntry.setDoubleArray(y);
+        sizeEntry.setDoubleArray(size);
+
+        if (result.getFrames() >= STATS_FRAMES) {
+            for (int i = 0; i < BallPipeline.STAGE_COUNT; i++) {
+                SmartDashboard.putNumber("Vision " + BallPipeline.getStageName(i) + " ms",
+                        result.getStageAverageMs(i));
+            }
+            result.resetStats();
+        }
+    }
+
+    /**
+     * Copies out the newest balls
+     *
+     * @return number of balls, the arrays need BallPipeline.MAX_BALLS entries
+     */
+    public int read(double[] x, double[] y, double[] size) {
+        synchronized (Robot.imgLock) {
+            System.arraycopy(xs, 0, x, 0, count);
+            System.arraycopy(ys, 0, y, 0, count);
+            System.arraycopy(sizes, 0, size, 0, count);
+            lastReadId = frameId;
+            return count;
+        }
+    }
+
+    // id of the newest result, changes with each processed frame
+    public long getFrameId() {
+        synchronized (Robot.imgLock) {
+            return frameId;
+        }
+    }
+
+    public double getFrameTime() {
+        synchronized (Robot.imgLock) {
+            return time;
+        }
+    }
+
+    // results replaced before they were read
+    public long getReplaced() {
+        synchronized (Robot.imgLock) {
+            return replaced;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package oi.limelightvision.limelight.frc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class LimeLightSubscriberTest {
+    /**
+     * Stands in for the camera's NetworkTables server. Values are put one at a
+     * time like the camera does, flush() sends only the ones that changed since
+     * the last flush, as NT3 does, as one batch.
+     */
+    static class TableServer {
+        private final LimeLightSubscriber subscriber;
+        private final Map<Integer, Double> table = new HashMap<>();
+        private final Map<Integer, Double> sent = new HashMap<>();
+
+        TableServer(LimeLightSubscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        void put(String key, double value) {
+            for (int i = 0; i < LimeLightSubscriber.KEY_COUNT; i++) {
+                if (LimeLightSubscriber.keyName(i).equals(key)) {
+                    table.put(i, value);
+                    return;
+                }
+            }
+            throw new IllegalArgumentException(key);
+        }
+
+        // values of one camera frame
+        void frame(double tv, double tx, double ty, double ta, double tl) {
+            put("tv", tv);
+            put("tx", tx);
+            put("ty", ty);
+            put("ta", ta);
+            put("tl", tl);
+        }
+
+        // what the subscriber's poll thread does with one batch
+        int flush(double time) {
+            int count = 0;
+            for (Map.Entry<Integer, Double> e : table.entrySet()) {
+                if (!e.getValue().equals(sent.get(e.getKey()))) {
+                    subscriber.set(e.getKey(), e.getValue());
+                    sent.put(e.getKey(), e.getValue());
+                    count++;
+                }
+            }
+            if (count > 0) {
+                subscriber.publish(time);
+            }
+            return count;
+        }
+    }
+
+    private final LimeLightSubscriber subscriber = new LimeLightSubscriber();
+    private final TableServer server = new TableServer(subscriber);
+
+    @Test
+    public void oneFramePerFlush() {
+        server.frame(1, 5, 2, 1.5, 20);
+        server.flush(10.0);
+
+        LimeLightFrame frame = subscriber.getFrame();
+        assertEquals(1, frame.getId());
+        assertEquals(10.0, frame.getTime(), 0);
+        assertTrue(frame.isTargetFound());
+        assertEquals(5, frame.getdegRotationToTarget(), 0);
+        assertEquals(2, frame.getdegVerticalToTarget(), 0);
+        assertEquals(1.5, frame.getTargetArea(), 0);
+        assertEquals(20, frame.getPipelineLatency(), 0);
+    }
+
+    @Test
+    public void sameLatencyIsStillANewFrame() {
+        server.frame(1, 5, 2, 1.5, 20);
+        server.flush(10.0);
+        // only tx and ty are sent, tl didn't change
+        server.frame(1, 6, 3, 1.5, 20);
+        assertEquals(2, server.flush(10.011));
+
+        LimeLightFrame frame = subscriber.getFrame();
+        assertEquals(2, frame.getId());
+        assertEquals(6, frame.getdegRotationToTarget(), 0);
+        assertEquals(3, frame.getdegVerticalToTarget(), 0);
+        assertEquals(20, frame.getPipelineLatency(), 0);
+        assertEquals(10.011, frame.getTime(), 0);
+    }
+
+    @Test
+    public void valuesOfAFrameStayTogether() {
+        server.frame(1, 5, 2, 1.5, 20);
+        server.flush(10.0);
+        LimeLightFrame first = subscriber.getFrame();
+
+        // part way through a batch the old frame is still the newest
+        subscriber.set(LimeLightSubscriber.TX, 9);
+        assertSame(first, subscriber.getFrame());
+        subscriber.set(LimeLightSubscriber.TL, 22);
+        assertTrue(subscriber.publish(10.02));
+
+        LimeLightFrame second = subscriber.getFrame();
+        assertEquals(9, second.getdegRotationToTarget(), 0);
+        assertEquals(22, second.getPipelineLatency(), 0);
+        // the old frame is unchanged
+        assertEquals(5, first.getdegRotationToTarget(), 0);
+        assertEquals(20, first.getPipelineLatency(), 0);
+    }
+
+    @Test
+    public void nothingChangedNoFrame() {
+        server.frame(1, 5, 2, 1.5, 20);
+        server.flush(10.0);
+        server.frame(1, 5, 2, 1.5, 20);
+        assertEquals(0, server.flush(10.011));
+        assertFalse(subscriber.publish(10.011));
+        assertEquals(1, subscriber.getFrame().getId());
+    }
+
+    @Test
+    public void rawTargets() {
+        assertEquals("tx0", LimeLightSubscriber.keyName(LimeLightSubscriber.RAW));
+        assertEquals("ts2", LimeLightSubscriber.keyName(LimeLightSubscriber.KEY_COUNT - 1));
+
+        server.put("tx1", -0.5);
+        server.put("ty1", 0.25);
+        server.put("ta1", 3);
+        server.flush(1.0);
+        LimeLightFrame frame = subscriber.getFrame();
+        assertEquals(-0.5, frame.getRawX(1), 0);
+        assertEquals(0.25, frame.getRawY(1), 0);
+        assertEquals(3, frame.getRawArea(1), 0);
+        assertEquals(0, frame.getRawX(0), 0);
+    }
+}
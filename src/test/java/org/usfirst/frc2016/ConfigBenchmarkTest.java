@@ -0,0 +1,99 @@
+package org.usfirst.frc2016;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.HashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Times a config lookup three ways on the keys of a full set of motors: the
+ * old string map that parsed on every get, Config.getDouble() on the parsed
+ * snapshot and ConfigKey.get(). The times are printed, not checked, as they
+ * depend on the machine running the tests.
+ */
+public class ConfigBenchmarkTest {
+	static final String[] MOTORS = { "Toss", "Gate", "IntakeBrush", "IntakeArm", "Hang", "Flop" };
+	static final String[] FIELDS = { "P", "I", "D", "F", "IZ", "vel", "acc", "ampMax", "priority", "minAmps" };
+	static final int LOOPS = 1_000_000;
+
+	private File file;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("robot", ".cfg");
+		try (FileWriter out = new FileWriter(file)) {
+			for (String motor : MOTORS) {
+				for (String field : FIELDS) {
+					out.write(motor + "_" + field + " | 0.5\n");
+				}
+			}
+		}
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	@Test
+	public void lookups() {
+		// the old way, text values parsed on every get
+		HashMap<String, String> text = new HashMap<>();
+		for (String motor : MOTORS) {
+			for (String field : FIELDS) {
+				text.put(motor + "_" + field, "0.5");
+			}
+		}
+
+		Config config = new Config(file.getPath());
+		String[] names = new String[MOTORS.length * FIELDS.length];
+		@SuppressWarnings("unchecked")
+		ConfigKey<Double>[] keys = new ConfigKey[names.length];
+		for (int m = 0; m < MOTORS.length; m++) {
+			for (int f = 0; f < FIELDS.length; f++) {
+				names[m * FIELDS.length + f] = MOTORS[m] + "_" + FIELDS[f];
+				keys[m * FIELDS.length + f] = config.doubleKey(MOTORS[m] + "_" + FIELDS[f], 0);
+			}
+		}
+
+		for (int pass = 0; pass < 2; pass++) { // first pass warms up
+			double parsedSum = 0;
+			long start = System.nanoTime();
+			for (int n = 0; n < LOOPS; n++) {
+				String value = text.get(names[n % names.length]);
+				parsedSum += (value == null) ? 0 : Double.parseDouble(value);
+			}
+			long parsed = System.nanoTime() - start;
+
+			double snapshotSum = 0;
+			start = System.nanoTime();
+			for (int n = 0; n < LOOPS; n++) {
+				snapshotSum += config.getDouble(names[n % names.length], 0);
+			}
+			long snapshot = System.nanoTime() - start;
+
+			double handleSum = 0;
+			start = System.nanoTime();
+			for (int n = 0; n < LOOPS; n++) {
+				handleSum += keys[n % keys.length].get();
+			}
+			long handle = System.nanoTime() - start;
+
+			// all three read the same values, and the sums keep the loops from being optimized away
+			assertEquals(0.5 * LOOPS, parsedSum, 0);
+			assertEquals(parsedSum, snapshotSum, 0);
+			assertEquals(parsedSum, handleSum, 0);
+			if (pass == 1) {
+				System.out.format("string map + parse: %6.1f ns%n", (double) parsed / LOOPS);
+				System.out.format("Config.getDouble:   %6.1f ns%n", (double) snapshot / LOOPS);
+				System.out.format("ConfigKey.get:      %6.1f ns%n", (double) handle / LOOPS);
+			}
+		}
+	}
+}
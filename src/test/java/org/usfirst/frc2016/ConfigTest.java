@@ -0,0 +1,151 @@
+package org.usfirst.frc2016;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConfigTest {
+	static final String[] MOTORS = { "Toss", "Gate", "IntakeBrush", "IntakeArm", "Hang", "Flop" };
+	static final String[] FIELDS = { "P", "I", "D", "F", "IZ", "vel", "acc", "ampMax", "priority", "minAmps" };
+
+	private File file;
+	private Config config;
+
+	@Before
+	public void setUp() throws IOException {
+		file = File.createTempFile("robot", ".cfg");
+		write(0.5, "");
+		config = new Config(file.getPath());
+	}
+
+	@After
+	public void tearDown() {
+		file.delete();
+	}
+
+	// a full set of motor keys plus any extra lines
+	private void write(double value, String extra) throws IOException {
+		try (FileWriter out = new FileWriter(file)) {
+			out.write("# motors\n\n");
+			for (String motor : MOTORS) {
+				for (String field : FIELDS) {
+					out.write(motor + "_" + field + "\t\t|      " + value + "   | comment\n");
+				}
+			}
+			out.write("Tele_FileName | telemetry\n");
+			out.write("Tele_TimestampFile | true\n");
+			out.write("Tele_FilePath |\n");
+			out.write(extra);
+		}
+	}
+
+	@Test
+	public void readsTheValues() {
+		assertEquals(0.5, config.getDouble("Toss_P", 0), 0);
+		assertEquals("telemetry", config.getString("Tele_FileName", ""));
+		assertTrue(config.getBoolean("Tele_TimestampFile", false));
+		assertEquals("/tmp", config.getString("Tele_FilePath", "/tmp"));
+		assertEquals(7, config.getInt("Missing", 7));
+	}
+
+	@Test
+	public void keysFollowTheFile() throws IOException {
+		ConfigKey<Double> key = config.doubleKey("Hang_P", 0);
+		ArrayList<Double> changes = new ArrayList<>();
+		key.onChange(changes::add);
+		int[] loads = new int[1];
+		config.addListener(() -> loads[0]++);
+		assertEquals(0.5, key.get(), 0);
+
+		// same file, nothing to tell anyone
+		config.load();
+		assertTrue(changes.isEmpty());
+		assertEquals(0, loads[0]);
+
+		write(0.75, "");
+		config.load();
+		assertEquals(0.75, key.get(), 0);
+		assertEquals(1, changes.size());
+		assertEquals(1, loads[0]);
+	}
+
+	@Test
+	public void newKeysAreTaken() throws IOException {
+		write(0.5, "Hang_Max | 0.8\n");
+		config.load();
+		assertEquals(0.8, config.getDouble("Hang_Max", 0), 0);
+	}
+
+	@Test
+	public void shorterFileIsSkipped() throws IOException {
+		ConfigKey<Double> key = config.doubleKey("Toss_P", 0);
+		try (FileWriter out = new FileWriter(file)) {
+			out.write("Toss_P | 0.9\n");
+		}
+		config.load();
+		assertEquals(0.5, key.get(), 0);
+		assertEquals(0.5, config.getDouble("Flop_minAmps", 0), 0);
+	}
+
+	@Test
+	public void removedKeysGoBackToTheirDefaults() throws IOException {
+		ConfigKey<Double> key = config.doubleKey("Flop_minAmps", 3);
+		ArrayList<Double> changes = new ArrayList<>();
+		key.onChange(changes::add);
+		assertEquals(0.5, key.get(), 0);
+
+		try (FileWriter out = new FileWriter(file)) {
+			for (String motor : MOTORS) {
+				for (String field : FIELDS) {
+					if (!(motor + "_" + field).equals("Flop_minAmps")) {
+						out.write(motor + "_" + field + " | 0.5\n");
+					}
+				}
+			}
+		}
+		config.load();
+		assertEquals(3, key.get(), 0);
+		assertEquals(1, changes.size());
+		assertEquals(0.5, config.getDouble("Toss_P", 0), 0);
+	}
+
+	@Test
+	public void badLinesAreSkipped() throws IOException {
+		write(0.9, "Toss_P 0.1\n");
+		config.load();
+		assertEquals(0.5, config.getDouble("Toss_P", 0), 0);
+	}
+
+	@Test
+	public void missingFileKeepsTheValues() {
+		file.delete();
+		config.load();
+		assertEquals(0.5, config.getDouble("Gate_D", 0), 0);
+	}
+
+	@Test
+	public void watcherPicksUpAChange() throws Exception {
+		ConfigKey<Double> key = config.doubleKey("Flop_ampMax", 0);
+		config.watch();
+		Thread.sleep(200);
+		write(0.75, "");
+		long start = System.currentTimeMillis();
+		while (!config.hasPending() && System.currentTimeMillis() - start < 15000) {
+			Thread.sleep(10);
+		}
+		// nothing changes until it is applied
+		assertEquals(0.5, key.get(), 0);
+		assertTrue(config.applyPending());
+		assertEquals(0.75, key.get(), 0);
+		assertFalse(config.applyPending());
+	}
+}
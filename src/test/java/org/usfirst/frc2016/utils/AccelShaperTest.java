@@ -0,0 +1,103 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AccelShaperTest {
+    private static final double DT = 0.02;
+    private static final double JERK = 10000;
+    private static final double MAX_ACCEL = 400;
+
+    private AccelShaper shaper;
+
+    @Before
+    public void setUp() {
+        shaper = new AccelShaper();
+        shaper.setJerk(JERK);
+        shaper.setConditions(MAX_ACCEL, 12.5, false, DT);
+    }
+
+    // runs one side toward the target, checks the jerk and the allowed accel each period
+    private double[] drive(double target, int periods) {
+        double[] speeds = new double[periods];
+        double lastSpeed = shaper.shape(AccelShaper.LEFT, target);
+        double lastAccel = Double.NaN;
+        for (int i = 0; i < periods; i++) {
+            double speed = shaper.shape(AccelShaper.LEFT, target);
+            double accel = (speed - lastSpeed) / DT;
+            assertTrue("accel " + accel, Math.abs(accel) <= MAX_ACCEL + 1e-6);
+            // the last step onto the target can drop the accel at once
+            if (!Double.isNaN(lastAccel) && speed != target) {
+                assertTrue("jerk " + (accel - lastAccel) / DT,
+                        Math.abs(accel - lastAccel) <= JERK * DT + 1e-6);
+            }
+            lastAccel = accel;
+            lastSpeed = speed;
+            speeds[i] = speed;
+        }
+        return speeds;
+    }
+
+    @Test
+    public void reachesTheTargetWithoutPassingIt() {
+        double[] speeds = drive(150, 100);
+        for (double speed : speeds) {
+            assertTrue(speed <= 150 + 1e-9);
+        }
+        assertEquals(150, speeds[speeds.length - 1], 1e-9);
+    }
+
+    @Test
+    public void firstStepIsJerkLimited() {
+        double speed = shaper.shape(AccelShaper.LEFT, 150);
+        assertEquals(JERK * DT * DT, speed, 1e-9);
+    }
+
+    @Test
+    public void reversalIsJerkLimited() {
+        drive(150, 10); // still speeding up
+        double before = shaper.shape(AccelShaper.LEFT, 150);
+        double[] speeds = drive(-150, 200);
+
+        // the acceleration comes around at the jerk limit, so the speed keeps rising for a moment
+        assertTrue(speeds[0] > before);
+        assertEquals(-150, speeds[speeds.length - 1], 1e-9);
+        for (double speed : speeds) {
+            assertTrue(speed >= -150 - 1e-9);
+        }
+    }
+
+    @Test
+    public void lowBatteryLowersTheAccel() {
+        shaper.setVoltageLimits(11.5, 8.5, 0.3);
+        shaper.setConditions(MAX_ACCEL, 10.0, false, DT);
+        assertEquals(MAX_ACCEL * 0.65, shaper.getAllowedAccel(), 1e-9);
+        shaper.setConditions(MAX_ACCEL, 7.0, false, DT);
+        assertEquals(MAX_ACCEL * 0.3, shaper.getAllowedAccel(), 1e-9);
+    }
+
+    @Test
+    public void slipLowersTheAccelUntilItRecovers() {
+        shaper.setSlip(0.5, 1.0);
+        shaper.setConditions(MAX_ACCEL, 12.5, true, DT);
+        assertEquals(MAX_ACCEL * 0.5, shaper.getAllowedAccel(), 1e-9);
+        for (int i = 0; i < 10; i++) {
+            shaper.setConditions(MAX_ACCEL, 12.5, false, DT);
+        }
+        assertEquals(MAX_ACCEL * 0.7, shaper.getAllowedAccel(), 1e-6);
+        for (int i = 0; i < 20; i++) {
+            shaper.setConditions(MAX_ACCEL, 12.5, false, DT);
+        }
+        assertEquals(MAX_ACCEL, shaper.getAllowedAccel(), 1e-9);
+    }
+
+    @Test
+    public void sidesAreIndependent() {
+        shaper.reset(50, -50);
+        assertEquals(50, shaper.shape(AccelShaper.LEFT, 50), 1e-9);
+        assertEquals(-50, shaper.shape(AccelShaper.RIGHT, -50), 1e-9);
+    }
+}
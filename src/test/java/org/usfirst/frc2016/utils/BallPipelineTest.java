@@ -0,0 +1,184 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * BallPipeline with a FlywheelController on the flywheel model from
+ * FlywheelControllerTest, feeding a hopper of balls.
+ */
+public class BallPipelineTest {
+    static final double PHYSICS_DT = 0.001;
+    static final double LOOP_DT = 0.020;
+    static final int BALLS = 10;
+    static final double INTAKE_TRAVEL = 0.35; // seconds of brush to bring a ball to the sensor
+    static final double GATE_TRAVEL = 0.08; // seconds of gate to push a ball past the sensor
+
+    @Test
+    public void stagingDuringRecoveryShootsFaster() {
+        BallPipeline overlapped = run(true, false);
+        BallPipeline sequential = run(false, false);
+
+        assertEquals(BALLS, overlapped.getBallsShot());
+        assertEquals(BALLS, sequential.getBallsShot());
+        assertEquals(0, overlapped.getMissed());
+        assertEquals(0, overlapped.getJams());
+        assertTrue(overlapped.getBallsPerSecond() + " > " + sequential.getBallsPerSecond(),
+                overlapped.getBallsPerSecond() > 1.2 * sequential.getBallsPerSecond());
+        assertEquals(GATE_TRAVEL, overlapped.getDwellMean(BallPipeline.Stage.GATE), LOOP_DT);
+    }
+
+    @Test
+    public void replaysTheSame() {
+        BallPipeline first = run(true, false);
+        BallPipeline again = run(true, false);
+        assertEquals(first.getBallsPerSecond(), again.getBallsPerSecond(), 0);
+        for (BallPipeline.Stage stage : BallPipeline.Stage.values()) {
+            assertEquals(first.getDwellMean(stage), again.getDwellMean(stage), 0);
+            assertEquals(first.getDwellMax(stage), again.getDwellMax(stage), 0);
+        }
+    }
+
+    @Test
+    public void openLoopCountsShotsByTime() {
+        BallPipeline pipeline = run(true, true);
+        assertEquals(BALLS, pipeline.getBallsShot());
+        assertEquals(0, pipeline.getMissed());
+    }
+
+    @Test
+    public void unseenShotIsMissed() {
+        BallPipeline pipeline = new BallPipeline();
+        pipeline.setTimeouts(0.5, 0.1);
+        pipeline.setEnabled(false, true);
+        pipeline.update(0, true, true, 0);
+        assertTrue(pipeline.isGateOn());
+        pipeline.update(0.02, false, true, 0);
+        assertTrue(pipeline.isOccupied(BallPipeline.Stage.TOSS));
+        pipeline.update(0.2, false, true, 0);
+        assertEquals(1, pipeline.getMissed());
+        assertEquals(0, pipeline.getBallsShot());
+    }
+
+    @Test
+    public void jamBacksOffThenGivesUp() {
+        BallPipeline pipeline = new BallPipeline();
+        pipeline.setTimeouts(0.5, 0.5);
+        pipeline.setJamRetry(0.25, 2);
+        pipeline.setEnabled(false, true);
+
+        // the ball never leaves the sensor
+        double t = 0;
+        pipeline.update(t, true, true, 0);
+        assertTrue(pipeline.isGateOn());
+        t += 0.52;
+        pipeline.update(t, true, true, 0);
+        assertEquals(1, pipeline.getJams());
+        assertFalse("fed again at once", pipeline.isGateOn());
+        pipeline.update(t + 0.2, true, true, 0);
+        assertFalse(pipeline.isGateOn());
+        t += 0.26;
+        pipeline.update(t, true, true, 0);
+        assertTrue(pipeline.isGateOn());
+
+        for (int retry = 0; retry < 2; retry++) {
+            t += 0.52;
+            pipeline.update(t, true, true, 0);
+            t += 0.26;
+            pipeline.update(t, true, true, 0);
+        }
+        assertEquals(3, pipeline.getJams());
+        assertTrue(pipeline.isJammed());
+        assertFalse(pipeline.isGateOn());
+        pipeline.update(t + 5, true, true, 0);
+        assertFalse(pipeline.isGateOn());
+
+        // cleared by the operator
+        pipeline.reset();
+        assertFalse(pipeline.isJammed());
+        pipeline.update(t + 6, true, true, 0);
+        assertTrue(pipeline.isGateOn());
+    }
+
+    @Test
+    public void jamCountStartsOverForTheNextBall() {
+        BallPipeline pipeline = new BallPipeline();
+        pipeline.setTimeouts(0.5, 0.5);
+        pipeline.setJamRetry(0, 1);
+        pipeline.setEnabled(false, true);
+
+        pipeline.update(0, true, true, 0);
+        pipeline.update(0.52, true, true, 0);
+        pipeline.update(0.54, true, true, 0);
+        assertTrue(pipeline.isGateOn());
+        // through on the retry
+        pipeline.update(0.56, false, true, 0);
+        pipeline.update(0.58, false, true, 1);
+        assertEquals(1, pipeline.getBallsShot());
+
+        pipeline.update(1.0, true, true, 1);
+        pipeline.update(1.52, true, true, 1);
+        assertFalse(pipeline.isJammed());
+    }
+
+    // shoots the hopper, openLoop leaves the shot count at 0
+    static BallPipeline run(boolean overlap, boolean openLoop) {
+        BallPipeline pipeline = new BallPipeline();
+        pipeline.setOverlap(overlap);
+        pipeline.setTimedShots(openLoop);
+        pipeline.setEnabled(true, true);
+
+        FlywheelController control = new FlywheelController();
+        control.setGains(0.3, 0.115, 0.6, 0.5, 10);
+        control.setAtSpeed(0.03, 5, 2);
+        control.setTarget(FlywheelControllerTest.TARGET, 0);
+
+        int hopper = BALLS;
+        double intakeProgress = 0; // seconds of brush on the ball coming up
+        boolean atSensor = false;
+        double gateProgress = 0;
+        double contactLeft = 0;
+        double speed = 0;
+        double output = 0;
+        int loops = (int) Math.round(LOOP_DT / PHYSICS_DT);
+
+        for (int step = 0; step * PHYSICS_DT < 20 && pipeline.getBallsShot() + pipeline.getMissed() < BALLS; step++) {
+            double t = step * PHYSICS_DT;
+            if (step % loops == 0) {
+                output = control.update(t, speed, 12.0);
+                pipeline.update(t, atSensor, control.isAtSpeed(), openLoop ? 0 : control.getShotCount());
+            }
+
+            // brush brings the next ball up to the sensor
+            if (pipeline.isBrushOn() && hopper > 0 && !atSensor) {
+                intakeProgress += PHYSICS_DT;
+                if (intakeProgress >= INTAKE_TRAVEL) {
+                    hopper--;
+                    intakeProgress = 0;
+                    atSensor = true;
+                }
+            }
+            // gate pushes it into the wheels
+            if (pipeline.isGateOn() && atSensor) {
+                gateProgress += PHYSICS_DT;
+                if (gateProgress >= GATE_TRAVEL) {
+                    gateProgress = 0;
+                    atSensor = false;
+                    contactLeft = FlywheelControllerTest.SHOT_SECONDS;
+                }
+            }
+
+            double accel = (output * 12.0 - FlywheelControllerTest.WHEEL_KS * Math.signum(speed)
+                    - FlywheelControllerTest.WHEEL_KV * speed) / FlywheelControllerTest.WHEEL_KA;
+            speed += accel * PHYSICS_DT;
+            if (contactLeft > 0) {
+                speed -= speed * FlywheelControllerTest.SHOT_DROP * PHYSICS_DT / FlywheelControllerTest.SHOT_SECONDS;
+                contactLeft -= PHYSICS_DT;
+            }
+        }
+        return pipeline;
+    }
+}
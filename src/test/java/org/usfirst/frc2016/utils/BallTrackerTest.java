@@ -0,0 +1,168 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BallTrackerTest {
+    private static final double FPS = 30;
+
+    /**
+     * Balls moving across a 640x480 image with pixel noise, missed detections
+     * and the odd bit of clutter
+     */
+    static class Scene {
+        final Random random = new Random(2016);
+        final double[] x;
+        final double[] y;
+        final double[] vx;
+        final double[] size;
+        double missRate = 0.1;
+        double clutterRate = 0.05;
+        double[] xs;
+        double[] ys;
+        double[] sizes;
+
+        Scene(int balls) {
+            x = new double[balls];
+            y = new double[balls];
+            vx = new double[balls];
+            size = new double[balls];
+            for (int b = 0; b < balls; b++) {
+                x[b] = random.nextDouble() * 640;
+                y[b] = 120 + random.nextDouble() * 240;
+                vx[b] = (random.nextDouble() - 0.5) * 200;
+                size[b] = 40 + 10 * b;
+            }
+        }
+
+        // moves the balls a frame and makes the detections
+        void next() {
+            int balls = x.length;
+            double[] dx = new double[balls + 1];
+            double[] dy = new double[balls + 1];
+            double[] ds = new double[balls + 1];
+            int count = 0;
+            for (int b = 0; b < balls; b++) {
+                x[b] += vx[b] / FPS;
+                if (x[b] < 0 || x[b] > 640) {
+                    vx[b] = -vx[b];
+                }
+                if (random.nextDouble() < missRate) {
+                    continue;
+                }
+                dx[count] = x[b] + random.nextGaussian() * 3;
+                dy[count] = y[b] + random.nextGaussian() * 3;
+                ds[count] = size[b] + random.nextGaussian() * 4;
+                count++;
+            }
+            if (random.nextDouble() < clutterRate) {
+                dx[count] = random.nextDouble() * 640;
+                dy[count] = random.nextDouble() * 480;
+                ds[count] = random.nextDouble() * 80;
+                count++;
+            }
+            xs = Arrays.copyOf(dx, count);
+            ys = Arrays.copyOf(dy, count);
+            sizes = Arrays.copyOf(ds, count);
+        }
+    }
+
+    private static BallTracker tracker() {
+        BallTracker tracker = new BallTracker();
+        tracker.setScore(320, 0.1, 20);
+        return tracker;
+    }
+
+    @Test
+    public void oneBallKeepsItsTrack() {
+        Scene scene = new Scene(1);
+        scene.clutterRate = 0;
+        BallTracker tracker = tracker();
+        int firstId = 0;
+        for (int f = 0; f < 900; f++) {
+            scene.next();
+            tracker.update(f / FPS, scene.xs, scene.ys, scene.sizes);
+            if (firstId == 0 && tracker.getBest() != null) {
+                firstId = tracker.getBest().getId();
+            }
+        }
+        BallTracker.Track best = tracker.getBest();
+        assertNotNull(best);
+        assertEquals(firstId, best.getId());
+        assertEquals(1, tracker.getTrackCount());
+        assertEquals(scene.x[0], best.getX(), 10);
+        assertEquals(scene.y[0], best.getY(), 10);
+        assertEquals(scene.size[0], best.getSize(), 5);
+    }
+
+    @Test
+    public void bestDoesNotFlicker() {
+        Scene scene = new Scene(4);
+        BallTracker tracker = tracker();
+        int frames = 10000;
+        int switches = 0;
+        int lastId = 0;
+        for (int f = 0; f < frames; f++) {
+            scene.next();
+            tracker.update(f / FPS, scene.xs, scene.ys, scene.sizes);
+            BallTracker.Track best = tracker.getBest();
+            int id = (best == null) ? 0 : best.getId();
+            if (id != lastId) {
+                switches++;
+                lastId = id;
+            }
+        }
+        // balls cross and bounce, the choice should change about once a crossing, not per frame
+        assertTrue("best changed " + switches + " times", switches < frames / 100);
+        assertTrue("tracks " + tracker.getTrackCount(), tracker.getTrackCount() >= 3 && tracker.getTrackCount() <= 5);
+    }
+
+    @Test
+    public void newTrackNeedsHits() {
+        BallTracker tracker = tracker();
+        double[] x = { 300 };
+        double[] y = { 200 };
+        double[] s = { 50 };
+        tracker.update(0, x, y, s);
+        tracker.update(1 / FPS, x, y, s);
+        assertNull(tracker.getBest());
+        tracker.update(2 / FPS, x, y, s);
+        assertNotNull(tracker.getBest());
+    }
+
+    @Test
+    public void lostBallIsDropped() {
+        BallTracker tracker = tracker();
+        double[] x = { 300 };
+        double[] y = { 200 };
+        double[] s = { 50 };
+        double[] none = {};
+        int f = 0;
+        for (; f < 10; f++) {
+            tracker.update(f / FPS, x, y, s);
+        }
+        // five misses are coasted, the sixth drops it
+        for (int miss = 0; miss < 5; miss++, f++) {
+            tracker.update(f / FPS, none, none, none);
+        }
+        assertEquals(1, tracker.getTrackCount());
+        tracker.update(f / FPS, none, none, none);
+        assertEquals(0, tracker.getTrackCount());
+        assertNull(tracker.getBest());
+    }
+
+    @Test
+    public void farDetectionStartsANewTrack() {
+        BallTracker tracker = tracker();
+        tracker.update(0, new double[] { 100 }, new double[] { 200 }, new double[] { 50 });
+        tracker.update(1 / FPS, new double[] { 400 }, new double[] { 200 }, new double[] { 50 });
+        assertEquals(2, tracker.getTrackCount());
+    }
+}
@@ -0,0 +1,105 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc2016.utils.CanDevice.Signal;
+
+public class CanBandwidthTest {
+    // TalonCanDevice frame numbers
+    private static final int GENERAL = 0;
+    private static final int FEEDBACK0 = 1;
+    private static final int AIN_TEMP_VBAT = 2;
+    private static final int PULSE_WIDTH = 3;
+    private static final int MOTION_MAGIC = 4;
+    private static final int PIDF0 = 6;
+    private static final int CURRENT = 9;
+
+    private CanBandwidth can;
+    private CanDeviceSim leader;
+    private CanDeviceSim follower;
+
+    @Before
+    public void setUp() {
+        can = new CanBandwidth();
+        leader = CanDeviceSim.talonFx("Left1");
+        follower = CanDeviceSim.talonFx("Left2");
+
+        // what the drive declares
+        can.need(leader, Signal.POSITION, 10, "pose estimator");
+        can.need(leader, Signal.VELOCITY, 10, "pose estimator");
+        can.need(leader, Signal.OUTPUT, 10, "followers");
+        can.need(leader, Signal.CURRENT, 20, "health monitor");
+        can.need(follower, Signal.CURRENT, 20, "power budget");
+        for (CanDeviceSim device : new CanDeviceSim[] { leader, follower }) {
+            can.need(device, Signal.TEMPERATURE, CanBandwidth.DIAGNOSTIC_MS, "diagnostics");
+        }
+    }
+
+    @Test
+    public void fastestNeedWins() {
+        can.need(leader, Signal.VELOCITY, 5, "faster");
+        can.need(leader, Signal.POSITION, 40, "slower");
+        can.apply();
+        assertEquals(5, leader.getPeriod(FEEDBACK0));
+    }
+
+    @Test
+    public void unreadFramesAreSlowed() {
+        can.apply();
+        assertEquals(255, leader.getPeriod(PULSE_WIDTH));
+        assertEquals(255, leader.getPeriod(MOTION_MAGIC));
+        assertEquals(255, leader.getPeriod(PIDF0));
+        assertEquals(100, follower.getPeriod(GENERAL));
+    }
+
+    @Test
+    public void diagnosticsKeepThePowerUpRate() {
+        can.apply();
+        assertEquals(160, leader.getPeriod(AIN_TEMP_VBAT));
+        assertEquals(160, follower.getPeriod(AIN_TEMP_VBAT));
+    }
+
+    @Test
+    public void readFramesAtTheirNeed() {
+        can.apply();
+        assertEquals(10, leader.getPeriod(GENERAL));
+        assertEquals(10, leader.getPeriod(FEEDBACK0));
+        assertEquals(20, leader.getPeriod(CURRENT));
+        assertEquals(20, follower.getPeriod(CURRENT));
+        assertEquals(20, can.getPeriod(follower, CURRENT));
+    }
+
+    @Test
+    public void controlPeriodOnlyWhenAsked() {
+        can.needControl(leader, 20);
+        can.apply();
+        assertEquals(20, leader.getControlPeriod());
+        assertEquals(10, follower.getControlPeriod());
+    }
+
+    @Test
+    public void signalsADeviceDoesNotHaveAreIgnored() {
+        CanDeviceSim spark = CanDeviceSim.sparkMax("Arm");
+        can.need(spark, Signal.MOTION, 10, "nobody");
+        can.need(spark, Signal.VELOCITY, 20, "motor stats");
+        can.apply();
+        assertEquals(20, spark.getPeriod(1));
+        assertEquals(500, spark.getPeriod(2));
+    }
+
+    @Test
+    public void unknownDeviceKeepsItsDefaults() {
+        CanDeviceSim other = CanDeviceSim.talonFx("Other");
+        assertEquals(160, can.getPeriod(other, PULSE_WIDTH));
+    }
+
+    @Test
+    public void managedBusIsLighter() {
+        double before = can.getUtilization(false);
+        double after = can.getUtilization(true);
+        assertTrue(after + " < " + before, after < before);
+    }
+}
@@ -0,0 +1,151 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * ClimbController against a model of the two climber arms, the right one
+ * weaker than the left, hooks that catch the bar at slightly different
+ * heights and extra load while lifting.
+ */
+public class ClimbControllerTest {
+    static final double DT = 0.001;
+    static final double LOOP_DT = 0.020;
+    static final double FREE_SPEED = 21; // inches/sec at full power
+    static final double TAU = 0.08; // seconds, arm speed response
+    static final double[] STRENGTH = { 1.0, 0.85 }; // right arm slower
+    static final double LIFT_LOAD = 2.0; // inches/sec lost to the robot's weight while lifting
+    static final double HOOK_OFFSET = 0.4; // inches, right hook catches lower
+    static final double TRACK = 26; // inches between the arms
+    static final double EXTEND_POS = -24;
+    static final double LIFT_POS = 0;
+
+    // one arm, position in inches, negative is extended
+    static class Arm {
+        double pos = 0;
+        double vel = 0;
+        final double strength;
+
+        Arm(double strength) {
+            this.strength = strength;
+        }
+
+        void step(double power, boolean lifting) {
+            double target = power * FREE_SPEED * strength;
+            if (lifting) {
+                target -= LIFT_LOAD; // the robot's weight pulls the arm out
+            }
+            vel += (target - vel) * DT / TAU;
+            pos += vel * DT;
+        }
+    }
+
+    private final Arm[] arms = { new Arm(STRENGTH[0]), new Arm(STRENGTH[1]) };
+    private final ClimbController control = new ClimbController();
+    private double time = 0;
+    private double worstLevel = 0;
+    private double worstPower = 0;
+
+    private void setUp(double maxPower) {
+        control.setGains(1 / FREE_SPEED, 0.3, 0.5, 0.15, Math.toRadians(1) * TRACK);
+        control.setLimits(1.0, 0.25, maxPower);
+    }
+
+    // runs a move until done, returns the seconds it took
+    private double move(double goal, double vel, double acc, boolean lifting) {
+        double start = time;
+        control.setProfile(vel, acc);
+        control.start(arms[0].pos, arms[1].pos, goal, lifting);
+        run(lifting, () -> !control.isDone() && time - start < 30);
+        return time - start;
+    }
+
+    private void run(boolean lifting, java.util.function.BooleanSupplier running) {
+        int loops = (int) Math.round(LOOP_DT / DT);
+        for (int step = 0; running.getAsBoolean(); step++, time += DT) {
+            if (step % loops == 0) {
+                control.update(time, arms[0].pos, arms[1].pos, lifting ? roll() : 0);
+            }
+            for (int side = 0; side < 2; side++) {
+                double power = control.getOutput(side);
+                worstPower = Math.max(worstPower, Math.abs(power));
+                arms[side].step(power, lifting);
+            }
+            worstLevel = Math.max(worstLevel, Math.abs(arms[0].pos - arms[1].pos));
+        }
+    }
+
+    // roll of the hanging robot, positive when the left side is lower
+    private double roll() {
+        return Math.toDegrees(Math.atan2(arms[0].pos - arms[1].pos + HOOK_OFFSET, TRACK));
+    }
+
+    private double goalError(double goal) {
+        return Math.max(Math.abs(arms[0].pos - goal), Math.abs(arms[1].pos - goal));
+    }
+
+    @Test
+    public void profiledClimbStaysLevel() {
+        // the old timed climb: extend at -0.5 for 2.25 s, lift at 0.3 for 5.5 s
+        Arm[] timed = { new Arm(STRENGTH[0]), new Arm(STRENGTH[1]) };
+        double timedLevel = 0;
+        for (double t = 0; t < 2.25 + 5.5; t += DT) {
+            for (Arm a : timed) {
+                a.step(t < 2.25 ? -0.5 : 0.3, t >= 2.25);
+            }
+            timedLevel = Math.max(timedLevel, Math.abs(timed[0].pos - timed[1].pos));
+        }
+
+        setUp(1.0);
+        move(EXTEND_POS, 16, 32, false);
+        control.stop();
+        move(LIFT_POS, 9, 18, true);
+
+        assertTrue(worstLevel + " < " + timedLevel, worstLevel < timedLevel / 2);
+        assertTrue(worstLevel < 1.5);
+        assertTrue(goalError(LIFT_POS) < 0.5);
+    }
+
+    @Test
+    public void configuredPowerLimitFinishesInTime() {
+        setUp(0.5);
+        // inside the ClimberAuto timeouts
+        double extend = move(EXTEND_POS, 10, 32, false);
+        assertTrue("extend " + extend, extend < 4.25);
+        assertTrue(control.isDone());
+        control.stop();
+        double lift = move(LIFT_POS, 6, 18, true);
+        assertTrue("lift " + lift, lift < 7.5);
+        assertTrue(control.isDone());
+        assertTrue("power " + worstPower, worstPower <= 0.5);
+    }
+
+    @Test
+    public void holdsTheRobotUpAfterTheLift() {
+        setUp(0.5);
+        move(EXTEND_POS, 10, 32, false);
+        control.stop();
+        move(LIFT_POS, 6, 18, true);
+        assertTrue(control.isActive());
+
+        // hanging: the weight pulls the arms out unless something pushes back
+        double end = time + 5;
+        run(true, () -> time < end);
+        assertTrue("goal error " + goalError(LIFT_POS), goalError(LIFT_POS) < 0.25);
+        assertTrue(control.getOutput(ClimbController.LEFT) > 0);
+    }
+
+    @Test
+    public void stopCutsThePower() {
+        setUp(0.5);
+        move(EXTEND_POS, 10, 32, false);
+        control.stop();
+        assertFalse(control.isActive());
+        control.update(time + LOOP_DT, arms[0].pos, arms[1].pos, 0);
+        assertEquals(0, control.getOutput(ClimbController.LEFT), 0);
+        assertEquals(0, control.getOutput(ClimbController.RIGHT), 0);
+    }
+}
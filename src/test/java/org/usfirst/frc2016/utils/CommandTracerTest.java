@@ -0,0 +1,161 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class CommandTracerTest {
+    @Before
+    public void setUp() {
+        CommandTracer.setEnabled(true);
+        CommandTracer.clear();
+    }
+
+    // an execute() that takes about micros
+    private static void trace(int id, long micros) {
+        long start = CommandTracer.now();
+        long until = start + micros * 1000;
+        while (System.nanoTime() < until) {
+        }
+        CommandTracer.executed(id, start);
+    }
+
+    // the summary line of one command
+    private static String[] line(String summary, String name) {
+        for (String line : summary.split("\n")) {
+            if (line.startsWith(name + ",")) {
+                return line.split(",");
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void sameIdForTheSameCommand() {
+        int drive = CommandTracer.register("TraceDrive");
+        assertEquals(drive, CommandTracer.register("TraceDrive"));
+        assertTrue(CommandTracer.register("TraceBrush") != drive);
+    }
+
+    @Test
+    public void countsStartsAndInterrupts() {
+        int toss = CommandTracer.register("TraceToss");
+        for (int i = 0; i < 4; i++) {
+            CommandTracer.started(toss);
+            trace(toss, 10);
+            if (i % 2 == 0) {
+                CommandTracer.interrupted(toss);
+            }
+            // from onEnd() in onInterrupted(), ignored after an interrupt
+            CommandTracer.ended(toss);
+        }
+        // start, execute and one of end or interrupt per run
+        assertEquals(12, CommandTracer.getWritten());
+
+        String[] line = line(CommandTracer.summary(), "TraceToss");
+        assertNotNull(line);
+        assertEquals("4", line[1]);
+        assertEquals("2", line[2]);
+        assertEquals("4", line[3]);
+    }
+
+    @Test
+    public void percentilesOfExecute() {
+        int climb = CommandTracer.register("TraceClimb");
+        CommandTracer.started(climb);
+        for (int i = 0; i < 9; i++) {
+            trace(climb, 20);
+        }
+        trace(climb, 3000);
+        CommandTracer.ended(climb);
+
+        double[] micros = CommandTracer.getExecuteMicros(climb);
+        assertEquals(10, micros.length);
+        assertTrue(micros[9] >= 3000);
+        assertTrue(micros[0] >= 20 && micros[0] < 3000);
+        assertEquals(micros[4], CommandTracer.percentile(micros, 0.5), 0);
+        assertEquals(micros[9], CommandTracer.percentile(micros, 1.0), 0);
+        assertEquals(0, CommandTracer.percentile(new double[0], 0.5), 0);
+    }
+
+    @Test
+    public void commandsThatDidNotRunAreLeftOut() {
+        CommandTracer.register("TraceIdle");
+        int arm = CommandTracer.register("TraceArm");
+        CommandTracer.started(arm);
+        CommandTracer.ended(arm);
+        String summary = CommandTracer.summary();
+        assertNull(line(summary, "TraceIdle"));
+        assertNotNull(line(summary, "TraceArm"));
+    }
+
+    @Test
+    public void ringKeepsTheNewest() {
+        int drive = CommandTracer.register("TraceDrive");
+        CommandTracer.started(drive);
+        for (int i = 0; i < 70000; i++) {
+            CommandTracer.executed(drive, CommandTracer.now());
+        }
+        assertEquals(70001, CommandTracer.getWritten());
+        assertEquals(1 << 16, CommandTracer.getEventCount());
+        assertEquals(1 << 16, CommandTracer.getExecuteMicros(drive).length);
+        CommandTracer.ended(drive);
+    }
+
+    @Test
+    public void disabledRecordsNothing() {
+        int brush = CommandTracer.register("TraceBrush");
+        CommandTracer.setEnabled(false);
+        CommandTracer.started(brush);
+        trace(brush, 1);
+        CommandTracer.ended(brush);
+        assertEquals(0, CommandTracer.getWritten());
+    }
+
+    @Test
+    public void unregisteredIsIgnored() {
+        CommandTracer.started(-1);
+        CommandTracer.executed(-1, CommandTracer.now());
+        CommandTracer.ended(-1);
+        CommandTracer.interrupted(-1);
+        assertEquals(0, CommandTracer.getWritten());
+    }
+
+    @Test
+    public void saveWritesInTheBackgroundAndStartsOver() throws Exception {
+        File dir = Files.createTempDirectory("tracer").toFile();
+        assertNull(CommandTracer.save(dir.getPath()));
+
+        int drive = CommandTracer.register("TraceDrive");
+        CommandTracer.started(drive);
+        trace(drive, 10);
+        CommandTracer.interrupted(drive);
+        Thread saver = CommandTracer.save(dir.getPath());
+        assertNotNull(saver);
+        // the loop can trace again at once
+        assertEquals(0, CommandTracer.getWritten());
+        CommandTracer.started(drive);
+        CommandTracer.ended(drive);
+        saver.join(5000);
+
+        File[] files = dir.listFiles();
+        assertEquals(1, files.length);
+        String text = new String(Files.readAllBytes(files[0].toPath()));
+        String[] line = line(text, "TraceDrive");
+        assertNotNull(line);
+        assertEquals("1", line[1]);
+        assertEquals("1", line[2]);
+        assertTrue(text.contains(",TraceDrive,interrupt,"));
+        assertEquals(2, CommandTracer.getWritten());
+
+        files[0].delete();
+        dir.delete();
+    }
+}
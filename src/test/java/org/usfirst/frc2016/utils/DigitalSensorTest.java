@@ -0,0 +1,115 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class DigitalSensorTest {
+    private static final long SAMPLE_NS = 5_000_000; // 5ms
+    private static final int DEBOUNCE = 3;
+
+    // simulated input, set by the test and read by the sensor
+    static class SimInput implements DigitalSensor.Source {
+        volatile boolean value;
+
+        @Override
+        public boolean get() {
+            return value;
+        }
+    }
+
+    private SimInput input;
+    private DigitalSensor sensor;
+    private long now = 0;
+
+    @Before
+    public void setUp() {
+        input = new SimInput();
+        sensor = new DigitalSensor("Sim", input, DEBOUNCE);
+        sensor.setClock(() -> now);
+        step(1);
+    }
+
+    private void step(int samples) {
+        for (int i = 0; i < samples; i++) {
+            now += SAMPLE_NS;
+            sensor.sample();
+        }
+    }
+
+    @Test
+    public void bouncingBallsGiveOneEdgeEach() throws Exception {
+        int[] callbacks = { 0 };
+        sensor.onEdge(DigitalSensor.Edge.RISING, t -> callbacks[0]++);
+
+        // each ball: a bounce of 1-2 samples as it arrives and leaves
+        int balls = 5;
+        for (int ball = 0; ball < balls; ball++) {
+            CompletableFuture<Long> arrive = sensor.awaitEdge(DigitalSensor.Edge.RISING, 0);
+            step(10);
+            input.value = true;
+            step(1);
+            input.value = false; // bounce
+            step(1 + ball % 2);
+            long settled = now + SAMPLE_NS; // first sample that reads the ball
+            input.value = true;
+            step(DEBOUNCE - 1);
+            assertFalse("ball " + ball + " seen before the input settled", arrive.isDone());
+            step(1);
+            assertTrue(arrive.isDone());
+            assertEquals(settled, (long) arrive.get());
+            assertTrue(sensor.awaitLevel(true, 0).isDone());
+
+            step(20);
+            input.value = false;
+            step(1);
+            input.value = true; // bounce on the way out
+            step(1);
+            input.value = false;
+            step(DEBOUNCE + 1);
+            assertFalse("ball " + ball + " still present after it left", sensor.get());
+        }
+        assertEquals(2 * balls, sensor.getEdgeCount());
+        assertEquals(balls, callbacks[0]);
+    }
+
+    @Test
+    public void waitTimesOut() throws Exception {
+        DigitalSensor timed = new DigitalSensor("Timed", input, DEBOUNCE);
+        timed.start(5);
+        try {
+            timed.awaitEdge(DigitalSensor.Edge.RISING, 100).get();
+            fail("wait did not time out");
+        } catch (ExecutionException e) {
+            assertTrue("failed with " + e.getCause(), e.getCause() instanceof TimeoutException);
+        } finally {
+            timed.stop();
+        }
+        assertEquals(0, timed.getWaiterCount());
+    }
+
+    @Test
+    public void timerSeesTheBall() throws Exception {
+        DigitalSensor timed = new DigitalSensor("Timed", input, DEBOUNCE);
+        // the first sample is the starting level, take it before the ball so the ball is an edge
+        timed.sample();
+        timed.start(5);
+        try {
+            CompletableFuture<Long> ball = timed.awaitEdge(DigitalSensor.Edge.RISING, 1000);
+            long put = System.nanoTime();
+            input.value = true;
+            assertTrue(ball.get() >= put);
+            assertTrue(timed.get());
+        } finally {
+            timed.stop();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class DriveFeedforwardTest {
+    private static final double KS = 0.8;
+    private static final double KV = 0.055;
+    private static final double KA = 0.012;
+    private static final double DT = 0.005;
+
+    private final double[] volts = new double[4000];
+    private final double[] velocity = new double[4000];
+    private final double[] acceleration = new double[4000];
+    private int count = 0;
+
+    // a run of the drive model, like CharacterizeDrive records it
+    private void run(boolean dynamic, double sign, double noise) {
+        int n = 1000;
+        double[] time = new double[n];
+        double[] speed = new double[n];
+        double[] applied = new double[n];
+        double v = 0;
+        Random random = new Random(1);
+        for (int i = 0; i < n; i++) {
+            double u = sign * (dynamic ? 6.0 : 1.0 * i * DT);
+            double a = 0;
+            if (Math.abs(u) > KS || v != 0) {
+                a = (u - KS * Math.signum(v == 0 ? u : v) - KV * v) / KA;
+            }
+            time[i] = i * DT;
+            applied[i] = u;
+            speed[i] = v + noise * random.nextGaussian();
+            v += a * DT;
+        }
+        double[] accel = DriveFeedforward.differentiate(time, speed, n, DriveFeedforward.DIFFERENTIATE_SPAN);
+        System.arraycopy(applied, 0, volts, count, n);
+        System.arraycopy(speed, 0, velocity, count, n);
+        System.arraycopy(accel, 0, acceleration, count, n);
+        count += n;
+    }
+
+    @Test
+    public void calculate() {
+        DriveFeedforward ff = new DriveFeedforward(KS, KV, KA);
+        assertEquals(KS + KV * 100 + KA * 50, ff.calculate(100, 50), 1e-9);
+        assertEquals(-KS - KV * 100, ff.calculate(-100, 0), 1e-9);
+        assertEquals(0, ff.calculate(0, 0), 1e-9);
+    }
+
+    @Test
+    public void differentiateLine() {
+        double[] time = { 0, 0.1, 0.2, 0.3, 0.4 };
+        double[] speed = { 1, 3, 5, 7, 9 };
+        double[] accel = DriveFeedforward.differentiate(time, speed, 5, 1);
+        for (double a : accel) {
+            assertEquals(20, a, 1e-9);
+        }
+    }
+
+    @Test
+    public void fitsAllFourRuns() {
+        run(false, 1, 0);
+        run(false, -1, 0);
+        run(true, 1, 0);
+        run(true, -1, 0);
+        DriveFeedforward ff = DriveFeedforward.fit(volts, velocity, acceleration, count, 1.0);
+        assertEquals(KS, ff.kS, 0.05);
+        assertEquals(KV, ff.kV, 0.002);
+        assertEquals(KA, ff.kA, 0.002);
+        assertTrue(ff.rSquared > 0.99);
+    }
+
+    @Test
+    public void fitsNoisySpeeds() {
+        run(false, 1, 0.5);
+        run(true, 1, 0.5);
+        DriveFeedforward ff = DriveFeedforward.fit(volts, velocity, acceleration, count, 1.0);
+        assertEquals(KS, ff.kS, 0.15);
+        assertEquals(KV, ff.kV, 0.005);
+        assertEquals(KA, ff.kA, 0.005);
+    }
+
+    @Test
+    public void notEnoughData() {
+        // never moved
+        assertNull(DriveFeedforward.fit(new double[10], new double[10], new double[10], 10, 1.0));
+    }
+}
@@ -0,0 +1,157 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc2016.utils.DriveHealthMonitor.Event;
+
+public class DriveHealthMonitorTest {
+    private static final double TRACK_WIDTH = 26;
+    private static final double DT = 0.02;
+
+    private DriveHealthMonitor monitor;
+    private final ArrayList<Event> started = new ArrayList<>();
+    private final double[] sample = new double[DriveHealthMonitor.SAMPLE_SIZE];
+    private double time = 0;
+
+    @Before
+    public void setUp() {
+        monitor = new DriveHealthMonitor(TRACK_WIDTH, 10);
+        monitor.addListener(started::add);
+    }
+
+    // one telemetry row, speeds in inches/sec
+    private void feed(double command, double left, double right, double amps, double yawRate, double accel,
+            double battery) {
+        time += DT;
+        sample[DriveHealthMonitor.SAMPLE_TIME] = time;
+        sample[DriveHealthMonitor.SAMPLE_COMMAND_LEFT] = command;
+        sample[DriveHealthMonitor.SAMPLE_COMMAND_RIGHT] = command;
+        sample[DriveHealthMonitor.SAMPLE_SPEED_LEFT] = left;
+        sample[DriveHealthMonitor.SAMPLE_SPEED_RIGHT] = right;
+        sample[DriveHealthMonitor.SAMPLE_CURRENT_LEFT] = amps;
+        sample[DriveHealthMonitor.SAMPLE_CURRENT_RIGHT] = amps;
+        sample[DriveHealthMonitor.SAMPLE_YAW_RATE] = yawRate;
+        sample[DriveHealthMonitor.SAMPLE_ACCEL] = accel;
+        sample[DriveHealthMonitor.SAMPLE_BATTERY] = battery;
+        sample[DriveHealthMonitor.SAMPLE_BROWNED_OUT] = 0;
+        monitor.update(sample);
+    }
+
+    // cruising straight at 100 inches/sec
+    private void cruise(int count) {
+        for (int i = 0; i < count; i++) {
+            feed(100, 100, 100, 20, 0, 0, 12.5);
+        }
+    }
+
+    @Test
+    public void quietWhileDriving() {
+        cruise(50);
+        for (Event event : Event.values()) {
+            assertFalse(event.toString(), monitor.isActive(event));
+        }
+        assertTrue(started.isEmpty());
+    }
+
+    @Test
+    public void slipWhenWheelsTurnAndTheGyroDoesNot() {
+        cruise(10);
+        // one side spinning, 60 inches/sec apart is about 130 degrees/sec of wheel yaw
+        for (int i = 0; i < 10; i++) {
+            feed(100, 70, 130, 30, 0, 0, 12.5);
+        }
+        assertTrue(monitor.isActive(Event.SLIP));
+        assertEquals(1, monitor.getCount(Event.SLIP));
+
+        // grip again
+        cruise(10);
+        assertFalse(monitor.isActive(Event.SLIP));
+    }
+
+    @Test
+    public void noSlipInARealTurn() {
+        double wheelYaw = Math.toDegrees(60 / TRACK_WIDTH);
+        for (int i = 0; i < 20; i++) {
+            feed(100, 70, 130, 30, wheelYaw, 0, 12.5);
+        }
+        assertFalse(monitor.isActive(Event.SLIP));
+    }
+
+    @Test
+    public void slipWhenWheelsSpeedUpFasterThanTheImu() {
+        double speed = 0;
+        for (int i = 0; i < 10; i++) {
+            speed += 200 * DT;
+            feed(speed, speed, speed, 40, 0, 50, 12.5);
+        }
+        assertTrue(monitor.isActive(Event.SLIP));
+    }
+
+    @Test
+    public void stallNeedsTheWholeWindow() {
+        for (int i = 0; i < 9; i++) {
+            feed(100, 0, 0, 80, 0, 0, 11);
+        }
+        assertFalse(monitor.isActive(Event.STALL));
+        feed(100, 0, 0, 80, 0, 0, 11);
+        assertTrue(monitor.isActive(Event.STALL));
+
+        // breaks free
+        feed(100, 20, 20, 80, 0, 0, 11);
+        assertFalse(monitor.isActive(Event.STALL));
+    }
+
+    @Test
+    public void brownoutFromVoltageOrFlag() {
+        cruise(1);
+        feed(100, 100, 100, 20, 0, 0, 7.0);
+        assertTrue(monitor.isActive(Event.BROWNOUT));
+        cruise(1);
+        assertFalse(monitor.isActive(Event.BROWNOUT));
+
+        sample[DriveHealthMonitor.SAMPLE_BROWNED_OUT] = 1;
+        monitor.update(sample);
+        assertTrue(monitor.isActive(Event.BROWNOUT));
+        assertEquals(2, monitor.getCount(Event.BROWNOUT));
+    }
+
+    @Test
+    public void collisionFromImuSpike() {
+        cruise(5);
+        feed(100, 100, 100, 20, 0, -700, 12.5);
+        assertTrue(monitor.isActive(Event.COLLISION));
+        assertEquals(Event.COLLISION, started.get(0));
+    }
+
+    @Test
+    public void collisionFromSpeedDropWithoutAnImu() {
+        cruise(5);
+        feed(100, 50, 50, 60, 0, Double.NaN, 12.5);
+        assertTrue(monitor.isActive(Event.COLLISION));
+    }
+
+    @Test
+    public void commandedStopIsNotACollision() {
+        cruise(5);
+        feed(50, 50, 50, 20, 0, Double.NaN, 12.5);
+        assertFalse(monitor.isActive(Event.COLLISION));
+    }
+
+    @Test
+    public void resetClearsTheWindow() {
+        for (int i = 0; i < 10; i++) {
+            feed(100, 0, 0, 80, 0, 0, 11);
+        }
+        assertTrue(monitor.isActive(Event.STALL));
+        monitor.reset();
+        assertFalse(monitor.isActive(Event.STALL));
+        feed(100, 0, 0, 80, 0, 0, 11);
+        assertFalse(monitor.isActive(Event.STALL));
+    }
+}
@@ -0,0 +1,168 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * FlywheelController against a flywheel model. Each ball takes some of the
+ * wheel's speed and the battery sags as the run goes on.
+ */
+public class FlywheelControllerTest {
+    static final double PHYSICS_DT = 0.001;
+    static final double LOOP_DT = 0.020;
+    static final double RUN_SECONDS = 10;
+
+    // wheel: volts = kS + kV * speed + kA * accel, speed in rev/sec
+    static final double WHEEL_KS = 0.25;
+    static final double WHEEL_KV = 0.113;
+    static final double WHEEL_KA = 0.035;
+    static final double SHOT_DROP = 0.15; // fraction of speed taken by a ball
+    static final double SHOT_SECONDS = 0.04; // ball in contact with the wheel
+    static final double GATE_SECONDS = 0.15; // least time between balls from the gate
+    static final double FIXED_CADENCE = 0.6; // seconds between balls without feedback
+    static final double TARGET = 58; // rev/sec, Toss_vel 0.55 of free speed
+
+    // result of one run
+    static final int SHOTS = 0;
+    static final int MEAN = 1;
+    static final int SPREAD = 2;
+    static final int RECOVERY = 3;
+
+    @Test
+    public void closedLoopHoldsTheSpeedAsTheBatterySags() {
+        // open loop power tuned on a fresh battery, how BallToss ran before
+        double[] open = run(false, false);
+        double[] closed = run(true, false);
+
+        assertEquals(open[SHOTS], closed[SHOTS], 0);
+        assertTrue("open loop mean " + open[MEAN], open[MEAN] < TARGET * 0.9);
+        assertEquals(TARGET, closed[MEAN], TARGET * 0.02);
+        assertTrue(closed[SPREAD] + " < " + open[SPREAD], closed[SPREAD] < open[SPREAD]);
+    }
+
+    @Test
+    public void feedingAtSpeedShootsFaster() {
+        double[] fixed = run(true, false);
+        double[] fed = run(true, true);
+
+        assertTrue(fed[SHOTS] + " > 2 * " + fixed[SHOTS], fed[SHOTS] > 2 * fixed[SHOTS]);
+        assertEquals(TARGET, fed[MEAN], TARGET * 0.03);
+        assertTrue("recovery " + fed[RECOVERY], fed[RECOVERY] > 0 && fed[RECOVERY] < 0.3);
+    }
+
+    @Test
+    public void atSpeedAfterTheWindowAndLeftOnAShot() {
+        FlywheelController control = new FlywheelController();
+        control.setGains(0.3, 0.115, 0.6, 0.5, 10);
+        control.setAtSpeed(0.03, 5, 2);
+        control.setTarget(TARGET, 0);
+
+        double t = 0;
+        for (int i = 0; i < 4; i++) {
+            t += LOOP_DT;
+            control.update(t, TARGET, 12);
+        }
+        assertFalse(control.isAtSpeed());
+        t += LOOP_DT;
+        control.update(t, TARGET, 12);
+        assertTrue(control.isAtSpeed());
+        assertEquals(t, control.getSpinUpSeconds(), 1e-9);
+
+        // inside the hysteresis band it stays at speed
+        t += LOOP_DT;
+        control.update(t, TARGET * 0.96, 12);
+        assertTrue(control.isAtSpeed());
+
+        // a ball takes it out, back in once the window is clean again
+        t += LOOP_DT;
+        control.update(t, TARGET * 0.85, 12);
+        assertFalse(control.isAtSpeed());
+        assertEquals(1, control.getShotCount());
+        for (int i = 0; i < 5; i++) {
+            t += LOOP_DT;
+            control.update(t, TARGET, 12);
+        }
+        assertTrue(control.isAtSpeed());
+        assertEquals(5 * LOOP_DT, control.getRecoverySeconds(), 1e-9);
+    }
+
+    @Test
+    public void stoppedWheelGetsNoOutput() {
+        FlywheelController control = new FlywheelController();
+        control.setGains(0.3, 0.115, 0.6, 0.5, 10);
+        control.setTarget(TARGET, 0);
+        control.update(0.02, 0, 12);
+        assertEquals(1, control.getOutput(), 0);
+
+        control.setTarget(0, 0.04);
+        assertEquals(0, control.update(0.06, 30, 12), 0);
+        assertFalse(control.isAtSpeed());
+    }
+
+    // shots, mean speed at a shot, spread of that speed, mean recovery seconds
+    static double[] run(boolean closedLoop, boolean feedAtSpeed) {
+        Random random = new Random(2016);
+        FlywheelController control = new FlywheelController();
+        control.setGains(0.3, 0.115, 0.6, 0.5, 10);
+        control.setAtSpeed(0.03, 5, 2);
+
+        double speed = 0;
+        double output = 0;
+        double lastFeed = -10;
+        double contactLeft = 0;
+        int shots = 0;
+        double sum = 0;
+        double sumSq = 0;
+        double recoverySum = 0;
+        int recoveries = 0;
+        int loops = (int) Math.round(LOOP_DT / PHYSICS_DT);
+        double spinUp = 1.0; // seconds before the first ball
+
+        for (int step = 0; step * PHYSICS_DT < spinUp + RUN_SECONDS; step++) {
+            double t = step * PHYSICS_DT;
+            double battery = 12.5 - 1.5 * t / (spinUp + RUN_SECONDS) - 0.01 * 40 * Math.abs(output);
+
+            if (step % loops == 0) {
+                double measured = speed * (1 + 0.003 * random.nextGaussian());
+                if (closedLoop) {
+                    control.setTarget(TARGET, t);
+                    output = control.update(t, measured, battery);
+                } else {
+                    output = TARGET * WHEEL_KV / 12.5;
+                }
+
+                // gate: a new ball when the cadence allows
+                boolean ready = feedAtSpeed ? control.isAtSpeed() : (t - lastFeed >= FIXED_CADENCE);
+                if (t >= spinUp && contactLeft <= 0 && t - lastFeed >= GATE_SECONDS && ready) {
+                    lastFeed = t;
+                    contactLeft = SHOT_SECONDS;
+                    shots++;
+                    sum += speed;
+                    sumSq += speed * speed;
+                    if (closedLoop && !Double.isNaN(control.getRecoverySeconds()) && shots > 1) {
+                        recoverySum += control.getRecoverySeconds();
+                        recoveries++;
+                    }
+                }
+            }
+
+            double volts = output * battery;
+            double accel = (volts - WHEEL_KS * Math.signum(speed) - WHEEL_KV * speed) / WHEEL_KA;
+            speed += accel * PHYSICS_DT;
+            if (contactLeft > 0) {
+                speed -= speed * SHOT_DROP * PHYSICS_DT / SHOT_SECONDS;
+                contactLeft -= PHYSICS_DT;
+            }
+        }
+
+        double mean = sum / shots;
+        double spread = Math.sqrt(Math.max(0, sumSq / shots - mean * mean));
+        double recovery = (recoveries > 0) ? recoverySum / recoveries : Double.NaN;
+        return new double[] { shots, mean, spread, recovery };
+    }
+}
@@ -0,0 +1,52 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HeadingFallbackTest {
+    @Test
+    public void primaryWhileItReads() {
+        HeadingFallback heading = new HeadingFallback();
+        assertEquals(30, heading.update(true, 30, 75), 1e-9);
+        assertFalse(heading.isUsingFallback());
+    }
+
+    @Test
+    public void noJumpWhenThePrimaryDrops() {
+        HeadingFallback heading = new HeadingFallback();
+        // the gyros started at different times, 45 degrees apart
+        double last = 0;
+        for (int i = 0; i <= 100; i++) {
+            last = heading.update(true, i * 0.5, i * 0.5 - 45);
+        }
+        double first = heading.update(false, 0, 100 * 0.5 - 45);
+        assertEquals(last, first, 1e-9);
+        assertTrue(heading.isUsingFallback());
+
+        // turns on the fallback carry on from there
+        assertEquals(last + 10, heading.update(false, 0, 100 * 0.5 - 45 + 10), 1e-9);
+        assertEquals(1, heading.getFallbacks());
+    }
+
+    @Test
+    public void primaryTakesOverAgain() {
+        HeadingFallback heading = new HeadingFallback();
+        heading.update(true, 90, 0);
+        heading.update(false, 0, 5);
+        assertEquals(100, heading.update(true, 100, 9), 1e-9);
+        assertFalse(heading.isUsingFallback());
+        assertEquals(91, heading.getOffset(), 1e-9);
+
+        heading.update(false, 0, 9);
+        assertEquals(2, heading.getFallbacks());
+    }
+
+    @Test
+    public void fallbackAloneWhenNeverLinedUp() {
+        HeadingFallback heading = new HeadingFallback();
+        assertEquals(12, heading.update(false, 0, 12), 1e-9);
+    }
+}
@@ -0,0 +1,297 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc2016.utils.IntakeArmController.Mode;
+import org.usfirst.frc2016.utils.IntakeArmController.State;
+
+/**
+ * IntakeArmController against a model of the intake arm, a Neo with a 20 amp
+ * limit between a hard stop at the top and the floor.
+ */
+public class IntakeArmControllerTest {
+    static final double DT = 0.001;
+    static final double LOOP_DT = 0.020;
+    static final double FREE_RPM = 5000;
+    static final double STALL_AMPS = 105; // at full power
+    static final double AMP_LIMIT = 20;
+    static final double TAU = 0.05; // seconds, arm speed response
+    static final double TRAVEL = 20; // revs from the stop to the floor
+    static final double PROFILE_VEL = 4000; // rpm
+    static final double PROFILE_ACC = 12000; // rpm/sec
+    static final double POSITION_KP = 0.2; // power per rev, the controller's own loop
+
+    // the arm, x is revs from the stop, the encoder reads x - offset
+    static class Arm {
+        double x;
+        double vel = 0; // rpm
+        double amps = 0;
+        double offset;
+        double floor = -TRAVEL;
+        double friction = 0; // power lost to the gearbox and pivot
+        boolean connected = true;
+        double stopAmpSeconds = 0; // pushing on the stop or the floor
+
+        // smart motion stand in
+        double profilePos;
+        double profileVel = 0;
+        Mode lastMode = Mode.STOP;
+
+        Arm(double x, double offset) {
+            this.x = x;
+            this.offset = offset;
+            profilePos = x - offset;
+        }
+
+        double pos() {
+            return x - offset;
+        }
+
+        // power, or the position target in POSITION
+        void step(Mode mode, double command) {
+            double power = 0;
+            if (mode == Mode.POWER) {
+                power = command;
+            } else if (mode == Mode.POSITION) {
+                if (lastMode != mode) {
+                    profilePos = pos();
+                    profileVel = vel;
+                }
+                power = profile(command);
+            }
+            lastMode = mode;
+            if (!connected) {
+                power = 0;
+            }
+
+            double drive = power - vel / FREE_RPM;
+            drive = Math.max(-AMP_LIMIT / STALL_AMPS, Math.min(AMP_LIMIT / STALL_AMPS, drive));
+            amps = Math.abs(drive) * STALL_AMPS;
+            // friction holds the arm until the motor beats it
+            if (vel == 0 && Math.abs(drive) <= friction) {
+                drive = 0;
+            } else {
+                drive -= Math.signum(vel == 0 ? drive : vel) * friction;
+            }
+            double before = vel;
+            vel += drive * FREE_RPM * DT / TAU;
+            if (before != 0 && Math.signum(vel) != Math.signum(before)) {
+                vel = 0;
+            }
+            x += vel / 60 * DT;
+            if (x >= 0 && vel >= 0) {
+                x = 0;
+                vel = 0;
+            } else if (x <= floor && vel <= 0) {
+                x = floor;
+                vel = 0;
+            }
+            if ((x == 0 || x == floor) && amps > 5) {
+                stopAmpSeconds += amps * DT;
+            }
+        }
+
+        // trapezoid to the target with a P loop on the profile position
+        double profile(double goal) {
+            double err = goal - profilePos;
+            double stopVel = Math.sqrt(2 * PROFILE_ACC / 60 * Math.abs(err)) * 60;
+            double want = Math.signum(err) * Math.min(PROFILE_VEL, stopVel);
+            double dv = PROFILE_ACC * DT;
+            profileVel += Math.max(-dv, Math.min(dv, want - profileVel));
+            profilePos += profileVel / 60 * DT;
+            if (Math.abs(goal - profilePos) < 0.01 && Math.abs(profileVel) < dv) {
+                profilePos = goal;
+                profileVel = 0;
+            }
+            double power = profileVel / FREE_RPM + POSITION_KP * (profilePos - pos());
+            return Math.max(-1, Math.min(1, power));
+        }
+    }
+
+    private IntakeArmController control;
+    private Arm arm;
+
+    @Before
+    public void setUp() {
+        control = newController();
+        // starts part way down, the encoder reads zero
+        arm = new Arm(-7, -7);
+    }
+
+    static IntakeArmController newController() {
+        IntakeArmController control = new IntakeArmController();
+        control.setHoming(0.15, 10, 2.0);
+        control.setStall(100, 15, 5);
+        control.setPositions(-0.5, -18, 0.5);
+        return control;
+    }
+
+    // until the controller is done, seconds taken
+    static double run(IntakeArmController control, Arm arm, double limit) {
+        double t = 0;
+        int loops = (int) Math.round(LOOP_DT / DT);
+        for (int step = 0; t < limit; step++, t += DT) {
+            if (step % loops == 0) {
+                control.update(t, arm.pos(), arm.vel, arm.amps);
+                if (control.takeZero()) {
+                    arm.offset = arm.x;
+                }
+                if (control.isDone()) {
+                    break;
+                }
+            }
+            command(control, arm);
+        }
+        return t;
+    }
+
+    // keeps running after the move ends
+    static void hold(IntakeArmController control, Arm arm, double seconds) {
+        int loops = (int) Math.round(LOOP_DT / DT);
+        for (int step = 0; step * DT < seconds; step++) {
+            if (step % loops == 0) {
+                control.update(step * DT, arm.pos(), arm.vel, arm.amps);
+            }
+            command(control, arm);
+        }
+    }
+
+    static void command(IntakeArmController control, Arm arm) {
+        Mode mode = control.getMode();
+        arm.step(mode, mode == Mode.POSITION ? control.getTarget() : control.getPower());
+    }
+
+    // the old way, fixed power for a fixed time then off
+    static void timed(Arm arm, double power, double seconds) {
+        for (double t = 0; t < seconds; t += DT) {
+            arm.step(Mode.POWER, power);
+        }
+        for (double t = 0; t < 0.5; t += DT) {
+            arm.step(Mode.STOP, 0);
+        }
+    }
+
+    @Test
+    public void homesFromAnUnknownStart() {
+        control.home();
+        run(control, arm, 3);
+        assertEquals(State.HOLDING, control.getState());
+        assertTrue(control.isHomed());
+        assertEquals(0, arm.offset, 0.05);
+        assertEquals(-0.5, arm.pos(), 0.5);
+    }
+
+    @Test
+    public void movesDownAndUpWithoutPushingTheStop() {
+        control.home();
+        run(control, arm, 3);
+
+        control.moveDown();
+        double seconds = run(control, arm, 3);
+        assertTrue(control.isOnTarget());
+        assertTrue("down took " + seconds, seconds < 0.75);
+
+        arm.stopAmpSeconds = 0;
+        control.moveUp();
+        run(control, arm, 3);
+        hold(control, arm, 2);
+        assertTrue(control.isOnTarget());
+        assertTrue(arm.stopAmpSeconds + " amp-seconds", arm.stopAmpSeconds < 0.5);
+    }
+
+    @Test
+    public void moveBeforeHomingHomesFirst() {
+        control.moveDown();
+        run(control, arm, 5);
+        assertEquals(1, control.getHomeCount());
+        assertTrue(control.isOnTarget());
+        assertEquals(-18, arm.pos(), 0.5);
+    }
+
+    @Test
+    public void obstructionStopsTheMotor() {
+        control.home();
+        run(control, arm, 3);
+        arm.floor = -9;
+        arm.stopAmpSeconds = 0;
+        control.moveDown();
+        run(control, arm, 3);
+        hold(control, arm, 2);
+        assertEquals(State.STALLED, control.getState());
+        assertEquals(Mode.STOP, control.getMode());
+        assertEquals(1, control.getStallCount());
+        assertTrue(arm.stopAmpSeconds + " amp-seconds", arm.stopAmpSeconds < 5);
+    }
+
+    @Test
+    public void lostCountsHomeAgainOnTheWayUp() {
+        control.home();
+        run(control, arm, 3);
+        control.moveDown();
+        run(control, arm, 3);
+
+        // the encoder reads 3 revs low
+        arm.offset += 3;
+        control.moveUp();
+        run(control, arm, 3);
+        assertEquals(2, control.getHomeCount());
+        assertTrue(control.isOnTarget());
+        assertEquals(0, arm.offset, 0.05);
+    }
+
+    @Test
+    public void noCurrentGivesUpHoming() {
+        arm.connected = false;
+        control.moveDown();
+        run(control, arm, 5);
+        assertEquals(State.UNHOMED, control.getState());
+        assertEquals(1, control.getHomeFailures());
+        assertFalse(control.isHomed());
+    }
+
+    @Test
+    public void stopWhileHomingIsNotAFailure() {
+        control.moveDown();
+        control.update(0, arm.pos(), 0, 0);
+        control.stop();
+        control.update(5, arm.pos(), 0, 0);
+        assertEquals(State.UNHOMED, control.getState());
+        assertEquals(0, control.getHomeFailures());
+        assertEquals(Mode.STOP, control.getMode());
+    }
+
+    @Test
+    public void endsWhereTheTimedMovesMissed() {
+        for (double friction : new double[] { 0, 0.08 }) {
+            Arm old = new Arm(-0.5, 0);
+            old.friction = friction;
+            timed(old, -0.3, 0.75);
+            double oldDown = old.pos();
+            old.stopAmpSeconds = 0;
+            timed(old, 0.3, 1.0);
+            double oldStop = old.stopAmpSeconds;
+
+            Arm now = new Arm(-0.5, 0);
+            now.friction = friction;
+            IntakeArmController c = newController();
+            c.home();
+            run(c, now, 3);
+            c.moveDown();
+            run(c, now, 3);
+            assertEquals(-18, now.pos(), 0.5);
+            now.stopAmpSeconds = 0;
+            c.moveUp();
+            run(c, now, 3);
+            assertEquals(-0.5, now.pos(), 0.5);
+
+            // the timed moves miss the floor position and lean on the stop at the top
+            assertTrue("timed down ended at " + oldDown, Math.abs(oldDown + 18) > 1);
+            assertTrue("timed up " + oldStop + " amp-seconds", oldStop > 1);
+            assertEquals(0, now.stopAmpSeconds, 0.5);
+        }
+    }
+}
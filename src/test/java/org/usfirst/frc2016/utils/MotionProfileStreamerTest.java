@@ -0,0 +1,113 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class MotionProfileStreamerTest {
+    private static final int POINTS = 3000; // 30 s, more than the top buffer holds
+    private static final int POINT_MS = 10;
+
+    private final ProfileBufferSim left = new ProfileBufferSim();
+    private final ProfileBufferSim right = new ProfileBufferSim();
+    private final MotionProfileStreamer streamer = new MotionProfileStreamer(left, right);
+
+    @After
+    public void stop() {
+        streamer.stop();
+    }
+
+    // left moves forward an inch a point, right moves back
+    private void load() {
+        double[][] pos = new double[2][POINTS];
+        double[][] vel = new double[2][POINTS];
+        for (int i = 0; i < POINTS; i++) {
+            pos[0][i] = i;
+            pos[1][i] = -i;
+            vel[0][i] = 100;
+            vel[1][i] = -100;
+        }
+        streamer.load(pos, vel, POINT_MS);
+    }
+
+    // runs the controllers, topping up like the refill timer
+    private void run(int points) {
+        for (int i = 0; i < points; i++) {
+            streamer.fill();
+            left.run(POINT_MS);
+            right.run(POINT_MS);
+        }
+    }
+
+    @Test
+    public void streamsEveryPointWithTheOffsets() {
+        load();
+        streamer.setOffsets(5, -3);
+        streamer.fill();
+        run(POINTS + 10);
+
+        assertTrue(streamer.isSent());
+        assertTrue(left.isLastReached() && right.isLastReached());
+        assertEquals(POINTS, left.getPointsRun());
+        assertEquals(POINTS, right.getPointsRun());
+        assertFalse(streamer.hasUnderrun());
+        assertEquals(POINTS - 1 + 5, left.getPos(), 1e-9);
+        assertEquals(-(POINTS - 1) - 3, right.getPos(), 1e-9);
+    }
+
+    @Test
+    public void sidesStayInStep() {
+        load();
+        streamer.fill();
+        run(500);
+        assertEquals(left.getPointsRun(), right.getPointsRun());
+        assertEquals(left.getPos(), -right.getPos(), 1e-9);
+    }
+
+    @Test
+    public void restartUsesTheNewOrigin() {
+        load();
+        streamer.fill();
+        run(100);
+        assertEquals(99, left.getPos(), 1e-9);
+
+        // zeroed 2 inches short on the left, 1 inch over on the right
+        streamer.setOffsets(-2, 1);
+        streamer.restart(100);
+        assertEquals(Math.min(POINTS, 100 + ProfileBufferSim.TOP_SIZE), streamer.getPointsSent());
+        run(1);
+        assertEquals(1, left.getPointsRun());
+        assertEquals(100 - 2, left.getPos(), 1e-9);
+        assertEquals(-100 + 1, right.getPos(), 1e-9);
+
+        run(POINTS);
+        assertTrue(left.isLastReached());
+        assertEquals(POINTS - 100, left.getPointsRun());
+        assertEquals(POINTS - 1 - 2, left.getPos(), 1e-9);
+    }
+
+    @Test
+    public void oneStatusReadPerFill() {
+        int[] reads = new int[1];
+        ProfileBufferSim counted = new ProfileBufferSim() {
+            @Override
+            public void readStatus() {
+                reads[0]++;
+            }
+        };
+        MotionProfileStreamer one = new MotionProfileStreamer(counted);
+        one.load(new double[][] { new double[POINTS] }, new double[][] { new double[POINTS] }, POINT_MS);
+        one.fill();
+        one.isReady(10);
+        assertEquals(1, reads[0]);
+        one.stop();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void trajectoryPerBuffer() {
+        streamer.load(new double[1][10], new double[1][10], POINT_MS);
+    }
+}
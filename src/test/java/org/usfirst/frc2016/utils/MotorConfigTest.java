@@ -0,0 +1,114 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc2016.utils.MotorConfig.Param;
+
+public class MotorConfigTest {
+    private CanDeviceSim device;
+    private MotorConfig config;
+
+    @Before
+    public void setUp() {
+        device = CanDeviceSim.sparkMax("Arm");
+        config = new MotorConfig(device);
+    }
+
+    @Test
+    public void setOnlySendsChanges() {
+        config.set(Param.CRUISE_VELOCITY, 3000);
+        config.set(Param.CRUISE_VELOCITY, 3000);
+        assertEquals(1, device.getSettingWrites());
+        assertEquals(1, config.getSkipped());
+        assertEquals(3000, device.getSetting(Param.CRUISE_VELOCITY), 0);
+
+        config.set(Param.CRUISE_VELOCITY, 2000);
+        assertEquals(2, device.getSettingWrites());
+    }
+
+    @Test
+    public void setIsNotAppliedUntilAcknowledged() {
+        config.set(Param.ACCELERATION, 500);
+        assertTrue(Double.isNaN(config.getApplied(Param.ACCELERATION)));
+        assertEquals(500, config.getSent(Param.ACCELERATION), 0);
+
+        // staging the same value gets it acknowledged by the next flush
+        config.stage(Param.ACCELERATION, 500);
+        assertEquals(1, config.getStagedCount());
+        assertEquals(0, config.flush(MotorConfig.BOOT_TIMEOUT_MS));
+        assertEquals(500, config.getApplied(Param.ACCELERATION), 0);
+        assertTrue(Double.isNaN(config.getSent(Param.ACCELERATION)));
+
+        // now it is known, staging it again sends nothing
+        config.stage(Param.ACCELERATION, 500);
+        assertEquals(0, config.getStagedCount());
+    }
+
+    @Test
+    public void failedSetIsSentAgain() {
+        device.failNext(1);
+        config.set(Param.KP, 0.1);
+        assertEquals(1, config.getFailures());
+        assertTrue(Double.isNaN(config.getSent(Param.KP)));
+        assertTrue(Double.isNaN(device.getSetting(Param.KP)));
+
+        config.set(Param.KP, 0.1);
+        assertEquals(2, device.getSettingWrites());
+        assertEquals(0.1, device.getSetting(Param.KP), 0);
+    }
+
+    @Test
+    public void changedValueIsNoLongerApplied() {
+        config.stage(Param.KF, 0.05);
+        config.flush(MotorConfig.BOOT_TIMEOUT_MS);
+        assertEquals(0.05, config.getApplied(Param.KF), 0);
+
+        config.set(Param.KF, 0.06);
+        assertTrue(Double.isNaN(config.getApplied(Param.KF)));
+    }
+
+    @Test
+    public void slowWritesStayStaged() {
+        device.setLatency(30);
+        config.stage(Param.KP, 0.2);
+        config.stage(Param.KI, 0.001);
+        assertEquals(2, config.flush(10));
+        assertEquals(2, config.getStagedCount());
+        assertTrue(Double.isNaN(config.getApplied(Param.KP)));
+
+        assertEquals(0, config.flush(MotorConfig.BOOT_TIMEOUT_MS));
+        assertEquals(0, config.getStagedCount());
+        assertEquals(0.2, config.getApplied(Param.KP), 0);
+    }
+
+    @Test
+    public void forgetSendsEverythingAgain() {
+        config.stage(Param.KP, 0.2);
+        config.flush(MotorConfig.BOOT_TIMEOUT_MS);
+        config.set(Param.CRUISE_VELOCITY, 3000);
+        int writes = device.getSettingWrites();
+
+        // the controller reset
+        config.forget();
+        config.stage(Param.KP, 0.2);
+        config.set(Param.CRUISE_VELOCITY, 3000);
+        assertEquals(writes + 1, device.getSettingWrites());
+        assertEquals(0, config.flush(MotorConfig.BOOT_TIMEOUT_MS));
+        assertEquals(writes + 2, device.getSettingWrites());
+    }
+
+    @Test
+    public void flushAllSendsEveryDevice() {
+        CanDeviceSim other = CanDeviceSim.talonFx("Left1");
+        MotorConfig otherConfig = new MotorConfig(other);
+        config.stage(Param.KP, 0.3);
+        otherConfig.stage(Param.PEAK_FORWARD, 1);
+        MotorConfig.flushAll(MotorConfig.BOOT_TIMEOUT_MS, MotorConfig.BOOT_DEADLINE_MS, MotorConfig.BOOT_PASSES);
+        assertEquals(0.3, device.getSetting(Param.KP), 0);
+        assertEquals(1, other.getSetting(Param.PEAK_FORWARD), 0);
+        assertEquals(0.3, config.getApplied(Param.KP), 0);
+    }
+}
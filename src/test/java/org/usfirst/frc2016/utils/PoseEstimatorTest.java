@@ -0,0 +1,105 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.usfirst.frc2016.math.RigidTransform2;
+import org.usfirst.frc2016.math.Rotation2;
+import org.usfirst.frc2016.math.Vector2;
+
+public class PoseEstimatorTest {
+    private static final double DT = 0.01;
+    private static final double TRACK_WIDTH = 26;
+
+    private PoseEstimator estimator;
+    private double time = 0;
+
+    @Before
+    public void setUp() {
+        estimator = new PoseEstimator(200);
+    }
+
+    private RigidTransform2 sample(double left, double right, double gyroDegrees) {
+        time += DT;
+        return estimator.update(time, left, right, gyroDegrees);
+    }
+
+    @Test
+    public void emptyUntilTheFirstSample() {
+        assertNull(estimator.getPose());
+        sample(0, 0, 0);
+        assertEquals(0, estimator.getPose().translation.x, 1e-9);
+    }
+
+    @Test
+    public void straightLine() {
+        for (int i = 0; i <= 100; i++) {
+            sample(i, i, 0);
+        }
+        RigidTransform2 pose = estimator.getPose();
+        assertEquals(100, pose.translation.x, 1e-9);
+        assertEquals(0, pose.translation.y, 1e-9);
+        assertEquals(0, pose.rotation.toRadians(), 1e-9);
+    }
+
+    @Test
+    public void quarterCircleArc() {
+        // left wheel on the inside of a 50 inch radius turn to the left
+        double radius = 50;
+        int steps = 200;
+        double angle = Math.PI / 2;
+        for (int i = 0; i <= steps; i++) {
+            double a = angle * i / steps;
+            sample(a * (radius - TRACK_WIDTH / 2), a * (radius + TRACK_WIDTH / 2), Math.toDegrees(a));
+        }
+        RigidTransform2 pose = estimator.getPose();
+        assertEquals(radius, pose.translation.x, 0.01);
+        assertEquals(radius, pose.translation.y, 0.01);
+        assertEquals(angle, pose.rotation.toRadians(), 1e-9);
+    }
+
+    @Test
+    public void encoderResetKeepsThePose() {
+        for (int i = 0; i <= 50; i++) {
+            sample(i, i, 0);
+        }
+        // zeroed between samples, then carries on from 0
+        estimator.resetDistances();
+        for (int i = 0; i <= 50; i++) {
+            sample(i, i, 0);
+        }
+        assertEquals(100, estimator.getPose().translation.x, 1e-9);
+    }
+
+    @Test
+    public void encoderResetWithoutRebaseJumps() {
+        sample(50, 50, 0);
+        sample(0, 0, 0);
+        assertEquals(-50, estimator.getPose().translation.x, 1e-9);
+    }
+
+    @Test
+    public void resetPoseIsRelativeToTheGyro() {
+        sample(0, 0, 30);
+        estimator.reset(new RigidTransform2(new Vector2(10, 20), Rotation2.fromDegrees(90)));
+        sample(0, 0, 30);
+        for (int i = 1; i <= 10; i++) {
+            sample(i, i, 30);
+        }
+        RigidTransform2 pose = estimator.getPose();
+        assertEquals(10, pose.translation.x, 1e-9);
+        assertEquals(30, pose.translation.y, 1e-9);
+        assertEquals(Math.PI / 2, pose.rotation.toRadians(), 1e-9);
+    }
+
+    @Test
+    public void poseAtAPastTime() {
+        for (int i = 0; i <= 100; i++) {
+            sample(i, i, 0);
+        }
+        // sample i is at time (i + 1) * DT
+        assertEquals(40.5, estimator.getPose(41.5 * DT).translation.x, 1e-6);
+    }
+}
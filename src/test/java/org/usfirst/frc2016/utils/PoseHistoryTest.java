@@ -0,0 +1,55 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.usfirst.frc2016.math.RigidTransform2;
+import org.usfirst.frc2016.math.Rotation2;
+import org.usfirst.frc2016.math.Vector2;
+
+public class PoseHistoryTest {
+    private static RigidTransform2 pose(double x, double degrees) {
+        return new RigidTransform2(new Vector2(x, 0), Rotation2.fromDegrees(degrees));
+    }
+
+    @Test
+    public void emptyHistory() {
+        PoseHistory history = new PoseHistory(10);
+        assertNull(history.getLatest());
+        assertNull(history.getPose(1));
+        assertEquals(0, history.size());
+    }
+
+    @Test
+    public void interpolatesBetweenPoses() {
+        PoseHistory history = new PoseHistory(10);
+        history.add(1.0, pose(0, 0));
+        history.add(2.0, pose(10, 90));
+        RigidTransform2 mid = history.getPose(1.25);
+        assertEquals(2.5, mid.translation.x, 1e-6);
+        assertEquals(22.5, mid.rotation.toDegrees(), 1e-6);
+    }
+
+    @Test
+    public void clampsOutsideTheHistory() {
+        PoseHistory history = new PoseHistory(10);
+        history.add(1.0, pose(0, 0));
+        history.add(2.0, pose(10, 0));
+        assertEquals(10, history.getPose(5).translation.x, 1e-9);
+        assertEquals(0, history.getPose(0).translation.x, 1e-9);
+    }
+
+    @Test
+    public void wrapsAroundKeepingTheNewest() {
+        PoseHistory history = new PoseHistory(10);
+        for (int i = 0; i < 25; i++) {
+            history.add(i, pose(i, 0));
+        }
+        assertEquals(10, history.size());
+        assertEquals(24, history.getLatest().pose.translation.x, 1e-9);
+        assertEquals(20.5, history.getPose(20.5).translation.x, 1e-9);
+        // older than what is kept gives the oldest usable pose, the oldest slot is next to go
+        assertEquals(16, history.getPose(3).translation.x, 1e-9);
+    }
+}
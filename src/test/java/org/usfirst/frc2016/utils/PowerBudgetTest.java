@@ -0,0 +1,186 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PowerBudgetTest {
+    static final double PERIOD = 0.020;
+    static final double MATCH_SECONDS = 150;
+
+    // battery: open circuit voltage falls with charge used
+    static final double FULL_VOLTS = 12.8;
+    static final double VOLTS_PER_AMP_HOUR = 0.35;
+    static final double RESISTANCE = 0.022; // ohms, a bit worse than the budget assumes
+    static final double BROWNOUT_VOLTS = 6.8;
+
+    static final String[] NAMES = { "Drive", "Toss", "Climber", "IntakeArm", "IntakeBrush" };
+    static final int[] PRIORITIES = { 0, 1, 1, 2, 3 };
+    static final double[] MIN_AMPS = { 40, 10, 10, 5, 5 };
+
+    @Test
+    public void managedMatchStaysOutOfBrownout() {
+        double[] free = run(false);
+        double[] managed = run(true);
+
+        assertTrue("unmanaged should brown out, min " + free[0], free[1] > 0);
+        assertEquals(0, managed[1], 1e-9);
+        assertTrue("min " + managed[0], managed[0] > BROWNOUT_VOLTS);
+        // the drive comes first and is never shed
+        assertEquals(0, managed[2], 1e-9);
+        assertTrue(managed[2 + NAMES.length] > managed[2 + NAMES.length + 4]);
+    }
+
+    @Test
+    public void replaysTheSame() {
+        assertArrayEquals(run(true), run(true), 0);
+    }
+
+    @Test
+    public void priorityOrder() {
+        PowerBudget budget = new PowerBudget();
+        budget.setBattery(0.020, 8.0, 5, 400);
+        int drive = budget.register("Drive", 0, 40);
+        int toss = budget.register("Toss", 1, 10);
+        int brush = budget.register("Brush", 3, 5);
+
+        // (12 - 8) / 0.02 = 200 A less 5 reserve
+        budget.setDemand(drive, 150);
+        budget.setDemand(toss, 60);
+        budget.setDemand(brush, 20);
+        budget.update(12, 0);
+        assertEquals(195, budget.getBudget(), 1e-9);
+        assertEquals(150, budget.getAllowed(drive), 1e-9);
+        assertEquals(45, budget.getAllowed(toss), 1e-9);
+        assertTrue(budget.isShed(brush));
+        assertFalse(budget.isLimited(drive));
+        assertTrue(budget.isLimited(toss));
+    }
+
+    @Test
+    public void shedLoadNeedsMarginToRestart() {
+        PowerBudget budget = new PowerBudget();
+        budget.setBattery(0.020, 8.0, 5, 400);
+        budget.setFilter(1.0, 0.25);
+        int drive = budget.register("Drive", 0, 40);
+        int brush = budget.register("Brush", 1, 20);
+        budget.setDemand(drive, 190);
+        budget.setDemand(brush, 30);
+        budget.update(12, 0);
+        assertTrue(budget.isShed(brush));
+
+        // 22 A left is over the minimum but not the 25 A restart
+        budget.setDemand(drive, 173);
+        budget.update(12, 0);
+        assertTrue(budget.isShed(brush));
+
+        budget.setDemand(drive, 165);
+        budget.update(12, 0);
+        assertFalse(budget.isShed(brush));
+        assertEquals(30, budget.getAllowed(brush), 1e-9);
+    }
+
+    @Test
+    public void currentLimits() {
+        PowerBudget budget = new PowerBudget();
+        budget.setBattery(0.020, 8.0, 5, 400);
+        int drive = budget.register("Drive", 0, 40);
+        int arm = budget.register("Arm", 1, 5);
+
+        budget.setDemand(drive, 100);
+        budget.setDemand(arm, 10);
+        budget.update(12, 0);
+        assertEquals(60, budget.getCurrentLimit(drive, 4, 60, 10), 1e-9);
+        assertEquals(0, budget.getCurrentLimit(arm, 1, 0, 5), 1e-9);
+
+        // 195 A for the drive's 4 motors is 48.75 each, rounded down to 45
+        budget.setDemand(drive, 300);
+        budget.update(12, 0);
+        assertEquals(45, budget.getCurrentLimit(drive, 4, 60, 10), 1e-9);
+        assertEquals(PowerBudget.SHED_AMPS, budget.getCurrentLimit(arm, 1, 0, 5), 1e-9);
+
+        // never under the motor's minimum while it runs
+        budget.setDemand(drive, 800);
+        budget.update(9, 0);
+        assertEquals(10, budget.getCurrentLimit(drive, 4, 60, 10), 1e-9);
+
+        // loads that aren't managed keep their own limit
+        assertEquals(30, budget.getCurrentLimit(-1, 1, 30, 5), 1e-9);
+    }
+
+    // min volts, seconds browned out, shed loops per load, percent served per load
+    static double[] run(boolean managed) {
+        PowerBudget budget = new PowerBudget();
+        budget.setBattery(0.020, 8.0, 5, 400);
+        int[] ids = new int[NAMES.length];
+        for (int i = 0; i < NAMES.length; i++) {
+            ids[i] = budget.register(NAMES[i], PRIORITIES[i], MIN_AMPS[i]);
+        }
+
+        double[] result = new double[2 + 2 * NAMES.length];
+        double[] demanded = new double[NAMES.length];
+        double[] served = new double[NAMES.length];
+        double[] demand = new double[NAMES.length];
+        double ampHours = 0;
+        double minVolts = FULL_VOLTS;
+        double brownSeconds = 0;
+        double lastAmps = 0;
+        double volts = FULL_VOLTS;
+
+        for (int step = 0; step * PERIOD < MATCH_SECONDS; step++) {
+            double t = step * PERIOD;
+            loads(t, demand);
+
+            double total = 0;
+            if (managed) {
+                for (int i = 0; i < NAMES.length; i++) {
+                    budget.setDemand(ids[i], demand[i]);
+                }
+                budget.update(volts, lastAmps);
+            }
+            for (int i = 0; i < NAMES.length; i++) {
+                double amps = managed ? budget.getAllowed(ids[i]) : demand[i];
+                if (managed && budget.isShed(ids[i])) {
+                    result[2 + i]++;
+                }
+                demanded[i] += demand[i];
+                served[i] += amps;
+                total += amps;
+            }
+            total += 5; // roboRIO, radio
+
+            double open = FULL_VOLTS - ampHours * VOLTS_PER_AMP_HOUR;
+            volts = open - total * RESISTANCE;
+            ampHours += total * PERIOD / 3600;
+            lastAmps = total - 5;
+
+            minVolts = Math.min(minVolts, volts);
+            if (volts < BROWNOUT_VOLTS) {
+                brownSeconds += PERIOD;
+            }
+        }
+        result[0] = minVolts;
+        result[1] = brownSeconds;
+        for (int i = 0; i < NAMES.length; i++) {
+            result[2 + NAMES.length + i] = (demanded[i] > 0) ? 100 * served[i] / demanded[i] : 100;
+        }
+        return result;
+    }
+
+    // scripted match: sprints every 4 seconds, shooting, intake and a climb at the end
+    static void loads(double t, double[] demand) {
+        double cycle = t % 4;
+        // drive: 4 motors near stall when starting a sprint, then cruising
+        demand[0] = (cycle < 0.4) ? 320 : (cycle < 2.5) ? 120 : 30;
+        // shooter spins up every 8 seconds
+        demand[1] = (t % 8 > 6) ? ((t % 8 < 6.5) ? 80 : 35) : 0;
+        // climber in the last 20 seconds
+        demand[2] = (t > 130) ? 90 : 0;
+        // intake arm moves now and then, the brush runs most of the time
+        demand[3] = (t % 10 < 0.6) ? 30 : 0;
+        demand[4] = (t < 130) ? 25 : 0;
+    }
+}
@@ -0,0 +1,105 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RamseteFollowerTest {
+    private static final double PERIOD = 0.01;
+    private static final double TRACK_WIDTH = 25;
+
+    // 60 inches straight then a 90 degree left arc, trapezoid speed
+    private static PathTrajectory straightThenArc() {
+        int count = 400;
+        double[] left = new double[count];
+        double[] right = new double[count];
+        double straight = 60;
+        double radius = 40;
+        double arc = radius * Math.PI / 2;
+        double total = straight + arc;
+        for (int i = 0; i < count; i++) {
+            double t = (double) i / (count - 1);
+            double s = total * (t < 0.5 ? 2 * t * t : 1 - 2 * (1 - t) * (1 - t));
+            if (s <= straight) {
+                left[i] = s;
+                right[i] = s;
+            } else {
+                double turn = (s - straight) / radius;
+                left[i] = straight + turn * (radius - TRACK_WIDTH / 2);
+                right[i] = straight + turn * (radius + TRACK_WIDTH / 2);
+            }
+        }
+        return PathTrajectory.fromWheelPositions(PERIOD, left, right, TRACK_WIDTH);
+    }
+
+    private static RamseteFollower follow(PathTrajectory path, DiffDriveSim robot) {
+        RamseteFollower follower = new RamseteFollower(0.0013, 0.7, TRACK_WIDTH);
+        double time = 0;
+        while (time < path.getDuration() + 1.0) {
+            follower.update(path, time, robot.getX(), robot.getY(), robot.getHeading());
+            robot.step(follower.getLeftVelocity(), follower.getRightVelocity(), PERIOD);
+            time += PERIOD;
+        }
+        follower.update(path, time, robot.getX(), robot.getY(), robot.getHeading());
+        return follower;
+    }
+
+    @Test
+    public void simDrivesStraightAndTurns() {
+        DiffDriveSim robot = new DiffDriveSim(TRACK_WIDTH);
+        robot.setResponse(0, 1, 1);
+        for (int i = 0; i < 100; i++) {
+            robot.step(10, 10, PERIOD);
+        }
+        assertEquals(10, robot.getX(), 1e-9);
+        assertEquals(0, robot.getY(), 1e-9);
+
+        // half a turn in place
+        double wheel = Math.PI * TRACK_WIDTH / 2;
+        for (int i = 0; i < 100; i++) {
+            robot.step(-wheel, wheel, PERIOD);
+        }
+        assertEquals(Math.PI, robot.getHeading(), 1e-9);
+        assertEquals(10, robot.getX(), 1e-9);
+    }
+
+    @Test
+    public void followsThePath() {
+        PathTrajectory path = straightThenArc();
+        DiffDriveSim robot = new DiffDriveSim(TRACK_WIDTH);
+        RamseteFollower follower = follow(path, robot);
+
+        int end = path.size() - 1;
+        assertEquals(path.getX(end), robot.getX(), 2.0);
+        assertEquals(path.getY(end), robot.getY(), 2.0);
+        assertEquals(path.getHeading(end), robot.getHeading(), 0.05);
+        assertTrue(follower.isAtEnd(path, 2.0));
+    }
+
+    @Test
+    public void correctsWornTread() {
+        PathTrajectory path = straightThenArc();
+        DiffDriveSim robot = new DiffDriveSim(TRACK_WIDTH);
+        // left side 8% slow, open loop this ends well off the path
+        robot.setResponse(0.05, 0.92, 1.0);
+        RamseteFollower follower = follow(path, robot);
+
+        int end = path.size() - 1;
+        double miss = Math.hypot(path.getX(end) - robot.getX(), path.getY(end) - robot.getY());
+        assertTrue("missed the end by " + miss, miss < 3.0);
+        assertTrue(follower.isAtEnd(path, 3.0));
+    }
+
+    @Test
+    public void startsOffThePath() {
+        PathTrajectory path = straightThenArc();
+        DiffDriveSim robot = new DiffDriveSim(TRACK_WIDTH);
+        robot.setPose(0, 4, 0.1);
+        follow(path, robot);
+
+        int end = path.size() - 1;
+        double miss = Math.hypot(path.getX(end) - robot.getX(), path.getY(end) - robot.getY());
+        assertTrue("missed the end by " + miss, miss < 3.0);
+    }
+}
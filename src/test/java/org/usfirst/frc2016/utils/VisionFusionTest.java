@@ -0,0 +1,131 @@
+package org.usfirst.frc2016.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.usfirst.frc2016.math.RigidTransform2;
+import org.usfirst.frc2016.math.Vector2;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Replays a robot driving an arc past a target. The camera frames are taken
+ * from the true pose at capture time and arrive pipeline + capture latency
+ * later, the fused target should land on the real one.
+ */
+public class VisionFusionTest {
+    private static final double TARGET_X = 200;
+    private static final double TARGET_Y = 50;
+    private static final double CAMERA_HEIGHT = 30;
+    private static final double CAMERA_PITCH = 20;
+    private static final double TARGET_HEIGHT = 90;
+    private static final double TRACK_WIDTH = 26;
+    private static final double SPEED = 40; // inches/sec
+    private static final double TURN = Math.toRadians(30); // radians/sec, counter-clockwise
+    private static final double PIPELINE_MS = 25;
+    private static final double CAPTURE_MS = 11;
+
+    private PoseEstimator poses;
+    private VisionFusion fusion;
+
+    @Before
+    public void setUp() {
+        poses = new PoseEstimator(200);
+        fusion = new VisionFusion(poses);
+        fusion.setCamera(CAMERA_HEIGHT, CAMERA_PITCH, TARGET_HEIGHT);
+        fusion.setCaptureLatency(CAPTURE_MS);
+        fusion.setFilter(0.5, 0.5);
+    }
+
+    static double heading(double t) {
+        return TURN * t;
+    }
+
+    static double x(double t) {
+        return SPEED / TURN * Math.sin(heading(t));
+    }
+
+    static double y(double t) {
+        return SPEED / TURN * (1 - Math.cos(heading(t)));
+    }
+
+    // tx and ty the camera sees at time t
+    static double[] frame(double t) {
+        double dx = TARGET_X - x(t);
+        double dy = TARGET_Y - y(t);
+        double range = Math.hypot(dx, dy);
+        double bearing = Math.atan2(dy, dx) - heading(t);
+        double tx = -Math.toDegrees(Math.IEEEremainder(bearing, 2 * Math.PI));
+        double ty = Math.toDegrees(Math.atan((TARGET_HEIGHT - CAMERA_HEIGHT) / range)) - CAMERA_PITCH;
+        return new double[] { tx, ty };
+    }
+
+    // 100 Hz pose samples and 30 Hz frames for the given time
+    private int replay(double seconds) {
+        double latency = (PIPELINE_MS + CAPTURE_MS) / 1000.0;
+        double nextCapture = 0.1;
+        int added = 0;
+        for (int i = 0; i * 0.01 <= seconds; i++) {
+            double t = i * 0.01;
+            double left = (SPEED - TURN * TRACK_WIDTH / 2) * t;
+            double right = (SPEED + TURN * TRACK_WIDTH / 2) * t;
+            poses.update(t, left, right, Math.toDegrees(heading(t)));
+            while (nextCapture + latency <= t) {
+                double[] f = frame(nextCapture);
+                if (fusion.addFrame(nextCapture + latency, PIPELINE_MS, f[0], f[1])) {
+                    added++;
+                }
+                nextCapture += 0.033;
+            }
+        }
+        return added;
+    }
+
+    @Test
+    public void targetLandsOnTheRealOne() {
+        int added = replay(3.0);
+        assertTrue("frames fused " + added, added > 80);
+
+        Vector2 target = fusion.getTarget();
+        assertEquals(TARGET_X, target.x, 1.0);
+        assertEquals(TARGET_Y, target.y, 1.0);
+    }
+
+    @Test
+    public void bearingFromTheCurrentPose() {
+        replay(3.0);
+        RigidTransform2 pose = poses.getPose();
+        // the robot has turned 90 degrees since the first frame
+        assertEquals(frame(3.0)[0], fusion.getBearing(pose), 0.5);
+        double range = Math.hypot(TARGET_X - x(3.0), TARGET_Y - y(3.0));
+        assertEquals(range, fusion.getDistance(pose), 1.0);
+        assertTrue(fusion.hasTarget(3.0));
+        assertFalse(fusion.hasTarget(4.0));
+    }
+
+    @Test
+    public void framesWithoutAPoseAreDropped() {
+        assertFalse(fusion.addFrame(1.0, PIPELINE_MS, 0, 0));
+        assertNull(fusion.getTarget());
+    }
+
+    @Test
+    public void oldFramesAreDropped() {
+        poses.update(1.0, 0, 0, 0);
+        assertTrue(fusion.addFrame(1.1, PIPELINE_MS, 0, 0));
+        // the same frame again, and one captured earlier
+        assertFalse(fusion.addFrame(1.1, PIPELINE_MS, 5, 0));
+        assertFalse(fusion.addFrame(1.05, PIPELINE_MS, 5, 0));
+        assertEquals(1, fusion.getFrameCount());
+    }
+
+    @Test
+    public void noTargetWithoutTheHeights() {
+        fusion.setCamera(0, 0, 0);
+        assertFalse(fusion.isConfigured());
+        assertEquals(0, replay(1.0));
+        assertNull(fusion.getTarget());
+    }
+}